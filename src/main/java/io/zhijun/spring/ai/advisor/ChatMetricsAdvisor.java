@@ -0,0 +1,288 @@
+package io.zhijun.spring.ai.advisor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天指标 Advisor
+ * 按接口、ChatClient 配置档、模型和配置文件记录 token 用量、端到端耗时、流式首 token 耗时和 RAG 检索耗时
+ * <p>
+ * 作为最外层 Advisor 执行；检索耗时由 {@link #retrievalStart(int)} 和 {@link #retrievalEnd(int)}
+ * 两个标记 Advisor 夹住 QuestionAnswerAdvisor 测得；百分位和直方图在
+ * management.metrics.distribution 中按 restaurant.ai.chat 前缀配置
+ */
+public class ChatMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+    /**
+     * 请求上下文中指定接口标签的键，未指定时使用当前 HTTP 请求的路由模板
+     */
+    public static final String ENDPOINT = "chat_metrics_endpoint";
+
+    private static final String METRICS = "chat_metrics";
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final String profile;
+    private final String client;
+
+    /**
+     * @param meterRegistry 指标注册表
+     * @param profile       当前激活的 Spring 配置文件（模型提供方）
+     * @param client        ChatClient 配置档名称
+     */
+    public ChatMetricsAdvisor(MeterRegistry meterRegistry, String profile, String client) {
+        this.meterRegistry = meterRegistry;
+        this.profile = profile;
+        this.client = client;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        CallMetrics metrics = new CallMetrics(endpointOf(request), modelOf(request), "call");
+        String outcome = "error";
+        try {
+            ChatClientResponse response = chain.nextCall(withMetrics(request, metrics));
+            metrics.observe(response);
+            outcome = "success";
+            return response;
+        } finally {
+            metrics.finish(outcome);
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        // 接口标签在订阅前解析，订阅后可能已不在请求线程上
+        String endpoint = endpointOf(request);
+        return Flux.defer(() -> {
+            CallMetrics metrics = new CallMetrics(endpoint, modelOf(request), "stream");
+            return chain.nextStream(withMetrics(request, metrics))
+                    .doOnNext(metrics::observe)
+                    .doFinally(signal -> metrics.finish(outcomeOf(signal)));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "ChatMetricsAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * 检索开始标记，order 应紧邻 QuestionAnswerAdvisor 之前
+     */
+    public static Advisor retrievalStart(int order) {
+        return new RetrievalMarker("ChatMetricsRetrievalStart", order, CallMetrics::retrievalStarted);
+    }
+
+    /**
+     * 检索结束标记，order 应紧邻 QuestionAnswerAdvisor 之后
+     */
+    public static Advisor retrievalEnd(int order) {
+        return new RetrievalMarker("ChatMetricsRetrievalEnd", order, CallMetrics::retrievalFinished);
+    }
+
+    private static ChatClientRequest withMetrics(ChatClientRequest request, CallMetrics metrics) {
+        return request.mutate().context(METRICS, metrics).build();
+    }
+
+    private static String outcomeOf(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case CANCEL -> "cancelled";
+            default -> "error";
+        };
+    }
+
+    private static String endpointOf(ChatClientRequest request) {
+        Object endpoint = request.context().get(ENDPOINT);
+        if (endpoint != null) {
+            return endpoint.toString();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest httpRequest = servletAttributes.getRequest();
+            Object pattern = httpRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return pattern != null ? pattern.toString() : httpRequest.getRequestURI();
+        }
+        return UNKNOWN;
+    }
+
+    private static String modelOf(ChatClientRequest request) {
+        ChatOptions options = request.prompt().getOptions();
+        return options != null && StringUtils.hasText(options.getModel()) ? options.getModel() : UNKNOWN;
+    }
+
+    /**
+     * 标记 Advisor 的动作
+     */
+    private interface Marker {
+        void mark(CallMetrics metrics);
+    }
+
+    /**
+     * 检索耗时标记 Advisor，自身不修改请求
+     */
+    private record RetrievalMarker(String name, int order, Marker marker) implements CallAdvisor, StreamAdvisor {
+
+        @Override
+        public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+            mark(request);
+            return chain.nextCall(request);
+        }
+
+        @Override
+        public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+            return Flux.defer(() -> {
+                mark(request);
+                return chain.nextStream(request);
+            });
+        }
+
+        private void mark(ChatClientRequest request) {
+            if (request.context().get(METRICS) instanceof CallMetrics metrics) {
+                marker.mark(metrics);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+    }
+
+    /**
+     * 单次调用的指标状态，通过请求上下文在 Advisor 之间共享
+     */
+    private class CallMetrics {
+
+        private final String endpoint;
+        private final String mode;
+        private final long startNanos = System.nanoTime();
+        private volatile String model;
+        private volatile long retrievalStartNanos;
+        private volatile long firstTokenNanos;
+        private volatile Integer promptTokens;
+        private volatile Integer completionTokens;
+
+        CallMetrics(String endpoint, String model, String mode) {
+            this.endpoint = endpoint;
+            this.model = model;
+            this.mode = mode;
+        }
+
+        void retrievalStarted() {
+            retrievalStartNanos = System.nanoTime();
+        }
+
+        void retrievalFinished() {
+            if (retrievalStartNanos == 0) {
+                return;
+            }
+            // 检索发生在模型响应之前，此时模型名未知，不作为标签
+            Timer.builder("restaurant.ai.chat.retrieval")
+                    .description("RAG 检索耗时")
+                    .tags("endpoint", endpoint, "profile", profile, "client", client)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - retrievalStartNanos, TimeUnit.NANOSECONDS);
+            retrievalStartNanos = 0;
+        }
+
+        /**
+         * 流式响应中模型名和 token 用量通常只出现在部分片段上，取最后出现的值
+         */
+        void observe(ChatClientResponse response) {
+            if (firstTokenNanos == 0 && "stream".equals(mode)) {
+                firstTokenNanos = System.nanoTime();
+            }
+            if (Boolean.TRUE.equals(response.context().get(SemanticCacheAdvisor.CACHE_HIT))) {
+                model = "semantic-cache";
+                return;
+            }
+            ChatResponse chatResponse = response.chatResponse();
+            if (chatResponse == null || chatResponse.getMetadata() == null) {
+                return;
+            }
+            if (StringUtils.hasText(chatResponse.getMetadata().getModel())) {
+                model = chatResponse.getMetadata().getModel();
+            }
+            Usage usage = chatResponse.getMetadata().getUsage();
+            if (usage != null) {
+                if (usage.getPromptTokens() != null && usage.getPromptTokens() > 0) {
+                    promptTokens = usage.getPromptTokens();
+                }
+                if (usage.getCompletionTokens() != null && usage.getCompletionTokens() > 0) {
+                    completionTokens = usage.getCompletionTokens();
+                }
+            }
+        }
+
+        void finish(String outcome) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            Tags tags = tags();
+            if (firstTokenNanos != 0) {
+                Timer.builder("restaurant.ai.chat.ttft")
+                        .description("流式响应首 token 耗时")
+                        .tags(tags)
+                        .register(meterRegistry)
+                        .record(firstTokenNanos - startNanos, TimeUnit.NANOSECONDS);
+            }
+            recordTokens(tags, "prompt", promptTokens);
+            recordTokens(tags, "completion", completionTokens);
+            // 耗时最后记录，出现 latency 时本次调用的其他指标都已记录
+            Timer.builder("restaurant.ai.chat.latency")
+                    .description("ChatClient 端到端耗时")
+                    .tags(tags.and("mode", mode, "outcome", outcome))
+                    .register(meterRegistry)
+                    .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void recordTokens(Tags tags, String type, Integer tokens) {
+            if (tokens == null) {
+                return;
+            }
+            DistributionSummary.builder("restaurant.ai.chat.tokens")
+                    .description("单次调用的 token 数")
+                    .baseUnit("tokens")
+                    .tags(tags.and("type", type))
+                    .register(meterRegistry)
+                    .record(tokens);
+        }
+
+        private Tags tags() {
+            return Tags.of("endpoint", endpoint, "model", model, "profile", profile, "client", client);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.zhijun.spring.ai.advisor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.cache.CoalescingMeter;
+import io.zhijun.spring.ai.cache.SingleFlight;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.core.Ordered;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.TreeSet;
+
+/**
+ * 请求合并 Advisor
+ * 放在调用链最内层，以渲染后的完整提示词（全部消息和模型参数）为键，相同的并发请求只调用一次模型，
+ * 其余请求共享同一个响应；请求结束即移除，不缓存结果
+ * <p>
+ * 带图片等媒体或工具上下文的请求不参与合并；流式请求不经过该 Advisor
+ */
+public class CoalescingAdvisor implements CallAdvisor {
+
+    /**
+     * 在 Spring AI 内置的模型调用 Advisor 之前执行
+     */
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1000;
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final SingleFlight<String, ChatClientResponse> singleFlight = new SingleFlight<>();
+    private final CoalescingMeter meter;
+
+    public CoalescingAdvisor(MeterRegistry meterRegistry) {
+        this.meter = new CoalescingMeter(meterRegistry, "chat", singleFlight);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        String key = key(request);
+        if (key == null) {
+            return chain.nextCall(request);
+        }
+        ChatClientResponse shared = singleFlight.execute(key, () -> chain.nextCall(request), meter);
+        // 响应内容共享，上下文使用各自请求的
+        return ChatClientResponse.builder()
+                .chatResponse(shared.chatResponse())
+                .context(request.context())
+                .build();
+    }
+
+    /**
+     * 合并键
+     * 结构化输出的格式说明在本 Advisor 之后才追加到提示词中，需要从上下文中取出一并计入
+     *
+     * @return 提示词和输出格式的 SHA-256，不参与合并时返回 null
+     */
+    static String key(ChatClientRequest request) {
+        String promptKey = key(request.prompt());
+        if (promptKey == null) {
+            return null;
+        }
+        Object format = request.context().get(ChatClientAttributes.OUTPUT_FORMAT.getKey());
+        Object schema = request.context().get(ChatClientAttributes.STRUCTURED_OUTPUT_SCHEMA.getKey());
+        if (format == null && schema == null) {
+            return promptKey;
+        }
+        return sha256(promptKey + SEPARATOR + format + SEPARATOR + schema);
+    }
+
+    static String key(Prompt prompt) {
+        StringBuilder text = new StringBuilder();
+        for (Message message : prompt.getInstructions()) {
+            if (message instanceof UserMessage user && !user.getMedia().isEmpty()) {
+                return null;
+            }
+            text.append(message.getMessageType()).append(SEPARATOR).append(message.getText()).append(SEPARATOR);
+            if (message instanceof AssistantMessage assistant) {
+                assistant.getToolCalls().forEach(call -> text.append(call.id()).append(SEPARATOR)
+                        .append(call.name()).append(SEPARATOR).append(call.arguments()).append(SEPARATOR));
+            } else if (message instanceof ToolResponseMessage toolResponse) {
+                toolResponse.getResponses().forEach(response -> text.append(response.id()).append(SEPARATOR)
+                        .append(response.name()).append(SEPARATOR).append(response.responseData()).append(SEPARATOR));
+            }
+        }
+
+        ChatOptions options = prompt.getOptions();
+        if (options != null) {
+            text.append(options.getClass().getName()).append(SEPARATOR)
+                    .append(options.getModel()).append(SEPARATOR)
+                    .append(options.getTemperature()).append(SEPARATOR)
+                    .append(options.getTopP()).append(SEPARATOR)
+                    .append(options.getTopK()).append(SEPARATOR)
+                    .append(options.getMaxTokens()).append(SEPARATOR)
+                    .append(options.getFrequencyPenalty()).append(SEPARATOR)
+                    .append(options.getPresencePenalty()).append(SEPARATOR)
+                    .append(options.getStopSequences()).append(SEPARATOR);
+            if (options instanceof ToolCallingChatOptions toolOptions) {
+                if (toolOptions.getToolContext() != null && !toolOptions.getToolContext().isEmpty()) {
+                    return null;
+                }
+                TreeSet<String> tools = new TreeSet<>(toolOptions.getToolNames());
+                for (ToolCallback callback : toolOptions.getToolCallbacks()) {
+                    tools.add(callback.getToolDefinition().name());
+                }
+                text.append(tools).append(SEPARATOR).append(toolOptions.getInternalToolExecutionEnabled());
+            }
+        }
+        return sha256(text.toString());
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 共享响应的请求占比
+     */
+    public double coalescingRatio() {
+        return meter.ratio();
+    }
+
+    @Override
+    public String getName() {
+        return "CoalescingAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,55 @@
+package io.zhijun.spring.ai.advisor;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import reactor.core.publisher.Flux;
+
+/**
+ * 按会话隔离的记忆 Advisor
+ * 只有请求参数中携带 {@link ChatMemory#CONVERSATION_ID} 时才读写聊天记忆；
+ * 未携带会话 ID 的单次调用（推荐、菜品生成等）不会写入默认会话，也不会读到其他请求的历史
+ */
+public class ConversationMemoryAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final MessageChatMemoryAdvisor delegate;
+
+    public ConversationMemoryAdvisor(ChatMemory chatMemory) {
+        this.delegate = MessageChatMemoryAdvisor.builder(chatMemory).build();
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!hasConversation(request)) {
+            return chain.nextCall(request);
+        }
+        return delegate.adviseCall(request, chain);
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        if (!hasConversation(request)) {
+            return chain.nextStream(request);
+        }
+        return delegate.adviseStream(request, chain);
+    }
+
+    @Override
+    public String getName() {
+        return "ConversationMemoryAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
+    private static boolean hasConversation(ChatClientRequest request) {
+        return request.context().get(ChatMemory.CONVERSATION_ID) != null;
+    }
+}
@@ -0,0 +1,157 @@
+package io.zhijun.spring.ai.advisor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.cache.SemanticResponseCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.core.Ordered;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 语义缓存 Advisor
+ * 对用户问题做向量化，命中相似问题时直接返回缓存回答，跳过检索和模型调用。
+ * 带会话 ID 的请求不参与缓存：回答依赖会话历史，且命中时记忆 Advisor 不会执行，本轮对话不会写入记忆；
+ * 带工具的请求也不参与缓存：回答依赖工具返回的实时数据，命中时工具不会被调用
+ */
+@Slf4j
+public class SemanticCacheAdvisor implements CallAdvisor {
+
+    /**
+     * 响应上下文中标记是否命中缓存的键
+     */
+    public static final String CACHE_HIT = "semantic_cache_hit";
+
+    /**
+     * 在记忆和 RAG Advisor 之前执行，命中时两者都不会触发
+     */
+    private static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 500;
+
+    private final EmbeddingModel embeddingModel;
+    private final SemanticResponseCache cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public SemanticCacheAdvisor(EmbeddingModel embeddingModel, SemanticResponseCache cache, MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.cache = cache;
+        this.hitCounter = Counter.builder("restaurant.ai.semantic.cache")
+                .description("语义缓存查询次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("restaurant.ai.semantic.cache")
+                .description("语义缓存查询次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        String question = userText(request);
+        if (!StringUtils.hasText(question) || !cacheable(request)) {
+            return chain.nextCall(request);
+        }
+
+        float[] embedding;
+        try {
+            embedding = embeddingModel.embed(question);
+        } catch (Exception e) {
+            log.warn("语义缓存向量化失败，跳过缓存: {}", e.getMessage());
+            return chain.nextCall(request);
+        }
+
+        String scope = scopeOf(request);
+        Optional<String> cached = cache.lookup(scope, embedding);
+        if (cached.isPresent()) {
+            hitCounter.increment();
+            log.debug("语义缓存命中: {}", question);
+            ChatResponse chatResponse = ChatResponse.builder()
+                    .generations(List.of(new Generation(new AssistantMessage(cached.get()))))
+                    .build();
+            return ChatClientResponse.builder()
+                    .chatResponse(chatResponse)
+                    .context(request.context())
+                    .context(CACHE_HIT, true)
+                    .build();
+        }
+
+        missCounter.increment();
+        ChatClientResponse response = chain.nextCall(request);
+        String answer = answerText(response);
+        if (StringUtils.hasText(answer)) {
+            cache.put(scope, embedding, answer);
+        }
+        return response;
+    }
+
+    @Override
+    public String getName() {
+        return "SemanticCacheAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * 个性化过滤的结果依赖过滤条件，多轮对话的回答依赖会话历史，工具调用的回答依赖实时数据，都不能与其他请求共享
+     */
+    private boolean cacheable(ChatClientRequest request) {
+        return !request.context().containsKey(QuestionAnswerAdvisor.FILTER_EXPRESSION)
+                && request.context().get(ChatMemory.CONVERSATION_ID) == null
+                && !hasTools(request);
+    }
+
+    private boolean hasTools(ChatClientRequest request) {
+        return request.prompt().getOptions() instanceof ToolCallingChatOptions options
+                && (!CollectionUtils.isEmpty(options.getToolCallbacks())
+                || !CollectionUtils.isEmpty(options.getToolNames()));
+    }
+
+    private String userText(ChatClientRequest request) {
+        UserMessage userMessage = request.prompt().getUserMessage();
+        return userMessage != null ? userMessage.getText() : null;
+    }
+
+    /**
+     * 系统提示词和输出格式不同的请求不能共享回答
+     */
+    private String scopeOf(ChatClientRequest request) {
+        String system = request.prompt().getSystemMessages().stream()
+                .map(SystemMessage::getText)
+                .collect(Collectors.joining("\n"));
+        Object format = request.context().get(ChatClientAttributes.OUTPUT_FORMAT.getKey());
+        return system + "\u0000" + (format != null ? format : "");
+    }
+
+    private String answerText(ChatClientResponse response) {
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse == null || chatResponse.getResult() == null) {
+            return null;
+        }
+        AssistantMessage output = chatResponse.getResult().getOutput();
+        if (output == null || output.hasToolCalls()) {
+            return null;
+        }
+        return output.getText();
+    }
+}
@@ -0,0 +1,251 @@
+package io.zhijun.spring.ai.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 带缓存的 EmbeddingModel 装饰器
+ * 第一级为堆内 LRU，第二级为 Postgres 持久化缓存，缓存键为 (模型标识, 文本 SHA-256)，
+ * 不同模型的向量相互隔离；只缓存未指定模型和维度选项的请求。
+ * 持久化缓存不可用（如数据库故障、没有建表权限）时退回到只用内存缓存，一段时间后再尝试
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    /**
+     * 持久化缓存获取失败后，在这段时间内不再尝试
+     */
+    private static final Duration DISK_RETRY_BACKOFF = Duration.ofMinutes(1);
+
+    private final EmbeddingModel delegate;
+    private final String modelId;
+    private final Map<String, float[]> memory;
+    private final Supplier<EmbeddingCacheStore> diskStore;
+    private final Supplier<MeterRegistry> meterRegistry;
+    private volatile Counters counters;
+    private volatile boolean diskUnavailable;
+    private volatile long diskRetryAt;
+
+    /**
+     * @param delegate         实际的向量模型
+     * @param modelId          模型标识
+     * @param memoryMaxEntries 内存缓存最大条目数
+     * @param diskStore        持久化缓存，返回 null 表示不使用
+     * @param meterRegistry    指标注册表，首次使用时获取
+     */
+    public CachingEmbeddingModel(EmbeddingModel delegate, String modelId, int memoryMaxEntries,
+                                 Supplier<EmbeddingCacheStore> diskStore, Supplier<MeterRegistry> meterRegistry) {
+        this.delegate = delegate;
+        this.modelId = modelId;
+        this.diskStore = diskStore;
+        this.meterRegistry = meterRegistry;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > memoryMaxEntries;
+            }
+        };
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        if (!isCacheable(request.getOptions())) {
+            return delegate.call(request);
+        }
+
+        List<String> texts = request.getInstructions();
+        float[][] results = new float[texts.size()][];
+        String[] hashes = new String[texts.size()];
+
+        // 第一级：内存
+        Map<String, List<Integer>> missing = new LinkedHashMap<>();
+        synchronized (memory) {
+            for (int i = 0; i < texts.size(); i++) {
+                hashes[i] = hash(texts.get(i));
+                results[i] = memory.get(hashes[i]);
+                if (results[i] == null) {
+                    missing.computeIfAbsent(hashes[i], h -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        counters().memoryHits.increment(texts.size() - countPositions(missing));
+
+        // 第二级：Postgres
+        EmbeddingCacheStore store = missing.isEmpty() ? null : diskStore();
+        if (store != null) {
+            try {
+                Map<String, float[]> found = store.findAll(modelId, missing.keySet());
+                for (Map.Entry<String, float[]> entry : found.entrySet()) {
+                    List<Integer> positions = missing.remove(entry.getKey());
+                    positions.forEach(i -> results[i] = entry.getValue());
+                    counters().diskHits.increment(positions.size());
+                    remember(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                log.warn("读取向量持久化缓存失败: {}", e.getMessage());
+            }
+        }
+
+        // 未命中：调用实际模型，相同文本只计算一次
+        if (!missing.isEmpty()) {
+            List<String> missingHashes = new ArrayList<>(missing.keySet());
+            List<String> missingTexts = missingHashes.stream()
+                    .map(h -> texts.get(missing.get(h).get(0)))
+                    .toList();
+            List<float[]> computed = delegate.call(new EmbeddingRequest(missingTexts, request.getOptions()))
+                    .getResults().stream()
+                    .map(Embedding::getOutput)
+                    .toList();
+            counters().misses.increment(missingTexts.size());
+
+            Map<String, float[]> toSave = new LinkedHashMap<>();
+            for (int j = 0; j < missingHashes.size(); j++) {
+                String h = missingHashes.get(j);
+                float[] embedding = computed.get(j);
+                missing.get(h).forEach(i -> results[i] = embedding);
+                remember(h, embedding);
+                toSave.put(h, embedding);
+            }
+            if (store != null) {
+                try {
+                    store.saveAll(modelId, toSave);
+                } catch (Exception e) {
+                    log.warn("写入向量持久化缓存失败: {}", e.getMessage());
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < results.length; i++) {
+            embeddings.add(new Embedding(results[i], i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(delegate.getEmbeddingContent(document));
+    }
+
+    @Override
+    public String getEmbeddingContent(Document document) {
+        return delegate.getEmbeddingContent(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    /**
+     * 获取持久化缓存，失败时在退避期内视为没有持久化缓存，不影响向量化本身
+     */
+    private EmbeddingCacheStore diskStore() {
+        if (diskUnavailable && System.nanoTime() - diskRetryAt < 0) {
+            return null;
+        }
+        try {
+            EmbeddingCacheStore store = diskStore.get();
+            if (diskUnavailable) {
+                diskUnavailable = false;
+                log.info("向量持久化缓存已恢复");
+            }
+            return store;
+        } catch (Exception e) {
+            if (!diskUnavailable) {
+                log.warn("向量持久化缓存不可用，{} 秒内只使用内存缓存: {}", DISK_RETRY_BACKOFF.toSeconds(),
+                        e.getMessage());
+            } else {
+                log.debug("向量持久化缓存仍不可用: {}", e.getMessage());
+            }
+            diskRetryAt = System.nanoTime() + DISK_RETRY_BACKOFF.toNanos();
+            diskUnavailable = true;
+            return null;
+        }
+    }
+
+    /**
+     * 指定了模型或维度的请求可能产生不同的向量，不走缓存
+     */
+    private boolean isCacheable(EmbeddingOptions options) {
+        return options == null || (options.getModel() == null && options.getDimensions() == null);
+    }
+
+    private void remember(String hash, float[] embedding) {
+        synchronized (memory) {
+            memory.put(hash, embedding);
+        }
+    }
+
+    private static int countPositions(Map<String, List<Integer>> missing) {
+        int count = 0;
+        for (List<Integer> positions : missing.values()) {
+            count += positions.size();
+        }
+        return count;
+    }
+
+    static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private Counters counters() {
+        Counters current = counters;
+        if (current == null) {
+            synchronized (this) {
+                if (counters == null) {
+                    counters = new Counters(meterRegistry.get());
+                }
+                current = counters;
+            }
+        }
+        return current;
+    }
+
+    private static final class Counters {
+
+        private final Counter memoryHits;
+        private final Counter diskHits;
+        private final Counter misses;
+
+        private Counters(MeterRegistry registry) {
+            this.memoryHits = counter(registry, "memory");
+            this.diskHits = counter(registry, "disk");
+            this.misses = counter(registry, "miss");
+        }
+
+        private static Counter counter(MeterRegistry registry, String result) {
+            return Counter.builder("restaurant.ai.embedding.cache")
+                    .description("向量缓存查询次数")
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
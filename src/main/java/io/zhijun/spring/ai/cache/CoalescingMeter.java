@@ -0,0 +1,50 @@
+package io.zhijun.spring.ai.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 请求合并指标
+ * restaurant.ai.coalescing.requests{target,result=executed|coalesced} 以及累计合并比例
+ * restaurant.ai.coalescing.ratio{target}
+ */
+public class CoalescingMeter implements SingleFlight.SharedListener {
+
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public CoalescingMeter(MeterRegistry meterRegistry, String target, SingleFlight<?, ?> singleFlight) {
+        this.executed = requestCounter(meterRegistry, target, "executed");
+        this.coalesced = requestCounter(meterRegistry, target, "coalesced");
+        Gauge.builder("restaurant.ai.coalescing.ratio", this, CoalescingMeter::ratio)
+                .description("共享其他请求结果的请求占比")
+                .tag("target", target)
+                .register(meterRegistry);
+        Gauge.builder("restaurant.ai.coalescing.in.flight", singleFlight, SingleFlight::inFlightCount)
+                .description("正在执行的上游请求数")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onResult(boolean shared) {
+        (shared ? coalesced : executed).increment();
+    }
+
+    /**
+     * 共享结果的请求占全部请求的比例
+     */
+    public double ratio() {
+        double total = executed.count() + coalesced.count();
+        return total == 0 ? 0 : coalesced.count() / total;
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String target, String result) {
+        return Counter.builder("restaurant.ai.coalescing.requests")
+                .description("请求合并层处理的请求数")
+                .tag("target", target)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,65 @@
+package io.zhijun.spring.ai.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 合并相同检索请求的向量存储
+ * 查询文本、topK、相似度阈值和过滤条件都相同的并发检索共享一次查询；不缓存结果，写入和删除直接委托
+ */
+public class CoalescingVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final SingleFlight<SearchRequest, List<Document>> singleFlight = new SingleFlight<>();
+    private final CoalescingMeter meter;
+
+    public CoalescingVectorStore(VectorStore delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meter = new CoalescingMeter(meterRegistry, "vector-store", singleFlight);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        // SearchRequest 按字段实现了 equals/hashCode，可以直接作为键；每个调用方拿到独立的列表
+        return new ArrayList<>(singleFlight.execute(request, () -> delegate.similaritySearch(request), meter));
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+
+    /**
+     * 被包装的向量存储
+     */
+    public VectorStore getDelegate() {
+        return delegate;
+    }
+}
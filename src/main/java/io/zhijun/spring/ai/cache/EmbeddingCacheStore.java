@@ -0,0 +1,91 @@
+package io.zhijun.spring.ai.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 向量持久化缓存
+ * 以 (模型标识, 文本哈希) 为主键存储在 Postgres 中，向量按 float32 小端字节序紧凑存储为 bytea
+ */
+@Slf4j
+public class EmbeddingCacheStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+
+    public EmbeddingCacheStore(JdbcTemplate jdbcTemplate, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+    }
+
+    /**
+     * 创建缓存表
+     */
+    public void initializeSchema() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS %s (
+                    model_id varchar(255) NOT NULL,
+                    text_hash char(64) NOT NULL,
+                    embedding bytea NOT NULL,
+                    created_at timestamptz NOT NULL DEFAULT now(),
+                    PRIMARY KEY (model_id, text_hash)
+                )
+                """.formatted(tableName));
+        log.info("向量缓存表已就绪: {}", tableName);
+    }
+
+    /**
+     * 批量查询
+     *
+     * @return 文本哈希到向量的映射，不包含未命中的哈希
+     */
+    public Map<String, float[]> findAll(String modelId, Collection<String> textHashes) {
+        Map<String, float[]> found = new HashMap<>();
+        if (textHashes.isEmpty()) {
+            return found;
+        }
+        jdbcTemplate.query("SELECT text_hash, embedding FROM " + tableName + " WHERE model_id = ? AND text_hash = ANY(?)",
+                ps -> {
+                    ps.setString(1, modelId);
+                    // pgjdbc 把 "char" 映射为单字节的内部类型，与 char(64) 列比较永远不相等，需要按 text 数组绑定
+                    ps.setArray(2, ps.getConnection().createArrayOf("text", textHashes.toArray()));
+                },
+                rs -> {
+                    found.put(rs.getString("text_hash"), decode(rs.getBytes("embedding")));
+                });
+        return found;
+    }
+
+    /**
+     * 批量写入，已存在的条目保持不变
+     */
+    public void saveAll(String modelId, Map<String, float[]> embeddings) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = embeddings.entrySet().stream()
+                .map(entry -> new Object[]{modelId, entry.getKey(), encode(entry.getValue())})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO " + tableName + " (model_id, text_hash, embedding) VALUES (?, ?, ?) "
+                + "ON CONFLICT (model_id, text_hash) DO NOTHING", rows);
+    }
+
+    static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
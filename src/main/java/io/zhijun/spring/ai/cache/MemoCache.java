@@ -0,0 +1,115 @@
+package io.zhijun.spring.ai.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 结果缓存
+ * 按 TTL 过期、按 LRU 限制容量，未命中时通过 {@link SingleFlight} 加载，
+ * 同一个键的并发未命中只触发一次加载
+ * <p>
+ * 指标：restaurant.ai.memo.requests{cache,result=hit|miss|coalesced}、restaurant.ai.memo.size{cache}
+ *
+ * @param <K> 键，需要实现 equals/hashCode
+ * @param <V> 结果，null 不缓存
+ */
+public class MemoCache<K, V> {
+
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final SingleFlight<K, V> singleFlight = new SingleFlight<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public MemoCache(String name, Duration ttl, int maxEntries, MeterRegistry meterRegistry) {
+        this(name, ttl, maxEntries, meterRegistry, Clock.systemUTC());
+    }
+
+    MemoCache(String name, Duration ttl, int maxEntries, MeterRegistry meterRegistry, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        // accessOrder = true，命中的条目会移到队尾，淘汰时从队首移除
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = requestCounter(meterRegistry, name, "hit");
+        this.misses = requestCounter(meterRegistry, name, "miss");
+        this.coalesced = requestCounter(meterRegistry, name, "coalesced");
+        Gauge.builder("restaurant.ai.memo.size", this, MemoCache::size)
+                .description("结果缓存条目数")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 读取缓存，未命中时加载并写入
+     */
+    public V get(K key, Supplier<V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        return singleFlight.execute(key, () -> {
+            // 前一次加载可能刚刚写入
+            V loaded = getIfPresent(key);
+            if (loaded == null) {
+                loaded = loader.get();
+                if (loaded != null) {
+                    put(key, loaded);
+                }
+            }
+            return loaded;
+        }, shared -> (shared ? coalesced : misses).increment());
+    }
+
+    /**
+     * 读取未过期的缓存
+     */
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.millis() - entry.createdAt() > ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, clock.millis()));
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("restaurant.ai.memo.requests")
+                .description("结果缓存请求数")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry<V>(V value, long createdAt) {
+    }
+}
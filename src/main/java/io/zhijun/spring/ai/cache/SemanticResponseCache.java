@@ -0,0 +1,118 @@
+package io.zhijun.spring.ai.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 语义响应缓存
+ * 以问题的向量为键，按余弦相似度查找已有回答，支持 TTL 和按 LRU 的容量淘汰
+ */
+public class SemanticResponseCache {
+
+    private final double similarityThreshold;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<Long, Entry> entries;
+    private long sequence;
+
+    public SemanticResponseCache(double similarityThreshold, Duration ttl, int maxEntries) {
+        this(similarityThreshold, ttl, maxEntries, Clock.systemUTC());
+    }
+
+    SemanticResponseCache(double similarityThreshold, Duration ttl, int maxEntries, Clock clock) {
+        this.similarityThreshold = similarityThreshold;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        // accessOrder = true，命中的条目会移到队尾，淘汰时从队首移除
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 查找与给定向量最相似的回答
+     *
+     * @param scope     缓存作用域（系统提示词、输出格式等），不同作用域互不命中
+     * @param embedding 问题向量
+     * @return 相似度超过阈值的回答
+     */
+    public synchronized Optional<String> lookup(String scope, float[] embedding) {
+        float[] query = normalize(embedding);
+        long now = clock.millis();
+
+        Long bestKey = null;
+        double bestScore = similarityThreshold;
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Entry> candidate = iterator.next();
+            Entry entry = candidate.getValue();
+            if (now - entry.createdAt() > ttlMillis) {
+                iterator.remove();
+                continue;
+            }
+            if (!entry.scope().equals(scope) || entry.embedding().length != query.length) {
+                continue;
+            }
+            double score = dot(query, entry.embedding());
+            if (score >= bestScore) {
+                bestScore = score;
+                bestKey = candidate.getKey();
+            }
+        }
+
+        if (bestKey == null) {
+            return Optional.empty();
+        }
+        // get() 刷新访问顺序
+        return Optional.of(entries.get(bestKey).answer());
+    }
+
+    /**
+     * 写入一条回答
+     */
+    public synchronized void put(String scope, float[] embedding, String answer) {
+        entries.put(sequence++, new Entry(scope, normalize(embedding), answer, clock.millis()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record Entry(String scope, float[] embedding, String answer, long createdAt) {
+    }
+}
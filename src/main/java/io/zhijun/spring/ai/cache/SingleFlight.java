@@ -0,0 +1,87 @@
+package io.zhijun.spring.ai.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并
+ * 同一个键同时只执行一次加载，并发的相同请求等待并共享第一个请求的结果（或异常）；
+ * 加载结束后立即移除，不缓存结果
+ *
+ * @param <K> 键
+ * @param <V> 结果
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载，已有相同键的加载在进行时等待其结果
+     */
+    public V execute(K key, Supplier<V> loader) {
+        return execute(key, loader, null);
+    }
+
+    /**
+     * 执行加载
+     *
+     * @param listener 结果来源回调，true 表示共享了其他请求的结果，可以为 null
+     */
+    public V execute(K key, Supplier<V> loader, SharedListener listener) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            if (listener != null) {
+                listener.onResult(true);
+            }
+            return await(existing);
+        }
+
+        if (listener != null) {
+            listener.onResult(false);
+        }
+        try {
+            V value = loader.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * 正在进行的加载数
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 结果来源回调
+     */
+    @FunctionalInterface
+    public interface SharedListener {
+
+        void onResult(boolean shared);
+    }
+}
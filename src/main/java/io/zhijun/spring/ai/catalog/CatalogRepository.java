@@ -0,0 +1,50 @@
+package io.zhijun.spring.ai.catalog;
+
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.Restaurant;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 餐厅目录存储
+ * 查询条件中的 null 表示不限；菜系和价格范围按忽略大小写的等值匹配，位置按前缀匹配
+ */
+public interface CatalogRepository {
+
+    /**
+     * 全部餐厅，用于预加载
+     */
+    List<Restaurant> findAllRestaurants();
+
+    /**
+     * 全部菜品，用于预加载
+     */
+    List<Dish> findAllDishes();
+
+    Optional<Restaurant> findRestaurantById(long id);
+
+    /**
+     * 按条件查询餐厅，评分从高到低
+     */
+    List<Restaurant> findRestaurants(String cuisine, String location, String priceRange, int limit);
+
+    /**
+     * 按菜系查询菜品，按 ID 顺序
+     */
+    List<Dish> findDishes(String cuisine, int limit);
+
+    /**
+     * 保存餐厅，ID 总是由数据库分配，忽略传入的 ID
+     *
+     * @return 数据库中的记录
+     */
+    Restaurant saveRestaurant(Restaurant restaurant);
+
+    /**
+     * 保存菜品并分配 ID
+     *
+     * @return 带 ID 的菜品
+     */
+    List<Dish> saveDishes(List<Dish> dishes);
+}
@@ -0,0 +1,223 @@
+package io.zhijun.spring.ai.catalog;
+
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.Restaurant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * 基于 Postgres 的餐厅目录存储
+ * 菜系、位置和价格范围按 lower() 建索引，位置索引使用 text_pattern_ops 支持前缀查询
+ */
+@Slf4j
+public class JdbcCatalogRepository implements CatalogRepository {
+
+    private static final String RESTAURANT_COLUMNS = "id, name, cuisine, location, rating, description, price_range, "
+            + "features";
+    private static final String DISH_COLUMNS = "id, name, description, cuisine, price, category, ingredients, "
+            + "dietary_info, calories, preparation_time, difficulty";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String restaurantTable;
+    private final String dishTable;
+    private final RowMapper<Restaurant> restaurantMapper = (rs, rowNum) -> new Restaurant(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("cuisine"),
+            rs.getString("location"),
+            (Double) rs.getObject("rating"),
+            rs.getString("description"),
+            rs.getString("price_range"),
+            toStrings(rs, "features"));
+    private final RowMapper<Dish> dishMapper = (rs, rowNum) -> {
+        String[] ingredients = toStrings(rs, "ingredients");
+        return new Dish(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getString("cuisine"),
+                (Double) rs.getObject("price"),
+                rs.getString("category"),
+                ingredients != null ? List.of(ingredients) : null,
+                rs.getString("dietary_info"),
+                (Integer) rs.getObject("calories"),
+                rs.getString("preparation_time"),
+                rs.getString("difficulty"));
+    };
+
+    public JdbcCatalogRepository(JdbcTemplate jdbcTemplate, String restaurantTable, String dishTable) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.restaurantTable = restaurantTable;
+        this.dishTable = dishTable;
+    }
+
+    /**
+     * 创建目录表和索引
+     */
+    public void initializeSchema() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS %1$s (
+                    id bigserial PRIMARY KEY,
+                    name varchar(255) NOT NULL,
+                    cuisine varchar(64),
+                    location varchar(255),
+                    rating double precision,
+                    description text,
+                    price_range varchar(64),
+                    features text[],
+                    created_at timestamptz NOT NULL DEFAULT now()
+                );
+                CREATE INDEX IF NOT EXISTS %1$s_cuisine_idx ON %1$s (lower(cuisine), rating DESC);
+                CREATE INDEX IF NOT EXISTS %1$s_location_idx ON %1$s (lower(location) text_pattern_ops);
+                CREATE INDEX IF NOT EXISTS %1$s_price_range_idx ON %1$s (lower(price_range), rating DESC);
+                CREATE TABLE IF NOT EXISTS %2$s (
+                    id bigserial PRIMARY KEY,
+                    name varchar(255) NOT NULL,
+                    description text,
+                    cuisine varchar(64),
+                    price double precision,
+                    category varchar(64),
+                    ingredients text[],
+                    dietary_info varchar(255),
+                    calories integer,
+                    preparation_time varchar(64),
+                    difficulty varchar(32),
+                    created_at timestamptz NOT NULL DEFAULT now()
+                );
+                CREATE INDEX IF NOT EXISTS %2$s_cuisine_idx ON %2$s (lower(cuisine), id)
+                """.formatted(restaurantTable, dishTable));
+        log.info("餐厅目录表已就绪: {}, {}", restaurantTable, dishTable);
+    }
+
+    @Override
+    public List<Restaurant> findAllRestaurants() {
+        return jdbcTemplate.query("SELECT " + RESTAURANT_COLUMNS + " FROM " + restaurantTable, restaurantMapper);
+    }
+
+    @Override
+    public List<Dish> findAllDishes() {
+        return jdbcTemplate.query("SELECT " + DISH_COLUMNS + " FROM " + dishTable, dishMapper);
+    }
+
+    @Override
+    public Optional<Restaurant> findRestaurantById(long id) {
+        return jdbcTemplate.query("SELECT " + RESTAURANT_COLUMNS + " FROM " + restaurantTable + " WHERE id = ?",
+                restaurantMapper, id).stream().findFirst();
+    }
+
+    @Override
+    public List<Restaurant> findRestaurants(String cuisine, String location, String priceRange, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + RESTAURANT_COLUMNS + " FROM " + restaurantTable
+                + " WHERE true");
+        List<Object> args = new ArrayList<>();
+        if (cuisine != null) {
+            sql.append(" AND lower(cuisine) = ?");
+            args.add(cuisine.toLowerCase(Locale.ROOT));
+        }
+        if (location != null) {
+            sql.append(" AND lower(location) LIKE ?");
+            args.add(escapeLike(location.toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (priceRange != null) {
+            sql.append(" AND lower(price_range) = ?");
+            args.add(priceRange.toLowerCase(Locale.ROOT));
+        }
+        sql.append(" ORDER BY rating DESC NULLS LAST, id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), restaurantMapper, args.toArray());
+    }
+
+    @Override
+    public List<Dish> findDishes(String cuisine, int limit) {
+        if (cuisine == null) {
+            return jdbcTemplate.query("SELECT " + DISH_COLUMNS + " FROM " + dishTable + " ORDER BY id LIMIT ?",
+                    dishMapper, limit);
+        }
+        return jdbcTemplate.query("SELECT " + DISH_COLUMNS + " FROM " + dishTable
+                + " WHERE lower(cuisine) = ? ORDER BY id LIMIT ?", dishMapper, cuisine.toLowerCase(Locale.ROOT), limit);
+    }
+
+    @Override
+    public Restaurant saveRestaurant(Restaurant restaurant) {
+        Long id = jdbcTemplate.execute((Connection con) -> {
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO " + restaurantTable
+                    + " (name, cuisine, location, rating, description, price_range, features) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id")) {
+                ps.setString(1, restaurant.getName());
+                ps.setString(2, restaurant.getCuisine());
+                ps.setString(3, restaurant.getLocation());
+                ps.setObject(4, restaurant.getRating(), Types.DOUBLE);
+                ps.setString(5, restaurant.getDescription());
+                ps.setString(6, restaurant.getPriceRange());
+                ps.setArray(7, toArray(con, restaurant.getFeatures()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            }
+        });
+        return findRestaurantById(id).orElseThrow();
+    }
+
+    @Override
+    public List<Dish> saveDishes(List<Dish> dishes) {
+        List<Dish> saved = new ArrayList<>(dishes.size());
+        for (Dish dish : dishes) {
+            Long id = jdbcTemplate.execute((Connection con) -> {
+                try (PreparedStatement ps = con.prepareStatement("INSERT INTO " + dishTable
+                        + " (name, description, cuisine, price, category, ingredients, dietary_info, calories, "
+                        + "preparation_time, difficulty) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id")) {
+                    ps.setString(1, dish.getName());
+                    ps.setString(2, dish.getDescription());
+                    ps.setString(3, dish.getCuisine());
+                    ps.setObject(4, dish.getPrice(), Types.DOUBLE);
+                    ps.setString(5, dish.getCategory());
+                    ps.setArray(6, toArray(con, dish.getIngredients() != null
+                            ? dish.getIngredients().toArray(String[]::new) : null));
+                    ps.setString(7, dish.getDietaryInfo());
+                    ps.setObject(8, dish.getCalories(), Types.INTEGER);
+                    ps.setString(9, dish.getPreparationTime());
+                    ps.setString(10, dish.getDifficulty());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        return rs.getLong(1);
+                    }
+                }
+            });
+            saved.add(new Dish(id, dish.getName(), dish.getDescription(), dish.getCuisine(), dish.getPrice(),
+                    dish.getCategory(), dish.getIngredients(), dish.getDietaryInfo(), dish.getCalories(),
+                    dish.getPreparationTime(), dish.getDifficulty()));
+        }
+        return saved;
+    }
+
+    private static Array toArray(Connection con, String[] values) throws SQLException {
+        return values != null ? con.createArrayOf("text", values) : null;
+    }
+
+    private static String[] toStrings(ResultSet rs, String column) throws SQLException {
+        Array array = rs.getArray(column);
+        if (array == null) {
+            return null;
+        }
+        Object[] values = (Object[]) array.getArray();
+        return Arrays.copyOf(values, values.length, String[].class);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,229 @@
+package io.zhijun.spring.ai.catalog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.Restaurant;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * 餐厅目录
+ * 数据库中的目录在内存中按 ID、菜系、位置和价格范围建立索引，读操作先查内存，不足时读穿透到数据库并回填；
+ * 写操作先写数据库再更新内存
+ * <p>
+ * 返回的实体与缓存共享，调用方不应修改
+ */
+@Slf4j
+public class RestaurantCatalog {
+
+    private static final Comparator<Restaurant> BY_RATING = Comparator
+            .comparing(Restaurant::getRating, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Restaurant::getId);
+
+    private final CatalogRepository repository;
+    private final Map<Long, Restaurant> restaurants = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> restaurantsByCuisine = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> restaurantsByPriceRange = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<Long>> restaurantsByLocation = new ConcurrentSkipListMap<>();
+    private final Map<Long, Dish> dishes = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> dishesByCuisine = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RestaurantCatalog(CatalogRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 把整个目录加载到内存
+     */
+    public void preload() {
+        repository.findAllRestaurants().forEach(this::index);
+        repository.findAllDishes().forEach(this::index);
+        log.info("餐厅目录已加载: {} 家餐厅，{} 道菜品", restaurants.size(), dishes.size());
+    }
+
+    /**
+     * 按 ID 查询餐厅
+     */
+    public Optional<Restaurant> findRestaurant(long id) {
+        Restaurant cached = restaurants.get(id);
+        if (cached != null) {
+            lookup("restaurant", "memory");
+            return Optional.of(cached);
+        }
+        lookup("restaurant", "database");
+        Optional<Restaurant> loaded = repository.findRestaurantById(id);
+        loaded.ifPresent(this::index);
+        return loaded;
+    }
+
+    /**
+     * 按条件查询餐厅，评分从高到低
+     *
+     * @param cuisine    菜系，null 表示不限
+     * @param location   位置前缀，null 表示不限
+     * @param priceRange 价格范围，null 表示不限
+     * @param limit      最多返回条数
+     */
+    public List<Restaurant> findRestaurants(String cuisine, String location, String priceRange, int limit) {
+        String cuisineKey = key(cuisine);
+        String locationKey = key(location);
+        String priceRangeKey = key(priceRange);
+
+        List<Restaurant> cached = candidates(cuisineKey, locationKey, priceRangeKey)
+                .map(restaurants::get)
+                .filter(r -> r != null && matches(r, cuisineKey, locationKey, priceRangeKey))
+                .sorted(BY_RATING)
+                .limit(limit)
+                .toList();
+        if (cached.size() >= limit) {
+            lookup("restaurants", "memory");
+            return cached;
+        }
+
+        // 内存中不足时以数据库为准，其他实例写入的记录也会被回填
+        lookup("restaurants", "database");
+        List<Restaurant> loaded = repository.findRestaurants(cuisineKey, locationKey, priceRangeKey, limit);
+        loaded.forEach(this::index);
+        return loaded;
+    }
+
+    /**
+     * 按菜系查询菜品
+     *
+     * @param cuisine 菜系，null 表示不限
+     * @param limit   最多返回条数
+     */
+    public List<Dish> findDishes(String cuisine, int limit) {
+        String cuisineKey = key(cuisine);
+        Collection<Long> ids = cuisineKey != null
+                ? dishesByCuisine.getOrDefault(cuisineKey, Set.of())
+                : dishes.keySet();
+        List<Dish> cached = ids.stream()
+                .sorted()
+                .map(dishes::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .toList();
+        if (cached.size() >= limit) {
+            lookup("dishes", "memory");
+            return cached;
+        }
+
+        lookup("dishes", "database");
+        List<Dish> loaded = repository.findDishes(cuisineKey, limit);
+        loaded.forEach(this::index);
+        return loaded;
+    }
+
+    /**
+     * 保存餐厅，ID 由数据库分配
+     *
+     * @return 目录中的记录
+     */
+    public Restaurant saveRestaurant(Restaurant restaurant) {
+        Restaurant saved = repository.saveRestaurant(restaurant);
+        index(saved);
+        return saved;
+    }
+
+    /**
+     * 保存菜品
+     *
+     * @return 带 ID 的菜品
+     */
+    public List<Dish> saveDishes(List<Dish> newDishes) {
+        List<Dish> saved = repository.saveDishes(newDishes);
+        saved.forEach(this::index);
+        return saved;
+    }
+
+    /**
+     * 内存中的餐厅数
+     */
+    public int cachedRestaurantCount() {
+        return restaurants.size();
+    }
+
+    private Stream<Long> candidates(String cuisineKey, String locationKey, String priceRangeKey) {
+        // 从最小的等值索引开始，其余条件逐条过滤
+        List<Collection<Long>> indexed = new ArrayList<>();
+        if (cuisineKey != null) {
+            indexed.add(restaurantsByCuisine.getOrDefault(cuisineKey, Set.of()));
+        }
+        if (priceRangeKey != null) {
+            indexed.add(restaurantsByPriceRange.getOrDefault(priceRangeKey, Set.of()));
+        }
+        Optional<Collection<Long>> smallest = indexed.stream().min(Comparator.comparingInt(Collection::size));
+        if (smallest.isPresent()) {
+            return smallest.get().stream();
+        }
+        if (locationKey != null) {
+            return restaurantsByLocation.subMap(locationKey, true, locationKey + Character.MAX_VALUE, true)
+                    .values().stream()
+                    .flatMap(Collection::stream);
+        }
+        return restaurants.keySet().stream();
+    }
+
+    private static boolean matches(Restaurant restaurant, String cuisineKey, String locationKey, String priceRangeKey) {
+        return (cuisineKey == null || cuisineKey.equals(key(restaurant.getCuisine())))
+                && (priceRangeKey == null || priceRangeKey.equals(key(restaurant.getPriceRange())))
+                && (locationKey == null || (restaurant.getLocation() != null
+                && key(restaurant.getLocation()).startsWith(locationKey)));
+    }
+
+    private void index(Restaurant restaurant) {
+        Long id = restaurant.getId();
+        if (restaurants.putIfAbsent(id, restaurant) != null) {
+            return;
+        }
+        addToIndex(restaurantsByCuisine, restaurant.getCuisine(), id);
+        addToIndex(restaurantsByPriceRange, restaurant.getPriceRange(), id);
+        addToIndex(restaurantsByLocation, restaurant.getLocation(), id);
+    }
+
+    private void index(Dish dish) {
+        if (dishes.putIfAbsent(dish.getId(), dish) == null) {
+            addToIndex(dishesByCuisine, dish.getCuisine(), dish.getId());
+        }
+    }
+
+    private static void addToIndex(Map<String, Set<Long>> index, String value, Long id) {
+        String key = key(value);
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void lookup(String entity, String source) {
+        Counter.builder("restaurant.ai.catalog.lookups")
+                .description("餐厅目录查询次数")
+                .tag("entity", entity)
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    static String key(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,81 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 高级 RAG 配置
+ * 对应 restaurant.ai.advanced-rag 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.advanced-rag")
+public class AdvancedRagProperties {
+
+    /**
+     * 多查询 RAG 配置
+     */
+    private MultiQuery multiQuery = new MultiQuery();
+
+    /**
+     * 混合搜索配置
+     */
+    private Hybrid hybrid = new Hybrid();
+
+    /**
+     * 重排序配置
+     */
+    private Rerank rerank = new Rerank();
+
+    @Data
+    public static class MultiQuery {
+
+        /**
+         * 单个查询的检索超时，超时的查询结果会被丢弃
+         */
+        private Duration searchTimeout = Duration.ofSeconds(3);
+
+        /**
+         * 全局同时进行的向量检索数上限
+         */
+        private int maxConcurrency = 16;
+
+        /**
+         * Reciprocal Rank Fusion 的平滑常数 k
+         */
+        private int rrfK = 60;
+    }
+
+    @Data
+    public static class Hybrid {
+
+        /**
+         * BM25 词频饱和参数 k1
+         */
+        private double bm25K1 = 1.2;
+
+        /**
+         * BM25 文档长度归一化参数 b
+         */
+        private double bm25B = 0.75;
+    }
+
+    @Data
+    public static class Rerank {
+
+        /**
+         * 重排序方式：LOCAL 为进程内打分，LLM 为调用聊天模型排序
+         */
+        private Mode mode = Mode.LOCAL;
+
+        /**
+         * 本地重排序每批打分的候选数量
+         */
+        private int batchSize = 32;
+
+        public enum Mode {
+            LOCAL, LLM
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.zhijun.spring.ai.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.catalog.JdbcCatalogRepository;
+import io.zhijun.spring.ai.catalog.RestaurantCatalog;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 餐厅目录配置
+ */
+@Configuration
+public class CatalogConfig {
+
+    @Bean
+    public JdbcCatalogRepository catalogRepository(JdbcTemplate jdbcTemplate, CatalogProperties properties) {
+        JdbcCatalogRepository repository = new JdbcCatalogRepository(jdbcTemplate, properties.getRestaurantTable(),
+                properties.getDishTable());
+        repository.initializeSchema();
+        return repository;
+    }
+
+    @Bean
+    public RestaurantCatalog restaurantCatalog(JdbcCatalogRepository catalogRepository, CatalogProperties properties,
+                                               MeterRegistry meterRegistry) {
+        RestaurantCatalog catalog = new RestaurantCatalog(catalogRepository, meterRegistry);
+        if (properties.isPreload()) {
+            catalog.preload();
+        }
+        return catalog;
+    }
+}
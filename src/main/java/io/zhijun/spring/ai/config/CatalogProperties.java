@@ -0,0 +1,28 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 餐厅目录配置
+ * 对应 restaurant.ai.catalog 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.catalog")
+public class CatalogProperties {
+
+    /**
+     * 启动时是否把整个目录加载到内存
+     */
+    private boolean preload = true;
+
+    /**
+     * 餐厅表名
+     */
+    private String restaurantTable = "catalog_restaurant";
+
+    /**
+     * 菜品表名
+     */
+    private String dishTable = "catalog_dish";
+}
@@ -0,0 +1,31 @@
+package io.zhijun.spring.ai.config;
+
+/**
+ * ChatClient 配置档的 Bean 名称
+ * 按调用需要选择最便宜的配置档：不需要知识库和历史的调用不应承担向量检索和历史 token 的开销
+ */
+public final class ChatClientProfiles {
+
+    /**
+     * 纯模型调用：结构化输出、情感分析、查询改写、重排序等
+     */
+    public static final String PURE = "pureChatClient";
+
+    /**
+     * 带会话记忆、不做检索：自行组装检索上下文的多轮对话
+     */
+    public static final String MEMORY = "memoryChatClient";
+
+    /**
+     * 知识库检索增强，不带会话记忆：单次推荐、建议等
+     */
+    public static final String RAG = "ragChatClient";
+
+    /**
+     * 知识库检索增强 + 会话记忆：多轮 RAG 对话，默认 ChatClient
+     */
+    public static final String RAG_MEMORY = "ragMemoryChatClient";
+
+    private ChatClientProfiles() {
+    }
+}
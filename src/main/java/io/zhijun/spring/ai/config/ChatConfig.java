@@ -1,50 +1,176 @@
 package io.zhijun.spring.ai.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.advisor.ChatMetricsAdvisor;
+import io.zhijun.spring.ai.advisor.CoalescingAdvisor;
+import io.zhijun.spring.ai.advisor.ConversationMemoryAdvisor;
+import io.zhijun.spring.ai.advisor.SemanticCacheAdvisor;
+import io.zhijun.spring.ai.cache.SemanticResponseCache;
+import io.zhijun.spring.ai.memory.TokenWindowChatMemory;
+import io.zhijun.spring.ai.memory.WriteBehindChatMemoryRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
-import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Chat 相关配置
- * 配置 ChatClient 和日志记录
+ * 按 {@link ChatClientProfiles} 配置多个 ChatClient，各调用方只承担自己需要的检索和历史开销
  */
 @Slf4j
 @Configuration
 public class ChatConfig {
 
+    private static final String SYSTEM_PROMPT = "你是一个专业的餐厅推荐助手。请用中文回答，提供准确、有用的餐厅和菜品推荐。";
+
+    private final CoalescingAdvisor coalescingAdvisor;
+    private final CoalescingProperties coalescingProperties;
+
+    public ChatConfig(CoalescingAdvisor coalescingAdvisor, CoalescingProperties coalescingProperties) {
+        this.coalescingAdvisor = coalescingAdvisor;
+        this.coalescingProperties = coalescingProperties;
+    }
+
+    /**
+     * 配置聊天记忆仓库
+     * 堆内保留热会话，异步批量写入 JDBC 仓库，多个实例之间共享会话
+     */
+    @Bean(destroyMethod = "close")
+    public WriteBehindChatMemoryRepository chatMemoryRepository(
+            @Qualifier("jdbcChatMemoryRepository") ChatMemoryRepository jdbcChatMemoryRepository,
+            ChatMemoryProperties properties, MeterRegistry meterRegistry) {
+        return new WriteBehindChatMemoryRepository(jdbcChatMemoryRepository, properties.getHotConversations(),
+                properties.getHotTtl(), properties.getFlushInterval(), properties.getFlushThreshold(), meterRegistry);
+    }
+
     /**
      * 配置聊天记忆
+     * 按消息数和 token 预算截断历史，提示词长度不随会话时长增长
      */
     @Bean
-    public ChatMemory chatMemory() {
-        return MessageWindowChatMemory.builder()
-                .chatMemoryRepository(new InMemoryChatMemoryRepository())
-                .build();
+    public ChatMemory chatMemory(WriteBehindChatMemoryRepository chatMemoryRepository, ChatMemoryProperties properties) {
+        return new TokenWindowChatMemory(chatMemoryRepository, new JTokkitTokenCountEstimator(),
+                properties.getMaxMessages(), properties.getMaxTokens());
     }
 
     /**
-     * 配置 ChatClient
-     * 包含记忆功能和日志记录
+     * 配置语义缓存
      */
     @Bean
-    public ChatClient chatClient(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory, VectorStore vectorStore) {
+    public SemanticResponseCache semanticResponseCache(SemanticCacheProperties properties) {
+        return new SemanticResponseCache(properties.getSimilarityThreshold(), properties.getTtl(),
+                properties.getMaxEntries());
+    }
+
+    /**
+     * 纯模型调用的 ChatClient，不做检索、不带历史
+     */
+    @Bean(ChatClientProfiles.PURE)
+    public ChatClient pureChatClient(ChatClient.Builder chatClientBuilder, MeterRegistry meterRegistry,
+                                     Environment environment) {
+        List<Advisor> advisors = new ArrayList<>();
+        advisors.add(new ChatMetricsAdvisor(meterRegistry, profileOf(environment), "pure"));
+        advisors.add(new SimpleLoggerAdvisor());
+        return build(chatClientBuilder, advisors);
+    }
+
+    /**
+     * 带会话记忆、不做检索的 ChatClient
+     */
+    @Bean(ChatClientProfiles.MEMORY)
+    public ChatClient memoryChatClient(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory,
+                                       MeterRegistry meterRegistry, Environment environment) {
+        List<Advisor> advisors = new ArrayList<>();
+        advisors.add(new ChatMetricsAdvisor(meterRegistry, profileOf(environment), "memory"));
+        advisors.add(new ConversationMemoryAdvisor(chatMemory));
+        advisors.add(new SimpleLoggerAdvisor());
+        return build(chatClientBuilder, advisors);
+    }
+
+    /**
+     * 检索增强的 ChatClient，包含语义缓存，不带历史
+     */
+    @Bean(ChatClientProfiles.RAG)
+    public ChatClient ragChatClient(ChatClient.Builder chatClientBuilder, VectorStore vectorStore,
+                                    EmbeddingModel embeddingModel, SemanticResponseCache semanticResponseCache,
+                                    SemanticCacheProperties semanticCacheProperties, MeterRegistry meterRegistry,
+                                    Environment environment) {
+        List<Advisor> advisors = new ArrayList<>();
+        advisors.add(new ChatMetricsAdvisor(meterRegistry, profileOf(environment), "rag"));
+        addRetrievalAdvisors(advisors, vectorStore, embeddingModel, semanticResponseCache, semanticCacheProperties,
+                meterRegistry);
+        advisors.add(new SimpleLoggerAdvisor());
+        return build(chatClientBuilder, advisors);
+    }
+
+    /**
+     * 默认 ChatClient
+     * 包含调用指标、语义缓存、检索增强、记忆功能和日志记录
+     */
+    @Bean(ChatClientProfiles.RAG_MEMORY)
+    @Primary
+    public ChatClient ragMemoryChatClient(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory,
+                                          VectorStore vectorStore, EmbeddingModel embeddingModel,
+                                          SemanticResponseCache semanticResponseCache,
+                                          SemanticCacheProperties semanticCacheProperties,
+                                          MeterRegistry meterRegistry, Environment environment) {
         log.info("初始化 ChatClient 配置，包含记忆功能和日志记录");
+        List<Advisor> advisors = new ArrayList<>();
+        advisors.add(new ChatMetricsAdvisor(meterRegistry, profileOf(environment), "rag-memory"));
+        addRetrievalAdvisors(advisors, vectorStore, embeddingModel, semanticResponseCache, semanticCacheProperties,
+                meterRegistry);
+        advisors.add(new ConversationMemoryAdvisor(chatMemory));
+        advisors.add(new SimpleLoggerAdvisor());
+        return build(chatClientBuilder, advisors);
+    }
+
+    private static void addRetrievalAdvisors(List<Advisor> advisors, VectorStore vectorStore,
+                                             EmbeddingModel embeddingModel,
+                                             SemanticResponseCache semanticResponseCache,
+                                             SemanticCacheProperties semanticCacheProperties,
+                                             MeterRegistry meterRegistry) {
+        if (semanticCacheProperties.isEnabled()) {
+            log.info("启用语义缓存，相似度阈值: {}", semanticCacheProperties.getSimilarityThreshold());
+            advisors.add(new SemanticCacheAdvisor(embeddingModel, semanticResponseCache, meterRegistry));
+        }
+        QuestionAnswerAdvisor questionAnswerAdvisor = QuestionAnswerAdvisor.builder(vectorStore)
+                .searchRequest(SearchRequest.builder().similarityThreshold(0.7).topK(5).build())
+                .build();
+        advisors.add(ChatMetricsAdvisor.retrievalStart(questionAnswerAdvisor.getOrder() - 1));
+        advisors.add(questionAnswerAdvisor);
+        advisors.add(ChatMetricsAdvisor.retrievalEnd(questionAnswerAdvisor.getOrder() + 1));
+    }
+
+    /**
+     * 所有 ChatClient 在最内层合并相同的并发模型调用，放在记忆和检索之后，以最终提示词为键
+     */
+    private ChatClient build(ChatClient.Builder chatClientBuilder, List<Advisor> advisors) {
+        if (coalescingProperties.isChatEnabled()) {
+            advisors.add(coalescingAdvisor);
+        }
         return chatClientBuilder
-                .defaultSystem("你是一个专业的餐厅推荐助手。请用中文回答，提供准确、有用的餐厅和菜品推荐。")
-                .defaultAdvisors(
-                        QuestionAnswerAdvisor.builder(vectorStore).searchRequest(SearchRequest.builder()
-                                .similarityThreshold(0.7).topK(5).build()).build(),
-                        MessageChatMemoryAdvisor.builder(chatMemory).build(),
-                        new SimpleLoggerAdvisor())
+                .defaultSystem(SYSTEM_PROMPT)
+                .defaultAdvisors(advisors)
                 .build();
     }
+
+    private static String profileOf(Environment environment) {
+        String[] profiles = environment.getActiveProfiles();
+        return profiles.length == 0 ? "default" : String.join(",", profiles);
+    }
 }
@@ -0,0 +1,47 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 聊天记忆配置
+ * 对应 restaurant.ai.chat-memory 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.chat-memory")
+public class ChatMemoryProperties {
+
+    /**
+     * 每个会话保留的最大消息数
+     */
+    private int maxMessages = 20;
+
+    /**
+     * 每个会话保留历史的估算 token 上限
+     */
+    private int maxTokens = 2000;
+
+    /**
+     * 堆内热会话数量上限，超出后按 LRU 淘汰
+     */
+    private int hotConversations = 1000;
+
+    /**
+     * 热会话的有效期，过期后重新从数据库加载。
+     * 0 表示只有本节点尚未刷写的会话从内存读取，其余读数据库，适用于非粘性的多实例部署；
+     * 大于 0 时要求负载均衡按会话粘性路由，否则可能用旧历史覆盖其他节点写入的对话
+     */
+    private Duration hotTtl = Duration.ZERO;
+
+    /**
+     * 异步刷写数据库的间隔
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 待刷写会话达到该数量时立即刷写，不必等到下一个刷写间隔
+     */
+    private int flushThreshold = 100;
+}
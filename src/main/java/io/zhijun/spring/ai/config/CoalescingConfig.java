@@ -0,0 +1,50 @@
+package io.zhijun.spring.ai.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.advisor.CoalescingAdvisor;
+import io.zhijun.spring.ai.cache.CoalescingVectorStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 请求合并配置
+ * 所有 ChatClient 共用一个 {@link CoalescingAdvisor}；容器中的 VectorStore 用 {@link CoalescingVectorStore} 包装，
+ * QuestionAnswerAdvisor 和各检索服务都会经过合并层
+ */
+@Slf4j
+@Configuration
+public class CoalescingConfig {
+
+    private static final String PREFIX = "restaurant.ai.coalescing";
+
+    @Bean
+    public CoalescingAdvisor coalescingAdvisor(MeterRegistry meterRegistry) {
+        return new CoalescingAdvisor(meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor coalescingVectorStorePostProcessor(Environment environment,
+                                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        CoalescingProperties properties = Binder.get(environment)
+                .bind(PREFIX, CoalescingProperties.class)
+                .orElseGet(CoalescingProperties::new);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!properties.isVectorStoreEnabled() || !(bean instanceof VectorStore vectorStore)
+                        || bean instanceof CoalescingVectorStore) {
+                    return bean;
+                }
+                log.info("启用向量检索合并: bean={}", beanName);
+                return new CoalescingVectorStore(vectorStore, meterRegistry.getObject());
+            }
+        };
+    }
+}
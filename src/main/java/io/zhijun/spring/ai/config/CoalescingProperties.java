@@ -0,0 +1,23 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 请求合并配置
+ * 对应 restaurant.ai.coalescing 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * 是否合并相同的并发模型调用
+     */
+    private boolean chatEnabled = true;
+
+    /**
+     * 是否合并相同的并发向量检索
+     */
+    private boolean vectorStoreEnabled = true;
+}
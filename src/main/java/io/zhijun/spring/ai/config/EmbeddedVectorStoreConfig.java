@@ -0,0 +1,35 @@
+package io.zhijun.spring.ai.config;
+
+import io.zhijun.spring.ai.vector.EmbeddedVectorIndex;
+import io.zhijun.spring.ai.vector.EmbeddedVectorStore;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 进程内向量存储配置
+ * 激活 embedded-vector profile 时用进程内 HNSW 替代 pgvector，适用于单节点部署和测试；
+ * 聊天记忆、任务和餐厅目录仍然使用数据源
+ */
+@Configuration
+@Profile(EmbeddedVectorStoreConfig.PROFILE)
+public class EmbeddedVectorStoreConfig {
+
+    public static final String PROFILE = "embedded-vector";
+
+    @Bean(destroyMethod = "close")
+    public EmbeddedVectorIndex embeddedVectorIndex(EmbeddingModel embeddingModel,
+                                                   EmbeddedVectorStoreProperties properties) {
+        EmbeddedVectorIndex index = new EmbeddedVectorIndex(embeddingModel, properties);
+        index.load();
+        index.startSnapshots(properties.getSnapshotInterval());
+        return index;
+    }
+
+    @Bean
+    public VectorStore vectorStore(EmbeddedVectorIndex embeddedVectorIndex) {
+        return new EmbeddedVectorStore(embeddedVectorIndex);
+    }
+}
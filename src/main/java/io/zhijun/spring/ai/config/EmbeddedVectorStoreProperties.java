@@ -0,0 +1,45 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 进程内 HNSW 向量存储配置
+ * 对应 restaurant.ai.embedded-vector-store 前缀，仅在 embedded-vector profile 下生效
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.embedded-vector-store")
+public class EmbeddedVectorStoreProperties {
+
+    /**
+     * 每个节点的最大连接数（第 0 层为其两倍）
+     */
+    private int m = 16;
+
+    /**
+     * 构建时的候选列表大小
+     */
+    private int efConstruction = 100;
+
+    /**
+     * 默认的查询候选列表大小，不小于 topK
+     */
+    private int efSearch = 64;
+
+    /**
+     * 快照文件，启动时存在则加载
+     */
+    private String snapshotPath = "data/vector-store.hnsw";
+
+    /**
+     * 有变更时写快照的间隔，0 表示只在关闭时写
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * 加载快照时已删除节点占比超过该值则重建图
+     */
+    private double compactRatio = 0.3;
+}
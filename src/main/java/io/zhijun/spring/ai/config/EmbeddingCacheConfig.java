@@ -0,0 +1,98 @@
+package io.zhijun.spring.ai.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.cache.CachingEmbeddingModel;
+import io.zhijun.spring.ai.cache.EmbeddingCacheStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.function.Supplier;
+
+/**
+ * 向量缓存配置
+ * 用 {@link CachingEmbeddingModel} 包装容器中的 EmbeddingModel，
+ * 向量存储、QuestionAnswerAdvisor 和文档导入都会经过缓存
+ */
+@Slf4j
+@Configuration
+public class EmbeddingCacheConfig {
+
+    private static final String PREFIX = "restaurant.ai.embedding-cache";
+
+    @Bean
+    public static BeanPostProcessor cachingEmbeddingModelPostProcessor(Environment environment,
+                                                                       ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        EmbeddingCacheProperties properties = Binder.get(environment)
+                .bind(PREFIX, EmbeddingCacheProperties.class)
+                .orElseGet(EmbeddingCacheProperties::new);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!properties.isEnabled() || !(bean instanceof EmbeddingModel embeddingModel)
+                        || bean instanceof CachingEmbeddingModel) {
+                    return bean;
+                }
+                String modelId = resolveModelId(embeddingModel, properties, environment);
+                log.info("启用向量缓存: bean={}, modelId={}", beanName, modelId);
+                return new CachingEmbeddingModel(embeddingModel, modelId, properties.getMemoryMaxEntries(),
+                        diskStore(properties, jdbcTemplate), meterRegistry::getObject);
+            }
+        };
+    }
+
+    /**
+     * 延迟创建持久化缓存，首次使用时建表
+     */
+    private static Supplier<EmbeddingCacheStore> diskStore(EmbeddingCacheProperties properties,
+                                                            ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        if (!properties.isDiskEnabled()) {
+            return () -> null;
+        }
+        return new Supplier<>() {
+            private volatile EmbeddingCacheStore store;
+
+            @Override
+            public EmbeddingCacheStore get() {
+                if (store == null) {
+                    synchronized (this) {
+                        if (store == null) {
+                            EmbeddingCacheStore created = new EmbeddingCacheStore(jdbcTemplate.getObject(),
+                                    properties.getTableName());
+                            created.initializeSchema();
+                            store = created;
+                        }
+                    }
+                }
+                return store;
+            }
+        };
+    }
+
+    /**
+     * 模型标识 = 实现类 + base-url + 模型名，不同 Profile 下即使模型名相同也不会共享缓存
+     */
+    static String resolveModelId(EmbeddingModel embeddingModel, EmbeddingCacheProperties properties,
+                                 Environment environment) {
+        if (StringUtils.hasText(properties.getModelId())) {
+            return properties.getModelId();
+        }
+        String type = embeddingModel.getClass().getSimpleName();
+        String provider = type.startsWith("Ollama") ? "ollama"
+                : type.startsWith("MistralAi") ? "mistralai"
+                : "openai";
+        String baseUrl = environment.getProperty("spring.ai." + provider + ".embedding.base-url",
+                environment.getProperty("spring.ai." + provider + ".base-url", ""));
+        String model = environment.getProperty("spring.ai." + provider + ".embedding.options.model", "default");
+        return type + "|" + baseUrl + "|" + model;
+    }
+}
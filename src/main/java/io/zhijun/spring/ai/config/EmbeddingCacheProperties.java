@@ -0,0 +1,38 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 向量缓存配置
+ * 对应 restaurant.ai.embedding-cache 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.embedding-cache")
+public class EmbeddingCacheProperties {
+
+    /**
+     * 是否启用向量缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 内存缓存最大条目数，超出后按 LRU 淘汰
+     */
+    private int memoryMaxEntries = 10000;
+
+    /**
+     * 是否启用 Postgres 持久化缓存
+     */
+    private boolean diskEnabled = true;
+
+    /**
+     * 持久化缓存表名
+     */
+    private String tableName = "embedding_cache";
+
+    /**
+     * 模型标识，为空时根据模型提供商的 base-url 和模型名自动生成
+     */
+    private String modelId;
+}
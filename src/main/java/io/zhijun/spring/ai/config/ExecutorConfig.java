@@ -0,0 +1,55 @@
+package io.zhijun.spring.ai.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 线程池配置
+ * I/O 密集的任务（向量检索、模型调用）统一使用虚拟线程
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 向量检索并发执行器
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService ragSearchExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rag-search-", 0).factory());
+    }
+
+    /**
+     * 文档导入流水线执行器
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService ingestionExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ingestion-", 0).factory());
+    }
+
+    /**
+     * SSE 流式写出执行器
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService streamingExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-stream-", 0).factory());
+    }
+
+    /**
+     * 批量情感分析执行器
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService sentimentExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sentiment-", 0).factory());
+    }
+
+    /**
+     * 工具调用执行器，模型一轮请求的多个工具并发执行
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService toolExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tool-call-", 0).factory());
+    }
+}
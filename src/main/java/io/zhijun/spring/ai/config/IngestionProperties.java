@@ -0,0 +1,28 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 文档导入配置
+ * 对应 restaurant.ai.ingestion 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.ingestion")
+public class IngestionProperties {
+
+    /**
+     * 每批向量化和写入的文档片段数
+     */
+    private int batchSize = 64;
+
+    /**
+     * 阶段之间队列可缓存的批次数，队列满时上游阻塞（背压）
+     */
+    private int queueCapacity = 4;
+
+    /**
+     * 并发向量化的批次数
+     */
+    private int embeddingConcurrency = 2;
+}
@@ -0,0 +1,32 @@
+package io.zhijun.spring.ai.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.job.JdbcJobRepository;
+import io.zhijun.spring.ai.job.JobHandler;
+import io.zhijun.spring.ai.job.JobRepository;
+import io.zhijun.spring.ai.job.JobService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * 异步任务配置
+ */
+@Configuration
+public class JobConfig {
+
+    @Bean
+    public JdbcJobRepository jobRepository(JdbcTemplate jdbcTemplate, JobProperties properties) {
+        JdbcJobRepository repository = new JdbcJobRepository(jdbcTemplate, properties.getTableName());
+        repository.initializeSchema();
+        return repository;
+    }
+
+    @Bean(destroyMethod = "close")
+    public JobService jobService(JobRepository jobRepository, List<JobHandler> handlers, JobProperties properties,
+                                 MeterRegistry meterRegistry) {
+        return new JobService(jobRepository, handlers, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,45 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 异步任务配置
+ * 对应 restaurant.ai.jobs 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.jobs")
+public class JobProperties {
+
+    /**
+     * 同时执行的任务数
+     */
+    private int workers = 4;
+
+    /**
+     * 排队任务数上限，超出时拒绝提交
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 轮询队列和刷新心跳的间隔
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * 心跳超过该时长未刷新的运行中任务视为所在实例已退出，重新排队
+     */
+    private Duration staleAfter = Duration.ofMinutes(1);
+
+    /**
+     * 单个任务的最大执行次数（含重启后的重新执行）
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 任务表名，部分结果存储在 {tableName}_item 表中
+     */
+    private String tableName = "ai_job";
+}
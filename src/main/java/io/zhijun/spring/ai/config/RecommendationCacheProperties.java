@@ -0,0 +1,30 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 推荐结果缓存配置
+ * 对应 restaurant.ai.recommendation-cache 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.recommendation-cache")
+public class RecommendationCacheProperties {
+
+    /**
+     * 是否启用推荐结果缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存有效期
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * 最大条目数，超出后按 LRU 淘汰
+     */
+    private int maxEntries = 1000;
+}
@@ -0,0 +1,30 @@
+package io.zhijun.spring.ai.config;
+
+import io.zhijun.spring.ai.rerank.LexicalReranker;
+import io.zhijun.spring.ai.rerank.LlmReranker;
+import io.zhijun.spring.ai.rerank.Reranker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 重排序配置
+ * 根据 restaurant.ai.advanced-rag.rerank.mode 选择重排序实现
+ */
+@Slf4j
+@Configuration
+public class RerankerConfig {
+
+    @Bean
+    public Reranker reranker(AdvancedRagProperties properties,
+                             @Qualifier(ChatClientProfiles.PURE) ChatClient chatClient) {
+        AdvancedRagProperties.Rerank config = properties.getRerank();
+        log.info("初始化重排序器: mode={}", config.getMode());
+        return switch (config.getMode()) {
+            case LOCAL -> new LexicalReranker(config.getBatchSize());
+            case LLM -> new LlmReranker(chatClient);
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 语义缓存配置
+ * 对应 restaurant.ai.semantic-cache 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.semantic-cache")
+public class SemanticCacheProperties {
+
+    /**
+     * 是否启用语义缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 命中所需的最小余弦相似度
+     */
+    private double similarityThreshold = 0.92;
+
+    /**
+     * 缓存条目存活时间
+     */
+    private Duration ttl = Duration.ofMinutes(30);
+
+    /**
+     * 最大缓存条目数，超出后按 LRU 淘汰
+     */
+    private int maxEntries = 1000;
+}
@@ -0,0 +1,43 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 批量情感分析配置
+ * 对应 restaurant.ai.sentiment 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.sentiment")
+public class SentimentProperties {
+
+    /**
+     * 每个微批次中评论的估算 token 上限（不含提示词模板）
+     */
+    private int maxBatchTokens = 3000;
+
+    /**
+     * 每个微批次的评论条数上限
+     */
+    private int maxBatchSize = 50;
+
+    /**
+     * 单条评论的估算 token 上限，超出部分截断
+     */
+    private int maxReviewTokens = 500;
+
+    /**
+     * 同时进行的模型调用数
+     */
+    private int concurrency = 4;
+
+    /**
+     * 每秒发起的模型调用数上限
+     */
+    private double requestsPerSecond = 5;
+
+    /**
+     * 批次失败或结果缺失时的重试轮数，每轮将失败的批次一分为二
+     */
+    private int maxRetries = 2;
+}
@@ -0,0 +1,35 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 流式响应配置
+ * 对应 restaurant.ai.streaming 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.streaming")
+public class StreamingProperties {
+
+    /**
+     * 同时进行的 SSE 流上限
+     */
+    private int maxConcurrentStreams = 200;
+
+    /**
+     * 达到上限时等待空闲名额的最长时间，超时返回 503
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 单个 SSE 流的超时时间
+     */
+    private Duration timeout = Duration.ofSeconds(60);
+
+    /**
+     * 向上游模型预取的片段数，写出慢于生成时上游按此数量限流（背压）
+     */
+    private int prefetch = 32;
+}
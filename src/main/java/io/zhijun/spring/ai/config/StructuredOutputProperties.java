@@ -0,0 +1,23 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 结构化输出配置
+ * 对应 restaurant.ai.structured-output 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.structured-output")
+public class StructuredOutputProperties {
+
+    /**
+     * 本地修复和校验都失败时，是否发起一次修复调用
+     */
+    private boolean modelRepairEnabled = true;
+
+    /**
+     * 修复调用中附带的原始输出最大字符数，超出部分截断
+     */
+    private int maxRepairInputChars = 8000;
+}
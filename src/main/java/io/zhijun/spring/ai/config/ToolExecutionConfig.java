@@ -0,0 +1,40 @@
+package io.zhijun.spring.ai.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.zhijun.spring.ai.tool.ParallelToolCallingManager;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 工具调用配置
+ * 用 {@link ParallelToolCallingManager} 替换自动配置的 ToolCallingManager，各模型的内部工具执行都会经过它
+ */
+@Configuration
+public class ToolExecutionConfig {
+
+    @Bean
+    public ToolCallingManager toolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                                 ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                                 ObjectProvider<ObservationRegistry> observationRegistry,
+                                                 @Qualifier("toolExecutor") ExecutorService toolExecutor,
+                                                 ToolExecutionProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        ObservationRegistry registry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+        ToolCallingManager definitions = DefaultToolCallingManager.builder()
+                .observationRegistry(registry)
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .build();
+        return new ParallelToolCallingManager(definitions, toolCallbackResolver, toolExecutionExceptionProcessor,
+                toolExecutor, properties, meterRegistry, registry);
+    }
+}
@@ -0,0 +1,37 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工具调用配置
+ * 对应 restaurant.ai.tool-execution 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.tool-execution")
+public class ToolExecutionProperties {
+
+    /**
+     * 单个工具调用的默认超时时间，超时后把超时说明作为该工具的结果交给模型
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * 按工具名覆盖超时时间
+     */
+    private Map<String, Duration> timeouts = new LinkedHashMap<>();
+
+    /**
+     * 相同工具和参数的结果缓存时间，0 表示不缓存；工具应当是只读查询
+     */
+    private Duration cacheTtl = Duration.ofSeconds(60);
+
+    /**
+     * 结果缓存最大条目数
+     */
+    private int cacheMaxEntries = 1000;
+}
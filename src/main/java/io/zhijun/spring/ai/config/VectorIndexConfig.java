@@ -0,0 +1,73 @@
+package io.zhijun.spring.ai.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.vector.QuantizedVectorStore;
+import io.zhijun.spring.ai.vector.VectorIndexManager;
+import io.zhijun.spring.ai.vector.VectorIndexSpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 向量索引配置
+ * 索引由应用管理（spring.ai.vectorstore.pgvector.index-type 设为 none），以便调整 HNSW 参数和在线重建；
+ * 启用量化时容器中的 VectorStore 用 {@link QuantizedVectorStore} 包装，检索都经过量化索引
+ */
+@Slf4j
+@Configuration
+@Profile("!" + EmbeddedVectorStoreConfig.PROFILE)
+public class VectorIndexConfig {
+
+    private static final String PREFIX = "restaurant.ai.vector-index";
+
+    @Bean(destroyMethod = "close")
+    public VectorIndexManager vectorIndexManager(JdbcTemplate jdbcTemplate,
+                                                 PlatformTransactionManager transactionManager,
+                                                 VectorStore vectorStore,
+                                                 EmbeddingModel embeddingModel,
+                                                 VectorIndexProperties properties,
+                                                 @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String table,
+                                                 @Value("${spring.ai.vectorstore.pgvector.distance-type:cosine_distance}") String distanceType,
+                                                 MeterRegistry meterRegistry) {
+        // 依赖 VectorStore 只为保证先初始化：PgVectorStore 初始化时已按嵌入模型的维度建表
+        VectorIndexSpec spec = VectorIndexSpec.of(properties, distanceType,
+                VectorIndexManager.columnDimensions(jdbcTemplate, table));
+        VectorIndexManager manager = new VectorIndexManager(jdbcTemplate, new TransactionTemplate(transactionManager),
+                embeddingModel, properties, spec, table, meterRegistry);
+        if (properties.isManage()) {
+            manager.ensureIndex();
+        }
+        return manager;
+    }
+
+    @Bean
+    public static BeanPostProcessor quantizedVectorStorePostProcessor(Environment environment,
+                                                                      ObjectProvider<VectorIndexManager> vectorIndexManager) {
+        VectorIndexProperties properties = Binder.get(environment)
+                .bind(PREFIX, VectorIndexProperties.class)
+                .orElseGet(VectorIndexProperties::new);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (VectorIndexSpec.NONE.equalsIgnoreCase(properties.getQuantization())
+                        || !(bean instanceof VectorStore vectorStore) || bean instanceof QuantizedVectorStore) {
+                    return bean;
+                }
+                log.info("启用量化向量检索: bean={}, quantization={}", beanName, properties.getQuantization());
+                return new QuantizedVectorStore(vectorStore, vectorIndexManager::getObject);
+            }
+        };
+    }
+}
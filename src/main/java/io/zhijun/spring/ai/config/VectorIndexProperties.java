@@ -0,0 +1,76 @@
+package io.zhijun.spring.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 向量索引配置
+ * 对应 restaurant.ai.vector-index 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "restaurant.ai.vector-index")
+public class VectorIndexProperties {
+
+    /**
+     * 是否由应用管理向量索引；关闭时不创建也不重建索引
+     */
+    private boolean manage = true;
+
+    /**
+     * 是否维护元数据 GIN 索引，用于按城市、菜系、价格等元数据预过滤
+     */
+    private boolean metadataIndex = true;
+
+    /**
+     * 索引类型：hnsw 或 ivfflat
+     */
+    private String type = "hnsw";
+
+    /**
+     * HNSW 每个节点的最大连接数，越大召回越高、索引越大
+     */
+    private int m = 16;
+
+    /**
+     * HNSW 构建时的候选列表大小，越大构建越慢、图质量越好
+     */
+    private int efConstruction = 64;
+
+    /**
+     * IVFFlat 的聚类数，建议取行数 / 1000（百万行以上取 sqrt(行数)）
+     */
+    private int lists = 100;
+
+    /**
+     * 索引量化方式：none、halfvec（半精度，索引减半）或 binary（每维 1 位，索引约为 1/32）。
+     * 表中仍保存完整精度的向量，检索先用量化索引取候选，再按完整向量重新排序；需要 pgvector 0.7+。
+     * 切换后启动时在线重建索引，新索引建好之前检索为全表扫描
+     */
+    private String quantization = "none";
+
+    /**
+     * 量化检索时候选数为 topK 的倍数，越大召回越高、重排越慢
+     */
+    private int rescoreFactor = 4;
+
+    /**
+     * 默认的 HNSW 查询候选列表大小（hnsw.ef_search），不小于 topK
+     */
+    private int efSearch = 40;
+
+    /**
+     * 默认的 IVFFlat 查询聚类数（ivfflat.probes）
+     */
+    private int probes = 10;
+
+    /**
+     * 导入累计写入和删除的片段数达到该值后在线重建索引，0 表示不自动重建
+     */
+    private long reindexThreshold = 100_000;
+
+    /**
+     * 重建索引时的 maintenance_work_mem，如 1GB；为空时使用数据库默认值。
+     * 索引能放进该内存时 HNSW 构建速度快很多
+     */
+    private String maintenanceWorkMem;
+}
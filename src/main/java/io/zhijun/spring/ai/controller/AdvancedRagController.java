@@ -1,5 +1,6 @@
 package io.zhijun.spring.ai.controller;
 
+import io.zhijun.spring.ai.memory.ConversationIds;
 import io.zhijun.spring.ai.service.AdvancedRagService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -103,21 +104,27 @@ public class AdvancedRagController {
     /**
      * 高级 RAG 聊天
      *
-     * @param request 包含查询的请求
-     * @return AI 回答
+     * @param request              包含查询和可选会话 ID 的请求
+     * @param conversationIdHeader 会话 ID，优先于请求体字段
+     * @return AI 回答，会话 ID 通过响应头返回
      */
     @PostMapping("/chat")
-    public ResponseEntity<String> chatWithAdvancedRag(@RequestBody Map<String, String> request) {
+    public ResponseEntity<String> chatWithAdvancedRag(@RequestBody Map<String, String> request,
+                                                      @RequestHeader(value = ConversationIds.HEADER, required = false)
+                                                      String conversationIdHeader) {
         String query = request.get("query");
         if (query == null || query.trim().isEmpty()) {
             return ResponseEntity.badRequest()
                     .body("查询内容不能为空");
         }
 
+        String conversationId = ConversationIds.resolve(conversationIdHeader, request.get(ConversationIds.FIELD));
         try {
-            log.info("高级 RAG 聊天请求: {}", query);
-            String response = advancedRagService.chatWithAdvancedRag(query);
-            return ResponseEntity.ok(response);
+            log.info("高级 RAG 聊天请求: conversationId={}, query={}", conversationId, query);
+            String response = advancedRagService.chatWithAdvancedRag(query, conversationId);
+            return ResponseEntity.ok()
+                    .headers(ConversationIds.headers(conversationId))
+                    .body(response);
         } catch (Exception e) {
             log.error("高级 RAG 聊天失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -1,5 +1,6 @@
 package io.zhijun.spring.ai.controller;
 
+import io.zhijun.spring.ai.memory.ConversationIds;
 import io.zhijun.spring.ai.service.FunctionCallingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,27 +22,30 @@ public class FunctionCallingController {
     private final FunctionCallingService functionCallingService;
 
     /**
-     * Function Calling 聊天接口（提示词增强版本）
-     * 
-     * 注意：当前实现使用提示词增强方式模拟 Function Calling，
-     * AI 会根据提示词提供相关信息，但不会真正调用外部函数。
-     * 如需完整的 Function Calling 功能，需要模型支持 Tool Calling。
+     * Function Calling 聊天接口
+     * 模型按需调用天气、营业时间、距离工具，需要模型支持 Tool Calling
      *
-     * @param request 包含用户消息的请求
-     * @return AI 回答（包含基于提示词的相关信息）
+     * @param request              包含用户消息和可选会话 ID 的请求
+     * @param conversationIdHeader 会话 ID，优先于请求体字段
+     * @return AI 回答，会话 ID 通过响应头返回
      */
     @PostMapping("/chat")
-    public ResponseEntity<String> chatWithFunctions(@RequestBody Map<String, String> request) {
+    public ResponseEntity<String> chatWithFunctions(@RequestBody Map<String, String> request,
+                                                    @RequestHeader(value = ConversationIds.HEADER, required = false)
+                                                    String conversationIdHeader) {
         String message = request.get("message");
         if (message == null || message.trim().isEmpty()) {
             return ResponseEntity.badRequest()
                     .body("消息内容不能为空");
         }
 
+        String conversationId = ConversationIds.resolve(conversationIdHeader, request.get(ConversationIds.FIELD));
         try {
-            log.info("Function Calling 聊天请求: {}", message);
-            String response = functionCallingService.chatWithFunctions(message);
-            return ResponseEntity.ok(response);
+            log.info("Function Calling 聊天请求: conversationId={}, message={}", conversationId, message);
+            String response = functionCallingService.chatWithFunctions(message, conversationId);
+            return ResponseEntity.ok()
+                    .headers(ConversationIds.headers(conversationId))
+                    .body(response);
         } catch (Exception e) {
             log.error("Function Calling 聊天失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -0,0 +1,76 @@
+package io.zhijun.spring.ai.controller;
+
+import io.zhijun.spring.ai.job.Job;
+import io.zhijun.spring.ai.job.JobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 异步任务控制器
+ * 查询任务状态、读取部分结果和取消任务；任务由各业务接口的 /jobs 端点提交
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final JobService jobService;
+
+    /**
+     * 查询任务状态和进度
+     *
+     * @param id 任务 ID
+     * @return 任务记录，完成后包含执行结果
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Job> getJob(@PathVariable UUID id) {
+        return ResponseEntity.of(jobService.find(id));
+    }
+
+    /**
+     * 分页读取部分结果
+     *
+     * @param id     任务 ID
+     * @param offset 起始位置
+     * @param limit  条数，最多 1000
+     * @return JSON 数组
+     */
+    @GetMapping(value = "/{id}/results", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getResults(@PathVariable UUID id,
+                                             @RequestParam(defaultValue = "0") int offset,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        if (offset < 0 || limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (jobService.find(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(jobService.findItems(id, offset, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param id 任务 ID
+     * @return 取消后的任务状态；任务已结束时返回 409
+     */
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable UUID id) {
+        if (jobService.find(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!jobService.cancel(id)) {
+            return ResponseEntity.status(409).body(Map.of("error", "任务已结束，无法取消"));
+        }
+        return ResponseEntity.ok(Map.of("id", id, "status", "CANCELLED"));
+    }
+}
@@ -1,13 +1,19 @@
 package io.zhijun.spring.ai.controller;
 
+import io.zhijun.spring.ai.job.DocumentLoadJobHandler;
+import io.zhijun.spring.ai.job.Job;
+import io.zhijun.spring.ai.job.JobService;
+import io.zhijun.spring.ai.memory.ConversationIds;
 import io.zhijun.spring.ai.service.DocumentService;
 import io.zhijun.spring.ai.service.RagChatService;
+import io.zhijun.spring.ai.vector.SearchTuning;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +28,7 @@ import java.util.Map;
 public class RagController {
     private final RagChatService ragChatService;
     private final DocumentService documentService;
+    private final JobService jobService;
 
     /**
      * 加载文档到向量存储
@@ -48,18 +55,41 @@ public class RagController {
         }
     }
 
+    /**
+     * 异步加载文档到向量存储
+     * 立即返回任务 ID，通过 /api/jobs/{id} 查询进度
+     *
+     * @param request 包含文件路径的请求
+     * @return 排队中的任务（202）
+     */
+    @PostMapping("/load/jobs")
+    public ResponseEntity<?> submitLoadDocuments(@RequestBody Map<String, String> request) {
+        try {
+            Job job = jobService.submit(DocumentLoadJobHandler.TYPE, request);
+            return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.id())).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * RAG 聊天接口
      *
-     * @param message 用户消息
-     * @return AI 回答
+     * @param message              用户消息
+     * @param conversationIdHeader 会话 ID，未提供时不读写聊天记忆
+     * @return AI 回答，会话 ID 通过响应头返回
      */
     @PostMapping("/chat")
-    public ResponseEntity<String> chatWithRag(@RequestBody String message) {
-        log.info("RAG 聊天请求: {}", message);
+    public ResponseEntity<String> chatWithRag(@RequestBody String message,
+                                              @RequestHeader(value = ConversationIds.HEADER, required = false)
+                                              String conversationIdHeader) {
+        String conversationId = ConversationIds.resolve(conversationIdHeader, null);
+        log.info("RAG 聊天请求: conversationId={}, message={}", conversationId, message);
         try {
-            String response = ragChatService.chatWithRag(message);
-            return ResponseEntity.ok(response);
+            String response = ragChatService.chatWithRag(message, conversationId);
+            return ResponseEntity.ok()
+                    .headers(ConversationIds.headers(conversationId))
+                    .body(response);
         } catch (Exception e) {
             log.error("RAG 聊天失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -70,7 +100,7 @@ public class RagController {
     /**
      * 向量相似性搜索
      *
-     * @param request 包含查询文本和数量的请求
+     * @param request 包含查询文本和数量的请求，可选 efSearch（HNSW）和 probes（IVFFlat）调整召回
      * @return 检索结果
      */
     @PostMapping("/search")
@@ -82,9 +112,16 @@ public class RagController {
             return ResponseEntity.badRequest().build();
         }
 
+        SearchTuning tuning;
+        try {
+            tuning = new SearchTuning((Integer) request.get("efSearch"), (Integer) request.get("probes"));
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
         try {
             log.info("执行向量相似性搜索: {}, topK: {}", query, topK);
-            List<Document> documents = ragChatService.searchSimilar(query, topK);
+            List<Document> documents = ragChatService.searchSimilar(query, topK, tuning);
             return ResponseEntity.ok(documents);
         } catch (Exception e) {
             log.error("向量相似性搜索失败: {}", e.getMessage(), e);
@@ -95,11 +132,14 @@ public class RagController {
     /**
      * 个性化 RAG 聊天
      *
-     * @param request 包含消息和用户偏好的请求
-     * @return AI 回答
+     * @param request              包含消息、用户偏好和可选会话 ID 的请求
+     * @param conversationIdHeader 会话 ID，优先于请求体字段
+     * @return AI 回答，会话 ID 通过响应头返回
      */
     @PostMapping("/chat-personalized")
-    public ResponseEntity<String> chatWithPersonalizedRag(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<String> chatWithPersonalizedRag(@RequestBody Map<String, Object> request,
+                                                          @RequestHeader(value = ConversationIds.HEADER, required = false)
+                                                          String conversationIdHeader) {
         String message = (String) request.get("message");
         @SuppressWarnings("unchecked")
         Map<String, Object> userPreferences = (Map<String, Object>) request.getOrDefault("userPreferences", Map.of());
@@ -109,10 +149,15 @@ public class RagController {
                     .body("消息内容不能为空");
         }
 
+        String conversationId = ConversationIds.resolve(conversationIdHeader, request.get(ConversationIds.FIELD));
         try {
-            log.info("个性化 RAG 聊天请求: {}, 偏好: {}", message, userPreferences);
-            String response = ragChatService.chatWithPersonalizedRag(message, userPreferences);
-            return ResponseEntity.ok(response);
+            log.info("个性化 RAG 聊天请求: {}, 偏好: {}, conversationId={}", message, userPreferences, conversationId);
+            String response = ragChatService.chatWithPersonalizedRag(message, userPreferences, conversationId);
+            return ResponseEntity.ok()
+                    .headers(ConversationIds.headers(conversationId))
+                    .body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("个性化 RAG 聊天失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
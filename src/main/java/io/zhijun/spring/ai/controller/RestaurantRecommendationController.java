@@ -1,15 +1,24 @@
 package io.zhijun.spring.ai.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.memory.ConversationIds;
 import io.zhijun.spring.ai.model.Dish;
 import io.zhijun.spring.ai.model.RecommendationRequest;
 import io.zhijun.spring.ai.model.Restaurant;
+import io.zhijun.spring.ai.service.RestaurantCatalogService;
+import io.zhijun.spring.ai.streaming.SseStreamingEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
@@ -18,88 +27,89 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/restaurants")
 public class RestaurantRecommendationController {
-    private final ChatClient chatClient;
+    @Qualifier(ChatClientProfiles.RAG)
+    private final ChatClient ragChatClient;
+    @Qualifier(ChatClientProfiles.RAG_MEMORY)
+    private final ChatClient ragMemoryChatClient;
+    private final RestaurantCatalogService restaurantCatalogService;
+    private final SseStreamingEngine streamingEngine;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * 根据用户偏好推荐餐厅
+     * 优先返回目录中匹配的餐厅，不足时生成并写回目录
      */
     @PostMapping("/recommend")
     public ResponseEntity<List<Restaurant>> recommendRestaurants(@RequestBody RecommendationRequest request) {
-        PromptTemplate template = new PromptTemplate("""
-                根据以下用户偏好推荐5家合适的餐厅：
-                位置: {location}
-                菜系: {cuisine}
-                价格范围: {priceRange}
-                饮食限制: {dietaryRestrictions}
-                场合: {occasion}
-                人数: {groupSize}
-                用餐时间: {timeOfDay}
-                其他偏好: {preferences}
-                
-                请返回餐厅列表，包含餐厅名称、菜系、位置、评分、描述、价格范围和特色，按照评分从高到低排序。
-                不要包含任何解释性文字，只返回JSON格式的餐厅数据。
-                """);
-
-        Prompt prompt = template.create(Map.of(
-                "location", request.getLocation() != null ? request.getLocation() : "北京市",
-                "cuisine", request.getCuisine() != null ? request.getCuisine() : "不限",
-                "priceRange", request.getPriceRange() != null ? request.getPriceRange() : "不限",
-                "dietaryRestrictions", request.getDietaryRestrictions() != null ?
-                        String.join(", ", request.getDietaryRestrictions()) : "无",
-                "occasion", request.getOccasion() != null ? request.getOccasion() : "日常用餐",
-                "groupSize", request.getGroupSize() != null ? request.getGroupSize().toString() : "1-2人",
-                "timeOfDay", request.getTimeOfDay() != null ? request.getTimeOfDay() : "午餐",
-                "preferences", request.getPreferences() != null ?
-                        String.join(", ", request.getPreferences()) : "无"
-        ));
+        return ResponseEntity.ok(restaurantCatalogService.recommend(request));
+    }
 
-        List<Restaurant> restaurants = chatClient.prompt(prompt)
-                .call()
-                .entity(new ParameterizedTypeReference<List<Restaurant>>() {
-                });
+    /**
+     * 流式推荐餐厅
+     * 每解析出一家餐厅推送一条 restaurant 事件（JSON），不必等全部生成完毕
+     */
+    @PostMapping(value = "/recommend/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecommendRestaurants(@RequestBody RecommendationRequest request) {
+        Flux<String> restaurants = restaurantCatalogService.streamRecommend(request).map(this::toJson);
+        return streamingEngine.stream("recommend-structured", restaurants, "restaurant", "推荐完成");
+    }
 
-        return ResponseEntity.ok(restaurants);
+    /**
+     * 流式推荐餐厅，每行一个餐厅 JSON（NDJSON）
+     */
+    @PostMapping(value = "/recommend/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Restaurant> streamRecommendRestaurantsNdjson(@RequestBody RecommendationRequest request) {
+        return restaurantCatalogService.streamRecommend(request);
     }
 
     /**
      * 生成菜品描述和营养信息（支持中文参数）
+     * 优先返回目录中该菜系的菜品，不足时生成缺少的部分并写回目录
      * 使用 POST 方法避免 URL 编码问题
      */
     @PostMapping("/dishes/generate")
     public ResponseEntity<List<Dish>> generateDishes(@RequestBody Map<String, Object> request) {
         String cuisine = (String) request.get("cuisine");
-        Integer countObj = (Integer) request.get("count");
-        int count = countObj != null ? countObj : 5;
-
-        // 限制菜品数量在合理范围内
-        int validCount = Math.max(1, Math.min(count, 10));
-
-        PromptTemplate template = new PromptTemplate("""
-                为{cuisine}菜系生成{count}道特色菜品，包含以下信息：
-                - 菜品名称
-                - 详细描述
-                - 主要食材
-                - 价格范围
-                - 菜品分类（开胃菜/主菜/甜点等）
-                - 饮食信息（素食/无麸质/低卡等）
-                - 卡路里
-                - 制作时间
-                - 难度等级
-                
-                请返回JSON格式的菜品数据，不要包含解释性文字。
-                """);
+        if (cuisine == null || cuisine.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(restaurantCatalogService.dishes(cuisine.trim(), dishCount(request)));
+    }
 
-        Prompt prompt = template.create(Map.of(
-                "cuisine", cuisine,
-                "count", validCount
-        ));
+    /**
+     * 流式生成菜品
+     * 先推送目录中已有的菜品，再逐道推送新生成的菜品，每道一条 dish 事件（JSON）
+     */
+    @PostMapping(value = "/dishes/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGenerateDishes(@RequestBody Map<String, Object> request) {
+        String cuisine = (String) request.get("cuisine");
+        if (cuisine == null || cuisine.isBlank()) {
+            return streamingEngine.error("菜系不能为空");
+        }
+        Flux<String> dishes = restaurantCatalogService.streamDishes(cuisine.trim(), dishCount(request))
+                .map(this::toJson);
+        return streamingEngine.stream("dishes-structured", dishes, "dish", "菜品生成完成");
+    }
 
-        List<Dish> dishes = chatClient.prompt(prompt)
-                .call()
-                .entity(new ParameterizedTypeReference<List<Dish>>() {
-                });
+    /**
+     * 流式生成菜品，每行一个菜品 JSON（NDJSON）
+     */
+    @PostMapping(value = "/dishes/generate/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<Dish>> streamGenerateDishesNdjson(@RequestBody Map<String, Object> request) {
+        String cuisine = (String) request.get("cuisine");
+        if (cuisine == null || cuisine.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(restaurantCatalogService.streamDishes(cuisine.trim(), dishCount(request)));
+    }
 
-        return ResponseEntity.ok(dishes);
+    /**
+     * 菜品数量，默认 5，限制在 1 到 10 之间
+     */
+    private static int dishCount(Map<String, Object> request) {
+        Integer countObj = (Integer) request.get("count");
+        int count = countObj != null ? countObj : 5;
+        return Math.max(1, Math.min(count, 10));
     }
 
     /**
@@ -125,7 +135,7 @@ public class RestaurantRecommendationController {
                 "query", query
         ));
 
-        String advice = chatClient.prompt(prompt)
+        String advice = ragChatClient.prompt(prompt)
                 .call()
                 .content();
 
@@ -134,9 +144,13 @@ public class RestaurantRecommendationController {
 
     /**
      * 多语言交互 - 支持中文和英文（POST 方法，避免 URL 编码问题）
+     * 会话 ID 通过请求头或请求体 conversationId 字段传入，未提供时按无状态处理，不读写聊天记忆
      */
     @PostMapping("/chat")
-    public ResponseEntity<String> chat(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<String> chat(@RequestBody Map<String, Object> request,
+                                       @RequestHeader(value = ConversationIds.HEADER, required = false)
+                                       String conversationIdHeader) {
+        String conversationId = ConversationIds.resolve(conversationIdHeader, request.get(ConversationIds.FIELD));
         String message = (String) request.get("message");
         String language = (String) request.getOrDefault("language", "zh");
 
@@ -157,37 +171,30 @@ public class RestaurantRecommendationController {
                 "message", message
         ));
 
-        String response = chatClient.prompt(prompt)
+        String response = ragMemoryChatClient.prompt(prompt)
+                .advisors(a -> ConversationIds.apply(a, conversationId))
                 .call()
                 .content();
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .headers(ConversationIds.headers(conversationId))
+                .body(response);
     }
 
     /**
      * 获取餐厅详细信息
+     * 只从目录读取，目录中不存在的 ID 返回 404
      */
     @GetMapping("/{id}/details")
     public ResponseEntity<Restaurant> getRestaurantDetails(@PathVariable Long id) {
-        PromptTemplate template = new PromptTemplate("""
-                请为ID为{id}的餐厅生成详细信息，包括：
-                - 餐厅名称
-                - 菜系类型
-                - 具体位置
-                - 评分（1-5星）
-                - 详细描述
-                - 价格范围
-                - 特色服务（如：外卖、堂食、包间等）
-                
-                返回JSON格式的餐厅数据。
-                """);
-
-        Prompt prompt = template.create(Map.of("id", id));
-
-        Restaurant restaurant = chatClient.prompt(prompt)
-                .call()
-                .entity(Restaurant.class);
+        return ResponseEntity.of(restaurantCatalogService.details(id));
+    }
 
-        return ResponseEntity.ok(restaurant);
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化结果失败", e);
+        }
     }
 }
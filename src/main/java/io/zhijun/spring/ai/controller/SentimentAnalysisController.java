@@ -1,11 +1,21 @@
 package io.zhijun.spring.ai.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zhijun.spring.ai.job.Job;
+import io.zhijun.spring.ai.job.JobService;
+import io.zhijun.spring.ai.job.SentimentBatchJobHandler;
 import io.zhijun.spring.ai.service.SentimentAnalysisService;
+import io.zhijun.spring.ai.streaming.SseStreamingEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +30,9 @@ import java.util.Map;
 public class SentimentAnalysisController {
 
     private final SentimentAnalysisService sentimentAnalysisService;
+    private final SseStreamingEngine streamingEngine;
+    private final JobService jobService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * 分析单条评论的情感
@@ -70,4 +83,49 @@ public class SentimentAnalysisController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * 异步批量分析评论情感
+     * 立即返回任务 ID，通过 /api/jobs/{id} 查询进度和汇总，/api/jobs/{id}/results 读取逐条结果
+     *
+     * @param request 包含评论列表的请求
+     * @return 排队中的任务（202）
+     */
+    @PostMapping("/batch-analyze/jobs")
+    public ResponseEntity<?> submitBatchAnalyzeSentiment(@RequestBody Map<String, List<String>> request) {
+        try {
+            Job job = jobService.submit(SentimentBatchJobHandler.TYPE, request);
+            return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.id())).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 流式批量分析评论情感
+     * 每完成一个微批次推送一条 progress 事件（JSON），最后一条携带汇总
+     *
+     * @param request 包含评论列表的请求
+     * @return SSE 流
+     */
+    @PostMapping(value = "/batch-analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBatchAnalyzeSentiment(@RequestBody Map<String, List<String>> request) {
+        List<String> reviews = request.get("reviews");
+        if (reviews == null || reviews.isEmpty()) {
+            return streamingEngine.error("评论列表不能为空");
+        }
+
+        log.info("流式批量情感分析请求，共 {} 条评论", reviews.size());
+        Flux<String> progress = sentimentAnalysisService.streamBatchAnalyzeSentiment(reviews)
+                .map(this::toJson);
+        return streamingEngine.stream("sentiment-batch", progress, "progress", "批量情感分析完成");
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化进度失败", e);
+        }
+    }
 }
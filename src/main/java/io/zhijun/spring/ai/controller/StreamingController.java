@@ -1,19 +1,24 @@
 package io.zhijun.spring.ai.controller;
 
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.memory.ConversationIds;
+import io.zhijun.spring.ai.streaming.SseStreamingEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import reactor.core.publisher.Flux;
 
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * 流式响应控制器
  * 提供 Server-Sent Events (SSE) 流式输出功能
+ * 写出、取消和并发控制由 {@link SseStreamingEngine} 负责
  */
 @Slf4j
 @RestController
@@ -21,81 +26,43 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class StreamingController {
 
-    private final ChatClient chatClient;
+    @Qualifier(ChatClientProfiles.RAG_MEMORY)
+    private final ChatClient ragMemoryChatClient;
+    @Qualifier(ChatClientProfiles.RAG)
+    private final ChatClient ragChatClient;
+    private final SseStreamingEngine streamingEngine;
 
     /**
      * 流式聊天接口
      * 使用 SSE 实时返回 AI 响应
      *
-     * @param request 包含用户消息的请求
-     * @return SSE 流
+     * @param request              包含用户消息和可选会话 ID 的请求
+     * @param conversationIdHeader 会话 ID，优先于请求体字段
+     * @return SSE 流，会话 ID 通过响应头返回
      */
     @PostMapping(value = "/chat", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamChat(@RequestBody Map<String, String> request) {
+    public ResponseEntity<SseEmitter> streamChat(@RequestBody Map<String, String> request,
+                                                 @RequestHeader(value = ConversationIds.HEADER, required = false)
+                                                 String conversationIdHeader) {
         String message = request.get("message");
         if (message == null || message.trim().isEmpty()) {
-            SseEmitter emitter = new SseEmitter();
-            CompletableFuture.runAsync(() -> {
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name("error")
-                            .data("消息内容不能为空"));
-                    emitter.complete();
-                } catch (Exception e) {
-                    emitter.completeWithError(e);
-                }
-            });
-            return emitter;
+            return ResponseEntity.ok(streamingEngine.error("消息内容不能为空"));
         }
 
-        SseEmitter emitter = new SseEmitter(60000L); // 60秒超时
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                log.info("开始流式聊天: {}", message);
-
-                // 使用流式调用 - 在 Spring AI 1.1.2 中，stream().content() 返回 Flux<String>
-                Flux<String> contentStream = chatClient.prompt()
-                        .user(message)
-                        .stream()
-                        .content();
+        String conversationId = ConversationIds.resolve(conversationIdHeader, request.get(ConversationIds.FIELD));
+        log.info("开始流式聊天: conversationId={}, message={}", conversationId, message);
 
-                // 订阅 Flux 并发送 SSE 事件
-                contentStream.subscribe(
-                        chunk -> {
-                            try {
-                                emitter.send(SseEmitter.event()
-                                        .name("message")
-                                        .data(chunk));
-                            } catch (Exception e) {
-                                log.error("发送 SSE 数据失败", e);
-                                emitter.completeWithError(e);
-                            }
-                        },
-                        error -> {
-                            log.error("流式聊天失败: {}", error.getMessage(), error);
-                            emitter.completeWithError(error);
-                        },
-                        () -> {
-                            try {
-                                emitter.send(SseEmitter.event()
-                                        .name("complete")
-                                        .data("流式响应完成"));
-                                emitter.complete();
-                                log.info("流式聊天完成");
-                            } catch (Exception e) {
-                                log.error("完成 SSE 流失败", e);
-                                emitter.completeWithError(e);
-                            }
-                        }
-                );
-            } catch (Exception e) {
-                log.error("流式聊天失败: {}", e.getMessage(), e);
-                emitter.completeWithError(e);
-            }
-        });
+        // 使用流式调用 - 在 Spring AI 1.1.2 中，stream().content() 返回 Flux<String>
+        // Flux 是冷流，真正的模型调用在写出线程订阅时才发生
+        Flux<String> contentStream = ragMemoryChatClient.prompt()
+                .advisors(a -> ConversationIds.apply(a, conversationId))
+                .user(message)
+                .stream()
+                .content();
 
-        return emitter;
+        return ResponseEntity.ok()
+                .headers(ConversationIds.headers(conversationId))
+                .body(streamingEngine.stream("chat", contentStream, "message", "流式响应完成"));
     }
 
     /**
@@ -110,58 +77,18 @@ public class StreamingController {
         String location = (String) request.getOrDefault("location", "北京市");
         String cuisine = (String) request.getOrDefault("cuisine", "不限");
 
-        SseEmitter emitter = new SseEmitter(60000L);
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                log.info("开始流式推荐: location={}, cuisine={}", location, cuisine);
-
-                String prompt = String.format(
-                        "推荐5家位于%s的%s餐厅，逐个介绍每家餐厅的特色。",
-                        location, cuisine
-                );
-
-                // 使用流式调用 - 在 Spring AI 1.1.2 中，stream().content() 返回 Flux<String>
-                Flux<String> contentStream = chatClient.prompt()
-                        .user(prompt)
-                        .stream()
-                        .content();
+        log.info("开始流式推荐: location={}, cuisine={}", location, cuisine);
 
-                // 订阅 Flux 并发送 SSE 事件
-                contentStream.subscribe(
-                        chunk -> {
-                            try {
-                                emitter.send(SseEmitter.event()
-                                        .name("recommendation")
-                                        .data(chunk));
-                            } catch (Exception e) {
-                                log.error("发送推荐数据失败", e);
-                                emitter.completeWithError(e);
-                            }
-                        },
-                        error -> {
-                            log.error("流式推荐失败: {}", error.getMessage(), error);
-                            emitter.completeWithError(error);
-                        },
-                        () -> {
-                            try {
-                                emitter.send(SseEmitter.event()
-                                        .name("complete")
-                                        .data("推荐完成"));
-                                emitter.complete();
-                            } catch (Exception e) {
-                                log.error("完成 SSE 流失败", e);
-                                emitter.completeWithError(e);
-                            }
-                        }
-                );
+        String prompt = String.format(
+                "推荐5家位于%s的%s餐厅，逐个介绍每家餐厅的特色。",
+                location, cuisine
+        );
 
-            } catch (Exception e) {
-                log.error("流式推荐失败: {}", e.getMessage(), e);
-                emitter.completeWithError(e);
-            }
-        });
+        Flux<String> contentStream = ragChatClient.prompt()
+                .user(prompt)
+                .stream()
+                .content();
 
-        return emitter;
+        return streamingEngine.stream("recommend", contentStream, "recommendation", "推荐完成");
     }
 }
@@ -1,29 +1,47 @@
 package io.zhijun.spring.ai.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zhijun.spring.ai.config.ChatClientProfiles;
 import io.zhijun.spring.ai.model.Restaurant;
+import io.zhijun.spring.ai.output.StructuredOutputPipeline;
+import io.zhijun.spring.ai.streaming.JsonArrayStreamParser;
+import io.zhijun.spring.ai.streaming.SseStreamingEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.converter.BeanOutputConverter;
 import org.springframework.ai.converter.ListOutputConverter;
-import org.springframework.ai.converter.MapOutputConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
 
 /**
  * 结构化输出示例控制器
- * 展示 Spring AI 的多种结构化输出方式
+ * 展示 Spring AI 的多种结构化输出方式；JSON 输出经过 {@link StructuredOutputPipeline} 修复和校验，
+ * 模型输出格式有问题时不需要客户端重试整个调用
  */
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/structured")
 public class StructuredOutputController {
-    
+
+    /**
+     * 结构化输出不需要知识库检索和会话历史
+     */
+    @Qualifier(ChatClientProfiles.PURE)
     private final ChatClient chatClient;
+    private final SseStreamingEngine streamingEngine;
+    private final StructuredOutputPipeline outputPipeline;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * 方式1：使用 ParameterizedTypeReference（当前项目使用的方式）
@@ -39,14 +57,37 @@ public class StructuredOutputController {
         
         Prompt prompt = template.create(Map.of("cuisine", cuisine));
         
-        // 使用 ParameterizedTypeReference
-        List<Restaurant> restaurants = chatClient.prompt(prompt)
-                .call()
-                .entity(new org.springframework.core.ParameterizedTypeReference<List<Restaurant>>() {});
+        // 使用 ParameterizedTypeReference，格式说明与 .entity() 相同
+        List<Restaurant> restaurants = outputPipeline.entity(chatClient.prompt(prompt),
+                new ParameterizedTypeReference<List<Restaurant>>() {});
         
         return ResponseEntity.ok(restaurants);
     }
 
+    /**
+     * 方式1 的流式版本：增量解析 JSON 数组
+     * 每个餐厅对象一闭合就推送一条 restaurant 事件，客户端不必等待整个列表生成完毕
+     */
+    @PostMapping(value = "/restaurants/type-ref/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRestaurantsWithTypeRef(@RequestBody Map<String, Object> request) {
+        String cuisine = (String) request.get("cuisine");
+
+        PromptTemplate template = new PromptTemplate("""
+                推荐3家{cuisine}餐厅，返回JSON格式的餐厅列表。
+                每个餐厅包含：name, cuisine, location, rating, description, priceRange, features
+                """);
+
+        // 流式调用不经过 .entity()，自己附加输出格式说明
+        String format = new BeanOutputConverter<>(new ParameterizedTypeReference<List<Restaurant>>() {}).getFormat();
+        Flux<String> chunks = chatClient.prompt()
+                .user(template.render(Map.of("cuisine", cuisine)) + format)
+                .stream()
+                .content();
+
+        Flux<String> restaurants = JsonArrayStreamParser.parse(chunks, Restaurant.class).map(this::toJson);
+        return streamingEngine.stream("structured", restaurants, "restaurant", "结构化输出完成");
+    }
+
     /**
      * 方式2：使用 BeanOutputConverter
      */
@@ -54,21 +95,23 @@ public class StructuredOutputController {
     public ResponseEntity<Restaurant> getRestaurantWithBeanConverter(@RequestBody Map<String, Object> request) {
         String cuisine = (String) request.get("cuisine");
         
+        // 使用 BeanOutputConverter 生成格式说明
+        BeanOutputConverter<Restaurant> converter = new BeanOutputConverter<>(Restaurant.class);
+        
         PromptTemplate template = new PromptTemplate("""
                 推荐1家{cuisine}餐厅，返回JSON格式的餐厅信息。
                 包含：name, cuisine, location, rating, description, priceRange, features
+                {format}
                 """);
         
-        Prompt prompt = template.create(Map.of("cuisine", cuisine));
-        
-        // 使用 BeanOutputConverter
-        BeanOutputConverter<Restaurant> converter = new BeanOutputConverter<>(Restaurant.class);
+        Prompt prompt = template.create(Map.of("cuisine", cuisine, "format", converter.getFormat()));
         
         String response = chatClient.prompt(prompt)
                 .call()
                 .content();
         
-        Restaurant restaurant = converter.convert(response);
+        // 不直接使用 converter.convert()，格式有问题时先修复再转换
+        Restaurant restaurant = outputPipeline.convert(response, Restaurant.class);
         
         return ResponseEntity.ok(restaurant);
     }
@@ -106,7 +149,7 @@ public class StructuredOutputController {
     }
 
     /**
-     * 方式4：使用 MapOutputConverter
+     * 方式4：转换为 Map
      */
     @PostMapping("/restaurant/map-converter")
     public ResponseEntity<Map<String, Object>> getRestaurantWithMapConverter(@RequestBody Map<String, Object> request) {
@@ -119,21 +162,15 @@ public class StructuredOutputController {
         
         Prompt prompt = template.create(Map.of("cuisine", cuisine));
         
-        // 使用 MapOutputConverter
-        MapOutputConverter converter = new MapOutputConverter();
-        
-        String response = chatClient.prompt(prompt)
-                .call()
-                .content();
-        
-        @SuppressWarnings("unchecked")
-        Map<String, Object> restaurant = (Map<String, Object>) converter.convert(response);
+        // 与 MapOutputConverter 的格式说明相同，输出经过修复和校验
+        Map<String, Object> restaurant = outputPipeline.entity(chatClient.prompt(prompt),
+                new ParameterizedTypeReference<Map<String, Object>>() {});
         
         return ResponseEntity.ok(restaurant);
     }
 
     /**
-     * 方式5：直接使用 .entity() 方法（最简单的方式）
+     * 方式5：与 .entity() 等价的最简单方式
      */
     @PostMapping("/restaurant/direct-entity")
     public ResponseEntity<Restaurant> getRestaurantDirectEntity(@RequestBody Map<String, Object> request) {
@@ -146,11 +183,17 @@ public class StructuredOutputController {
         
         Prompt prompt = template.create(Map.of("cuisine", cuisine));
         
-        // 直接使用 .entity() 方法
-        Restaurant restaurant = chatClient.prompt(prompt)
-                .call()
-                .entity(Restaurant.class);
+        // 等价于 .entity(Restaurant.class)
+        Restaurant restaurant = outputPipeline.entity(chatClient.prompt(prompt), Restaurant.class);
         
         return ResponseEntity.ok(restaurant);
     }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化结果失败", e);
+        }
+    }
 }
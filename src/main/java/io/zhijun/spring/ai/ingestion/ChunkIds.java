@@ -0,0 +1,65 @@
+package io.zhijun.spring.ai.ingestion;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 文档片段内容寻址 ID
+ * 由来源文件名和规范化后的文本计算 SHA-256，取前 128 位作为 UUID，
+ * 同一文件中内容未变的片段在重复导入时得到相同的 ID
+ * 带元数据的版本把影响检索的元数据也计入散列，元数据提取规则变化时片段会被重新写入
+ */
+public final class ChunkIds {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ChunkIds() {
+    }
+
+    public static String contentId(String source, String text) {
+        return contentId(source, text, Map.of());
+    }
+
+    /**
+     * @param attributes 参与计算的元数据，按键排序后计入散列；为空时与 {@link #contentId(String, String)} 相同
+     */
+    public static String contentId(String source, String text, Map<String, ?> attributes) {
+        String normalized = normalize(text);
+        if (!attributes.isEmpty()) {
+            normalized = normalized + '\u0000' + new TreeMap<>(attributes);
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+        digest.update((source != null ? source : "").getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(normalized.getBytes(StandardCharsets.UTF_8));
+
+        // 按 RFC 4122 设置版本（5，基于名称的 SHA 散列）和变体位
+        hash[6] = (byte) ((hash[6] & 0x0f) | 0x50);
+        hash[8] = (byte) ((hash[8] & 0x3f) | 0x80);
+        ByteBuffer buffer = ByteBuffer.wrap(hash, 0, 16);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    /**
+     * 规范化文本：Unicode NFKC、合并连续空白、去除首尾空白
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,25 @@
+package io.zhijun.spring.ai.ingestion;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 文档导入进度端点
+ * GET /actuator/ingestion
+ */
+@Component
+@Endpoint(id = "ingestion")
+@RequiredArgsConstructor
+public class IngestionEndpoint {
+
+    private final IngestionProgress ingestionProgress;
+
+    @ReadOperation
+    public List<IngestionProgress.Snapshot> runs() {
+        return ingestionProgress.snapshots();
+    }
+}
@@ -0,0 +1,200 @@
+package io.zhijun.spring.ai.ingestion;
+
+import io.zhijun.spring.ai.config.IngestionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 流水线式文档导入
+ * 分割 → 向量化 → 写入 pgvector 三个阶段通过有界队列连接：
+ * 队列满时上游阻塞形成背压，多个批次的向量化与数据库写入并行进行
+ */
+@Slf4j
+@Component
+public class IngestionPipeline {
+
+    private static final Batch END = new Batch(List.of(), List.of());
+    private static final long POLL_MILLIS = 200;
+
+    private final EmbeddingModel embeddingModel;
+    private final VectorWriter writer;
+    private final ExecutorService executor;
+    private final IngestionProperties properties;
+    private final IngestionProgress progress;
+
+    public IngestionPipeline(EmbeddingModel embeddingModel, VectorWriter writer,
+                             @Qualifier("ingestionExecutor") ExecutorService executor,
+                             IngestionProperties properties, IngestionProgress progress) {
+        this.embeddingModel = embeddingModel;
+        this.writer = writer;
+        this.executor = executor;
+        this.properties = properties;
+        this.progress = progress;
+    }
+
+    /**
+     * 执行导入，阻塞直到所有片段写入完成
+     *
+     * @param source         来源（文件名），用于进度展示
+     * @param documents      读取到的原始文档
+     * @param splitter       分割器
+     * @param chunkMapper    在分割阶段处理每个片段，返回需要向量化的片段，返回 null 表示跳过
+     * @param onBatchWritten 每批写入成功后的回调
+     * @return 本次导入的进度记录
+     */
+    public IngestionProgress.Run run(String source, List<Document> documents, TextSplitter splitter,
+                    UnaryOperator<Document> chunkMapper, Consumer<List<Document>> onBatchWritten) {
+        IngestionProgress.Run run = progress.start(source);
+        int batchSize = Math.max(1, properties.getBatchSize());
+        int embedders = Math.max(1, properties.getEmbeddingConcurrency());
+        BlockingQueue<Batch> toEmbed = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        BlockingQueue<Batch> toWrite = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Future<?>> embedTasks = new ArrayList<>(embedders);
+        for (int i = 0; i < embedders; i++) {
+            embedTasks.add(executor.submit(() -> embedLoop(toEmbed, toWrite, run, failure)));
+        }
+        Future<?> writeTask = executor.submit(() -> writeLoop(toWrite, run, failure, onBatchWritten));
+
+        try {
+            // 分割阶段在调用线程执行，逐个文档分割并按批次投递
+            List<Document> buffer = new ArrayList<>(batchSize);
+            for (Document document : documents) {
+                for (Document chunk : splitter.apply(List.of(document))) {
+                    Document mapped = chunkMapper.apply(chunk);
+                    if (mapped == null) {
+                        run.skipped(1);
+                        continue;
+                    }
+                    buffer.add(mapped);
+                    if (buffer.size() == batchSize) {
+                        run.split(buffer.size());
+                        put(toEmbed, new Batch(buffer, List.of()), failure);
+                        buffer = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            if (!buffer.isEmpty()) {
+                run.split(buffer.size());
+                put(toEmbed, new Batch(buffer, List.of()), failure);
+            }
+            for (int i = 0; i < embedders; i++) {
+                put(toEmbed, END, failure);
+            }
+
+            for (Future<?> task : embedTasks) {
+                task.get();
+            }
+            put(toWrite, END, failure);
+            writeTask.get();
+
+            rethrow(failure);
+            run.complete();
+            log.info("文档导入完成: source={}, chunks={}, throughput={} chunks/s",
+                    source, run.writtenCount(), String.format("%.1f", run.snapshot().chunksPerSecond()));
+            return run;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+            throw abort(run, embedTasks, writeTask, e);
+        } catch (ExecutionException e) {
+            throw abort(run, embedTasks, writeTask, e.getCause());
+        } catch (RuntimeException e) {
+            throw abort(run, embedTasks, writeTask, e);
+        }
+    }
+
+    private void embedLoop(BlockingQueue<Batch> toEmbed, BlockingQueue<Batch> toWrite,
+                           IngestionProgress.Run run, AtomicReference<Throwable> failure) {
+        try {
+            while (failure.get() == null) {
+                Batch batch = toEmbed.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    continue;
+                }
+                if (batch == END) {
+                    return;
+                }
+                List<String> texts = batch.documents().stream()
+                        .map(doc -> doc.getFormattedContent(MetadataMode.EMBED))
+                        .toList();
+                List<float[]> embeddings = embeddingModel.embed(texts);
+                run.embedded(texts.size());
+                put(toWrite, new Batch(batch.documents(), embeddings), failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void writeLoop(BlockingQueue<Batch> toWrite, IngestionProgress.Run run,
+                           AtomicReference<Throwable> failure, Consumer<List<Document>> onBatchWritten) {
+        try {
+            while (failure.get() == null) {
+                Batch batch = toWrite.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    continue;
+                }
+                if (batch == END) {
+                    return;
+                }
+                writer.write(batch.documents(), batch.embeddings());
+                run.written(batch.documents().size());
+                onBatchWritten.accept(batch.documents());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * 带背压的投递：队列满时等待，下游失败时立即退出
+     */
+    private static void put(BlockingQueue<Batch> queue, Batch batch, AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            rethrow(failure);
+        }
+    }
+
+    private static void rethrow(AtomicReference<Throwable> failure) {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw cause instanceof RuntimeException re ? re : new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    private RuntimeException abort(IngestionProgress.Run run, List<Future<?>> embedTasks, Future<?> writeTask,
+                                   Throwable cause) {
+        embedTasks.forEach(task -> task.cancel(true));
+        writeTask.cancel(true);
+        run.fail(cause);
+        log.error("文档导入失败: {}", cause.getMessage(), cause);
+        return cause instanceof RuntimeException re ? re : new RuntimeException("文档导入失败: " + cause.getMessage(), cause);
+    }
+
+    private record Batch(List<Document> documents, List<float[]> embeddings) {
+    }
+}
@@ -0,0 +1,169 @@
+package io.zhijun.spring.ai.ingestion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文档导入进度
+ * 记录每次导入各阶段的处理数量和吞吐量，通过 Micrometer 指标和 ingestion 端点暴露
+ */
+@Component
+public class IngestionProgress {
+
+    private static final int MAX_HISTORY = 20;
+
+    private final Deque<Run> runs = new ConcurrentLinkedDeque<>();
+    private final Counter splitCounter;
+    private final Counter skippedCounter;
+    private final Counter embeddedCounter;
+    private final Counter writtenCounter;
+
+    public IngestionProgress(MeterRegistry meterRegistry) {
+        this.splitCounter = chunkCounter(meterRegistry, "split");
+        this.skippedCounter = chunkCounter(meterRegistry, "skipped");
+        this.embeddedCounter = chunkCounter(meterRegistry, "embedded");
+        this.writtenCounter = chunkCounter(meterRegistry, "written");
+        Gauge.builder("restaurant.ingestion.active", runs, r -> r.stream().filter(Run::isRunning).count())
+                .description("正在进行的导入任务数")
+                .register(meterRegistry);
+        Gauge.builder("restaurant.ingestion.throughput", this, IngestionProgress::latestThroughput)
+                .description("最近一次导入的写入吞吐量")
+                .baseUnit("chunks/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 开始一次导入
+     */
+    public Run start(String source) {
+        Run run = new Run(UUID.randomUUID().toString(), source);
+        runs.addFirst(run);
+        while (runs.size() > MAX_HISTORY) {
+            runs.pollLast();
+        }
+        return run;
+    }
+
+    /**
+     * 最近的导入记录，最新的在前
+     */
+    public List<Snapshot> snapshots() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (Run run : runs) {
+            snapshots.add(run.snapshot());
+        }
+        return snapshots;
+    }
+
+    private double latestThroughput() {
+        Run latest = runs.peekFirst();
+        return latest != null ? latest.throughput() : 0;
+    }
+
+    private static Counter chunkCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("restaurant.ingestion.chunks")
+                .description("导入各阶段处理的文档片段数")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 单次导入
+     */
+    public class Run {
+
+        private final String id;
+        private final String source;
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong split = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong embedded = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private volatile long endNanos;
+        private volatile String status = "RUNNING";
+        private volatile String error;
+
+        private Run(String id, String source) {
+            this.id = id;
+            this.source = source;
+        }
+
+        public void split(int count) {
+            split.addAndGet(count);
+            splitCounter.increment(count);
+        }
+
+        public void skipped(int count) {
+            skipped.addAndGet(count);
+            skippedCounter.increment(count);
+        }
+
+        public void deleted(int count) {
+            deleted.addAndGet(count);
+        }
+
+        public void embedded(int count) {
+            embedded.addAndGet(count);
+            embeddedCounter.increment(count);
+        }
+
+        public void written(int count) {
+            written.addAndGet(count);
+            writtenCounter.increment(count);
+        }
+
+        public void complete() {
+            endNanos = System.nanoTime();
+            status = "COMPLETED";
+        }
+
+        public void fail(Throwable cause) {
+            endNanos = System.nanoTime();
+            status = "FAILED";
+            error = cause.getMessage();
+        }
+
+        public long writtenCount() {
+            return written.get();
+        }
+
+        boolean isRunning() {
+            return endNanos == 0;
+        }
+
+        double throughput() {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            double seconds = (end - startNanos) / 1_000_000_000.0;
+            return seconds > 0 ? written.get() / seconds : 0;
+        }
+
+        /**
+         * 当前进度快照
+         */
+        public Snapshot snapshot() {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            return new Snapshot(id, source, status, startedAt, split.get(), skipped.get(), embedded.get(),
+                    written.get(), deleted.get(), (end - startNanos) / 1_000_000, throughput(), error);
+        }
+    }
+
+    /**
+     * 导入进度快照
+     */
+    public record Snapshot(String id, String source, String status, Instant startedAt, long splitChunks,
+                           long unchangedChunks, long embeddedChunks, long writtenChunks, long deletedChunks,
+                           long elapsedMillis, double chunksPerSecond, String error) {
+    }
+}
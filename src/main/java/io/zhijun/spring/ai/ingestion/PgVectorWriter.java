@@ -0,0 +1,132 @@
+package io.zhijun.spring.ai.ingestion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import io.zhijun.spring.ai.config.EmbeddedVectorStoreConfig;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * pgvector 批量写入器
+ * 写入已经向量化的文档片段，表结构与 PgVectorStore 一致
+ */
+@Component
+@Profile("!" + EmbeddedVectorStoreConfig.PROFILE)
+public class PgVectorWriter implements VectorWriter {
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+    private final String selectIdsBySourceSql;
+    private final String deleteSql;
+    private final String selectAllSql;
+    private final String selectByIdsSql;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public PgVectorWriter(JdbcTemplate jdbcTemplate,
+                          @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertSql = "INSERT INTO " + tableName + " (id, content, metadata, embedding) VALUES (?, ?, ?::json, ?) "
+                + "ON CONFLICT (id) DO UPDATE SET content = EXCLUDED.content, metadata = EXCLUDED.metadata, "
+                + "embedding = EXCLUDED.embedding";
+        // 包含查询可以使用元数据 GIN 索引
+        this.selectIdsBySourceSql = "SELECT id FROM " + tableName
+                + " WHERE metadata::jsonb @> jsonb_build_object('filename', ?::text)";
+        this.deleteSql = "DELETE FROM " + tableName + " WHERE id = ?";
+        this.selectAllSql = "SELECT id, content, metadata FROM " + tableName;
+        this.selectByIdsSql = selectAllSql + " WHERE id = ANY (?::uuid[])";
+    }
+
+    @Override
+    public Set<String> findIdsBySource(String filename) {
+        return new HashSet<>(jdbcTemplate.queryForList(selectIdsBySourceSql, String.class, filename));
+    }
+
+    @Override
+    public void delete(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(deleteSql, ids.stream()
+                .map(id -> new Object[]{UUID.fromString(id)})
+                .toList());
+    }
+
+    @Override
+    public void write(List<Document> documents, List<float[]> embeddings) {
+        jdbcTemplate.batchUpdate(upsertSql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Document document = documents.get(i);
+                ps.setObject(1, UUID.fromString(document.getId()));
+                ps.setString(2, document.getText());
+                ps.setString(3, toJson(document));
+                ps.setObject(4, new PGvector(embeddings.get(i)));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return documents.size();
+            }
+        });
+    }
+
+    @Override
+    public List<Document> loadAll() {
+        return jdbcTemplate.query(selectAllSql, this::document);
+    }
+
+    @Override
+    public List<Document> findByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(selectByIdsSql);
+            ps.setArray(1, con.createArrayOf("text", ids.toArray()));
+            return ps;
+        }, this::document);
+    }
+
+    private Document document(ResultSet rs, int rowNum) throws SQLException {
+        return new Document(rs.getString("id"), rs.getString("content"), parseMetadata(rs.getString("metadata")));
+    }
+
+    private Map<String, Object> parseMetadata(String json) {
+        if (json == null || json.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (Exception e) {
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private String toJson(Document document) {
+        try {
+            return objectMapper.writeValueAsString(document.getMetadata());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("文档元数据序列化失败: " + document.getId(), e);
+        }
+    }
+}
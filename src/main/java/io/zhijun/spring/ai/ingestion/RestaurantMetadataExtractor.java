@@ -0,0 +1,192 @@
+package io.zhijun.spring.ai.ingestion;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentTransformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 餐厅知识文档结构化元数据提取
+ * 从 Markdown 文档中提取城市、菜系、人均价格和菜品，写入片段元数据，
+ * 检索时通过 Filter.Expression 在 JSONB 元数据上预过滤，不再对正文做 LIKE 匹配
+ * <p>
+ * MarkdownDocumentReader 只保留最近一级标题（title），一级标题（如“北京川菜餐厅推荐”）会丢失，
+ * 因此先扫描原文记录每个二级标题所属的一级标题
+ */
+public class RestaurantMetadataExtractor implements DocumentTransformer {
+
+    public static final String KIND = "kind";
+    public static final String SECTION = "section";
+    public static final String CITY = "city";
+    public static final String CUISINE = "cuisine";
+    public static final String PRICE_MIN = "priceMin";
+    public static final String PRICE_MAX = "priceMax";
+    public static final String DISHES = "dishes";
+
+    /**
+     * 提取的元数据键，片段 ID 由这些值参与计算
+     */
+    public static final List<String> KEYS = List.of(KIND, SECTION, CITY, CUISINE, PRICE_MIN, PRICE_MAX, DISHES);
+
+    /**
+     * 可识别的菜系，长的在前
+     */
+    static final List<String> CUISINES = List.of("东北菜", "本帮菜", "西北菜", "川菜", "湘菜", "粤菜", "鲁菜", "苏菜",
+            "浙菜", "闽菜", "徽菜", "京菜", "火锅", "烧烤", "日料", "韩餐", "西餐");
+
+    private static final Pattern HEADING = Pattern.compile("^(#{1,2})\\s+(.+?)\\s*$");
+    private static final Pattern ADDRESS_CITY = Pattern.compile("地址[：:]\\s*(\\p{IsHan}{2,3}?)市");
+    private static final Pattern PRICE = Pattern.compile("人均[：:]\\s*(\\d+)(?:\\s*[-~至]\\s*(\\d+))?\\s*元");
+    private static final Pattern DISH_LIST = Pattern.compile("推荐菜[：:]\\s*([^\\n]+)");
+    private static final Pattern DISH_SPLIT = Pattern.compile("\\s*[、，,]\\s*");
+
+    private final Map<String, String> sectionsByTitle;
+
+    /**
+     * @param markdown 文档原文，用于确定每个二级标题所属的一级标题
+     */
+    public RestaurantMetadataExtractor(String markdown) {
+        this.sectionsByTitle = sections(markdown);
+    }
+
+    @Override
+    public List<Document> apply(List<Document> documents) {
+        List<Document> enriched = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Map<String, Object> extracted = extract(document);
+            enriched.add(extracted.isEmpty() ? document : document.mutate()
+                    .metadata(merge(document.getMetadata(), extracted))
+                    .build());
+        }
+        return enriched;
+    }
+
+    /**
+     * 提取一个文档的元数据，识别不出的字段不写入
+     */
+    Map<String, Object> extract(Document document) {
+        String text = document.getText() != null ? document.getText() : "";
+        Object titleValue = document.getMetadata().get("title");
+        String title = titleValue != null ? titleValue.toString().trim() : "";
+        String section = sectionsByTitle.get(title);
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        if (section != null) {
+            metadata.put(SECTION, section);
+        }
+
+        Matcher address = ADDRESS_CITY.matcher(text);
+        String city = address.find() ? address.group(1) : cityFromHeading(section);
+        if (city != null) {
+            metadata.put(CITY, city);
+        }
+        String cuisine = section != null ? cuisine(section) : null;
+        if (cuisine == null) {
+            cuisine = cuisine(title + " " + text);
+        }
+        if (cuisine != null) {
+            metadata.put(CUISINE, cuisine);
+        }
+
+        Matcher price = PRICE.matcher(text);
+        if (price.find()) {
+            int min = Integer.parseInt(price.group(1));
+            int max = price.group(2) != null ? Integer.parseInt(price.group(2)) : min;
+            metadata.put(PRICE_MIN, Math.min(min, max));
+            metadata.put(PRICE_MAX, Math.max(min, max));
+        }
+
+        Matcher dishes = DISH_LIST.matcher(text);
+        if (dishes.find()) {
+            metadata.put(KIND, "restaurant");
+            metadata.put(DISHES, Arrays.stream(DISH_SPLIT.split(dishes.group(1).trim()))
+                    .filter(dish -> !dish.isEmpty())
+                    .toList());
+        } else if (text.contains("推荐餐厅")) {
+            metadata.put(KIND, "dish");
+            metadata.put(DISHES, List.of(title));
+        } else if (address.find(0)) {
+            metadata.put(KIND, "restaurant");
+        } else if (!metadata.isEmpty()) {
+            metadata.put(KIND, "guide");
+        }
+        return metadata;
+    }
+
+    /**
+     * 按 KEYS 取出已提取的元数据，用于计算片段 ID
+     */
+    public static Map<String, Object> extracted(Map<String, Object> metadata) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String key : KEYS) {
+            if (metadata.containsKey(key)) {
+                values.put(key, metadata.get(key));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 文本中最先出现的菜系
+     */
+    static String cuisine(String text) {
+        String found = null;
+        int position = Integer.MAX_VALUE;
+        for (String cuisine : CUISINES) {
+            int index = text.indexOf(cuisine);
+            if (index >= 0 && index < position) {
+                found = cuisine;
+                position = index;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * “北京川菜餐厅推荐”这样的一级标题中菜系之前的部分是城市
+     */
+    private static String cityFromHeading(String section) {
+        if (section == null) {
+            return null;
+        }
+        String cuisine = cuisine(section);
+        if (cuisine == null) {
+            return null;
+        }
+        String city = section.substring(0, section.indexOf(cuisine)).trim();
+        return city.isEmpty() ? null : city;
+    }
+
+    private static Map<String, String> sections(String markdown) {
+        Map<String, String> sections = new HashMap<>();
+        if (markdown == null) {
+            return sections;
+        }
+        String current = null;
+        for (String line : markdown.split("\\R")) {
+            Matcher heading = HEADING.matcher(line);
+            if (!heading.matches()) {
+                continue;
+            }
+            if (heading.group(1).length() == 1) {
+                current = heading.group(2);
+            } else if (current != null) {
+                sections.putIfAbsent(heading.group(2), current);
+            }
+        }
+        return sections;
+    }
+
+    private static Map<String, Object> merge(Map<String, Object> original, Map<String, Object> extracted) {
+        Map<String, Object> merged = new HashMap<>(original);
+        merged.putAll(extracted);
+        return merged;
+    }
+}
@@ -0,0 +1,44 @@
+package io.zhijun.spring.ai.ingestion;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 已向量化片段的写入端
+ * 导入流水线和关键词索引通过它访问向量存储，pgvector（{@link PgVectorWriter}）和进程内 HNSW 各有一个实现
+ */
+public interface VectorWriter {
+
+    /**
+     * 查询某个来源文件已写入的片段 ID
+     *
+     * @param filename 来源文件名（metadata.filename）
+     */
+    Set<String> findIdsBySource(String filename);
+
+    /**
+     * 批量删除片段
+     */
+    void delete(Collection<String> ids);
+
+    /**
+     * 批量写入（存在则更新）
+     *
+     * @param documents  文档片段
+     * @param embeddings 与文档一一对应的向量
+     */
+    void write(List<Document> documents, List<float[]> embeddings);
+
+    /**
+     * 读取全部片段（不含向量），用于重建关键词索引
+     */
+    List<Document> loadAll();
+
+    /**
+     * 按 ID 读取片段（不含向量），不存在的 ID 忽略；关键词检索命中后按此读取正文
+     */
+    List<Document> findByIds(Collection<String> ids);
+}
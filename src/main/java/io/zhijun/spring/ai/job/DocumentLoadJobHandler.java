@@ -0,0 +1,36 @@
+package io.zhijun.spring.ai.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zhijun.spring.ai.service.DocumentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文档导入任务
+ * 参数 {"filePath": "..."}；片段 ID 由内容计算，重新执行时只处理未写入的片段，最终结果为导入进度快照
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentLoadJobHandler implements JobHandler {
+
+    public static final String TYPE = "document-load";
+
+    private final DocumentService documentService;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void validate(JsonNode payload) {
+        if (payload.path("filePath").asText("").isBlank()) {
+            throw new IllegalArgumentException("文件路径不能为空");
+        }
+    }
+
+    @Override
+    public Object execute(JsonNode payload, JobContext context) {
+        return documentService.loadDocuments(payload.path("filePath").asText());
+    }
+}
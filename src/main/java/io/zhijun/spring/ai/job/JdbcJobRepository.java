@@ -0,0 +1,210 @@
+package io.zhijun.spring.ai.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 基于 Postgres 的任务存储
+ * 领取任务使用 FOR UPDATE SKIP LOCKED，多个实例可以共用同一张任务表
+ */
+@Slf4j
+public class JdbcJobRepository implements JobRepository {
+
+    private static final String COLUMNS = "id, type, status, payload, result, error, completed, total, attempts, "
+            + "created_at, started_at, finished_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+    private final String itemTableName;
+    private final RowMapper<Job> jobMapper = (rs, rowNum) -> new Job(
+            rs.getObject("id", UUID.class),
+            rs.getString("type"),
+            JobStatus.valueOf(rs.getString("status")),
+            rs.getString("payload"),
+            rs.getString("result"),
+            rs.getString("error"),
+            rs.getInt("completed"),
+            rs.getInt("total"),
+            rs.getInt("attempts"),
+            toInstant(rs.getTimestamp("created_at")),
+            toInstant(rs.getTimestamp("started_at")),
+            toInstant(rs.getTimestamp("finished_at")));
+
+    public JdbcJobRepository(JdbcTemplate jdbcTemplate, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.itemTableName = tableName + "_item";
+    }
+
+    /**
+     * 创建任务表和部分结果表
+     */
+    public void initializeSchema() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS %1$s (
+                    id uuid PRIMARY KEY,
+                    type varchar(64) NOT NULL,
+                    status varchar(16) NOT NULL,
+                    payload jsonb NOT NULL,
+                    result jsonb,
+                    error text,
+                    completed integer NOT NULL DEFAULT 0,
+                    total integer NOT NULL DEFAULT 0,
+                    attempts integer NOT NULL DEFAULT 0,
+                    created_at timestamptz NOT NULL DEFAULT now(),
+                    started_at timestamptz,
+                    finished_at timestamptz,
+                    heartbeat_at timestamptz
+                );
+                CREATE INDEX IF NOT EXISTS %1$s_queued_idx ON %1$s (created_at) WHERE status = 'QUEUED';
+                CREATE INDEX IF NOT EXISTS %1$s_running_idx ON %1$s (heartbeat_at) WHERE status = 'RUNNING';
+                CREATE TABLE IF NOT EXISTS %2$s (
+                    job_id uuid NOT NULL REFERENCES %1$s (id) ON DELETE CASCADE,
+                    seq bigserial,
+                    payload jsonb NOT NULL,
+                    PRIMARY KEY (job_id, seq)
+                )
+                """.formatted(tableName, itemTableName));
+        log.info("任务表已就绪: {}, {}", tableName, itemTableName);
+    }
+
+    @Override
+    public void insert(Job job) {
+        jdbcTemplate.update("INSERT INTO " + tableName + " (id, type, status, payload, created_at) "
+                        + "VALUES (?, ?, ?, ?::jsonb, ?)",
+                job.id(), job.type(), job.status().name(), job.payload(), Timestamp.from(job.createdAt()));
+    }
+
+    @Override
+    public Optional<Job> findById(UUID id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + tableName + " WHERE id = ?", jobMapper, id)
+                .stream().findFirst();
+    }
+
+    @Override
+    public int countQueued() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + tableName + " WHERE status = 'QUEUED'", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public Optional<Job> claimNext() {
+        Optional<Job> claimed = jdbcTemplate.query("""
+                UPDATE %1$s SET status = 'RUNNING', attempts = attempts + 1, completed = 0, total = 0,
+                    started_at = now(), heartbeat_at = now()
+                WHERE id = (
+                    SELECT id FROM %1$s WHERE status = 'QUEUED' ORDER BY created_at LIMIT 1 FOR UPDATE SKIP LOCKED
+                )
+                RETURNING %2$s
+                """.formatted(tableName, COLUMNS), jobMapper).stream().findFirst();
+        claimed.ifPresent(job -> jdbcTemplate.update("DELETE FROM " + itemTableName + " WHERE job_id = ?", job.id()));
+        return claimed;
+    }
+
+    @Override
+    public boolean updateProgress(UUID id, int attempt, int completed, int total) {
+        return jdbcTemplate.update("UPDATE " + tableName + " SET completed = ?, total = ?, heartbeat_at = now() "
+                + "WHERE id = ? AND status = 'RUNNING' AND attempts = ?", completed, total, id, attempt) > 0;
+    }
+
+    @Override
+    public boolean appendItems(UUID id, int attempt, List<String> items) {
+        if (items.isEmpty()) {
+            return true;
+        }
+        // FOR SHARE 锁住任务行：claimNext 的 UPDATE 要等插入提交，随后的 DELETE 会清掉这些结果；
+        // 已被重新领取时执行次数不匹配，不插入
+        int[][] inserted = jdbcTemplate.batchUpdate("INSERT INTO " + itemTableName + " (job_id, payload) "
+                        + "SELECT ?, ?::jsonb WHERE EXISTS (SELECT 1 FROM " + tableName
+                        + " WHERE id = ? AND status = 'RUNNING' AND attempts = ? FOR SHARE)",
+                items, items.size(), (ps, item) -> {
+                    ps.setObject(1, id);
+                    ps.setString(2, item);
+                    ps.setObject(3, id);
+                    ps.setInt(4, attempt);
+                });
+        for (int[] batch : inserted) {
+            for (int count : batch) {
+                if (count == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<String> findItems(UUID id, int offset, int limit) {
+        return jdbcTemplate.queryForList("SELECT payload FROM " + itemTableName
+                + " WHERE job_id = ? ORDER BY seq OFFSET ? LIMIT ?", String.class, id, offset, limit);
+    }
+
+    @Override
+    public boolean finish(UUID id, int attempt, JobStatus status, String result, String error) {
+        return jdbcTemplate.update("UPDATE " + tableName + " SET status = ?, result = ?::jsonb, error = ?, "
+                        + "finished_at = now() WHERE id = ? AND status = 'RUNNING' AND attempts = ?",
+                status.name(), result, error, id, attempt) > 0;
+    }
+
+    @Override
+    public boolean cancel(UUID id) {
+        return jdbcTemplate.update("UPDATE " + tableName + " SET status = 'CANCELLED', finished_at = now() "
+                + "WHERE id = ? AND status IN ('QUEUED', 'RUNNING')", id) > 0;
+    }
+
+    @Override
+    public void requeue(UUID id, int attempt) {
+        jdbcTemplate.update("UPDATE " + tableName + " SET status = 'QUEUED', heartbeat_at = NULL "
+                + "WHERE id = ? AND status = 'RUNNING' AND attempts = ?", id, attempt);
+    }
+
+    @Override
+    public Set<UUID> heartbeat(Map<UUID, Integer> attempts) {
+        Set<UUID> running = new HashSet<>();
+        if (attempts.isEmpty()) {
+            return running;
+        }
+        List<UUID> ids = List.copyOf(attempts.keySet());
+        Integer[] expected = ids.stream().map(attempts::get).toArray(Integer[]::new);
+        jdbcTemplate.query("UPDATE " + tableName + " t SET heartbeat_at = now() "
+                        + "FROM unnest(?::uuid[], ?::integer[]) AS owned(id, attempts) "
+                        + "WHERE t.id = owned.id AND t.attempts = owned.attempts AND t.status = 'RUNNING' "
+                        + "RETURNING t.id",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray()));
+                    ps.setArray(2, ps.getConnection().createArrayOf("integer", expected));
+                },
+                rs -> {
+                    running.add(rs.getObject("id", UUID.class));
+                });
+        return running;
+    }
+
+    @Override
+    public int requeueStale(Duration staleAfter, int maxAttempts) {
+        // 以数据库时间为准，避免实例之间的时钟偏差
+        long staleMillis = staleAfter.toMillis();
+        jdbcTemplate.update("UPDATE " + tableName + " SET status = 'FAILED', error = '执行次数超过上限', "
+                + "finished_at = now() WHERE status = 'RUNNING' "
+                + "AND heartbeat_at < now() - ? * interval '1 millisecond' AND attempts >= ?",
+                staleMillis, maxAttempts);
+        return jdbcTemplate.update("UPDATE " + tableName + " SET status = 'QUEUED', heartbeat_at = NULL "
+                + "WHERE status = 'RUNNING' AND heartbeat_at < now() - ? * interval '1 millisecond'", staleMillis);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
@@ -0,0 +1,36 @@
+package io.zhijun.spring.ai.job;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * 任务记录
+ *
+ * @param id         任务 ID
+ * @param type       任务类型，对应 {@link JobHandler#type()}
+ * @param status     状态
+ * @param payload    任务参数（JSON），可能较大，不在接口中返回
+ * @param result     执行结果（JSON）
+ * @param error      失败原因
+ * @param completed  已完成的条目数
+ * @param total      条目总数，未知时为 0
+ * @param attempts   已执行次数
+ * @param createdAt  提交时间
+ * @param startedAt  最近一次开始执行的时间
+ * @param finishedAt 结束时间
+ */
+public record Job(UUID id, String type, JobStatus status, @JsonIgnore String payload, @JsonRawValue String result,
+                  String error, int completed, int total, int attempts, Instant createdAt, Instant startedAt,
+                  Instant finishedAt) {
+
+    /**
+     * 新提交的任务
+     */
+    public static Job queued(String type, String payload) {
+        return new Job(UUID.randomUUID(), type, JobStatus.QUEUED, payload, null, null, 0, 0, 0, Instant.now(),
+                null, null);
+    }
+}
@@ -0,0 +1,30 @@
+package io.zhijun.spring.ai.job;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 任务执行上下文
+ * 进度和部分结果立即写入数据库，可以在任务执行期间查询；
+ * 任务已被取消或由其他实例重新领取时写入不生效，并抛出 {@link java.util.concurrent.CancellationException} 结束本次执行
+ */
+public interface JobContext {
+
+    /**
+     * 任务 ID
+     */
+    UUID jobId();
+
+    /**
+     * 上报进度
+     *
+     * @param completed 已完成的条目数
+     * @param total     条目总数
+     */
+    void progress(int completed, int total);
+
+    /**
+     * 追加部分结果，每个元素序列化为一条 JSON 记录
+     */
+    void emit(List<?> items);
+}
@@ -0,0 +1,33 @@
+package io.zhijun.spring.ai.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 任务处理器
+ * 每种任务类型一个实现，注册为 Spring Bean 后由 {@link JobService} 按类型分派
+ * <p>
+ * 任务可能因实例重启而从头重新执行，实现需要保证重复执行是安全的；
+ * 取消任务时执行线程会被中断，实现应响应中断尽快退出
+ */
+public interface JobHandler {
+
+    /**
+     * 任务类型
+     */
+    String type();
+
+    /**
+     * 校验任务参数，提交时调用，参数不合法时抛出 {@link IllegalArgumentException}
+     */
+    default void validate(JsonNode payload) {
+    }
+
+    /**
+     * 执行任务
+     *
+     * @param payload 任务参数
+     * @param context 用于上报进度和部分结果
+     * @return 执行结果，序列化为 JSON 保存
+     */
+    Object execute(JsonNode payload, JobContext context) throws Exception;
+}
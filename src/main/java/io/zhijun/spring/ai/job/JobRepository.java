@@ -0,0 +1,97 @@
+package io.zhijun.spring.ai.job;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 任务存储
+ * 队列本身就是任务表，多个实例通过 {@link #claimNext()} 竞争排队中的任务。
+ * 运行中的写操作都以领取时的执行次数 attempt 作为防护令牌：任务心跳超时后被其他实例重新领取时执行次数加一，
+ * 原来的执行者即使仍在运行也不能再写入进度、部分结果或最终状态
+ */
+public interface JobRepository {
+
+    /**
+     * 保存新提交的任务
+     */
+    void insert(Job job);
+
+    /**
+     * 查询任务
+     */
+    Optional<Job> findById(UUID id);
+
+    /**
+     * 排队中的任务数
+     */
+    int countQueued();
+
+    /**
+     * 领取最早提交的排队任务并置为运行中，同时清除上一次执行留下的部分结果
+     *
+     * @return 领取到的任务，队列为空时返回 empty
+     */
+    Optional<Job> claimNext();
+
+    /**
+     * 更新运行中任务的进度
+     *
+     * @param attempt 领取时的执行次数
+     * @return 任务仍由本次执行持有时返回 true
+     */
+    boolean updateProgress(UUID id, int attempt, int completed, int total);
+
+    /**
+     * 追加部分结果（JSON），任务已不由本次执行持有时不写入
+     *
+     * @param attempt 领取时的执行次数
+     * @return 任务仍由本次执行持有时返回 true
+     */
+    boolean appendItems(UUID id, int attempt, List<String> items);
+
+    /**
+     * 分页读取部分结果（JSON），按追加顺序
+     */
+    List<String> findItems(UUID id, int offset, int limit);
+
+    /**
+     * 结束运行中的任务
+     *
+     * @param attempt 领取时的执行次数
+     * @return 任务仍由本次执行持有并被更新时返回 true；已被取消或被重新领取的任务返回 false
+     */
+    boolean finish(UUID id, int attempt, JobStatus status, String result, String error);
+
+    /**
+     * 取消排队中或运行中的任务
+     *
+     * @return 任务状态被更新时返回 true
+     */
+    boolean cancel(UUID id);
+
+    /**
+     * 把运行中的任务放回队列，用于实例正常关闭
+     *
+     * @param attempt 领取时的执行次数
+     */
+    void requeue(UUID id, int attempt);
+
+    /**
+     * 刷新运行中任务的心跳
+     *
+     * @param attempts 任务 ID 到领取时的执行次数
+     * @return 仍由本实例持有的任务 ID，不在其中的任务已在别处被取消或被重新领取
+     */
+    Set<UUID> heartbeat(Map<UUID, Integer> attempts);
+
+    /**
+     * 心跳超时的运行中任务重新排队，执行次数达到上限的标记为失败
+     *
+     * @return 重新排队的任务数
+     */
+    int requeueStale(Duration staleAfter, int maxAttempts);
+}
@@ -0,0 +1,326 @@
+package io.zhijun.spring.ai.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zhijun.spring.ai.config.JobProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 异步任务服务
+ * 提交的任务先写入任务表，由固定数量的工作线程领取执行；状态、进度和部分结果都保存在数据库中，
+ * 因此可以在任意实例上查询和取消，实例重启后未完成的任务会重新执行
+ * <p>
+ * 后台线程定期刷新运行中任务的心跳：心跳超时的任务视为所在实例已退出，重新排队；
+ * 在其他实例上被取消或被重新领取的任务在下一次心跳时中断执行线程。
+ * 所有写入都带着领取时的执行次数，被重新领取后原执行者的进度、部分结果和最终状态都不会生效
+ */
+@Slf4j
+public class JobService implements AutoCloseable {
+
+    private final JobRepository repository;
+    private final Map<String, JobHandler> handlers;
+    private final JobProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Map<UUID, Execution> running = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Semaphore wakeup = new Semaphore(0);
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService maintenance;
+    private final Counter rejected;
+    private volatile boolean closed;
+
+    public JobService(JobRepository repository, Collection<JobHandler> handlers, JobProperties properties,
+                      MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.handlers = handlers.stream().collect(Collectors.toUnmodifiableMap(JobHandler::type, Function.identity()));
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("restaurant.ai.jobs.rejected")
+                .description("队列已满被拒绝的任务数")
+                .register(meterRegistry);
+        Gauge.builder("restaurant.ai.jobs.queued", queued, AtomicInteger::get)
+                .description("排队中的任务数")
+                .register(meterRegistry);
+        Gauge.builder("restaurant.ai.jobs.running", running, Map::size)
+                .description("本实例正在执行的任务数")
+                .register(meterRegistry);
+
+        queued.set(repository.countQueued());
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.add(Thread.ofVirtual().name("job-worker-" + i).start(this::work));
+        }
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("job-maintenance").factory());
+        long intervalMillis = properties.getPollInterval().toMillis();
+        this.maintenance.scheduleWithFixedDelay(this::maintain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("异步任务服务已启动: {} 个工作线程，任务类型 {}", properties.getWorkers(), this.handlers.keySet());
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param type    任务类型
+     * @param payload 任务参数，序列化为 JSON 保存
+     * @return 排队中的任务
+     * @throws IllegalArgumentException 任务类型未知或参数不合法
+     * @throws ResponseStatusException  队列已满（503）
+     */
+    public Job submit(String type, Object payload) {
+        JobHandler handler = handlers.get(type);
+        if (handler == null) {
+            throw new IllegalArgumentException("未知的任务类型: " + type);
+        }
+        JsonNode node = objectMapper.valueToTree(payload);
+        handler.validate(node);
+
+        int depth = repository.countQueued();
+        queued.set(depth);
+        if (depth >= properties.getQueueCapacity()) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "任务队列已满，请稍后重试");
+        }
+
+        Job job = Job.queued(type, node.toString());
+        repository.insert(job);
+        queued.incrementAndGet();
+        Counter.builder("restaurant.ai.jobs.submitted")
+                .description("提交的任务数")
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment();
+        wakeup.release();
+        log.info("任务已提交: id={}, type={}", job.id(), type);
+        return job;
+    }
+
+    /**
+     * 查询任务
+     */
+    public Optional<Job> find(UUID id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * 分页读取部分结果，返回 JSON 数组
+     */
+    public String findItems(UUID id, int offset, int limit) {
+        return "[" + String.join(",", repository.findItems(id, offset, limit)) + "]";
+    }
+
+    /**
+     * 取消排队中或运行中的任务，运行在本实例上的任务会被立即中断
+     *
+     * @return 任务状态被更新时返回 true；任务已结束时返回 false
+     */
+    public boolean cancel(UUID id) {
+        boolean cancelled = repository.cancel(id);
+        if (cancelled) {
+            interrupt(id);
+            log.info("任务已取消: {}", id);
+        }
+        return cancelled;
+    }
+
+    /**
+     * 本实例正在执行的任务数
+     */
+    public int runningCount() {
+        return running.size();
+    }
+
+    private void work() {
+        long pollMillis = properties.getPollInterval().toMillis();
+        while (!closed) {
+            try {
+                Optional<Job> job = repository.claimNext();
+                if (job.isPresent()) {
+                    queued.updateAndGet(n -> Math.max(0, n - 1));
+                    execute(job.get());
+                } else {
+                    wakeup.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                // 关闭时中断空闲的工作线程
+            } catch (RuntimeException e) {
+                log.warn("领取任务失败: {}", e.getMessage());
+                sleepQuietly(pollMillis);
+            }
+        }
+    }
+
+    private void execute(Job job) {
+        long start = System.nanoTime();
+        running.put(job.id(), new Execution(Thread.currentThread(), job.attempts()));
+        String result = null;
+        Exception failure = null;
+        try {
+            JobHandler handler = handlers.get(job.type());
+            if (handler == null) {
+                throw new IllegalStateException("未知的任务类型: " + job.type());
+            }
+            log.info("开始执行任务: id={}, type={}, attempt={}", job.id(), job.type(), job.attempts());
+            result = toJson(handler.execute(objectMapper.readTree(job.payload()), new Context(job.id(), job.attempts())));
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            // 先移出运行表，之后的取消请求不会再中断本线程，再清除中断标记后写入最终状态
+            running.remove(job.id());
+        }
+        boolean interrupted = Thread.interrupted();
+
+        String outcome;
+        if (closed && (interrupted || failure != null)) {
+            repository.requeue(job.id(), job.attempts());
+            outcome = "requeued";
+        } else if (failure == null) {
+            outcome = repository.finish(job.id(), job.attempts(), JobStatus.SUCCEEDED, result, null) ? "succeeded" : "cancelled";
+        } else {
+            String error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+            outcome = repository.finish(job.id(), job.attempts(), JobStatus.FAILED, null, error) ? "failed" : "cancelled";
+            if (outcome.equals("failed")) {
+                log.warn("任务执行失败: id={}, type={}: {}", job.id(), job.type(), error, failure);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        Timer.builder("restaurant.ai.jobs.duration")
+                .description("任务执行耗时")
+                .tag("type", job.type())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("任务结束: id={}, type={}, outcome={}, 耗时 {} ms", job.id(), job.type(), outcome,
+                elapsedNanos / 1_000_000);
+    }
+
+    private void maintain() {
+        try {
+            Map<UUID, Integer> attempts = new HashMap<>();
+            running.forEach((id, execution) -> attempts.put(id, execution.attempt()));
+            Set<UUID> ids = new HashSet<>(attempts.keySet());
+            ids.removeAll(repository.heartbeat(attempts));
+            // 在其他实例上被取消或被重新领取的任务
+            ids.forEach(this::interrupt);
+
+            int requeued = repository.requeueStale(properties.getStaleAfter(), properties.getMaxAttempts());
+            if (requeued > 0) {
+                log.info("{} 个心跳超时的任务重新排队", requeued);
+                wakeup.release(requeued);
+            }
+            queued.set(repository.countQueued());
+        } catch (RuntimeException e) {
+            log.warn("任务心跳刷新失败: {}", e.getMessage());
+        }
+    }
+
+    private void interrupt(UUID id) {
+        running.computeIfPresent(id, (key, execution) -> {
+            execution.thread().interrupt();
+            return execution;
+        });
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化任务结果失败", e);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // 关闭时退出
+        }
+    }
+
+    /**
+     * 停止领取新任务，中断正在执行的任务并放回队列，由下次启动的实例重新执行
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        maintenance.shutdownNow();
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            worker.join(properties.getPollInterval().toMillis() * 10);
+        }
+    }
+
+    /**
+     * 本实例上的一次执行
+     *
+     * @param attempt 领取时的执行次数，作为写入的防护令牌
+     */
+    private record Execution(Thread thread, int attempt) {
+    }
+
+    private class Context implements JobContext {
+
+        private final UUID jobId;
+        private final int attempt;
+
+        private Context(UUID jobId, int attempt) {
+            this.jobId = jobId;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public UUID jobId() {
+            return jobId;
+        }
+
+        @Override
+        public void progress(int completed, int total) {
+            if (!repository.updateProgress(jobId, attempt, completed, total)) {
+                throw lost();
+            }
+        }
+
+        @Override
+        public void emit(List<?> items) {
+            if (!repository.appendItems(jobId, attempt, items.stream().map(JobService.this::toJson).toList())) {
+                throw lost();
+            }
+        }
+
+        /**
+         * 任务已被取消或由其他实例重新执行，停止本次执行
+         */
+        private CancellationException lost() {
+            return new CancellationException("任务已被取消或由其他实例重新执行: " + jobId);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.zhijun.spring.ai.job;
+
+/**
+ * 任务状态
+ */
+public enum JobStatus {
+
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    /**
+     * 是否为终态
+     */
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,55 @@
+package io.zhijun.spring.ai.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zhijun.spring.ai.sentiment.SentimentBatchEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量情感分析任务
+ * 参数 {"reviews": [...]}；每完成一个微批次追加逐条结果并更新进度，最终结果为汇总
+ */
+@Component
+@RequiredArgsConstructor
+public class SentimentBatchJobHandler implements JobHandler {
+
+    public static final String TYPE = "sentiment-batch";
+
+    private final SentimentBatchEngine batchEngine;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void validate(JsonNode payload) {
+        JsonNode reviews = payload.path("reviews");
+        if (!reviews.isArray() || reviews.isEmpty()) {
+            throw new IllegalArgumentException("评论列表不能为空");
+        }
+    }
+
+    @Override
+    public Object execute(JsonNode payload, JobContext context) throws InterruptedException {
+        List<String> reviews = new ArrayList<>();
+        payload.path("reviews").forEach(review -> reviews.add(review.asText()));
+        context.progress(0, reviews.size());
+
+        SentimentBatchEngine.BatchResult result = batchEngine.analyze(reviews, progress -> {
+            context.emit(progress.results());
+            context.progress(progress.completed(), progress.total());
+        });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("summary", result.summary());
+        summary.put("failedCount", result.failedCount());
+        summary.put("elapsedMillis", result.elapsedMillis());
+        return summary;
+    }
+}
@@ -0,0 +1,79 @@
+package io.zhijun.spring.ai.memory;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.regex.Pattern;
+
+/**
+ * 会话 ID 解析
+ * 聊天接口通过请求头或请求体字段传入会话 ID，并通过响应头原样返回；客户端自行生成 ID（如 UUID）开始新会话，
+ * 在后续请求中携带该 ID 以继续同一会话。
+ * 未传入会话 ID 的请求按无状态处理，不读写聊天记忆，避免一次性调用在记忆表中无限累积
+ */
+public final class ConversationIds {
+
+    /**
+     * 会话 ID 请求头和响应头
+     */
+    public static final String HEADER = "X-Conversation-Id";
+
+    /**
+     * 请求体中的会话 ID 字段
+     */
+    public static final String FIELD = "conversationId";
+
+    /**
+     * 与 JDBC 聊天记忆表的 conversation_id 列长度一致
+     */
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9_.:-]{1,36}");
+
+    private ConversationIds() {
+    }
+
+    /**
+     * 解析会话 ID，请求头优先
+     *
+     * @param header    请求头中的会话 ID
+     * @param bodyValue 请求体中的会话 ID
+     * @return 会话 ID，均未提供时返回 null
+     * @throws ResponseStatusException 会话 ID 格式非法时返回 400
+     */
+    public static String resolve(String header, Object bodyValue) {
+        String conversationId = StringUtils.hasText(header) ? header
+                : bodyValue != null && StringUtils.hasText(bodyValue.toString()) ? bodyValue.toString() : null;
+        if (conversationId == null) {
+            return null;
+        }
+        conversationId = conversationId.trim();
+        if (!VALID.matcher(conversationId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "会话 ID 只能包含字母、数字和 _.:-，且不超过 36 个字符");
+        }
+        return conversationId;
+    }
+
+    /**
+     * 设置聊天记忆的会话参数，会话 ID 为 null 时不设置，ConversationMemoryAdvisor 随之跳过
+     */
+    public static void apply(ChatClient.AdvisorSpec advisors, String conversationId) {
+        if (conversationId != null) {
+            advisors.param(ChatMemory.CONVERSATION_ID, conversationId);
+        }
+    }
+
+    /**
+     * 返回会话 ID 的响应头，会话 ID 为 null 时为空
+     */
+    public static HttpHeaders headers(String conversationId) {
+        HttpHeaders headers = new HttpHeaders();
+        if (conversationId != null) {
+            headers.set(HEADER, conversationId);
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,96 @@
+package io.zhijun.spring.ai.memory;
+
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 token 预算截断的聊天记忆
+ * 每次写入后从最早的对话轮次开始丢弃，直到消息数和估算 token 数都不超过上限，
+ * 使得无论会话持续多久，注入提示词的历史长度都保持稳定
+ * <p>
+ * 系统消息不参与截断；新的系统消息会替换旧的系统消息
+ */
+public class TokenWindowChatMemory implements ChatMemory {
+
+    /**
+     * 每条消息的角色、分隔符等固定开销的估算值
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final ChatMemoryRepository repository;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final int maxMessages;
+    private final int maxTokens;
+
+    public TokenWindowChatMemory(ChatMemoryRepository repository, TokenCountEstimator tokenCountEstimator,
+                                 int maxMessages, int maxTokens) {
+        this.repository = repository;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.maxMessages = maxMessages;
+        this.maxTokens = maxTokens;
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        List<Message> memory = new ArrayList<>(repository.findByConversationId(conversationId));
+        if (messages.stream().anyMatch(SystemMessage.class::isInstance)) {
+            memory.removeIf(SystemMessage.class::isInstance);
+        }
+        memory.addAll(messages);
+        repository.saveAll(conversationId, trim(memory));
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        return repository.findByConversationId(conversationId);
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        repository.deleteByConversationId(conversationId);
+    }
+
+    /**
+     * 从最早的非系统消息开始丢弃，至少保留最新一条消息；
+     * 丢弃后若开头是失去了对应提问的回答，也一并丢弃
+     */
+    List<Message> trim(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += estimate(message);
+        }
+
+        List<Message> trimmed = new ArrayList<>(messages);
+        int index = 0;
+        while (index < trimmed.size() - 1 && (trimmed.size() > maxMessages || tokens > maxTokens)) {
+            Message message = trimmed.get(index);
+            if (message instanceof SystemMessage) {
+                index++;
+                continue;
+            }
+            trimmed.remove(index);
+            tokens -= estimate(message);
+        }
+
+        while (index < trimmed.size() - 1 && isOrphanReply(trimmed.get(index))) {
+            trimmed.remove(index);
+        }
+        return trimmed;
+    }
+
+    private static boolean isOrphanReply(Message message) {
+        return message.getMessageType() == MessageType.ASSISTANT || message.getMessageType() == MessageType.TOOL;
+    }
+
+    private int estimate(Message message) {
+        String text = message.getText();
+        return MESSAGE_OVERHEAD_TOKENS + (text == null ? 0 : tokenCountEstimator.estimate(text));
+    }
+}
@@ -0,0 +1,250 @@
+package io.zhijun.spring.ai.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步写回的聊天记忆仓库
+ * 写入先记录在内存再由后台线程逐个会话写入底层仓库（通常是 JDBC），可选按 LRU 在堆内保留少量热会话，
+ * 冷会话在首次读取时从底层仓库加载
+ * <p>
+ * 同一会话的多次写入在刷写前合并为最后一次快照；删除同样经由刷写线程执行，保证与写入的顺序一致
+ * <p>
+ * 底层的 saveAll 会整体替换会话，多实例部署时不能用本节点的旧副本覆盖其他节点的写入：
+ * hotTtl 为 0 时只有本节点尚未刷写的会话从内存读取，其余每次都读底层仓库；
+ * hotTtl 大于 0 时已加载的会话在有效期内直接从堆内返回，要求负载均衡按会话粘性路由
+ */
+@Slf4j
+public class WriteBehindChatMemoryRepository implements ChatMemoryRepository, AutoCloseable {
+
+    private final ChatMemoryRepository delegate;
+    private final long hotTtlMillis;
+    private final int flushThreshold;
+    private final Clock clock;
+    private final LinkedHashMap<String, HotEntry> hot;
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final Counter pendingReads;
+    private final Counter hotReads;
+    private final Counter storeReads;
+    private final Counter flushFailures;
+
+    public WriteBehindChatMemoryRepository(ChatMemoryRepository delegate, int hotConversations, Duration hotTtl,
+                                           Duration flushInterval, int flushThreshold, MeterRegistry meterRegistry) {
+        this(delegate, hotConversations, hotTtl, flushInterval, flushThreshold, meterRegistry, Clock.systemUTC());
+    }
+
+    WriteBehindChatMemoryRepository(ChatMemoryRepository delegate, int hotConversations, Duration hotTtl,
+                                    Duration flushInterval, int flushThreshold, MeterRegistry meterRegistry,
+                                    Clock clock) {
+        this.delegate = delegate;
+        this.hotTtlMillis = hotTtl.toMillis();
+        this.flushThreshold = flushThreshold;
+        this.clock = clock;
+        // accessOrder = true，最近读写的会话移到队尾，淘汰时从队首移除
+        this.hot = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HotEntry> eldest) {
+                return size() > hotConversations;
+            }
+        };
+        this.pendingReads = readCounter(meterRegistry, "pending");
+        this.hotReads = readCounter(meterRegistry, "hot");
+        this.storeReads = readCounter(meterRegistry, "store");
+        this.flushFailures = Counter.builder("restaurant.ai.chat.memory.flush.failures")
+                .description("聊天记忆刷写失败次数")
+                .register(meterRegistry);
+        Gauge.builder("restaurant.ai.chat.memory.pending", this, WriteBehindChatMemoryRepository::pendingCount)
+                .description("等待写入数据库的会话数")
+                .register(meterRegistry);
+        Gauge.builder("restaurant.ai.chat.memory.hot", this, WriteBehindChatMemoryRepository::hotCount)
+                .description("堆内热会话数")
+                .register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("chat-memory-flush").factory());
+        long intervalMillis = flushInterval.toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        Set<String> ids = new LinkedHashSet<>(delegate.findConversationIds());
+        synchronized (this) {
+            pending.forEach((id, write) -> {
+                if (write.deleted()) {
+                    ids.remove(id);
+                } else {
+                    ids.add(id);
+                }
+            });
+        }
+        return new ArrayList<>(ids);
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        synchronized (this) {
+            PendingWrite write = pending.get(conversationId);
+            if (write != null) {
+                pendingReads.increment();
+                return write.deleted() ? List.of() : write.messages();
+            }
+            HotEntry entry = hotTtlMillis > 0 ? hot.get(conversationId) : null;
+            if (entry != null && clock.millis() - entry.loadedAt() <= hotTtlMillis) {
+                hotReads.increment();
+                return entry.messages();
+            }
+        }
+
+        storeReads.increment();
+        List<Message> loaded = List.copyOf(delegate.findByConversationId(conversationId));
+        synchronized (this) {
+            // 加载期间有新的写入时以写入为准，不用旧数据覆盖
+            if (hotTtlMillis > 0 && !pending.containsKey(conversationId)) {
+                hot.put(conversationId, new HotEntry(loaded, clock.millis()));
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        List<Message> snapshot = List.copyOf(messages);
+        boolean flushNow;
+        synchronized (this) {
+            if (hotTtlMillis > 0) {
+                hot.put(conversationId, new HotEntry(snapshot, clock.millis()));
+            }
+            pending.remove(conversationId);
+            pending.put(conversationId, new PendingWrite(snapshot, false));
+            flushNow = pending.size() >= flushThreshold;
+        }
+        if (flushNow) {
+            triggerFlush();
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        synchronized (this) {
+            hot.remove(conversationId);
+            pending.remove(conversationId);
+            pending.put(conversationId, new PendingWrite(List.of(), true));
+        }
+        triggerFlush();
+    }
+
+    /**
+     * 将当前积压的写入刷到底层仓库，失败的会话保留到下次重试
+     *
+     * @return 成功写入的会话数
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            Map<String, PendingWrite> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                batch = new LinkedHashMap<>(pending);
+            }
+
+            int flushed = 0;
+            for (Map.Entry<String, PendingWrite> entry : batch.entrySet()) {
+                String conversationId = entry.getKey();
+                PendingWrite write = entry.getValue();
+                try {
+                    if (write.deleted()) {
+                        delegate.deleteByConversationId(conversationId);
+                    } else {
+                        delegate.saveAll(conversationId, write.messages());
+                    }
+                } catch (RuntimeException e) {
+                    flushFailures.increment();
+                    log.warn("聊天记忆写入失败，稍后重试: conversationId={}, error={}", conversationId, e.getMessage());
+                    continue;
+                }
+                synchronized (this) {
+                    // 刷写期间又有新写入时保留新的快照
+                    pending.remove(conversationId, write);
+                }
+                flushed++;
+            }
+            return flushed;
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int hotCount() {
+        return hot.size();
+    }
+
+    /**
+     * 停止后台刷写并同步写出剩余数据
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = pendingCount();
+        if (remaining > 0) {
+            log.info("关闭前写出 {} 个会话的聊天记忆", remaining);
+            flush();
+        }
+    }
+
+    private void triggerFlush() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            // 正在关闭，剩余数据由 close() 写出
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("聊天记忆刷写失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("restaurant.ai.chat.memory.reads")
+                .description("聊天记忆读取次数")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private record HotEntry(List<Message> messages, long loadedAt) {
+    }
+
+    private record PendingWrite(List<Message> messages, boolean deleted) {
+    }
+}
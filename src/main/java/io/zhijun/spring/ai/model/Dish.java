@@ -1,5 +1,6 @@
 package io.zhijun.spring.ai.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,6 +13,7 @@ import java.util.List;
 public class Dish {
     
     private Long id;
+    @JsonProperty(required = true)
     private String name;
     private String description;
     private String cuisine;
@@ -1,5 +1,6 @@
 package io.zhijun.spring.ai.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,6 +11,7 @@ import lombok.NoArgsConstructor;
 public class Restaurant {
     
     private Long id;
+    @JsonProperty(required = true)
     private String name;
     private String cuisine;
     private String location;
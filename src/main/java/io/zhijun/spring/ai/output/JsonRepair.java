@@ -0,0 +1,132 @@
+package io.zhijun.spring.ai.output;
+
+/**
+ * 本地 JSON 修复
+ * 处理模型输出中最常见、不需要理解内容就能修好的问题：
+ * <ul>
+ *     <li>JSON 前后的说明文字和 Markdown 代码块标记</li>
+ *     <li>对象和数组末尾多余的逗号</li>
+ *     <li>字符串中未转义的换行和制表符</li>
+ *     <li>输出被截断：截到最后一个完整的对象，再补齐外层括号</li>
+ * </ul>
+ * 修复结果不保证合法，由调用方解析确认
+ */
+public final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * 修复模型输出
+     *
+     * @param text   模型输出
+     * @param opener 期望的顶层括号，'[' 或 '{'；输出中没有时退回到第一个出现的括号
+     * @return 修复后的 JSON，找不到 JSON 开头时返回 null
+     */
+    public static String repair(String text, char opener) {
+        if (text == null) {
+            return null;
+        }
+        int start = text.indexOf(opener);
+        if (start < 0) {
+            start = firstBracket(text);
+            if (start < 0) {
+                return null;
+            }
+        }
+
+        StringBuilder out = new StringBuilder(text.length() - start);
+        StringBuilder stack = new StringBuilder();
+        boolean inString = false;
+        boolean escaped = false;
+        boolean pendingComma = false;
+        int lastCut = -1;
+        String lastCutStack = null;
+
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                    out.append(c);
+                } else if (c == '\\') {
+                    escaped = true;
+                    out.append(c);
+                } else if (c == '"') {
+                    inString = false;
+                    out.append(c);
+                } else if (c == '\n') {
+                    out.append("\\n");
+                } else if (c == '\r') {
+                    out.append("\\r");
+                } else if (c == '\t') {
+                    out.append("\\t");
+                } else {
+                    out.append(c);
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c == ',') {
+                pendingComma = true;
+                continue;
+            }
+            if (c == '}' || c == ']') {
+                // 多余的结尾逗号直接丢弃；括号类型写错时按实际打开的括号闭合
+                pendingComma = false;
+                if (stack.isEmpty()) {
+                    break;
+                }
+                char open = stack.charAt(stack.length() - 1);
+                stack.setLength(stack.length() - 1);
+                out.append(open == '{' ? '}' : ']');
+                if (stack.isEmpty()) {
+                    return out.toString();
+                }
+                if (open == '{') {
+                    lastCut = out.length();
+                    lastCutStack = stack.toString();
+                }
+                continue;
+            }
+            if (pendingComma) {
+                out.append(',');
+                pendingComma = false;
+            }
+            if (c == '{' || c == '[') {
+                stack.append(c);
+            } else if (c == '"') {
+                inString = true;
+            }
+            out.append(c);
+        }
+
+        // 输出被截断：优先截到最后一个完整的对象，没有完整对象时直接补齐括号
+        if (lastCut >= 0) {
+            out.setLength(lastCut);
+            return close(out, lastCutStack);
+        }
+        if (inString) {
+            out.append('"');
+        }
+        return close(out, stack.toString());
+    }
+
+    private static String close(StringBuilder out, String stack) {
+        for (int i = stack.length() - 1; i >= 0; i--) {
+            out.append(stack.charAt(i) == '{' ? '}' : ']');
+        }
+        return out.toString();
+    }
+
+    private static int firstBracket(String text) {
+        int object = text.indexOf('{');
+        int array = text.indexOf('[');
+        if (object < 0) {
+            return array;
+        }
+        return array < 0 ? object : Math.min(object, array);
+    }
+}
@@ -0,0 +1,199 @@
+package io.zhijun.spring.ai.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON Schema 校验
+ * 只支持由 Java 类型生成的 schema 用到的关键字：
+ * type、properties、required、additionalProperties、items、enum 和指向本文档的 $ref
+ */
+public final class JsonSchemaValidator {
+
+    private JsonSchemaValidator() {
+    }
+
+    /**
+     * 校验 JSON 是否符合 schema
+     *
+     * @return 错误列表，每条以 JSON 路径开头；符合时为空
+     */
+    public static List<String> validate(JsonNode schema, JsonNode value) {
+        List<String> errors = new ArrayList<>();
+        validate(schema, schema, value, "$", errors);
+        return errors;
+    }
+
+    /**
+     * 本地规范化：删除 schema 不允许的属性，把数字字符串转换为数字；
+     * 期望数组时，{"restaurants": [...]} 这样的外层对象取出其中的数组，单个对象包装为数组
+     * 不改变有效内容，修正后通常可以省掉一次修复调用
+     *
+     * @return 规范化后的副本
+     */
+    public static JsonNode normalize(JsonNode schema, JsonNode value) {
+        return normalize(schema, schema, value.deepCopy());
+    }
+
+    private static void validate(JsonNode root, JsonNode schema, JsonNode value, String path, List<String> errors) {
+        schema = resolve(root, schema);
+        JsonNode type = schema.get("type");
+        if (type != null && !matchesType(type, value)) {
+            errors.add(path + ": 期望类型 " + type + "，实际为 " + typeOf(value));
+            return;
+        }
+        JsonNode allowed = schema.get("enum");
+        if (allowed != null && allowed.isArray() && !contains(allowed, value)) {
+            errors.add(path + ": 取值必须是 " + allowed + " 之一");
+        }
+        if (value.isObject()) {
+            JsonNode properties = schema.path("properties");
+            JsonNode required = schema.get("required");
+            if (required != null) {
+                for (JsonNode name : required) {
+                    if (!value.has(name.asText())) {
+                        errors.add(path + ": 缺少必填字段 " + name.asText());
+                    }
+                }
+            }
+            boolean additionalAllowed = !schema.path("additionalProperties").isBoolean()
+                    || schema.get("additionalProperties").asBoolean();
+            for (Map.Entry<String, JsonNode> field : value.properties()) {
+                JsonNode propertySchema = properties.get(field.getKey());
+                if (propertySchema != null) {
+                    if (!field.getValue().isNull()) {
+                        validate(root, propertySchema, field.getValue(), path + "." + field.getKey(), errors);
+                    }
+                } else if (!additionalAllowed) {
+                    errors.add(path + ": 不允许的字段 " + field.getKey());
+                }
+            }
+        } else if (value.isArray() && schema.has("items")) {
+            for (int i = 0; i < value.size(); i++) {
+                validate(root, schema.get("items"), value.get(i), path + "[" + i + "]", errors);
+            }
+        }
+    }
+
+    private static JsonNode normalize(JsonNode root, JsonNode schema, JsonNode value) {
+        schema = resolve(root, schema);
+        String type = schema.path("type").asText("");
+        if (value.isTextual() && (type.equals("number") || type.equals("integer"))) {
+            return parseNumber(value.asText().trim(), type, value);
+        }
+        if (value.isObject() && type.equals("array")) {
+            value = unwrap((ObjectNode) value);
+        }
+        if (value.isObject()) {
+            ObjectNode object = (ObjectNode) value;
+            JsonNode properties = schema.path("properties");
+            boolean additionalAllowed = !schema.path("additionalProperties").isBoolean()
+                    || schema.get("additionalProperties").asBoolean();
+            List<String> rejected = new ArrayList<>();
+            for (Map.Entry<String, JsonNode> field : object.properties()) {
+                JsonNode propertySchema = properties.get(field.getKey());
+                if (propertySchema != null) {
+                    field.setValue(normalize(root, propertySchema, field.getValue()));
+                } else if (!additionalAllowed) {
+                    rejected.add(field.getKey());
+                }
+            }
+            // 遍历结束后再删除，避免修改正在遍历的集合
+            object.remove(rejected);
+        } else if (value.isArray() && schema.has("items")) {
+            ArrayNode array = (ArrayNode) value;
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, normalize(root, schema.get("items"), array.get(i)));
+            }
+        }
+        return value;
+    }
+
+    private static JsonNode unwrap(ObjectNode object) {
+        if (object.size() == 1) {
+            JsonNode only = object.elements().next();
+            if (only.isArray()) {
+                return only;
+            }
+        }
+        return JsonNodeFactory.instance.arrayNode().add(object);
+    }
+
+    private static JsonNode parseNumber(String text, String type, JsonNode original) {
+        try {
+            if (type.equals("integer")) {
+                return LongNode.valueOf(Long.parseLong(text));
+            }
+            return DoubleNode.valueOf(Double.parseDouble(text));
+        } catch (NumberFormatException e) {
+            return original;
+        }
+    }
+
+    /**
+     * 解析 "#/$defs/Name" 形式的本地引用
+     */
+    private static JsonNode resolve(JsonNode root, JsonNode schema) {
+        JsonNode ref = schema.get("$ref");
+        if (ref == null || !ref.asText().startsWith("#")) {
+            return schema;
+        }
+        JsonNode target = root.at(ref.asText().substring(1));
+        return target.isMissingNode() ? schema : target;
+    }
+
+    private static boolean matchesType(JsonNode type, JsonNode value) {
+        if (type.isArray()) {
+            for (JsonNode candidate : type) {
+                if (matchesType(candidate.asText(), value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return matchesType(type.asText(), value);
+    }
+
+    private static boolean matchesType(String type, JsonNode value) {
+        return switch (type) {
+            case "object" -> value.isObject();
+            case "array" -> value.isArray();
+            case "string" -> value.isTextual();
+            case "integer" -> value.isIntegralNumber()
+                    || (value.isNumber() && value.asDouble() == Math.rint(value.asDouble()));
+            case "number" -> value.isNumber();
+            case "boolean" -> value.isBoolean();
+            case "null" -> value.isNull();
+            default -> true;
+        };
+    }
+
+    private static String typeOf(JsonNode value) {
+        return switch (value.getNodeType()) {
+            case OBJECT -> "object";
+            case ARRAY -> "array";
+            case STRING -> "string";
+            case NUMBER -> "number";
+            case BOOLEAN -> "boolean";
+            case NULL -> "null";
+            default -> value.getNodeType().name().toLowerCase();
+        };
+    }
+
+    private static boolean contains(JsonNode allowed, JsonNode value) {
+        for (JsonNode candidate : allowed) {
+            if (candidate.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
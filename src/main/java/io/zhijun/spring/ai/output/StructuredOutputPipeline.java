@@ -0,0 +1,246 @@
+package io.zhijun.spring.ai.output;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.victools.jsonschema.generator.OptionPreset;
+import com.github.victools.jsonschema.generator.SchemaGenerator;
+import com.github.victools.jsonschema.generator.SchemaGeneratorConfigBuilder;
+import com.github.victools.jsonschema.generator.SchemaVersion;
+import com.github.victools.jsonschema.module.jackson.JacksonModule;
+import com.github.victools.jsonschema.module.jackson.JacksonOption;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.config.StructuredOutputProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 结构化输出流水线
+ * 替代 .entity() 和各种 OutputConverter，模型输出不合法时不再让客户端重试整个调用：
+ * <ol>
+ *     <li>直接解析；失败时做本地修复（{@link JsonRepair}）</li>
+ *     <li>按目标类型的 JSON Schema 校验（{@link JsonSchemaValidator}），不通过时先做本地规范化</li>
+ *     <li>仍不通过时把错误列表和原始输出交给模型做一次修复，只要求改正 JSON，不重新生成内容</li>
+ * </ol>
+ * 指标：restaurant.ai.structured.outputs{profile,type,outcome=valid|local_repair|model_repair|failed}
+ * 和修复调用耗时 restaurant.ai.structured.repair{profile,type}
+ */
+@Slf4j
+@Component
+public class StructuredOutputPipeline {
+
+    /**
+     * 校验用的 schema：只有标注 @JsonProperty(required = true) 的字段必填。
+     * 给模型的格式说明仍然使用 BeanOutputConverter 的 schema（全部字段必填、不允许多余字段），
+     * 模型少给一个可选字段不值得一次修复调用
+     */
+    private static final SchemaGenerator SCHEMA_GENERATOR = new SchemaGenerator(
+            new SchemaGeneratorConfigBuilder(SchemaVersion.DRAFT_2020_12, OptionPreset.PLAIN_JSON)
+                    .with(new JacksonModule(JacksonOption.RESPECT_JSONPROPERTY_REQUIRED))
+                    .build());
+
+    private static final String REPAIR_PROMPT = """
+            下面的 JSON 不符合要求，请只修正列出的问题，保留原有内容，只返回修正后的 JSON，不要包含解释性文字。
+
+            问题：
+            %s
+
+            JSON Schema：
+            %s
+
+            原始输出：
+            %s
+            """;
+
+    private final ChatClient repairClient;
+    private final StructuredOutputProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final String profile;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Map<Type, Target> targets = new ConcurrentHashMap<>();
+
+    public StructuredOutputPipeline(@Qualifier(ChatClientProfiles.PURE) ChatClient repairClient,
+                                    StructuredOutputProperties properties,
+                                    MeterRegistry meterRegistry,
+                                    Environment environment) {
+        this.repairClient = repairClient;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        String[] profiles = environment.getActiveProfiles();
+        this.profile = profiles.length == 0 ? "default" : String.join(",", profiles);
+    }
+
+    /**
+     * 调用模型并转换为目标类型，格式说明与 .entity() 相同
+     */
+    public <T> T entity(ChatClient.ChatClientRequestSpec request, Class<T> type) {
+        return entity(request, ParameterizedTypeReference.forType(type));
+    }
+
+    /**
+     * 调用模型并转换为目标类型，格式说明与 .entity() 相同
+     */
+    public <T> T entity(ChatClient.ChatClientRequestSpec request, ParameterizedTypeReference<T> type) {
+        Target target = target(type);
+        String text = request
+                .advisors(a -> a.param(ChatClientAttributes.OUTPUT_FORMAT.getKey(), target.format()))
+                .call()
+                .content();
+        return convert(text, type);
+    }
+
+    /**
+     * 把模型输出转换为目标类型
+     *
+     * @throws ResponseStatusException 修复后仍不符合 schema 时返回 502
+     */
+    public <T> T convert(String text, Class<T> type) {
+        return convert(text, ParameterizedTypeReference.forType(type));
+    }
+
+    /**
+     * 把模型输出转换为目标类型
+     *
+     * @throws ResponseStatusException 修复后仍不符合 schema 时返回 502
+     */
+    public <T> T convert(String text, ParameterizedTypeReference<T> type) {
+        Target target = target(type);
+        Attempt attempt = attempt(text, target);
+        String outcome = attempt.repaired() ? "local_repair" : "valid";
+
+        // 空输出没有可修复的内容
+        if (!attempt.valid() && properties.isModelRepairEnabled() && text != null && !text.isBlank()) {
+            List<String> errors = attempt.errors();
+            log.info("{} 输出本地修复失败，发起修复调用: {}", target.name(), errors);
+            attempt = Timer.builder("restaurant.ai.structured.repair")
+                    .description("结构化输出修复调用耗时")
+                    .tag("profile", profile)
+                    .tag("type", target.name())
+                    .register(meterRegistry)
+                    .record(() -> attempt(repair(text, errors, target), target));
+            outcome = "model_repair";
+        }
+        if (!attempt.valid()) {
+            record(target, "failed");
+            log.warn("{} 输出无法修复: {}", target.name(), attempt.errors());
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                    "模型输出不符合 " + target.name() + " 格式: " + String.join("; ", attempt.errors()));
+        }
+
+        record(target, outcome);
+        return objectMapper.convertValue(attempt.value(), target.javaType());
+    }
+
+    /**
+     * 解析、本地修复和校验，不调用模型
+     */
+    Attempt attempt(String text, Target target) {
+        if (text == null || text.isBlank()) {
+            return Attempt.invalid(List.of("输出为空"));
+        }
+        boolean repaired = false;
+        JsonNode value = parse(text.strip());
+        if (value == null) {
+            String fixed = JsonRepair.repair(text, target.opener());
+            value = fixed == null ? null : parse(fixed);
+            if (value == null) {
+                return Attempt.invalid(List.of("不是合法的 JSON"));
+            }
+            repaired = true;
+        }
+
+        List<String> errors = JsonSchemaValidator.validate(target.schema(), value);
+        if (!errors.isEmpty()) {
+            JsonNode normalized = JsonSchemaValidator.normalize(target.schema(), value);
+            List<String> remaining = JsonSchemaValidator.validate(target.schema(), normalized);
+            if (!remaining.isEmpty()) {
+                return Attempt.invalid(remaining);
+            }
+            value = normalized;
+            repaired = true;
+        }
+        return new Attempt(value, repaired, List.of());
+    }
+
+    private String repair(String text, List<String> errors, Target target) {
+        String original = text.length() > properties.getMaxRepairInputChars()
+                ? text.substring(0, properties.getMaxRepairInputChars())
+                : text;
+        String problems = errors.stream().map(error -> "- " + error).collect(Collectors.joining("\n"));
+        return repairClient.prompt()
+                .user(REPAIR_PROMPT.formatted(problems, target.schemaText(), original))
+                .call()
+                .content();
+    }
+
+    private JsonNode parse(String text) {
+        try {
+            return objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private Target target(ParameterizedTypeReference<?> type) {
+        return targets.computeIfAbsent(type.getType(), key -> {
+            BeanOutputConverter<?> converter = new BeanOutputConverter<>(type);
+            JsonNode schema = SCHEMA_GENERATOR.generateSchema(key);
+            JavaType javaType = objectMapper.getTypeFactory().constructType(key);
+            String name = javaType.isCollectionLikeType()
+                    ? "List<" + javaType.getContentType().getRawClass().getSimpleName() + ">"
+                    : javaType.getRawClass().getSimpleName();
+            char opener = "array".equals(schema.path("type").asText()) ? '[' : '{';
+            return new Target(name, javaType, schema, converter.getJsonSchema(), converter.getFormat(), opener);
+        });
+    }
+
+    private void record(Target target, String outcome) {
+        Counter.builder("restaurant.ai.structured.outputs")
+                .description("结构化输出转换次数，按是否需要修复区分")
+                .tag("profile", profile)
+                .tag("type", target.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 目标类型及其 schema 和格式说明
+     */
+    record Target(String name, JavaType javaType, JsonNode schema, String schemaText, String format, char opener) {
+    }
+
+    /**
+     * 一次解析和校验的结果
+     */
+    record Attempt(JsonNode value, boolean repaired, List<String> errors) {
+
+        static Attempt invalid(List<String> errors) {
+            return new Attempt(null, false, errors);
+        }
+
+        boolean valid() {
+            return value != null && errors.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.zhijun.spring.ai.rerank;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 逐批打分的重排序器基类
+ * 候选文档按固定大小分批交给 {@link #scoreBatch} 打分，再按得分取 top-N，
+ * 打分模型（本地交叉编码器等）只需实现批量打分
+ */
+public abstract class BatchScoringReranker implements Reranker {
+
+    private final int batchSize;
+
+    protected BatchScoringReranker(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public List<Document> rerank(String query, List<Document> candidates, int topN) {
+        if (candidates.isEmpty() || topN <= 0) {
+            return List.of();
+        }
+
+        float[] scores = new float[candidates.size()];
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, candidates.size());
+            float[] batchScores = scoreBatch(query, candidates.subList(from, to));
+            System.arraycopy(batchScores, 0, scores, from, to - from);
+        }
+
+        Integer[] order = new Integer[candidates.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // 稳定排序，得分相同时保持第一阶段的顺序
+        Arrays.sort(order, (i, j) -> Float.compare(scores[j], scores[i]));
+
+        List<Document> reranked = new ArrayList<>(Math.min(topN, order.length));
+        for (int i = 0; i < order.length && reranked.size() < topN; i++) {
+            reranked.add(candidates.get(order[i]));
+        }
+        return reranked;
+    }
+
+    /**
+     * 对一批候选文档打分
+     *
+     * @param query 查询文本
+     * @param batch 候选文档
+     * @return 与 batch 一一对应的相关性得分，越大越相关
+     */
+    protected abstract float[] scoreBatch(String query, List<Document> batch);
+}
@@ -0,0 +1,98 @@
+package io.zhijun.spring.ai.rerank;
+
+import io.zhijun.spring.ai.search.CjkBigramTokenizer;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地重排序器
+ * 在进程内用 CPU 对查询和文档做交叉打分，不依赖网络：
+ * 查询词覆盖率 + 命中查询词在文档中的邻近度 + 第一阶段向量相似度。
+ * 邻近度取文档中包含全部命中查询词的最短词窗口：命中词挨在一起时为 1，越分散越接近 0，再乘以覆盖率，
+ * 避免只命中一个词的文档得到满分
+ */
+public class LexicalReranker extends BatchScoringReranker {
+
+    private static final float COVERAGE_WEIGHT = 0.5f;
+    private static final float PROXIMITY_WEIGHT = 0.2f;
+    private static final float FIRST_STAGE_WEIGHT = 0.3f;
+
+    public LexicalReranker(int batchSize) {
+        super(batchSize);
+    }
+
+    @Override
+    protected float[] scoreBatch(String query, List<Document> batch) {
+        List<String> queryTokens = List.copyOf(new LinkedHashSet<>(CjkBigramTokenizer.tokenize(query)));
+        float[] scores = new float[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Document doc = batch.get(i);
+            Double firstStage = doc.getScore();
+            scores[i] = score(queryTokens, doc.getText())
+                    + FIRST_STAGE_WEIGHT * (firstStage != null ? firstStage.floatValue() : 0f);
+        }
+        return scores;
+    }
+
+    private float score(List<String> queryTokens, String text) {
+        if (queryTokens.isEmpty() || text == null) {
+            return 0f;
+        }
+        Map<String, Integer> queryIndex = new HashMap<>();
+        for (int i = 0; i < queryTokens.size(); i++) {
+            queryIndex.put(queryTokens.get(i), i);
+        }
+
+        // 文档中命中查询词的位置，以及各自对应的查询词
+        List<String> docTokens = CjkBigramTokenizer.tokenize(text);
+        int[] positions = new int[docTokens.size()];
+        int[] hits = new int[docTokens.size()];
+        int hitCount = 0;
+        boolean[] seen = new boolean[queryTokens.size()];
+        int matched = 0;
+        for (int position = 0; position < docTokens.size(); position++) {
+            Integer index = queryIndex.get(docTokens.get(position));
+            if (index != null) {
+                positions[hitCount] = position;
+                hits[hitCount++] = index;
+                if (!seen[index]) {
+                    seen[index] = true;
+                    matched++;
+                }
+            }
+        }
+        if (matched == 0) {
+            return 0f;
+        }
+
+        float coverage = (float) matched / queryTokens.size();
+        float proximity = coverage * matched / minimalWindow(positions, hits, hitCount, queryTokens.size(), matched);
+        return COVERAGE_WEIGHT * coverage + PROXIMITY_WEIGHT * proximity;
+    }
+
+    /**
+     * 包含全部 matched 个不同查询词的最短文档窗口长度（词数），双指针滑动
+     */
+    private static int minimalWindow(int[] positions, int[] hits, int hitCount, int queryLength, int matched) {
+        int[] counts = new int[queryLength];
+        int covered = 0;
+        int best = Integer.MAX_VALUE;
+        int left = 0;
+        for (int right = 0; right < hitCount; right++) {
+            if (counts[hits[right]]++ == 0) {
+                covered++;
+            }
+            while (covered == matched) {
+                best = Math.min(best, positions[right] - positions[left] + 1);
+                if (--counts[hits[left++]] == 0) {
+                    covered--;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,93 @@
+package io.zhijun.spring.ai.rerank;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 基于 LLM 的重排序器
+ * 将所有候选文档放入一个提示词，由模型返回排序后的序号；
+ * 模型返回的有效序号不足时，按第一阶段顺序补齐
+ */
+@Slf4j
+public class LlmReranker implements Reranker {
+
+    private final ChatClient chatClient;
+
+    public LlmReranker(ChatClient chatClient) {
+        this.chatClient = chatClient;
+    }
+
+    @Override
+    public List<Document> rerank(String query, List<Document> candidates, int topN) {
+        if (candidates.isEmpty() || topN <= 0) {
+            return List.of();
+        }
+
+        StringBuilder candidatesText = new StringBuilder();
+        for (int i = 0; i < candidates.size(); i++) {
+            candidatesText.append(i + 1)
+                    .append(". ")
+                    .append(candidates.get(i).getFormattedContent())
+                    .append("\n");
+        }
+
+        String rerankPrompt = String.format("""
+                根据以下查询，对以下文档进行相关性排序：
+                
+                查询: %s
+                
+                文档列表:
+                %s
+                
+                请返回最相关的 %d 个文档的序号（用逗号分隔），按相关性从高到低排序。
+                只返回数字，不要有其他文字。
+                """, query, candidatesText, topN);
+
+        String rerankResult = chatClient.prompt()
+                .user(rerankPrompt)
+                .call()
+                .content();
+
+        // 解析排序结果，去重并过滤越界序号
+        Set<Integer> indices = parseIndices(rerankResult != null ? rerankResult : "", candidates.size());
+        List<Document> reranked = new ArrayList<>(topN);
+        for (Integer index : indices) {
+            if (reranked.size() >= topN) {
+                break;
+            }
+            reranked.add(candidates.get(index - 1));
+        }
+
+        if (reranked.size() < Math.min(topN, candidates.size())) {
+            log.warn("LLM 重排序仅返回 {} 个有效序号，按原顺序补齐", reranked.size());
+            for (int i = 0; i < candidates.size() && reranked.size() < topN; i++) {
+                if (!indices.contains(i + 1)) {
+                    reranked.add(candidates.get(i));
+                }
+            }
+        }
+        return reranked;
+    }
+
+    private Set<Integer> parseIndices(String result, int candidateCount) {
+        Set<Integer> indices = new LinkedHashSet<>();
+        String[] parts = result.trim().split("[^0-9]+");
+        for (String part : parts) {
+            try {
+                int index = Integer.parseInt(part);
+                if (index > 0 && index <= candidateCount) {
+                    indices.add(index);
+                }
+            } catch (NumberFormatException e) {
+                // 忽略无效的数字
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,22 @@
+package io.zhijun.spring.ai.rerank;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * 重排序器
+ * 对第一阶段检索的候选文档按与查询的相关性重新排序
+ */
+public interface Reranker {
+
+    /**
+     * 重新排序
+     *
+     * @param query      查询文本
+     * @param candidates 候选文档
+     * @param topN       返回数量
+     * @return 按相关性降序排列的文档，数量不超过 topN
+     */
+    List<Document> rerank(String query, List<Document> candidates, int topN);
+}
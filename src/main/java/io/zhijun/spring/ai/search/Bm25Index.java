@@ -0,0 +1,299 @@
+package io.zhijun.spring.ai.search;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 可增量更新的 BM25 倒排索引
+ * 只保存检索需要的数据：片段 ID、文档长度和倒排表，不保存片段正文和元数据；
+ * 倒排表使用按文档序号递增的 int 数组存储（文档序号 + 词频），避免装箱对象。
+ * 写入只对新增片段分词并追加到倒排表，删除只把文档序号标记为失效，失效序号超过一半时压缩倒排表，
+ * 更新的代价与变更量成正比，而不是与语料规模成正比
+ * <p>
+ * 查询时在稠密的 float 数组上累加得分，再用有界堆取 top-K；读写由读写锁隔离
+ */
+public final class Bm25Index {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 失效序号少于该值时不压缩
+     */
+    private static final int MIN_COMPACT_REMOVED = 64;
+
+    private final float k1;
+    private final float b;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    /**
+     * 按文档序号保存片段 ID，null 表示已删除
+     */
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int removedCount;
+    private long totalLength;
+
+    private Map<String, Integer> termIds = new HashMap<>();
+    private int[][] postingDocs = new int[INITIAL_CAPACITY][];
+    private int[][] postingFreqs = new int[INITIAL_CAPACITY][];
+    private int[] postingSizes = new int[INITIAL_CAPACITY];
+
+    /**
+     * @param k1 词频饱和参数
+     * @param b  文档长度归一化参数
+     */
+    public Bm25Index(double k1, double b) {
+        this.k1 = (float) k1;
+        this.b = (float) b;
+    }
+
+    /**
+     * 用一组文档构建索引
+     */
+    public static Bm25Index build(Collection<Document> documents, double k1, double b) {
+        Bm25Index index = new Bm25Index(k1, b);
+        index.update(documents, List.of());
+        return index;
+    }
+
+    /**
+     * 先移除再加入，已存在的 ID 视为替换；没有正文的文档不加入
+     */
+    public void update(Collection<Document> added, Collection<String> removedIds) {
+        lock.writeLock().lock();
+        try {
+            removedIds.forEach(this::remove);
+            for (Document document : added) {
+                if (document.getText() != null) {
+                    remove(document.getId());
+                    add(document.getId(), document.getText());
+                }
+            }
+            if (removedCount >= MIN_COMPACT_REMOVED && removedCount * 2 > slotCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(String id, String text) {
+        List<String> tokens = CjkBigramTokenizer.tokenize(text);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+
+        int slot = slotCount++;
+        if (slot == ids.length) {
+            ids = Arrays.copyOf(ids, slot * 2);
+            lengths = Arrays.copyOf(lengths, slot * 2);
+        }
+        ids[slot] = id;
+        lengths[slot] = tokens.size();
+        totalLength += tokens.size();
+        slotsById.put(id, slot);
+
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Integer termId = termIds.get(entry.getKey());
+            if (termId == null) {
+                termId = termIds.size();
+                termIds.put(entry.getKey(), termId);
+                if (termId == postingDocs.length) {
+                    postingDocs = Arrays.copyOf(postingDocs, termId * 2);
+                    postingFreqs = Arrays.copyOf(postingFreqs, termId * 2);
+                    postingSizes = Arrays.copyOf(postingSizes, termId * 2);
+                }
+                postingDocs[termId] = new int[4];
+                postingFreqs[termId] = new int[4];
+            }
+            int size = postingSizes[termId];
+            if (size == postingDocs[termId].length) {
+                postingDocs[termId] = Arrays.copyOf(postingDocs[termId], size * 2);
+                postingFreqs[termId] = Arrays.copyOf(postingFreqs[termId], size * 2);
+            }
+            postingDocs[termId][size] = slot;
+            postingFreqs[termId][size] = entry.getValue();
+            postingSizes[termId] = size + 1;
+        }
+    }
+
+    private void remove(String id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        ids[slot] = null;
+        totalLength -= lengths[slot];
+        removedCount++;
+    }
+
+    /**
+     * 去掉失效序号，剩余文档按原顺序重新编号，不再出现的词项一并删除
+     */
+    private void compact() {
+        int[] remap = new int[slotCount];
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] == null) {
+                remap[slot] = -1;
+            } else {
+                remap[slot] = live;
+                ids[live] = ids[slot];
+                lengths[live] = lengths[slot];
+                slotsById.put(ids[live], live);
+                live++;
+            }
+        }
+        Arrays.fill(ids, live, slotCount, null);
+
+        Map<String, Integer> compactedTerms = new HashMap<>();
+        int[][] docs = new int[Math.max(INITIAL_CAPACITY, termIds.size())][];
+        int[][] freqs = new int[docs.length][];
+        int[] sizes = new int[docs.length];
+        for (Map.Entry<String, Integer> entry : termIds.entrySet()) {
+            int termId = entry.getValue();
+            int[] postingDoc = postingDocs[termId];
+            int[] postingFreq = postingFreqs[termId];
+            int size = 0;
+            for (int i = 0; i < postingSizes[termId]; i++) {
+                int slot = remap[postingDoc[i]];
+                if (slot >= 0) {
+                    postingDoc[size] = slot;
+                    postingFreq[size] = postingFreq[i];
+                    size++;
+                }
+            }
+            if (size > 0) {
+                int compactedId = compactedTerms.size();
+                compactedTerms.put(entry.getKey(), compactedId);
+                docs[compactedId] = Arrays.copyOf(postingDoc, size);
+                freqs[compactedId] = Arrays.copyOf(postingFreq, size);
+                sizes[compactedId] = size;
+            }
+        }
+
+        slotCount = live;
+        removedCount = 0;
+        termIds = compactedTerms;
+        postingDocs = docs;
+        postingFreqs = freqs;
+        postingSizes = sizes;
+    }
+
+    /**
+     * BM25 检索
+     *
+     * @param query 查询文本
+     * @param topK  返回数量
+     * @return 按得分降序排列的片段 ID
+     */
+    public List<Match> search(String query, int topK) {
+        lock.readLock().lock();
+        try {
+            int n = slotCount - removedCount;
+            if (n == 0 || topK <= 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / n;
+
+            float[] scores = new float[slotCount];
+            boolean matched = false;
+            for (String term : new LinkedHashSet<>(CjkBigramTokenizer.tokenize(query))) {
+                Integer termId = termIds.get(term);
+                if (termId == null) {
+                    continue;
+                }
+                int[] docs = postingDocs[termId];
+                int[] freqs = postingFreqs[termId];
+                int size = postingSizes[termId];
+                // 文档频率只统计未删除的文档
+                int documentFrequency = 0;
+                for (int i = 0; i < size; i++) {
+                    if (ids[docs[i]] != null) {
+                        documentFrequency++;
+                    }
+                }
+                if (documentFrequency == 0) {
+                    continue;
+                }
+                matched = true;
+                float idf = (float) Math.log(1 + (n - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (int i = 0; i < size; i++) {
+                    int d = docs[i];
+                    if (ids[d] == null) {
+                        continue;
+                    }
+                    float tf = freqs[i];
+                    float norm = k1 * (1 - b + b * lengths[d] / averageLength);
+                    scores[d] += idf * tf * (k1 + 1) / (tf + norm);
+                }
+            }
+            if (!matched) {
+                return List.of();
+            }
+
+            // 有界最小堆选取 top-K
+            PriorityQueue<Match> heap = new PriorityQueue<>(Math.min(topK, n) + 1,
+                    (m1, m2) -> Float.compare(m1.score(), m2.score()));
+            for (int d = 0; d < slotCount; d++) {
+                float score = scores[d];
+                if (score <= 0) {
+                    continue;
+                }
+                if (heap.size() < topK) {
+                    heap.add(new Match(ids[d], score));
+                } else if (score > heap.peek().score()) {
+                    heap.poll();
+                    heap.add(new Match(ids[d], score));
+                }
+            }
+
+            Match[] matches = heap.toArray(new Match[0]);
+            Arrays.sort(matches, (m1, m2) -> Float.compare(m2.score(), m1.score()));
+            return List.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotCount - removedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return termIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引内的命中，只有片段 ID
+     */
+    public record Match(String id, float score) {
+    }
+
+    /**
+     * 带片段内容的命中，供得分融合使用
+     */
+    public record Hit(Document document, float score) {
+    }
+}
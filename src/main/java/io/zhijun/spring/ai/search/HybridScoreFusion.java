@@ -0,0 +1,87 @@
+package io.zhijun.spring.ai.search;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 混合搜索得分融合
+ * 向量得分直接使用向量库返回的相似度，关键词得分按最高分归一化，
+ * 一次遍历计算所有候选的综合得分，并用大小为 topK 的最小堆选出结果
+ */
+public final class HybridScoreFusion {
+
+    private HybridScoreFusion() {
+    }
+
+    /**
+     * 融合两路检索结果
+     *
+     * @param vectorResults 向量检索结果（Document#getScore 为相似度）
+     * @param keywordHits   BM25 检索结果
+     * @param keywordWeight 关键词权重（0.0-1.0）
+     * @param topK          返回数量
+     * @return 按综合得分降序排列的文档
+     */
+    public static List<Document> fuse(List<Document> vectorResults, List<Bm25Index.Hit> keywordHits,
+                                      double keywordWeight, int topK) {
+        if (topK <= 0) {
+            return List.of();
+        }
+
+        Map<String, Candidate> candidates = new HashMap<>((vectorResults.size() + keywordHits.size()) * 2);
+        for (Document doc : vectorResults) {
+            Candidate candidate = candidates.computeIfAbsent(doc.getId(), id -> new Candidate(doc));
+            Double score = doc.getScore();
+            candidate.vectorScore = Math.max(candidate.vectorScore, score != null ? score : 0.0);
+        }
+
+        float maxKeywordScore = 0;
+        for (Bm25Index.Hit hit : keywordHits) {
+            maxKeywordScore = Math.max(maxKeywordScore, hit.score());
+        }
+        if (maxKeywordScore > 0) {
+            for (Bm25Index.Hit hit : keywordHits) {
+                Candidate candidate = candidates.computeIfAbsent(hit.document().getId(), id -> new Candidate(hit.document()));
+                candidate.keywordScore = hit.score() / maxKeywordScore;
+            }
+        }
+
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(Math.min(topK, candidates.size()) + 1,
+                (c1, c2) -> Double.compare(c1.combinedScore, c2.combinedScore));
+        for (Candidate candidate : candidates.values()) {
+            candidate.combinedScore = (1 - keywordWeight) * candidate.vectorScore + keywordWeight * candidate.keywordScore;
+            if (heap.size() < topK) {
+                heap.add(candidate);
+            } else if (candidate.combinedScore > heap.peek().combinedScore) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        Candidate[] top = heap.toArray(new Candidate[0]);
+        Arrays.sort(top, (c1, c2) -> Double.compare(c2.combinedScore, c1.combinedScore));
+        List<Document> results = new ArrayList<>(top.length);
+        for (Candidate candidate : top) {
+            results.add(candidate.document);
+        }
+        return results;
+    }
+
+    private static final class Candidate {
+
+        private final Document document;
+        private double vectorScore;
+        private double keywordScore;
+        private double combinedScore;
+
+        private Candidate(Document document) {
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.zhijun.spring.ai.sentiment;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 平滑限流器
+ * 按固定间隔发放许可，调用方预约下一个时间槽后等待到该时刻，不会出现突发；
+ * 等待中被中断时，如果预约的时间槽仍是最后一个，则归还给之后的调用方
+ */
+class RequestRateLimiter {
+
+    private final long intervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+    RequestRateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond <= 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * 阻塞直到获得许可
+     */
+    void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long reserved = nextSlot.updateAndGet(next -> Math.max(next, now) + intervalNanos);
+        long slot = reserved - intervalNanos;
+        long wait = slot - System.nanoTime();
+        while (wait > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                // 之后没有人预约时才能归还，否则会与后面的时间槽重叠
+                nextSlot.compareAndSet(reserved, slot);
+                throw new InterruptedException();
+            }
+            wait = slot - System.nanoTime();
+        }
+    }
+}
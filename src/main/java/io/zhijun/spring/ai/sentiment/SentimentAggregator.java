@@ -0,0 +1,87 @@
+package io.zhijun.spring.ai.sentiment;
+
+import io.zhijun.spring.ai.service.SentimentAnalysisService.SentimentResult;
+import io.zhijun.spring.ai.service.SentimentAnalysisService.SentimentSummary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 情感分析结果汇总
+ * 统计由 Java 计算，不依赖模型对大量评论做计数
+ */
+public final class SentimentAggregator {
+
+    static final String POSITIVE = "positive";
+    static final String NEGATIVE = "negative";
+    static final String NEUTRAL = "neutral";
+
+    private static final int MAX_INSIGHTS = 5;
+
+    private SentimentAggregator() {
+    }
+
+    /**
+     * 汇总单条评论的分析结果
+     *
+     * @param results 成功分析的结果
+     * @return 整体情感、平均分、各类计数和出现最多的情绪
+     */
+    public static SentimentSummary summarize(Collection<SentimentResult> results) {
+        int positive = 0;
+        int negative = 0;
+        int neutral = 0;
+        double scoreSum = 0;
+        int scored = 0;
+        Map<String, Integer> emotions = new HashMap<>();
+
+        for (SentimentResult result : results) {
+            switch (result.sentiment()) {
+                case POSITIVE -> positive++;
+                case NEGATIVE -> negative++;
+                default -> neutral++;
+            }
+            if (result.score() != null) {
+                scoreSum += result.score();
+                scored++;
+            }
+            if (result.emotions() != null) {
+                for (String emotion : result.emotions()) {
+                    emotions.merge(emotion, 1, Integer::sum);
+                }
+            }
+        }
+
+        int total = positive + negative + neutral;
+        double averageScore = scored == 0 ? 0.0 : Math.round(scoreSum / scored * 1000) / 1000.0;
+        return new SentimentSummary(overall(positive, negative, neutral), averageScore, positive, negative, neutral,
+                insights(emotions, negative, total));
+    }
+
+    private static String overall(int positive, int negative, int neutral) {
+        if (positive > negative && positive > neutral) {
+            return POSITIVE;
+        }
+        if (negative > positive && negative > neutral) {
+            return NEGATIVE;
+        }
+        return NEUTRAL;
+    }
+
+    private static List<String> insights(Map<String, Integer> emotions, int negative, int total) {
+        List<String> insights = new ArrayList<>();
+        if (total == 0) {
+            return insights;
+        }
+        emotions.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_INSIGHTS)
+                .forEach(e -> insights.add(String.format("%s：%d 条（%.1f%%）", e.getKey(), e.getValue(),
+                        e.getValue() * 100.0 / total)));
+        insights.add(String.format("负面评论占比 %.1f%%", negative * 100.0 / total));
+        return insights;
+    }
+}
@@ -0,0 +1,333 @@
+package io.zhijun.spring.ai.sentiment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.advisor.ChatMetricsAdvisor;
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.config.SentimentProperties;
+import io.zhijun.spring.ai.service.SentimentAnalysisService.SentimentResult;
+import io.zhijun.spring.ai.service.SentimentAnalysisService.SentimentSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 批量情感分析引擎
+ * 按 token 预算把评论切分为微批次，在限流和并发上限下并行调用模型，逐条返回结果；
+ * 汇总统计由 {@link SentimentAggregator} 在 Java 中计算
+ * <p>
+ * 批次调用失败或模型遗漏部分评论时，把未得到结果的评论一分为二重试，超过重试轮数后标记为失败
+ */
+@Slf4j
+@Component
+public class SentimentBatchEngine {
+
+    private static final String ENDPOINT = "sentiment-batch";
+
+    private static final PromptTemplate BATCH_TEMPLATE = new PromptTemplate("""
+            请逐条分析以下餐厅评论的情感倾向，每条评论以 [编号] 开头：
+            {reviews}
+
+            为每条评论返回一个对象，组成 JSON 数组，不要遗漏任何编号：
+            - index：评论编号
+            - sentiment：positive/negative/neutral
+            - score：0.0-1.0
+            - emotions：情绪词列表，如 高兴、失望、满意、愤怒
+            - summary：一句话情感摘要
+            """);
+
+    private final ChatClient chatClient;
+    private final ExecutorService executor;
+    private final SentimentProperties properties;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final RequestRateLimiter rateLimiter;
+    private final Semaphore callPermits;
+    private final Counter succeededReviews;
+    private final Counter failedReviews;
+    private final Counter failedCalls;
+
+    public SentimentBatchEngine(@Qualifier(ChatClientProfiles.PURE) ChatClient chatClient,
+                                @Qualifier("sentimentExecutor") ExecutorService executor,
+                                SentimentProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.chatClient = chatClient;
+        this.executor = executor;
+        this.properties = properties;
+        // 限流和并发上限由所有批量任务共享，对应模型服务的配额
+        this.rateLimiter = new RequestRateLimiter(properties.getRequestsPerSecond());
+        this.callPermits = new Semaphore(properties.getConcurrency());
+        this.succeededReviews = reviewCounter(meterRegistry, "success");
+        this.failedReviews = reviewCounter(meterRegistry, "failed");
+        this.failedCalls = Counter.builder("restaurant.ai.sentiment.batch.failures")
+                .description("批量情感分析调用失败次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 分析全部评论，阻塞直到完成
+     *
+     * @param reviews  评论列表
+     * @param listener 每完成一个微批次回调一次，回调串行执行
+     * @return 逐条结果（与输入顺序一致）和汇总
+     * @throws InterruptedException 调用线程被中断时取消剩余批次
+     */
+    public BatchResult analyze(List<String> reviews, Consumer<Progress> listener) throws InterruptedException {
+        long start = System.nanoTime();
+        List<List<Review>> batches = partition(reviews);
+        log.info("批量情感分析: {} 条评论，{} 个微批次", reviews.size(), batches.size());
+
+        ReviewSentiment[] results = new ReviewSentiment[reviews.size()];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Object listenerLock = new Object();
+
+        List<Future<?>> futures = new ArrayList<>(batches.size());
+        for (List<Review> batch : batches) {
+            futures.add(executor.submit((Callable<Void>) () -> {
+                List<ReviewSentiment> scored = score(batch, 0);
+                int failedInBatch = 0;
+                for (ReviewSentiment sentiment : scored) {
+                    results[sentiment.index()] = sentiment;
+                    if (sentiment.result() == null) {
+                        failedInBatch++;
+                    }
+                }
+                failedReviews.increment(failedInBatch);
+                succeededReviews.increment(scored.size() - failedInBatch);
+                synchronized (listenerLock) {
+                    listener.accept(new Progress(completed.addAndGet(scored.size()),
+                            failed.addAndGet(failedInBatch), reviews.size(), scored, null));
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("批量情感分析失败: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        List<ReviewSentiment> ordered = Arrays.asList(results);
+        SentimentSummary summary = SentimentAggregator.summarize(ordered.stream()
+                .map(ReviewSentiment::result)
+                .filter(Objects::nonNull)
+                .toList());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("批量情感分析完成: {} 条，失败 {} 条，耗时 {} ms", reviews.size(), failed.get(), elapsedMillis);
+        return new BatchResult(ordered, summary, failed.get(), elapsedMillis);
+    }
+
+    /**
+     * 以流的形式返回进度，最后一个元素携带汇总；取消订阅时中止剩余批次
+     */
+    public Flux<Progress> analyzeStream(List<String> reviews) {
+        return Flux.create(sink -> {
+            Future<?> run = executor.submit(() -> {
+                try {
+                    BatchResult result = analyze(reviews, sink::next);
+                    sink.next(new Progress(reviews.size(), result.failedCount(), reviews.size(), List.of(),
+                            result.summary()));
+                    sink.complete();
+                } catch (InterruptedException e) {
+                    log.info("批量情感分析已取消");
+                } catch (Exception e) {
+                    sink.error(e);
+                }
+            });
+            sink.onDispose(() -> run.cancel(true));
+        });
+    }
+
+    /**
+     * 按 token 预算和条数上限贪心切分，过长的评论先截断
+     */
+    List<List<Review>> partition(List<String> reviews) {
+        List<List<Review>> batches = new ArrayList<>();
+        List<Review> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (int i = 0; i < reviews.size(); i++) {
+            Review review = truncate(i, reviews.get(i));
+            if (!current.isEmpty() && (current.size() >= properties.getMaxBatchSize()
+                    || currentTokens + review.tokens() > properties.getMaxBatchTokens())) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(review);
+            currentTokens += review.tokens();
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private Review truncate(int index, String text) {
+        String value = text == null ? "" : text.replace('\n', ' ').trim();
+        int tokens = tokenCountEstimator.estimate(value);
+        if (tokens > properties.getMaxReviewTokens()) {
+            value = value.substring(0, (int) ((long) value.length() * properties.getMaxReviewTokens() / tokens));
+            tokens = properties.getMaxReviewTokens();
+        }
+        return new Review(index, value, tokens);
+    }
+
+    private List<ReviewSentiment> score(List<Review> batch, int attempt) throws InterruptedException {
+        Map<Integer, SentimentResult> scored = new HashMap<>();
+        String error = "模型未返回该评论的结果";
+        try {
+            scored = call(batch);
+        } catch (RuntimeException e) {
+            failedCalls.increment();
+            error = e.getMessage();
+            log.warn("情感分析批次失败（{} 条，第 {} 次尝试）: {}", batch.size(), attempt + 1, e.getMessage());
+        }
+
+        List<ReviewSentiment> results = new ArrayList<>(batch.size());
+        List<Review> missing = new ArrayList<>();
+        for (Review review : batch) {
+            SentimentResult result = scored.get(review.index());
+            if (result != null) {
+                results.add(new ReviewSentiment(review.index(), result, null));
+            } else {
+                missing.add(review);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return results;
+        }
+        if (attempt >= properties.getMaxRetries()) {
+            for (Review review : missing) {
+                results.add(new ReviewSentiment(review.index(), null, error));
+            }
+            return results;
+        }
+        int half = (missing.size() + 1) / 2;
+        results.addAll(score(missing.subList(0, half), attempt + 1));
+        if (half < missing.size()) {
+            results.addAll(score(missing.subList(half, missing.size()), attempt + 1));
+        }
+        return results;
+    }
+
+    private Map<Integer, SentimentResult> call(List<Review> batch) throws InterruptedException {
+        StringBuilder text = new StringBuilder();
+        for (Review review : batch) {
+            text.append('[').append(review.index()).append("] ").append(review.text()).append('\n');
+        }
+
+        // 先取并发许可再预约时间槽：同时预约的时间槽不超过并发数，取消任务后不会推迟之后的调用
+        callPermits.acquire();
+        List<IndexedSentiment> items;
+        try {
+            rateLimiter.acquire();
+            items = chatClient.prompt(BATCH_TEMPLATE.create(Map.of("reviews", text.toString())))
+                    .advisors(a -> a.param(ChatMetricsAdvisor.ENDPOINT, ENDPOINT))
+                    .call()
+                    .entity(new ParameterizedTypeReference<List<IndexedSentiment>>() {
+                    });
+        } finally {
+            callPermits.release();
+        }
+
+        Map<Integer, SentimentResult> results = new HashMap<>();
+        if (items == null) {
+            return results;
+        }
+        for (IndexedSentiment item : items) {
+            if (item != null && item.index() != null) {
+                results.put(item.index(), item.normalize());
+            }
+        }
+        // 只接受本批次内的编号
+        results.keySet().retainAll(batch.stream().map(Review::index).toList());
+        return results;
+    }
+
+    private static Counter reviewCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("restaurant.ai.sentiment.reviews")
+                .description("批量情感分析的评论数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 截断后的评论
+     */
+    record Review(int index, String text, int tokens) {
+    }
+
+    /**
+     * 模型返回的带编号的结果
+     */
+    record IndexedSentiment(Integer index, String sentiment, Double score, List<String> emotions, String summary) {
+
+        SentimentResult normalize() {
+            String label = sentiment == null ? "" : sentiment.trim().toLowerCase(Locale.ROOT);
+            if (!label.equals(SentimentAggregator.POSITIVE) && !label.equals(SentimentAggregator.NEGATIVE)) {
+                label = SentimentAggregator.NEUTRAL;
+            }
+            Double clamped = score == null ? null : Math.max(0.0, Math.min(1.0, score));
+            return new SentimentResult(label, clamped, emotions == null ? List.of() : emotions, summary);
+        }
+    }
+
+    /**
+     * 单条评论的分析结果
+     *
+     * @param index  评论在输入中的位置
+     * @param result 分析结果，失败时为 null
+     * @param error  失败原因
+     */
+    public record ReviewSentiment(int index, SentimentResult result, String error) {
+    }
+
+    /**
+     * 进度
+     *
+     * @param completed 已完成（含失败）的评论数
+     * @param failed    失败的评论数
+     * @param total     评论总数
+     * @param results   本次完成的批次结果
+     * @param summary   汇总，仅最后一个进度携带
+     */
+    public record Progress(int completed, int failed, int total, List<ReviewSentiment> results,
+                           SentimentSummary summary) {
+    }
+
+    /**
+     * 批量分析结果
+     */
+    public record BatchResult(List<ReviewSentiment> results, SentimentSummary summary, int failedCount,
+                              long elapsedMillis) {
+    }
+}
@@ -1,16 +1,30 @@
 package io.zhijun.spring.ai.service;
 
+import io.zhijun.spring.ai.config.AdvancedRagProperties;
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.memory.ConversationIds;
+import io.zhijun.spring.ai.rerank.Reranker;
+import io.zhijun.spring.ai.search.Bm25Index;
+import io.zhijun.spring.ai.search.HybridScoreFusion;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -21,17 +35,34 @@ import java.util.stream.Collectors;
 @Service
 public class AdvancedRagService {
 
-    private final ChatClient chatClient;
+    private final ChatClient pureChatClient;
+    private final ChatClient memoryChatClient;
     private final VectorStore vectorStore;
-
-    public AdvancedRagService(ChatClient chatClient, VectorStore vectorStore) {
-        this.chatClient = chatClient;
+    private final KeywordIndexService keywordIndexService;
+    private final Reranker reranker;
+    private final ExecutorService searchExecutor;
+    private final AdvancedRagProperties properties;
+    private final Semaphore searchPermits;
+
+    public AdvancedRagService(@Qualifier(ChatClientProfiles.PURE) ChatClient pureChatClient,
+                              @Qualifier(ChatClientProfiles.MEMORY) ChatClient memoryChatClient,
+                              VectorStore vectorStore, KeywordIndexService keywordIndexService,
+                              Reranker reranker,
+                              @Qualifier("ragSearchExecutor") ExecutorService searchExecutor,
+                              AdvancedRagProperties properties) {
+        this.pureChatClient = pureChatClient;
+        this.memoryChatClient = memoryChatClient;
         this.vectorStore = vectorStore;
+        this.keywordIndexService = keywordIndexService;
+        this.reranker = reranker;
+        this.searchExecutor = searchExecutor;
+        this.properties = properties;
+        this.searchPermits = new Semaphore(properties.getMultiQuery().getMaxConcurrency());
     }
 
     /**
      * 带 Re-ranking 的 RAG 搜索
-     * 先进行向量搜索，然后使用 LLM 对结果进行重新排序
+     * 先进行向量搜索，然后使用 {@link Reranker} 对结果进行重新排序
      *
      * @param query 查询文本
      * @param topK  初始检索数量
@@ -53,48 +84,17 @@ public class AdvancedRagService {
             return new ArrayList<>();
         }
 
-        // 第二步：使用 LLM 对结果进行重新排序
-        StringBuilder candidatesText = new StringBuilder();
-        for (int i = 0; i < candidates.size(); i++) {
-            candidatesText.append(i + 1)
-                    .append(". ")
-                    .append(candidates.get(i).getFormattedContent())
-                    .append("\n");
-        }
-
-        String rerankPrompt = String.format("""
-                根据以下查询，对以下文档进行相关性排序：
-                
-                查询: %s
-                
-                文档列表:
-                %s
-                
-                请返回最相关的 %d 个文档的序号（用逗号分隔），按相关性从高到低排序。
-                只返回数字，不要有其他文字。
-                """, query, candidatesText, topN);
-
-        String rerankResult = chatClient.prompt()
-                .user(rerankPrompt)
-                .call()
-                .content();
-
-        // 解析排序结果
-        List<Integer> indices = parseIndices(rerankResult, topN);
-        List<Document> reranked = new ArrayList<>();
-        for (Integer index : indices) {
-            if (index > 0 && index <= candidates.size()) {
-                reranked.add(candidates.get(index - 1));
-            }
-        }
+        // 第二步：对候选结果重新排序
+        List<Document> reranked = reranker.rerank(query, candidates, topN);
 
         log.info("Re-ranking 完成，返回 {} 个结果", reranked.size());
         return reranked;
     }
 
     /**
-     * 混合搜索（向量搜索 + 关键词搜索）
-     * 结合语义相似度和关键词匹配
+     * 混合搜索（向量搜索 + BM25 关键词搜索）
+     * 两路独立检索后按得分融合，关键词检索可以召回向量检索遗漏的文档
+     * 向量得分使用 pgvector 返回的相似度
      *
      * @param query     查询文本
      * @param topK      返回结果数量
@@ -112,36 +112,14 @@ public class AdvancedRagService {
                         .build()
         );
 
-        // 关键词搜索（简单实现：基于内容包含关键词）
-        List<Document> keywordResults = vectorResults.stream()
-                .filter(doc -> containsKeywords(doc.getFormattedContent(), extractKeywords(query)))
-                .collect(Collectors.toList());
+        // BM25 关键词搜索
+        List<Bm25Index.Hit> keywordHits = keywordIndexService.search(query, topK * 2);
 
-        // 合并和评分
-        Map<String, Document> docMap = vectorResults.stream()
-                .collect(Collectors.toMap(
-                        doc -> doc.getId(),
-                        doc -> doc,
-                        (d1, d2) -> d1
-                ));
+        // 单遍融合两路得分并取 top-K
+        List<Document> results = HybridScoreFusion.fuse(vectorResults, keywordHits, keywordWeight, topK);
 
-        // 计算综合得分
-        List<ScoredDocument> scoredDocs = docMap.values().stream()
-                .map(doc -> {
-                    double vectorScore = calculateVectorScore(doc, vectorResults);
-                    double keywordScore = keywordResults.contains(doc) ? 1.0 : 0.0;
-                    double combinedScore = (1 - keywordWeight) * vectorScore + keywordWeight * keywordScore;
-                    return new ScoredDocument(doc, combinedScore);
-                })
-                .sorted(Comparator.comparing(ScoredDocument::score).reversed())
-                .limit(topK)
-                .collect(Collectors.toList());
-
-        List<Document> results = scoredDocs.stream()
-                .map(ScoredDocument::document)
-                .collect(Collectors.toList());
-
-        log.info("混合搜索完成，返回 {} 个结果", results.size());
+        log.info("混合搜索完成，向量候选 {} 个，关键词候选 {} 个，返回 {} 个结果",
+                vectorResults.size(), keywordHits.size(), results.size());
         return results;
     }
 
@@ -164,7 +142,8 @@ public class AdvancedRagService {
                 请返回3个查询，每行一个，不要编号。
                 """, query);
 
-        String queriesText = chatClient.prompt()
+        // 查询改写不需要知识库上下文和会话历史
+        String queriesText = pureChatClient.prompt()
                 .user(queryGenerationPrompt)
                 .call()
                 .content();
@@ -179,22 +158,12 @@ public class AdvancedRagService {
             }
         }
 
-        // 对每个查询进行搜索
-        Map<String, Document> resultMap = new java.util.HashMap<>();
-        for (String q : queryList) {
-            List<Document> docs = vectorStore.similaritySearch(
-                    SearchRequest.builder()
-                            .query(q)
-                            .topK(topK)
-                            .build()
-            );
-            for (Document doc : docs) {
-                resultMap.put(doc.getId(), doc);
-            }
-        }
+        // 并发检索所有查询，超时的查询不影响其余结果
+        List<List<Document>> rankedLists = searchConcurrently(queryList, topK);
 
-        List<Document> results = new ArrayList<>(resultMap.values());
-        log.info("多查询 RAG 完成，返回 {} 个结果", results.size());
+        // 按 Reciprocal Rank Fusion 合并并按文档 ID 去重
+        List<Document> results = reciprocalRankFusion(rankedLists, properties.getMultiQuery().getRrfK());
+        log.info("多查询 RAG 完成，{} 个查询成功，返回 {} 个结果", rankedLists.size(), results.size());
         return results;
     }
 
@@ -204,8 +173,8 @@ public class AdvancedRagService {
      * @param query 用户查询
      * @return AI 回答
      */
-    public String chatWithAdvancedRag(String query) {
-        log.info("高级 RAG 聊天: {}", query);
+    public String chatWithAdvancedRag(String query, String conversationId) {
+        log.info("高级 RAG 聊天: conversationId={}, query={}", conversationId, query);
 
         // 使用 Re-ranking 搜索
         List<Document> documents = searchWithReranking(query, 10, 5);
@@ -216,7 +185,9 @@ public class AdvancedRagService {
             context.append(doc.getFormattedContent()).append("\n\n");
         }
 
-        String response = chatClient.prompt()
+        // 上下文已在上面自行检索，不再经过 QuestionAnswerAdvisor
+        String response = memoryChatClient.prompt()
+                .advisors(a -> ConversationIds.apply(a, conversationId))
                 .user("基于以下上下文回答问题：\n\n" + context + "\n\n问题：" + query)
                 .call()
                 .content();
@@ -226,42 +197,84 @@ public class AdvancedRagService {
 
     // 辅助方法
 
-    private List<Integer> parseIndices(String result, int maxCount) {
-        List<Integer> indices = new ArrayList<>();
-        String[] parts = result.trim().split("[,\\s]+");
-        for (String part : parts) {
-            try {
-                int index = Integer.parseInt(part.trim());
-                if (index > 0 && indices.size() < maxCount) {
-                    indices.add(index);
+    /**
+     * 在虚拟线程上并发执行向量检索
+     * 每个查询在拿到检索许可后各自计时，排队等待许可的时间不计入超时；
+     * 超时或失败的查询被丢弃，返回成功查询的结果（部分结果语义），顺序与查询一致
+     */
+    List<List<Document>> searchConcurrently(List<String> queries, int topK) {
+        Duration timeout = properties.getMultiQuery().getSearchTimeout();
+        List<Future<List<Document>>> futures = queries.stream()
+                .map(q -> searchExecutor.submit(() -> searchWithTimeout(q, topK, timeout)))
+                .toList();
+
+        List<List<Document>> rankedLists = new ArrayList<>(futures.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    rankedLists.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof TimeoutException) {
+                        log.warn("查询检索超时，已丢弃: {}", queries.get(i));
+                    } else {
+                        log.warn("查询检索失败，已丢弃: {}, 原因: {}", queries.get(i), e.getCause().getMessage());
+                    }
                 }
-            } catch (NumberFormatException e) {
-                // 忽略无效的数字
             }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("多查询检索被中断", e);
         }
-        return indices;
+        return rankedLists;
     }
 
-    private boolean containsKeywords(String content, List<String> keywords) {
-        String lowerContent = content.toLowerCase();
-        return keywords.stream()
-                .anyMatch(keyword -> lowerContent.contains(keyword.toLowerCase()));
-    }
-
-    private List<String> extractKeywords(String query) {
-        // 简单的关键词提取（可以改进）
-        return List.of(query.split("\\s+"));
-    }
-
-    private double calculateVectorScore(Document doc, List<Document> results) {
-        int index = results.indexOf(doc);
-        if (index == -1) {
-            return 0.0;
+    /**
+     * 获取许可后执行单个检索并等待至多 timeout
+     * 许可在检索真正结束时才释放，超时被取消但仍未返回的检索继续占用许可，避免并发数超过上限
+     */
+    private List<Document> searchWithTimeout(String query, int topK, Duration timeout) throws Exception {
+        searchPermits.acquire();
+        Future<List<Document>> search;
+        try {
+            search = searchExecutor.submit(() -> {
+                try {
+                    return vectorStore.similaritySearch(SearchRequest.builder()
+                            .query(query)
+                            .topK(topK)
+                            .build());
+                } finally {
+                    searchPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            searchPermits.release();
+            throw e;
+        }
+        try {
+            return search.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            search.cancel(true);
+            throw e;
         }
-        // 简单的评分：位置越靠前，分数越高
-        return 1.0 - (index * 0.1);
     }
 
-    private record ScoredDocument(Document document, double score) {
+    /**
+     * Reciprocal Rank Fusion：score(d) = Σ 1 / (k + rank)，rank 从 1 开始
+     */
+    static List<Document> reciprocalRankFusion(List<List<Document>> rankedLists, int k) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (List<Document> ranked : rankedLists) {
+            for (int rank = 0; rank < ranked.size(); rank++) {
+                Document doc = ranked.get(rank);
+                documents.putIfAbsent(doc.getId(), doc);
+                scores.merge(doc.getId(), 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .map(entry -> documents.get(entry.getKey()))
+                .collect(Collectors.toList());
     }
 }
@@ -1,17 +1,29 @@
 package io.zhijun.spring.ai.service;
 
+import io.zhijun.spring.ai.ingestion.ChunkIds;
+import io.zhijun.spring.ai.ingestion.IngestionPipeline;
+import io.zhijun.spring.ai.ingestion.IngestionProgress;
+import io.zhijun.spring.ai.ingestion.RestaurantMetadataExtractor;
+import io.zhijun.spring.ai.ingestion.VectorWriter;
+import io.zhijun.spring.ai.vector.TunableVectorSearch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
 import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 文档加载服务
@@ -22,38 +34,73 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DocumentService {
 
-    private final VectorStore vectorStore;
     private final ResourceLoader resourceLoader;
+    private final KeywordIndexService keywordIndexService;
+    private final IngestionPipeline ingestionPipeline;
+    private final VectorWriter vectorWriter;
+    private final TunableVectorSearch vectorSearch;
 
     /**
      * 加载文档到向量存储
+     * 片段 ID 由文件名、内容和提取的元数据计算，重复导入时只向量化新增或变化的片段，并删除已不存在的片段
      *
      * @param filePath 文档路径
+     * @return 本次导入的进度快照
      */
-    public void loadDocuments(String filePath) {
+    public IngestionProgress.Snapshot loadDocuments(String filePath) {
         log.info("开始加载文档: {}", filePath);
 
         // 加载文档
         Resource resource = resourceLoader.getResource(filePath);
+        String filename = resource.getFilename();
         MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.builder()
                 .withHorizontalRuleCreateDocument(true)
                 .withIncludeCodeBlock(false)
                 .withIncludeBlockquote(false)
-                .withAdditionalMetadata("filename", resource.getFilename())
+                .withAdditionalMetadata("filename", filename)
                 .build();
         MarkdownDocumentReader reader = new MarkdownDocumentReader(resource, config);
-        List<Document> documents = reader.get();
+        // 提取城市、菜系、人均价格等结构化元数据，检索时按元数据预过滤
+        List<Document> documents = new RestaurantMetadataExtractor(readText(resource)).apply(reader.get());
         log.info("成功加载 {} 个文档", documents.size());
 
-        // 分割文档
-        TokenTextSplitter splitter = new TokenTextSplitter();
-        List<Document> splitDocuments = splitter.apply(documents);
-        log.info("文档分割完成，共 {} 个片段", splitDocuments.size());
+        // 已导入的片段
+        Set<String> existingIds = vectorWriter.findIdsBySource(filename);
+        Set<String> currentIds = new HashSet<>();
 
-        // 存储到向量数据库
-        vectorStore.add(splitDocuments);
+        // 分割、向量化并写入向量数据库，跳过内容未变化的片段
+        List<Document> written = Collections.synchronizedList(new ArrayList<>());
+        IngestionProgress.Run run = ingestionPipeline.run(filename, documents, new TokenTextSplitter(), chunk -> {
+            String id = ChunkIds.contentId(filename, chunk.getText(),
+                    RestaurantMetadataExtractor.extracted(chunk.getMetadata()));
+            if (!currentIds.add(id) || existingIds.contains(id)) {
+                return null;
+            }
+            return chunk.mutate().id(id).build();
+        }, written::addAll);
 
-        log.info("成功加载 {} 个文档片段到向量存储", splitDocuments.size());
+        // 删除本次导入中已不存在的片段
+        Set<String> staleIds = new HashSet<>(existingIds);
+        staleIds.removeAll(currentIds);
+        vectorWriter.delete(staleIds);
+        run.deleted(staleIds.size());
+
+        // 同步更新关键词索引
+        keywordIndexService.update(written, staleIds);
+
+        // 大量写入和删除后 HNSW 图质量下降，累计达到阈值时在线重建
+        vectorSearch.recordChanges(run.writtenCount() + staleIds.size());
+
+        log.info("文档加载完成: 新增/变化 {} 个片段，未变化 {} 个片段，删除 {} 个片段",
+                run.writtenCount(), currentIds.size() - run.writtenCount(), staleIds.size());
+        return run.snapshot();
     }
 
+    private static String readText(Resource resource) {
+        try {
+            return resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文档失败: " + resource.getFilename(), e);
+        }
+    }
 }
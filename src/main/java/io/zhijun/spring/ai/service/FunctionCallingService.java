@@ -1,19 +1,25 @@
 package io.zhijun.spring.ai.service;
 
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.memory.ConversationIds;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.ai.tool.function.FunctionToolCallback;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.function.Function;
 
 /**
  * Function Calling 服务
  * 演示如何使用 Spring AI 的 Function Calling 功能
  * 让 AI 可以调用外部工具和函数来获取实时数据
- * 
- * 注意：在 Spring AI 1.1.2 中，Function Calling/Tool Calling 功能
- * 需要特定的模型支持（如 GPT-4, Claude）和正确的配置。
- * 如果当前模型不支持，将降级到普通聊天模式。
+ * 天气、营业时间、距离三个函数注册为工具回调，由模型决定调用哪些；
+ * 同一轮请求的多个工具由 {@link io.zhijun.spring.ai.tool.ParallelToolCallingManager} 并发执行。
+ * 使用不带语义缓存的记忆配置档，工具返回的是实时数据，不能用缓存的回答代替
  */
 @Slf4j
 @Service
@@ -21,10 +27,25 @@ public class FunctionCallingService {
 
     private final ChatClient.Builder chatClientBuilder;
     private final ChatClient chatClient;
+    private final List<ToolCallback> tools;
 
-    public FunctionCallingService(ChatClient.Builder chatClientBuilder, ChatClient chatClient) {
+    public FunctionCallingService(ChatClient.Builder chatClientBuilder,
+                                  @Qualifier(ChatClientProfiles.MEMORY) ChatClient chatClient) {
         this.chatClientBuilder = chatClientBuilder;
         this.chatClient = chatClient;
+        this.tools = List.of(
+                FunctionToolCallback.builder("getWeather", getWeatherFunction())
+                        .description("查询城市当前的天气和温度，并给出是否适合户外用餐的建议")
+                        .inputType(WeatherRequest.class)
+                        .build(),
+                FunctionToolCallback.builder("getRestaurantHours", getRestaurantHoursFunction())
+                        .description("查询餐厅的营业时间以及当前是否营业")
+                        .inputType(RestaurantHoursRequest.class)
+                        .build(),
+                FunctionToolCallback.builder("calculateDistance", calculateDistanceFunction())
+                        .description("计算两个地点之间的距离（公里）和预计通行时间（分钟）")
+                        .inputType(DistanceRequest.class)
+                        .build());
     }
 
     /**
@@ -76,55 +97,27 @@ public class FunctionCallingService {
     }
 
     /**
-     * 使用提示词增强方式模拟 Function Calling 进行智能对话
-     * 
-     * 注意：当前实现为简化版本，使用提示词增强而非真正的 Function Calling。
-     * AI 会根据提示词提供相关信息（如天气、营业时间、距离等），但不会真正调用外部函数。
-     * 
-     * 在 Spring AI 1.1.2 中，完整的 Function Calling/Tool Calling 功能需要：
-     * 1. 模型支持 Tool Calling（如 GPT-4, Claude）
-     * 2. 正确配置 Tool Callbacks（参考 Spring AI 文档）
-     * 3. 使用 FunctionToolCallback 或 MethodToolCallback 注册工具
-     * 
-     * 如果模型不支持 Tool Calling，当前实现会自动降级到提示词增强模式。
-     * 
-     * @param userMessage 用户消息
-     * @return AI 回答（包含基于提示词的相关信息）
+     * 使用 Function Calling 进行智能对话
+     * 模型需要天气、营业时间或距离时请求调用对应工具，工具结果回传后再生成回答
+     *
+     * @param userMessage    用户消息
+     * @param conversationId 会话 ID
+     * @return AI 回答
      */
-    public String chatWithFunctions(String userMessage) {
+    public String chatWithFunctions(String userMessage, String conversationId) {
         log.info("Function Calling 聊天: {}", userMessage);
-        log.warn("注意：Function Calling 需要模型支持 Tool Calling。当前使用普通聊天模式。");
-
-        // 当前实现：使用普通聊天模式
-        // 在实际项目中，如果模型支持 Tool Calling，应该使用以下方式：
-        // 1. 创建 FunctionToolCallback 实例
-        // 2. 使用 chatClientBuilder.defaultTools(...) 注册工具
-        // 3. 使用配置了工具的 ChatClient 进行对话
-        
-        // 这里我们使用提示词来模拟函数调用的效果
-        String enhancedPrompt = String.format("""
-                用户问题: %s
-                
-                在回答时，如果需要以下信息，请基于常识提供：
-                - 天气信息：如果用户询问天气，提供一般性建议
-                - 餐厅营业时间：通常为 09:00-22:00
-                - 距离计算：基于地理位置的一般估算
-                
-                请提供有用的回答。
-                """, userMessage);
-
-        String response = chatClient.prompt()
-                .user(enhancedPrompt)
+        return chatClient.prompt()
+                .advisors(a -> ConversationIds.apply(a, conversationId))
+                .toolCallbacks(tools)
+                .user(userMessage)
                 .call()
                 .content();
-
-        return response;
     }
 
     /**
      * 天气请求记录
      */
-    public record WeatherRequest(String location) {
+    public record WeatherRequest(@ToolParam(description = "城市或地点名称") String location) {
     }
 
     /**
@@ -136,7 +129,7 @@ public class FunctionCallingService {
     /**
      * 餐厅营业时间请求记录
      */
-    public record RestaurantHoursRequest(String restaurantName) {
+    public record RestaurantHoursRequest(@ToolParam(description = "餐厅名称") String restaurantName) {
     }
 
     /**
@@ -148,7 +141,8 @@ public class FunctionCallingService {
     /**
      * 距离计算请求记录
      */
-    public record DistanceRequest(String from, String to) {
+    public record DistanceRequest(@ToolParam(description = "出发地点") String from,
+                                  @ToolParam(description = "目的地点") String to) {
     }
 
     /**
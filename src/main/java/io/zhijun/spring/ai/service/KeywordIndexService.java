@@ -0,0 +1,98 @@
+package io.zhijun.spring.ai.service;
+
+import io.zhijun.spring.ai.config.AdvancedRagProperties;
+import io.zhijun.spring.ai.ingestion.VectorWriter;
+import io.zhijun.spring.ai.search.Bm25Index;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 关键词索引服务
+ * 维护与向量存储同步的 BM25 倒排索引，供混合搜索的关键词检索使用。
+ * 索引只保存片段 ID、长度和倒排表，导入时按变更的片段增量更新；命中的片段正文按 ID 从向量存储读取
+ */
+@Slf4j
+@Service
+public class KeywordIndexService {
+
+    private final VectorWriter vectorWriter;
+    private final Bm25Index index;
+
+    public KeywordIndexService(VectorWriter vectorWriter, AdvancedRagProperties properties) {
+        this.vectorWriter = vectorWriter;
+        AdvancedRagProperties.Hybrid config = properties.getHybrid();
+        this.index = new Bm25Index(config.getBm25K1(), config.getBm25B());
+    }
+
+    /**
+     * 应用启动后从向量存储加载已有文档，构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromVectorStore() {
+        try {
+            List<Document> existing = vectorWriter.loadAll();
+            addDocuments(existing);
+            log.info("关键词索引初始化完成，共 {} 个文档片段", existing.size());
+        } catch (Exception e) {
+            log.warn("关键词索引初始化失败，索引为空: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将文档片段加入索引
+     */
+    public void addDocuments(Collection<Document> newDocuments) {
+        update(newDocuments, List.of());
+    }
+
+    /**
+     * 从索引中移除文档片段
+     */
+    public void removeDocuments(Collection<String> ids) {
+        update(List.of(), ids);
+    }
+
+    /**
+     * 同时加入和移除文档片段，只对变更的片段分词
+     */
+    public void update(Collection<Document> newDocuments, Collection<String> removedIds) {
+        index.update(newDocuments, removedIds);
+        log.debug("关键词索引已更新: 加入 {} 个、移除 {} 个片段，共 {} 个片段, {} 个词项",
+                newDocuments.size(), removedIds.size(), index.size(), index.termCount());
+    }
+
+    /**
+     * BM25 检索
+     *
+     * @param query 查询文本
+     * @param topK  返回数量
+     * @return 按得分降序排列的结果，检索后已被删除的片段不返回
+     */
+    public List<Bm25Index.Hit> search(String query, int topK) {
+        List<Bm25Index.Match> matches = index.search(query, topK);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Document> documents = new HashMap<>();
+        for (Document document : vectorWriter.findByIds(matches.stream().map(Bm25Index.Match::id).toList())) {
+            documents.put(document.getId(), document);
+        }
+        List<Bm25Index.Hit> hits = new ArrayList<>(matches.size());
+        for (Bm25Index.Match match : matches) {
+            Document document = documents.get(match.id());
+            if (document != null) {
+                hits.add(new Bm25Index.Hit(document, match.score()));
+            }
+        }
+        return hits;
+    }
+}
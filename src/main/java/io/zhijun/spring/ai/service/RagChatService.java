@@ -1,5 +1,10 @@
 package io.zhijun.spring.ai.service;
 
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.memory.ConversationIds;
+import io.zhijun.spring.ai.vector.MetadataFilters;
+import io.zhijun.spring.ai.vector.SearchTuning;
+import io.zhijun.spring.ai.vector.TunableVectorSearch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -7,6 +12,8 @@ import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvi
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,25 +30,30 @@ public class RagChatService {
 
     private final ChatClient chatClient;
     private final VectorStore vectorStore;
+    private final TunableVectorSearch vectorSearch;
 
-    public RagChatService(ChatClient chatClient, VectorStore vectorStore) {
+    public RagChatService(@Qualifier(ChatClientProfiles.RAG_MEMORY) ChatClient chatClient, VectorStore vectorStore,
+                          TunableVectorSearch vectorSearch) {
         this.chatClient = chatClient;
         this.vectorStore = vectorStore;
+        this.vectorSearch = vectorSearch;
     }
 
     /**
      * 基于 RAG 的聊天对话
      * 使用 Spring AI QuestionAnswerAdvisor 实现
      *
-     * @param userMessage 用户消息
+     * @param userMessage    用户消息
+     * @param conversationId 会话 ID
      * @return AI 回答
      */
-    public String chatWithRag(String userMessage) {
-        log.info("开始 RAG 聊天处理: {}", userMessage);
+    public String chatWithRag(String userMessage, String conversationId) {
+        log.info("开始 RAG 聊天处理: conversationId={}, message={}", conversationId, userMessage);
 
         try {
             // 使用 Advisor 进行 RAG 聊天
             String response = chatClient.prompt()
+                    .advisors(a -> ConversationIds.apply(a, conversationId))
                     .user(userMessage)
                     .call()
                     .content();
@@ -64,15 +76,29 @@ public class RagChatService {
      * @return 检索结果
      */
     public List<Document> searchSimilar(String query, int topK) {
-        log.info("执行向量相似性搜索: {}, topK: {}", query, topK);
+        return searchSimilar(query, topK, SearchTuning.defaults());
+    }
+
+    /**
+     * 向量相似性搜索，可按请求调整索引参数
+     * 未指定参数时走默认检索路径（参与请求合并）；指定时在单独的事务中设置 ef_search / probes 后检索
+     *
+     * @param query  查询文本
+     * @param topK   返回结果数量
+     * @param tuning 索引参数，提高 efSearch 换取更高召回
+     * @return 检索结果
+     */
+    public List<Document> searchSimilar(String query, int topK, SearchTuning tuning) {
+        log.info("执行向量相似性搜索: {}, topK: {}, tuning: {}", query, topK, tuning);
 
         try {
-            List<Document> results = vectorStore.similaritySearch(
-                    SearchRequest.builder()
-                            .query(query)
-                            .topK(topK)
-                            .build()
-            );
+            SearchRequest request = SearchRequest.builder()
+                    .query(query)
+                    .topK(topK)
+                    .build();
+            List<Document> results = tuning.equals(SearchTuning.defaults())
+                    ? vectorStore.similaritySearch(request)
+                    : vectorSearch.search(request, tuning);
 
             log.info("向量相似性搜索完成，返回 {} 个结果", results.size());
             return results;
@@ -88,28 +114,25 @@ public class RagChatService {
      * 基于用户偏好和历史记录的个性化推荐
      *
      * @param userMessage     用户消息
-     * @param userPreferences 用户偏好
+     * @param userPreferences 用户偏好，支持 city、cuisine、dish 和 priceRange
+     * @param conversationId  会话 ID
      * @return AI 回答
      */
-    public String chatWithPersonalizedRag(String userMessage, Map<String, Object> userPreferences) {
+    public String chatWithPersonalizedRag(String userMessage, Map<String, Object> userPreferences,
+                                          String conversationId) {
         log.info("开始个性化 RAG 聊天: {}, 偏好: {}", userMessage, userPreferences);
 
+        // 偏好转换为元数据过滤条件，在 GIN 索引上预过滤后再做向量检索；取值不合法时抛出 IllegalArgumentException
+        Filter.Expression filter = MetadataFilters.personalized(userPreferences);
+
         try {
-            // 构建个性化过滤条件
-            StringBuilder filterExpression = new StringBuilder();
-            if (userPreferences.containsKey("city")) {
-                filterExpression.append("content LIKE '%").append(userPreferences.get("city")).append("%'");
-            }
-            if (userPreferences.containsKey("priceRange")) {
-                if (filterExpression.length() > 0) {
-                    filterExpression.append(" AND ");
-                }
-                filterExpression.append("content LIKE '%").append(userPreferences.get("priceRange")).append("%'");
-            }
-
-            // 使用个性化过滤器
             String response = chatClient.prompt()
-                    .advisors(a -> a.param(QuestionAnswerAdvisor.FILTER_EXPRESSION, filterExpression.toString()))
+                    .advisors(a -> {
+                        ConversationIds.apply(a, conversationId);
+                        if (filter != null) {
+                            a.param(QuestionAnswerAdvisor.FILTER_EXPRESSION, MetadataFilters.toText(filter));
+                        }
+                    })
                     .user(userMessage)
                     .call()
                     .content();
@@ -0,0 +1,58 @@
+package io.zhijun.spring.ai.service;
+
+import io.zhijun.spring.ai.model.RecommendationRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 规范化的推荐请求
+ * 填充默认值、去除首尾空白并统一为小写，列表去重排序；字段相同的请求得到相等的键，用作推荐缓存的键和生成提示词的参数
+ */
+public record RecommendationKey(String location, String cuisine, String priceRange, List<String> dietaryRestrictions,
+                                String occasion, String groupSize, String timeOfDay, List<String> preferences) {
+
+    static final String ANY = "不限";
+    static final String NONE = "无";
+
+    public static RecommendationKey of(RecommendationRequest request) {
+        return new RecommendationKey(
+                normalize(request.getLocation(), "北京市"),
+                normalize(request.getCuisine(), ANY),
+                normalize(request.getPriceRange(), ANY),
+                normalize(request.getDietaryRestrictions()),
+                normalize(request.getOccasion(), "日常用餐"),
+                request.getGroupSize() != null ? request.getGroupSize().toString() : "1-2人",
+                normalize(request.getTimeOfDay(), "午餐"),
+                normalize(request.getPreferences()));
+    }
+
+    /**
+     * 列表字段的提示词文本
+     */
+    static String join(List<String> values) {
+        return values.isEmpty() ? NONE : String.join(", ", values);
+    }
+
+    private static String normalize(String value, String defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> normalize(Collection<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .filter(value -> !value.isEmpty() && !value.equals(NONE))
+                .distinct()
+                .sorted()
+                .toList();
+    }
+}
@@ -0,0 +1,300 @@
+package io.zhijun.spring.ai.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zhijun.spring.ai.cache.MemoCache;
+import io.zhijun.spring.ai.catalog.RestaurantCatalog;
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.config.RecommendationCacheProperties;
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.RecommendationRequest;
+import io.zhijun.spring.ai.model.Restaurant;
+import io.zhijun.spring.ai.output.StructuredOutputPipeline;
+import io.zhijun.spring.ai.streaming.JsonArrayStreamParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * 餐厅目录服务
+ * 推荐和菜品先查目录，目录中没有足够的数据时才调用模型生成，生成的结果写回目录并由目录分配 ID，
+ * 相同的请求之后直接命中内存
+ * <p>
+ * 推荐结果另按规范化的请求缓存，偏好完全相同的并发请求只执行一次；模型输出经过 {@link StructuredOutputPipeline} 修复和校验
+ * <p>
+ * 流式方法边生成边解析，每个对象闭合后立即写回目录并发出，不必等整个列表生成完毕
+ */
+@Slf4j
+@Service
+public class RestaurantCatalogService {
+
+    /**
+     * 每次推荐的餐厅数
+     */
+    public static final int RECOMMEND_COUNT = 5;
+
+    private static final PromptTemplate RECOMMEND_TEMPLATE = new PromptTemplate("""
+            根据以下用户偏好推荐{count}家合适的餐厅：
+            位置: {location}
+            菜系: {cuisine}
+            价格范围: {priceRange}
+            饮食限制: {dietaryRestrictions}
+            场合: {occasion}
+            人数: {groupSize}
+            用餐时间: {timeOfDay}
+            其他偏好: {preferences}
+            
+            请返回餐厅列表，包含餐厅名称、菜系、位置、评分、描述、价格范围和特色，按照评分从高到低排序。
+            菜系和价格范围不为“不限”时原样填写，位置以用户给出的位置开头。
+            不要包含任何解释性文字，只返回JSON格式的餐厅数据。
+            """);
+
+    private static final PromptTemplate DISHES_TEMPLATE = new PromptTemplate("""
+            为{cuisine}菜系生成{count}道特色菜品，包含以下信息：
+            - 菜品名称
+            - 详细描述
+            - 主要食材
+            - 价格范围
+            - 菜品分类（开胃菜/主菜/甜点等）
+            - 饮食信息（素食/无麸质/低卡等）
+            - 卡路里
+            - 制作时间
+            - 难度等级
+            
+            不要与以下已有菜品重复：{existing}
+            请返回JSON格式的菜品数据，不要包含解释性文字。
+            """);
+
+    /**
+     * 流式调用不经过 .entity()，需要自己附加输出格式说明
+     */
+    private static final String RESTAURANT_LIST_FORMAT =
+            new BeanOutputConverter<>(new ParameterizedTypeReference<List<Restaurant>>() {
+            }).getFormat();
+
+    private static final String DISH_LIST_FORMAT =
+            new BeanOutputConverter<>(new ParameterizedTypeReference<List<Dish>>() {
+            }).getFormat();
+
+    private final ChatClient pureChatClient;
+    private final ChatClient ragChatClient;
+    private final RestaurantCatalog catalog;
+    private final StructuredOutputPipeline outputPipeline;
+    private final MemoCache<RecommendationKey, List<Restaurant>> recommendations;
+
+    public RestaurantCatalogService(@Qualifier(ChatClientProfiles.PURE) ChatClient pureChatClient,
+                                    @Qualifier(ChatClientProfiles.RAG) ChatClient ragChatClient,
+                                    RestaurantCatalog catalog,
+                                    StructuredOutputPipeline outputPipeline,
+                                    RecommendationCacheProperties cacheProperties,
+                                    MeterRegistry meterRegistry) {
+        this.pureChatClient = pureChatClient;
+        this.ragChatClient = ragChatClient;
+        this.catalog = catalog;
+        this.outputPipeline = outputPipeline;
+        this.recommendations = cacheProperties.isEnabled()
+                ? new MemoCache<>("recommendation", cacheProperties.getTtl(), cacheProperties.getMaxEntries(),
+                meterRegistry)
+                : null;
+    }
+
+    /**
+     * 根据用户偏好推荐餐厅
+     * 结果按规范化的请求缓存；未命中时目录按菜系、位置和价格范围匹配，不足 {@link #RECOMMEND_COUNT} 家时调用模型生成
+     */
+    public List<Restaurant> recommend(RecommendationRequest request) {
+        RecommendationKey key = RecommendationKey.of(request);
+        if (recommendations == null) {
+            return recommend(key);
+        }
+        return recommendations.get(key, () -> recommend(key));
+    }
+
+    private List<Restaurant> recommend(RecommendationKey key) {
+        // 结果会被缓存并在请求之间共享，使用不可变列表
+        List<Restaurant> cached = List.copyOf(findRestaurants(key));
+        if (cached.size() >= RECOMMEND_COUNT) {
+            return cached;
+        }
+
+        List<Restaurant> generated = outputPipeline.entity(
+                ragChatClient.prompt(RECOMMEND_TEMPLATE.create(recommendVariables(key))),
+                new ParameterizedTypeReference<List<Restaurant>>() {
+                });
+        if (generated == null) {
+            return cached;
+        }
+        return generated.stream()
+                .map(restaurant -> saveGenerated(restaurant, key))
+                .toList();
+    }
+
+    /**
+     * 流式推荐餐厅
+     * 缓存或目录命中时直接发出；否则流式生成，每解析出一家餐厅就写回目录并发出，全部完成后写入推荐缓存
+     */
+    public Flux<Restaurant> streamRecommend(RecommendationRequest request) {
+        RecommendationKey key = RecommendationKey.of(request);
+        return Flux.defer(() -> {
+            List<Restaurant> memoized = recommendations == null ? null : recommendations.getIfPresent(key);
+            if (memoized != null) {
+                return Flux.fromIterable(memoized);
+            }
+            List<Restaurant> cached = findRestaurants(key);
+            if (cached.size() >= RECOMMEND_COUNT) {
+                remember(key, cached);
+                return Flux.fromIterable(cached);
+            }
+
+            String prompt = RECOMMEND_TEMPLATE.render(recommendVariables(key)) + RESTAURANT_LIST_FORMAT;
+            Flux<String> chunks = ragChatClient.prompt().user(prompt).stream().content();
+            ConcurrentLinkedQueue<Restaurant> emitted = new ConcurrentLinkedQueue<>();
+            return JsonArrayStreamParser.parse(chunks, Restaurant.class)
+                    .take(RECOMMEND_COUNT)
+                    // 上游在 HTTP 客户端线程上发出，写回目录是阻塞调用
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(restaurant -> saveGenerated(restaurant, key))
+                    .doOnNext(emitted::add)
+                    .doOnComplete(() -> remember(key, List.copyOf(emitted)));
+        });
+    }
+
+    private List<Restaurant> findRestaurants(RecommendationKey key) {
+        String cuisine = criterion(key.cuisine());
+        String location = criterion(key.location());
+        String priceRange = criterion(key.priceRange());
+        List<Restaurant> cached = catalog.findRestaurants(cuisine, location, priceRange, RECOMMEND_COUNT);
+        if (cached.size() < RECOMMEND_COUNT) {
+            log.info("目录中匹配的餐厅不足 ({}/{}), 调用模型生成: cuisine={}, location={}, priceRange={}",
+                    cached.size(), RECOMMEND_COUNT, cuisine, location, priceRange);
+        }
+        return cached;
+    }
+
+    private static Map<String, Object> recommendVariables(RecommendationKey key) {
+        return Map.of(
+                "count", RECOMMEND_COUNT,
+                "location", key.location(),
+                "cuisine", key.cuisine(),
+                "priceRange", key.priceRange(),
+                "dietaryRestrictions", RecommendationKey.join(key.dietaryRestrictions()),
+                "occasion", key.occasion(),
+                "groupSize", key.groupSize(),
+                "timeOfDay", key.timeOfDay(),
+                "preferences", RecommendationKey.join(key.preferences())
+        );
+    }
+
+    private Restaurant saveGenerated(Restaurant restaurant, RecommendationKey key) {
+        // 模型给出的 ID 没有意义，由目录分配
+        restaurant.setId(null);
+        if (restaurant.getCuisine() == null) {
+            restaurant.setCuisine(criterion(key.cuisine()));
+        }
+        if (restaurant.getPriceRange() == null) {
+            restaurant.setPriceRange(criterion(key.priceRange()));
+        }
+        return catalog.saveRestaurant(restaurant);
+    }
+
+    private void remember(RecommendationKey key, List<Restaurant> restaurants) {
+        if (recommendations != null && !restaurants.isEmpty()) {
+            recommendations.put(key, List.copyOf(restaurants));
+        }
+    }
+
+    /**
+     * 获取菜系的特色菜品，目录中不足时生成缺少的部分
+     *
+     * @param cuisine 菜系
+     * @param count   菜品数量
+     */
+    public List<Dish> dishes(String cuisine, int count) {
+        List<Dish> cached = findDishes(cuisine, count);
+        if (cached.size() >= count) {
+            return cached;
+        }
+
+        int missing = count - cached.size();
+        List<Dish> generated = outputPipeline.entity(
+                pureChatClient.prompt(DISHES_TEMPLATE.create(dishVariables(cuisine, missing, cached))),
+                new ParameterizedTypeReference<List<Dish>>() {
+                });
+        if (generated == null || generated.isEmpty()) {
+            return cached;
+        }
+        generated.forEach(dish -> {
+            dish.setId(null);
+            dish.setCuisine(cuisine);
+        });
+        List<Dish> dishes = new ArrayList<>(cached);
+        dishes.addAll(catalog.saveDishes(generated.subList(0, Math.min(missing, generated.size()))));
+        return dishes;
+    }
+
+    /**
+     * 流式获取菜系的特色菜品
+     * 先发出目录中已有的菜品，再流式生成缺少的部分，每解析出一道就写回目录并发出
+     */
+    public Flux<Dish> streamDishes(String cuisine, int count) {
+        return Flux.defer(() -> {
+            List<Dish> cached = findDishes(cuisine, count);
+            if (cached.size() >= count) {
+                return Flux.fromIterable(cached);
+            }
+
+            int missing = count - cached.size();
+            String prompt = DISHES_TEMPLATE.render(dishVariables(cuisine, missing, cached)) + DISH_LIST_FORMAT;
+            Flux<Dish> generated = JsonArrayStreamParser.parse(pureChatClient.prompt().user(prompt).stream().content(),
+                            Dish.class)
+                    .take(missing)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(dish -> {
+                        dish.setId(null);
+                        dish.setCuisine(cuisine);
+                        return catalog.saveDishes(List.of(dish)).getFirst();
+                    });
+            return Flux.concat(Flux.fromIterable(cached), generated);
+        });
+    }
+
+    private List<Dish> findDishes(String cuisine, int count) {
+        List<Dish> cached = catalog.findDishes(cuisine, count);
+        if (cached.size() < count) {
+            log.info("目录中 {} 菜系的菜品不足 ({}/{}), 调用模型生成 {} 道", cuisine, cached.size(), count,
+                    count - cached.size());
+        }
+        return cached;
+    }
+
+    private static Map<String, Object> dishVariables(String cuisine, int missing, List<Dish> cached) {
+        return Map.of(
+                "cuisine", cuisine,
+                "count", missing,
+                "existing", cached.isEmpty() ? "无" : cached.stream().map(Dish::getName).collect(Collectors.joining("、"))
+        );
+    }
+
+    /**
+     * 获取餐厅详细信息，只读取目录，不存在时返回空
+     */
+    public Optional<Restaurant> details(long id) {
+        return catalog.findRestaurant(id);
+    }
+
+    private static String criterion(String value) {
+        return value.equals(RecommendationKey.ANY) ? null : value;
+    }
+}
@@ -1,10 +1,14 @@
 package io.zhijun.spring.ai.service;
 
+import io.zhijun.spring.ai.config.ChatClientProfiles;
+import io.zhijun.spring.ai.sentiment.SentimentBatchEngine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -17,9 +21,12 @@ import java.util.Map;
 public class SentimentAnalysisService {
 
     private final ChatClient chatClient;
+    private final SentimentBatchEngine batchEngine;
 
-    public SentimentAnalysisService(ChatClient chatClient) {
+    public SentimentAnalysisService(@Qualifier(ChatClientProfiles.PURE) ChatClient chatClient,
+                                    SentimentBatchEngine batchEngine) {
         this.chatClient = chatClient;
+        this.batchEngine = batchEngine;
     }
 
     /**
@@ -56,41 +63,33 @@ public class SentimentAnalysisService {
 
     /**
      * 批量分析评论情感
+     * 评论按 token 预算切分为微批次并行分析，汇总统计在本地计算
      *
      * @param reviews 评论列表
      * @return 情感分析摘要（包含整体情感倾向、统计信息和关键洞察）
      */
     public SentimentSummary batchAnalyzeSentiment(java.util.List<String> reviews) {
         log.info("批量分析评论情感，共 {} 条评论", reviews.size());
-
-        StringBuilder reviewsText = new StringBuilder();
-        for (int i = 0; i < reviews.size(); i++) {
-            reviewsText.append(i + 1).append(". ").append(reviews.get(i)).append("\n");
+        try {
+            SentimentBatchEngine.BatchResult result = batchEngine.analyze(reviews, progress ->
+                    log.debug("批量情感分析进度: {}/{}", progress.completed(), progress.total()));
+            log.info("批量情感分析完成: {}", result.summary());
+            return result.summary();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量情感分析被中断", e);
         }
+    }
 
-        PromptTemplate template = new PromptTemplate("""
-                请分析以下餐厅评论的整体情感倾向：
-                {reviews}
-                
-                返回JSON格式结果：
-                {{
-                  "overallSentiment": "positive/negative/neutral",
-                  "averageScore": 0.0-1.0,
-                  "positiveCount": 0,
-                  "negativeCount": 0,
-                  "neutralCount": 0,
-                  "keyInsights": ["关键洞察1", "关键洞察2"]
-                }}
-                """);
-
-        Prompt prompt = template.create(Map.of("reviews", reviewsText.toString()));
-
-        SentimentSummary summary = chatClient.prompt(prompt)
-                .call()
-                .entity(SentimentSummary.class);
-
-        log.info("批量情感分析完成: {}", summary);
-        return summary;
+    /**
+     * 流式批量分析评论情感，每完成一个微批次推送一次进度，最后一个进度携带汇总
+     *
+     * @param reviews 评论列表
+     * @return 进度流，取消订阅时中止剩余批次
+     */
+    public Flux<SentimentBatchEngine.Progress> streamBatchAnalyzeSentiment(java.util.List<String> reviews) {
+        log.info("流式批量分析评论情感，共 {} 条评论", reviews.size());
+        return batchEngine.analyzeStream(reviews);
     }
 
     /**
@@ -0,0 +1,144 @@
+package io.zhijun.spring.ai.streaming;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量 JSON 数组解析器
+ * 逐段接收模型输出，找到第一个数组后跟踪字符串和嵌套层级，数组中的每个对象一闭合就反序列化并返回，
+ * 不必等整个回答生成完毕
+ * <p>
+ * 数组之前的说明文字和 Markdown 代码块标记会被跳过，{"restaurants": [...]} 这样的外层对象也能识别；
+ * 无法反序列化的元素记录日志后跳过。非线程安全，每次订阅使用一个实例
+ *
+ * @param <T> 元素类型
+ */
+@Slf4j
+public class JsonArrayStreamParser<T> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 数组内的嵌套层级，0 表示数组尚未开始或已经结束
+     */
+    private int depth;
+    private boolean started;
+    private boolean finished;
+    private boolean inString;
+    private boolean escaped;
+    private StringBuilder element;
+    private int skipped;
+
+    public JsonArrayStreamParser(Class<T> type) {
+        this(type, OBJECT_MAPPER);
+    }
+
+    public JsonArrayStreamParser(Class<T> type, ObjectMapper objectMapper) {
+        this.type = type;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 把片段流转换为元素流，每次订阅使用新的解析器
+     */
+    public static <T> Flux<T> parse(Flux<String> chunks, Class<T> type) {
+        return Flux.defer(() -> {
+            JsonArrayStreamParser<T> parser = new JsonArrayStreamParser<>(type);
+            return chunks.concatMapIterable(parser::feed);
+        });
+    }
+
+    /**
+     * 输入一个片段
+     *
+     * @return 本片段中闭合的元素，按出现顺序
+     */
+    public List<T> feed(String chunk) {
+        List<T> completed = new ArrayList<>();
+        if (chunk == null || finished) {
+            return completed;
+        }
+        for (int i = 0; i < chunk.length() && !finished; i++) {
+            char c = chunk.charAt(i);
+            if (!started) {
+                // 数组开始前是说明文字或代码块标记，不跟踪字符串
+                if (c == '[') {
+                    started = true;
+                    depth = 1;
+                }
+                continue;
+            }
+            if (element != null) {
+                element.append(c);
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> {
+                    if (depth == 1 && c == '{') {
+                        element = new StringBuilder().append(c);
+                    }
+                    depth++;
+                }
+                case '}', ']' -> {
+                    depth--;
+                    if (depth == 1 && element != null) {
+                        T value = convert(element.toString());
+                        if (value != null) {
+                            completed.add(value);
+                        }
+                        element = null;
+                    } else if (depth == 0) {
+                        finished = true;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * 数组是否已经闭合
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 无法反序列化而跳过的元素数
+     */
+    public int skipped() {
+        return skipped;
+    }
+
+    private T convert(String json) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            skipped++;
+            log.warn("跳过无法解析的 {} 元素: {}", type.getSimpleName(), e.getOriginalMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package io.zhijun.spring.ai.streaming;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zhijun.spring.ai.config.StreamingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * SSE 流式写出引擎
+ * 每个流由一个虚拟线程拉取上游片段并写出，写得慢时上游按预取数量限流；
+ * 客户端断开、超时或出错时取消上游模型调用，并限制同时进行的流数量
+ */
+@Slf4j
+@Component
+public class SseStreamingEngine {
+
+    private final ExecutorService executor;
+    private final StreamingProperties properties;
+    private final Semaphore permits;
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+
+    public SseStreamingEngine(@Qualifier("streamingExecutor") ExecutorService executor,
+                              StreamingProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getMaxConcurrentStreams());
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("restaurant.ai.streaming.active", activeStreams, AtomicInteger::get)
+                .description("进行中的 SSE 流数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 以 SSE 方式输出上游片段
+     *
+     * @param stream          流名称，用于日志和指标标签
+     * @param content         上游内容流，仅在写出线程上订阅
+     * @param eventName       片段事件名
+     * @param completeMessage 完成事件内容
+     * @return SSE 发射器
+     * @throws ResponseStatusException 并发流已满且在等待时间内没有空闲名额时返回 503
+     */
+    public SseEmitter stream(String stream, Flux<String> content, String eventName, String completeMessage) {
+        acquire(stream);
+        long startNanos = System.nanoTime();
+        activeStreams.incrementAndGet();
+
+        SseEmitter emitter = newEmitter(properties.getTimeout().toMillis());
+        StreamTask task = new StreamTask(stream, content, emitter, eventName, completeMessage, startNanos,
+                RequestContextHolder.getRequestAttributes());
+        emitter.onTimeout(() -> task.cancel("timeout"));
+        emitter.onError(e -> task.cancel("error"));
+        emitter.onCompletion(() -> task.cancel("completion"));
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.finish(Outcome.ERROR);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "流式服务正在关闭", e);
+        }
+        return emitter;
+    }
+
+    /**
+     * 立即返回一个只包含错误事件的 SSE 流，不占用并发名额
+     */
+    public SseEmitter error(String message) {
+        SseEmitter emitter = newEmitter(properties.getTimeout().toMillis());
+        try {
+            emitter.send(SseEmitter.event().name("error").data(message));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * 当前进行中的流数量
+     */
+    public int activeStreams() {
+        return activeStreams.get();
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void acquire(String stream) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(properties.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            Counter.builder("restaurant.ai.streaming.streams")
+                    .tag("stream", stream)
+                    .tag("outcome", "rejected")
+                    .register(meterRegistry)
+                    .increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "当前流式请求过多，请稍后重试");
+        }
+    }
+
+    private enum Outcome {
+        COMPLETED, CANCELLED, ERROR
+    }
+
+    /**
+     * 单个流的写出任务
+     */
+    private class StreamTask implements Runnable {
+
+        private final String stream;
+        private final Flux<String> content;
+        private final SseEmitter emitter;
+        private final String eventName;
+        private final String completeMessage;
+        private final long startNanos;
+        private final RequestAttributes requestAttributes;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Stream<String> chunks;
+        private volatile Thread writer;
+
+        StreamTask(String stream, Flux<String> content, SseEmitter emitter,
+                   String eventName, String completeMessage, long startNanos, RequestAttributes requestAttributes) {
+            this.stream = stream;
+            this.content = content;
+            this.emitter = emitter;
+            this.eventName = eventName;
+            this.completeMessage = completeMessage;
+            this.startNanos = startNanos;
+            this.requestAttributes = requestAttributes;
+        }
+
+        @Override
+        public void run() {
+            writer = Thread.currentThread();
+            // 上游在写出线程上订阅，Advisor 需要通过请求上下文识别调用接口
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            Outcome outcome = Outcome.CANCELLED;
+            try (Stream<String> chunks = content.toStream(properties.getPrefetch())) {
+                this.chunks = chunks;
+                if (cancelled.get()) {
+                    return;
+                }
+                boolean first = true;
+                Iterator<String> iterator = chunks.iterator();
+                while (!cancelled.get() && iterator.hasNext()) {
+                    String chunk = iterator.next();
+                    if (first) {
+                        Timer.builder("restaurant.ai.streaming.ttft")
+                                .description("首个片段写出耗时")
+                                .tag("stream", stream)
+                                .register(meterRegistry)
+                                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                        first = false;
+                    }
+                    emitter.send(SseEmitter.event().name(eventName).data(chunk));
+                }
+                if (!cancelled.get()) {
+                    emitter.send(SseEmitter.event().name("complete").data(completeMessage));
+                    emitter.complete();
+                    outcome = Outcome.COMPLETED;
+                }
+            } catch (IOException e) {
+                // 客户端已断开
+                log.debug("SSE 流 {} 写出失败，客户端可能已断开: {}", stream, e.getMessage());
+                emitter.completeWithError(e);
+            } catch (Exception e) {
+                if (!cancelled.get()) {
+                    log.error("SSE 流 {} 失败: {}", stream, e.getMessage(), e);
+                    emitter.completeWithError(e);
+                    outcome = Outcome.ERROR;
+                }
+            } finally {
+                finish(outcome);
+                RequestContextHolder.resetRequestAttributes();
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * 关闭片段流会取消上游订阅；中断写出线程使其从等待片段中返回
+         */
+        void cancel(String reason) {
+            if (finished.get() || !cancelled.compareAndSet(false, true)) {
+                return;
+            }
+            log.debug("取消 SSE 流 {}: {}", stream, reason);
+            Stream<String> current = chunks;
+            if (current != null) {
+                current.close();
+            }
+            Thread writerThread = writer;
+            if (writerThread != null && !finished.get()) {
+                writerThread.interrupt();
+            }
+        }
+
+        void finish(Outcome outcome) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            Counter.builder("restaurant.ai.streaming.streams")
+                    .tag("stream", stream)
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+            activeStreams.decrementAndGet();
+            permits.release();
+        }
+    }
+}
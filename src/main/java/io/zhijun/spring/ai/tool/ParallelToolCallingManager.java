@@ -0,0 +1,288 @@
+package io.zhijun.spring.ai.tool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.zhijun.spring.ai.cache.MemoCache;
+import io.zhijun.spring.ai.config.ToolExecutionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.observation.DefaultToolCallingObservationConvention;
+import org.springframework.ai.tool.observation.ToolCallingObservationContext;
+import org.springframework.ai.tool.observation.ToolCallingObservationConvention;
+import org.springframework.ai.tool.observation.ToolCallingObservationDocumentation;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 并行工具调用管理器
+ * 模型在一轮回复中请求多个工具时，每个调用提交到虚拟线程并发执行，各自按工具的超时时间等待；
+ * 超时的调用被取消，超时说明作为该工具的结果交给模型，不影响其他工具。
+ * 相同工具和参数的结果在 TTL 内复用（参数按 JSON 结构比较，与字段顺序和空白无关），
+ * 请求携带 ToolContext 时结果可能依赖上下文，不使用缓存。
+ * 工具定义的解析委托给 Spring AI 默认的管理器
+ * <p>
+ * 指标：restaurant.ai.tool.calls{tool,outcome=success|error}、restaurant.ai.tool.timeouts{tool}，
+ * 结果缓存见 restaurant.ai.memo.requests{cache=tool-results}；
+ * 每次实际执行的工具调用与默认管理器一样记录 spring.ai.tool 观测，父观测取提交调用时的当前观测，链路追踪不会断开
+ */
+@Slf4j
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    private static final String EMPTY_ARGUMENTS = "{}";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final ToolCallingObservationConvention OBSERVATION_CONVENTION =
+            new DefaultToolCallingObservationConvention();
+
+    private final ToolCallingManager definitions;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private final ExecutorService executor;
+    private final ToolExecutionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final MemoCache<ToolCallKey, String> results;
+
+    /**
+     * @param definitions 负责解析工具定义的管理器，通常是 DefaultToolCallingManager
+     * @param executor    执行工具调用的线程池，应当每个任务一个虚拟线程
+     */
+    public ParallelToolCallingManager(ToolCallingManager definitions, ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionExceptionProcessor exceptionProcessor, ExecutorService executor,
+                                      ToolExecutionProperties properties, MeterRegistry meterRegistry,
+                                      ObservationRegistry observationRegistry) {
+        this.definitions = definitions;
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.exceptionProcessor = exceptionProcessor;
+        this.executor = executor;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.results = properties.getCacheTtl().isPositive()
+                ? new MemoCache<>("tool-results", properties.getCacheTtl(), properties.getCacheMaxEntries(),
+                meterRegistry)
+                : null;
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return definitions.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("模型回复中没有工具调用"));
+
+        List<ToolCallback> toolCallbacks = List.of();
+        Map<String, Object> context = Map.of();
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options) {
+            toolCallbacks = options.getToolCallbacks();
+            if (options.getToolContext() != null && !options.getToolContext().isEmpty()) {
+                context = new HashMap<>(options.getToolContext());
+                List<Message> history = new ArrayList<>(prompt.getInstructions());
+                history.add(assistantMessage);
+                context.put(ToolContext.TOOL_CALL_HISTORY, history);
+            }
+        }
+        ToolContext toolContext = new ToolContext(context);
+        boolean cacheable = results != null && context.isEmpty();
+
+        // 先解析全部工具，找不到时不提交任何调用
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        List<ToolCallback> callbacks = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            ToolCallback callback = resolve(toolCall.name(), toolCallbacks);
+            callbacks.add(callback);
+            returnDirect = returnDirect && callback.getToolMetadata().returnDirect();
+        }
+
+        // 工作线程中没有当前观测，提交前取出作为工具调用观测的父观测
+        Observation parent = observationRegistry.getCurrentObservation();
+        long start = System.nanoTime();
+        List<Future<String>> futures = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            ToolCallback callback = callbacks.get(i);
+            String arguments = StringUtils.hasText(toolCalls.get(i).arguments())
+                    ? toolCalls.get(i).arguments() : EMPTY_ARGUMENTS;
+            futures.add(executor.submit(() -> invoke(callback, arguments, toolContext, cacheable, parent)));
+        }
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+        try {
+            for (int i = 0; i < toolCalls.size(); i++) {
+                AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+                responses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(),
+                        await(toolCall.name(), futures.get(i), start)));
+            }
+        } finally {
+            // 出现异常时不再需要其余结果
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(ToolResponseMessage.builder().responses(responses).build());
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    private ToolCallback resolve(String toolName, List<ToolCallback> toolCallbacks) {
+        for (ToolCallback callback : toolCallbacks) {
+            if (toolName.equals(callback.getToolDefinition().name())) {
+                return callback;
+            }
+        }
+        ToolCallback callback = toolCallbackResolver.resolve(toolName);
+        if (callback == null) {
+            throw new IllegalStateException("找不到工具: " + toolName);
+        }
+        return callback;
+    }
+
+    /**
+     * 在工作线程中执行一次工具调用
+     */
+    private String invoke(ToolCallback callback, String arguments, ToolContext toolContext, boolean cacheable,
+                          Observation parent) {
+        String toolName = callback.getToolDefinition().name();
+        Supplier<String> call = () -> timed(toolName, () -> observed(callback, arguments, toolContext, parent));
+        if (cacheable) {
+            return results.get(new ToolCallKey(toolName, parse(arguments)), call);
+        }
+        return call.get();
+    }
+
+    /**
+     * 与 DefaultToolCallingManager 相同的 spring.ai.tool 观测
+     */
+    private String observed(ToolCallback callback, String arguments, ToolContext toolContext, Observation parent) {
+        ToolCallingObservationContext context = ToolCallingObservationContext.builder()
+                .toolDefinition(callback.getToolDefinition())
+                .toolMetadata(callback.getToolMetadata())
+                .toolCallArguments(arguments)
+                .build();
+        return ToolCallingObservationDocumentation.TOOL_CALL
+                .observation(null, OBSERVATION_CONVENTION, () -> context, observationRegistry)
+                .parentObservation(parent)
+                .observe(() -> {
+                    String result = callback.call(arguments, toolContext);
+                    context.setToolCallResult(result);
+                    return result;
+                });
+    }
+
+    private String timed(String toolName, Supplier<String> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            String result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            callTimer(toolName, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 等待工具结果，超时时间从全部调用提交时算起
+     */
+    private String await(String toolName, Future<String> future, long start) {
+        Duration timeout = properties.getTimeouts().getOrDefault(toolName, properties.getTimeout());
+        long remaining = timeout.toNanos() - (System.nanoTime() - start);
+        try {
+            return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCounter(toolName).increment();
+            log.warn("工具调用超时: tool={}, timeout={}", toolName, timeout);
+            return "工具 " + toolName + " 调用超时（" + timeout.toMillis() + " ms），没有返回结果";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待工具调用时被中断: " + toolName, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ToolExecutionException toolException) {
+                // 与默认管理器一致：由异常处理器决定返回错误信息还是抛出
+                return exceptionProcessor.process(toolException);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("工具调用失败: " + toolName, e.getCause());
+        }
+    }
+
+    private Timer callTimer(String toolName, String outcome) {
+        return Timer.builder("restaurant.ai.tool.calls")
+                .description("工具调用耗时")
+                .tag("tool", toolName)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter timeoutCounter(String toolName) {
+        return Counter.builder("restaurant.ai.tool.timeouts")
+                .description("工具调用超时次数")
+                .tag("tool", toolName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 参数按 JSON 结构比较，无法解析时按原文比较
+     */
+    private static JsonNode parse(String arguments) {
+        try {
+            return OBJECT_MAPPER.readTree(arguments);
+        } catch (JsonProcessingException e) {
+            return TextNode.valueOf(arguments);
+        }
+    }
+
+    /**
+     * 结果缓存的键
+     */
+    private record ToolCallKey(String tool, JsonNode arguments) {
+    }
+}
@@ -0,0 +1,419 @@
+package io.zhijun.spring.ai.vector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zhijun.spring.ai.config.EmbeddedVectorStoreProperties;
+import io.zhijun.spring.ai.ingestion.VectorWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 进程内 HNSW 向量索引
+ * 在 {@link HnswGraph} 之上维护片段内容、ID 映射、元数据过滤和快照：
+ * <ul>
+ *     <li>写入、删除和快照在写锁内串行执行，检索不加锁</li>
+ *     <li>删除只标记，被删除的节点仍参与导航；加载快照时删除比例过高则重建图</li>
+ *     <li>快照先写临时文件再原子替换，启动时存在则加载</li>
+ *     <li>元数据过滤与 SimpleVectorStore 相同，转换为 SpEL 后对每个候选求值</li>
+ * </ul>
+ */
+@Slf4j
+public class EmbeddedVectorIndex implements VectorWriter, TunableVectorSearch, AutoCloseable {
+
+    private static final int MAGIC = 0x484e5357;
+    private static final int VERSION = 1;
+    private static final long SEED = 42;
+
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddedVectorStoreProperties properties;
+    private final Path snapshotPath;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleVectorStoreFilterExpressionConverter filterConverter =
+            new SimpleVectorStoreFilterExpressionConverter();
+    private final SpelExpressionParser expressionParser = new SpelExpressionParser();
+    private final Map<String, Integer> nodesById = new ConcurrentHashMap<>();
+
+    private volatile HnswGraph graph;
+    /**
+     * 按节点编号保存片段，null 表示已删除
+     */
+    private volatile AtomicReferenceArray<Document> documents = new AtomicReferenceArray<>(0);
+    private int deleted;
+    private boolean dirty;
+    private ScheduledExecutorService snapshots;
+
+    public EmbeddedVectorIndex(EmbeddingModel embeddingModel, EmbeddedVectorStoreProperties properties) {
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.snapshotPath = Path.of(properties.getSnapshotPath());
+    }
+
+    /**
+     * 向量化并写入片段
+     */
+    public void add(List<Document> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<float[]> embeddings = embeddingModel.embed(batch.stream()
+                .map(document -> document.getFormattedContent(MetadataMode.EMBED))
+                .toList());
+        write(batch, embeddings);
+    }
+
+    @Override
+    public void write(List<Document> batch, List<float[]> embeddings) {
+        if (batch.size() != embeddings.size()) {
+            throw new IllegalArgumentException("片段数与向量数不一致");
+        }
+        writeLock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                Document document = batch.get(i);
+                HnswGraph current = graph(embeddings.get(i).length);
+                Integer previous = nodesById.get(document.getId());
+                if (previous != null) {
+                    documents.set(previous, null);
+                    deleted++;
+                }
+                // 片段先于节点可见，检索读到节点时总能取到片段
+                int node = current.size();
+                ensureCapacity(node + 1).set(node, stored(document));
+                current.add(embeddings.get(i));
+                nodesById.put(document.getId(), node);
+            }
+            dirty = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> ids) {
+        writeLock.lock();
+        try {
+            for (String id : ids) {
+                Integer node = nodesById.remove(id);
+                if (node != null) {
+                    documents.set(node, null);
+                    deleted++;
+                    dirty = true;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除满足过滤条件的片段
+     */
+    public void delete(Filter.Expression filter) {
+        Predicate<Map<String, Object>> matches = predicate(filter);
+        delete(live().stream()
+                .filter(document -> matches.test(document.getMetadata()))
+                .map(Document::getId)
+                .toList());
+    }
+
+    @Override
+    public Set<String> findIdsBySource(String filename) {
+        Set<String> ids = new HashSet<>();
+        for (Document document : live()) {
+            if (Objects.equals(filename, document.getMetadata().get("filename"))) {
+                ids.add(document.getId());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Document> loadAll() {
+        return live();
+    }
+
+    @Override
+    public List<Document> findByIds(Collection<String> ids) {
+        List<Document> found = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Integer node = nodesById.get(id);
+            Document document = node != null ? document(node) : null;
+            if (document != null) {
+                found.add(document);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 检索，efSearch 取请求参数或配置默认值，probes 不适用
+     */
+    @Override
+    public List<Document> search(SearchRequest request, SearchTuning tuning) {
+        HnswGraph current = graph;
+        if (current == null || current.size() == 0) {
+            return List.of();
+        }
+        float[] query = embeddingModel.embed(request.getQuery());
+        int efSearch = tuning.orElse(properties.getEfSearch(), 1).efSearch();
+        Predicate<Map<String, Object>> filter = request.hasFilterExpression()
+                ? predicate(request.getFilterExpression())
+                : metadata -> true;
+        IntPredicate accept = node -> {
+            Document document = document(node);
+            return document != null && filter.test(document.getMetadata());
+        };
+
+        List<Document> results = new ArrayList<>(request.getTopK());
+        for (HnswGraph.Hit hit : current.search(query, request.getTopK(), efSearch, accept)) {
+            Document document = document(hit.node());
+            double score = 1 - hit.distance();
+            if (document == null || score < request.getSimilarityThreshold()) {
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.put("distance", hit.distance());
+            results.add(Document.builder()
+                    .id(document.getId())
+                    .text(document.getText())
+                    .metadata(metadata)
+                    .score(score)
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * 当前片段数（不含已删除）
+     */
+    public int size() {
+        return nodesById.size();
+    }
+
+    /**
+     * 加载快照，文件不存在时从空索引开始
+     */
+    public void load() {
+        if (!Files.exists(snapshotPath)) {
+            log.info("向量快照不存在，从空索引开始: {}", snapshotPath);
+            return;
+        }
+        writeLock.lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalStateException("不是可识别的向量快照: " + snapshotPath);
+            }
+            long start = System.nanoTime();
+            HnswGraph loaded = HnswGraph.readFrom(in, SEED);
+            AtomicReferenceArray<Document> loadedDocuments = new AtomicReferenceArray<>(loaded.size());
+            nodesById.clear();
+            int loadedDeleted = 0;
+            for (int node = 0; node < loaded.size(); node++) {
+                if (!in.readBoolean()) {
+                    loadedDeleted++;
+                    continue;
+                }
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                StoredDocument stored = objectMapper.readValue(json, StoredDocument.class);
+                loadedDocuments.set(node, new Document(stored.id(), stored.text(), stored.metadata()));
+                nodesById.put(stored.id(), node);
+            }
+            graph = loaded;
+            documents = loadedDocuments;
+            deleted = loadedDeleted;
+            log.info("向量快照加载完成: {} 个片段，{} 个已删除节点，耗时 {} ms", nodesById.size(), loadedDeleted,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (loaded.size() > 0 && loadedDeleted > loaded.size() * properties.getCompactRatio()) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载向量快照失败: " + snapshotPath, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 有变更时写快照：先写临时文件，再原子替换
+     */
+    public void snapshot() {
+        writeLock.lock();
+        try {
+            if (!dirty || graph == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, snapshotPath.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp),
+                    1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                graph.writeTo(out);
+                for (int node = 0; node < graph.size(); node++) {
+                    Document document = documents.get(node);
+                    out.writeBoolean(document != null);
+                    if (document != null) {
+                        byte[] json = objectMapper.writeValueAsBytes(new StoredDocument(document.getId(),
+                                document.getText(), document.getMetadata()));
+                        out.writeInt(json.length);
+                        out.write(json);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+            log.info("向量快照已写入: {} 个片段，耗时 {} ms", nodesById.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            log.error("写入向量快照失败: {}", e.getMessage(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 按间隔在后台写快照
+     */
+    public void startSnapshots(Duration interval) {
+        if (interval == null || interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("vector-snapshot").factory());
+        snapshots.scheduleWithFixedDelay(this::snapshot, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+        }
+        snapshot();
+    }
+
+    /**
+     * 用存活节点重建图，回收已删除节点
+     */
+    private void compact() {
+        HnswGraph old = graph;
+        AtomicReferenceArray<Document> oldDocuments = documents;
+        HnswGraph rebuilt = new HnswGraph(old.dimensions(), properties.getM(), properties.getEfConstruction(), SEED);
+        AtomicReferenceArray<Document> rebuiltDocuments = new AtomicReferenceArray<>(nodesById.size());
+        Map<String, Integer> rebuiltIds = new HashMap<>();
+        for (int node = 0; node < old.size(); node++) {
+            Document document = oldDocuments.get(node);
+            if (document != null) {
+                rebuiltDocuments.set(rebuilt.size(), document);
+                rebuiltIds.put(document.getId(), rebuilt.add(old.vector(node)));
+            }
+        }
+        graph = rebuilt;
+        documents = rebuiltDocuments;
+        nodesById.clear();
+        nodesById.putAll(rebuiltIds);
+        log.info("向量索引已重建，回收 {} 个已删除节点", deleted);
+        deleted = 0;
+        dirty = true;
+    }
+
+    private HnswGraph graph(int dimensions) {
+        if (graph == null) {
+            graph = new HnswGraph(dimensions, properties.getM(), properties.getEfConstruction(), SEED);
+        }
+        return graph;
+    }
+
+    private AtomicReferenceArray<Document> ensureCapacity(int capacity) {
+        AtomicReferenceArray<Document> current = documents;
+        if (capacity <= current.length()) {
+            return current;
+        }
+        AtomicReferenceArray<Document> grown = new AtomicReferenceArray<>(Math.max(capacity, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        documents = grown;
+        return grown;
+    }
+
+    private Document document(int node) {
+        AtomicReferenceArray<Document> current = documents;
+        return node < current.length() ? current.get(node) : null;
+    }
+
+    private List<Document> live() {
+        List<Document> live = new ArrayList<>(nodesById.size());
+        for (int node : nodesById.values()) {
+            Document document = document(node);
+            if (document != null) {
+                live.add(document);
+            }
+        }
+        return live;
+    }
+
+    private Predicate<Map<String, Object>> predicate(Filter.Expression filter) {
+        Expression expression = expressionParser.parseExpression(filterConverter.convertExpression(filter));
+        return metadata -> {
+            SimpleEvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding()
+                    .withInstanceMethods()
+                    .build();
+            context.setVariable("metadata", metadata);
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    private static Document stored(Document document) {
+        return new Document(document.getId(), document.getText() != null ? document.getText() : "",
+                new HashMap<>(document.getMetadata()));
+    }
+
+    /**
+     * 快照中的片段
+     */
+    private record StoredDocument(String id, String text, Map<String, Object> metadata) {
+    }
+}
@@ -0,0 +1,53 @@
+package io.zhijun.spring.ai.vector;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 进程内 HNSW 向量存储
+ * 只是 {@link EmbeddedVectorIndex} 的 VectorStore 适配，供 QuestionAnswerAdvisor 等按 VectorStore 使用的组件检索
+ */
+public class EmbeddedVectorStore implements VectorStore {
+
+    private final EmbeddedVectorIndex index;
+
+    public EmbeddedVectorStore(EmbeddedVectorIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        index.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        index.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        index.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return index.search(request, SearchTuning.defaults());
+    }
+
+    @Override
+    public String getName() {
+        return "EmbeddedVectorStore";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> getNativeClient() {
+        return Optional.of((T) index);
+    }
+}
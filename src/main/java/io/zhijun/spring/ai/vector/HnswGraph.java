@@ -0,0 +1,532 @@
+package io.zhijun.spring.ai.vector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * 进程内 HNSW 图（余弦距离）
+ * <ul>
+ *     <li>向量归一化后存放在 {@link OffHeapVectors}，距离为 1 - 点积</li>
+ *     <li>每个节点每层的邻居是不可变的 int[]，更新时整体替换；检索只做 volatile 读，不加锁</li>
+ *     <li>写入由调用方串行化（单写多读）；节点先写入向量和邻居，再被其他节点链接，检索看到的节点总是完整的</li>
+ * </ul>
+ * 删除由上层标记，检索时通过过滤条件跳过，被删除的节点仍参与导航
+ */
+public final class HnswGraph {
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final OffHeapVectors vectors;
+    private final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    private volatile AtomicReferenceArray<Node> nodes = new AtomicReferenceArray<>(1024);
+    private volatile Entry entry;
+    private volatile int size;
+
+    public HnswGraph(int dimensions, int m, int efConstruction, long seed) {
+        if (dimensions < 1 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("HNSW 参数不合法: dimensions=" + dimensions + ", m=" + m
+                    + ", efConstruction=" + efConstruction);
+        }
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+        this.vectors = new OffHeapVectors(dimensions);
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 插入向量，调用方负责串行化
+     *
+     * @return 节点编号，从 0 开始连续分配
+     */
+    public int add(float[] vector) {
+        return add(normalize(vector), randomLevel());
+    }
+
+    private int add(float[] vector, int level) {
+        int node = size;
+        vectors.set(node, vector);
+        Node created = new Node(level);
+        ensureCapacity(node + 1).set(node, created);
+
+        Entry current = entry;
+        if (current == null) {
+            size = node + 1;
+            entry = new Entry(node, level);
+            return node;
+        }
+
+        int nearest = current.node();
+        for (int layer = current.level(); layer > level; layer--) {
+            nearest = greedy(vector, nearest, layer);
+        }
+        for (int layer = Math.min(level, current.level()); layer >= 0; layer--) {
+            long[] candidates = searchLayer(vector, nearest, efConstruction, layer, null);
+            int[] selected = selectNeighbors(candidates, layer == 0 ? maxM0 : m);
+            created.links.set(layer, selected);
+            for (int neighbor : selected) {
+                link(neighbor, node, layer);
+            }
+            nearest = node(candidates[0]);
+        }
+
+        size = node + 1;
+        if (level > current.level()) {
+            entry = new Entry(node, level);
+        }
+        return node;
+    }
+
+    /**
+     * 检索最近的 k 个节点
+     *
+     * @param query  查询向量，不要求归一化
+     * @param ef     候选列表大小，小于 k 时按 k 计算
+     * @param accept 结果过滤条件，为 null 表示不过滤；被过滤的节点仍用于导航
+     * @return 按距离升序排列的结果
+     */
+    public List<Hit> search(float[] query, int k, int ef, IntPredicate accept) {
+        Entry current = entry;
+        if (current == null || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+        int nearest = current.node();
+        for (int layer = current.level(); layer > 0; layer--) {
+            nearest = greedy(normalized, nearest, layer);
+        }
+        long[] found = searchLayer(normalized, nearest, Math.max(ef, k), 0, accept);
+        List<Hit> hits = new ArrayList<>(Math.min(k, found.length));
+        for (int i = 0; i < found.length && hits.size() < k; i++) {
+            hits.add(new Hit(node(found[i]), distance(found[i])));
+        }
+        return hits;
+    }
+
+    /**
+     * 精确检索，用于校验召回率
+     */
+    public List<Hit> exactSearch(float[] query, int k, IntPredicate accept) {
+        float[] normalized = normalize(query);
+        LongHeap worst = new LongHeap(k + 1, true);
+        int count = size;
+        for (int node = 0; node < count; node++) {
+            if (accept != null && !accept.test(node)) {
+                continue;
+            }
+            worst.push(encode(distance(normalized, node), node));
+            if (worst.size() > k) {
+                worst.pop();
+            }
+        }
+        long[] sorted = worst.drainAscending();
+        List<Hit> hits = new ArrayList<>(sorted.length);
+        for (long value : sorted) {
+            hits.add(new Hit(node(value), distance(value)));
+        }
+        return hits;
+    }
+
+    /**
+     * 读取节点的归一化向量
+     */
+    public float[] vector(int node) {
+        float[] vector = new float[dimensions];
+        vectors.get(node, vector);
+        return vector;
+    }
+
+    private int greedy(float[] query, int start, int layer) {
+        int current = start;
+        float best = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : neighbors(current, layer)) {
+                float d = distance(query, neighbor);
+                if (d < best) {
+                    best = d;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在一层上做最佳优先搜索
+     *
+     * @return 按距离升序排列的编码结果（高 32 位距离、低 32 位节点）
+     */
+    private long[] searchLayer(float[] query, int start, int ef, int layer, IntPredicate accept) {
+        Visited seen = visited.get();
+        seen.reset(size + 1);
+        LongHeap candidates = new LongHeap(ef * 2, false);
+        LongHeap results = new LongHeap(ef + 1, true);
+
+        long first = encode(distance(query, start), start);
+        seen.mark(start);
+        candidates.push(first);
+        if (accept == null || accept.test(start)) {
+            results.push(first);
+        }
+
+        while (candidates.size() > 0) {
+            long closest = candidates.pop();
+            if (results.size() >= ef && distance(closest) > distance(results.peek())) {
+                break;
+            }
+            for (int neighbor : neighbors(node(closest), layer)) {
+                if (!seen.mark(neighbor)) {
+                    continue;
+                }
+                float d = distance(query, neighbor);
+                if (results.size() < ef || d < distance(results.peek())) {
+                    long encoded = encode(d, neighbor);
+                    candidates.push(encoded);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.push(encoded);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        if (results.size() == 0) {
+            return accept == null ? new long[]{first} : new long[0];
+        }
+        return results.drainAscending();
+    }
+
+    /**
+     * 启发式选择邻居：候选比已选邻居更靠近新节点时才保留，使图在不同方向上都有连接；不足时用剩余候选补齐
+     */
+    private int[] selectNeighbors(long[] candidates, int limit) {
+        int[] selected = new int[Math.min(limit, candidates.length)];
+        int count = 0;
+        boolean[] taken = new boolean[candidates.length];
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            int candidate = node(candidates[i]);
+            float toNode = distance(candidates[i]);
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (distance(candidate, selected[j]) < toNode) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate;
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            if (!taken[i]) {
+                selected[count++] = node(candidates[i]);
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * 给 target 增加一个邻居，超出上限时按启发式重新选择
+     */
+    private void link(int target, int neighbor, int layer) {
+        Node node = nodes.get(target);
+        int[] current = node.links.get(layer);
+        int limit = layer == 0 ? maxM0 : m;
+        if (current.length < limit) {
+            int[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = neighbor;
+            node.links.set(layer, grown);
+            return;
+        }
+        long[] candidates = new long[current.length + 1];
+        for (int i = 0; i < current.length; i++) {
+            candidates[i] = encode(distance(target, current[i]), current[i]);
+        }
+        candidates[current.length] = encode(distance(target, neighbor), neighbor);
+        Arrays.sort(candidates);
+        node.links.set(layer, selectNeighbors(candidates, limit));
+    }
+
+    private int[] neighbors(int node, int layer) {
+        Node n = nodes.get(node);
+        return layer <= n.level ? n.links.get(layer) : Node.EMPTY;
+    }
+
+    private AtomicReferenceArray<Node> ensureCapacity(int capacity) {
+        AtomicReferenceArray<Node> current = nodes;
+        if (capacity <= current.length()) {
+            return current;
+        }
+        AtomicReferenceArray<Node> grown = new AtomicReferenceArray<>(Math.max(capacity, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        nodes = grown;
+        return grown;
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private float distance(float[] query, int node) {
+        return Math.max(0, 1 - vectors.dot(node, query));
+    }
+
+    private float distance(int a, int b) {
+        return Math.max(0, 1 - vectors.dot(a, b));
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("向量维度应为 " + dimensions + "，实际为 " + vector.length);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * 非负 float 的位模式与数值顺序一致，编码后可以直接按 long 比较
+     */
+    private static long encode(float distance, int node) {
+        return ((long) Float.floatToIntBits(distance) << 32) | (node & 0xffffffffL);
+    }
+
+    private static float distance(long encoded) {
+        return Float.intBitsToFloat((int) (encoded >>> 32));
+    }
+
+    private static int node(long encoded) {
+        return (int) encoded;
+    }
+
+    /**
+     * 写出图结构和向量，调用方负责与写入串行化
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int count = size;
+        Entry current = entry;
+        out.writeInt(dimensions);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(count);
+        out.writeInt(current == null ? -1 : current.node());
+        out.writeInt(current == null ? -1 : current.level());
+        float[] vector = new float[dimensions];
+        for (int node = 0; node < count; node++) {
+            Node n = nodes.get(node);
+            out.writeInt(n.level);
+            for (int layer = 0; layer <= n.level; layer++) {
+                int[] links = n.links.get(layer);
+                out.writeInt(links.length);
+                for (int link : links) {
+                    out.writeInt(link);
+                }
+            }
+            vectors.get(node, vector);
+            for (float value : vector) {
+                out.writeFloat(value);
+            }
+        }
+    }
+
+    /**
+     * 读取 {@link #writeTo} 写出的图
+     */
+    public static HnswGraph readFrom(DataInput in, long seed) throws IOException {
+        HnswGraph graph = new HnswGraph(in.readInt(), in.readInt(), in.readInt(), seed);
+        int count = in.readInt();
+        int entryNode = in.readInt();
+        int entryLevel = in.readInt();
+        AtomicReferenceArray<Node> nodes = graph.ensureCapacity(Math.max(count, 1));
+        float[] vector = new float[graph.dimensions];
+        for (int node = 0; node < count; node++) {
+            Node n = new Node(in.readInt());
+            for (int layer = 0; layer <= n.level; layer++) {
+                int[] links = new int[in.readInt()];
+                for (int i = 0; i < links.length; i++) {
+                    links[i] = in.readInt();
+                }
+                n.links.set(layer, links);
+            }
+            nodes.set(node, n);
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+            graph.vectors.set(node, vector);
+        }
+        graph.size = count;
+        graph.entry = entryNode < 0 ? null : new Entry(entryNode, entryLevel);
+        return graph;
+    }
+
+    /**
+     * 检索结果
+     *
+     * @param node     节点编号
+     * @param distance 余弦距离
+     */
+    public record Hit(int node, float distance) {
+    }
+
+    private record Entry(int node, int level) {
+    }
+
+    private static final class Node {
+
+        static final int[] EMPTY = new int[0];
+
+        final int level;
+        final AtomicReferenceArray<int[]> links;
+
+        Node(int level) {
+            this.level = level;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int layer = 0; layer <= level; layer++) {
+                links.set(layer, EMPTY);
+            }
+        }
+    }
+
+    /**
+     * 按代次标记的访问集合，每个线程复用一份，避免每次检索分配
+     */
+    private static final class Visited {
+
+        private int[] marks = new int[0];
+        private int generation;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                generation = 0;
+            }
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @return 首次访问时返回 true
+         */
+        boolean mark(int node) {
+            if (node >= marks.length) {
+                marks = Arrays.copyOf(marks, Math.max(node + 1, marks.length * 2));
+            }
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+
+    /**
+     * long 二叉堆，max 为 true 时堆顶是最大值
+     */
+    private static final class LongHeap {
+
+        private long[] values;
+        private int size;
+        private final boolean max;
+
+        LongHeap(int capacity, boolean max) {
+            this.values = new long[Math.max(capacity, 4)];
+            this.max = max;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return values[0];
+        }
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(value, values[parent])) {
+                    break;
+                }
+                values[i] = values[parent];
+                i = parent;
+            }
+            values[i] = value;
+        }
+
+        long pop() {
+            long top = values[0];
+            long last = values[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(values[child + 1], values[child])) {
+                    child++;
+                }
+                if (!before(values[child], last)) {
+                    break;
+                }
+                values[i] = values[child];
+                i = child;
+            }
+            values[i] = last;
+            return top;
+        }
+
+        long[] drainAscending() {
+            long[] sorted = Arrays.copyOf(values, size);
+            size = 0;
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        private boolean before(long a, long b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
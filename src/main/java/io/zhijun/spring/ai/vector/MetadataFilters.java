@@ -0,0 +1,131 @@
+package io.zhijun.spring.ai.vector;
+
+import io.zhijun.spring.ai.ingestion.RestaurantMetadataExtractor;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 元数据过滤条件
+ * 把用户偏好转换为 {@link Filter.Expression}，在 JSONB 元数据（GIN 索引）上预过滤候选片段；
+ * 元数据由 {@link RestaurantMetadataExtractor} 在导入时提取
+ * <p>
+ * PgVectorStore 会把条件中的字符串原样拼进 jsonpath 和 SQL，因此取值只允许文字、数字、空格和连字符
+ */
+public final class MetadataFilters {
+
+    private static final Pattern SAFE_VALUE = Pattern.compile("[\\p{L}\\p{N} ·\\-]{1,32}");
+    private static final Pattern NUMBER = Pattern.compile("\\d{1,6}");
+
+    private MetadataFilters() {
+    }
+
+    /**
+     * 个性化检索条件
+     * 支持的偏好：city、cuisine、dish（推荐菜）和 priceRange（“100-150”表示人均区间有交集，“150”表示人均不高于 150）
+     *
+     * @return 没有可用偏好时返回 null
+     * @throws IllegalArgumentException 取值包含不允许的字符或价格格式不正确
+     */
+    public static Filter.Expression personalized(Map<String, Object> preferences) {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        List<FilterExpressionBuilder.Op> conditions = new ArrayList<>();
+
+        String city = text(preferences, "city");
+        if (city != null) {
+            conditions.add(b.eq(RestaurantMetadataExtractor.CITY, city));
+        }
+        String cuisine = text(preferences, "cuisine");
+        if (cuisine != null) {
+            conditions.add(b.eq(RestaurantMetadataExtractor.CUISINE, cuisine));
+        }
+        String dish = text(preferences, "dish");
+        if (dish != null) {
+            // jsonpath 宽松模式下数组与标量比较时逐个元素匹配
+            conditions.add(b.eq(RestaurantMetadataExtractor.DISHES, dish));
+        }
+        Object priceRange = preferences.get("priceRange");
+        if (priceRange != null && !priceRange.toString().isBlank()) {
+            // 只取其中的数字，不会进入过滤条件文本
+            List<Integer> bounds = numbers(priceRange.toString());
+            if (bounds.isEmpty() || bounds.size() > 2) {
+                throw new IllegalArgumentException("priceRange 格式应为 100-150 或 150");
+            }
+            int max = bounds.getLast();
+            if (bounds.size() == 2) {
+                int min = Math.min(bounds.getFirst(), max);
+                max = Math.max(bounds.getFirst(), max);
+                conditions.add(b.gte(RestaurantMetadataExtractor.PRICE_MAX, min));
+            }
+            conditions.add(b.lte(RestaurantMetadataExtractor.PRICE_MIN, max));
+        }
+
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        FilterExpressionBuilder.Op combined = conditions.getFirst();
+        for (int i = 1; i < conditions.size(); i++) {
+            combined = b.and(combined, conditions.get(i));
+        }
+        return combined.build();
+    }
+
+    /**
+     * 转换为 FilterExpressionTextParser 的文本语法
+     * QuestionAnswerAdvisor.FILTER_EXPRESSION 只接受文本，由 advisor 再解析回表达式
+     */
+    public static String toText(Filter.Expression expression) {
+        return switch (expression.type()) {
+            case AND -> group(expression.left()) + " && " + group(expression.right());
+            case OR -> group(expression.left()) + " || " + group(expression.right());
+            case EQ -> compare(expression, "==");
+            case NE -> compare(expression, "!=");
+            case GT -> compare(expression, ">");
+            case GTE -> compare(expression, ">=");
+            case LT -> compare(expression, "<");
+            case LTE -> compare(expression, "<=");
+            default -> throw new IllegalArgumentException("不支持的过滤条件: " + expression.type());
+        };
+    }
+
+    private static String group(Filter.Operand operand) {
+        Filter.Expression expression = (Filter.Expression) operand;
+        String text = toText(expression);
+        return expression.type() == Filter.ExpressionType.OR ? "(" + text + ")" : text;
+    }
+
+    private static String compare(Filter.Expression expression, String operator) {
+        String key = ((Filter.Key) expression.left()).key();
+        Object value = ((Filter.Value) expression.right()).value();
+        return key + " " + operator + " " + (value instanceof Number ? value : "'" + safe(value.toString()) + "'");
+    }
+
+    private static String text(Map<String, Object> preferences, String key) {
+        Object value = preferences.get(key);
+        if (value == null || value.toString().isBlank()) {
+            return null;
+        }
+        return safe(value.toString().trim());
+    }
+
+    private static String safe(String value) {
+        if (!SAFE_VALUE.matcher(value).matches()) {
+            throw new IllegalArgumentException("过滤条件取值包含不允许的字符: " + value);
+        }
+        return value;
+    }
+
+    private static List<Integer> numbers(String text) {
+        Matcher matcher = NUMBER.matcher(text);
+        List<Integer> numbers = new ArrayList<>();
+        while (matcher.find()) {
+            numbers.add(Integer.parseInt(matcher.group()));
+        }
+        return numbers;
+    }
+}
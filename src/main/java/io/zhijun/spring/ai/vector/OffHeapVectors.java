@@ -0,0 +1,88 @@
+package io.zhijun.spring.ai.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * 堆外向量存储
+ * float32 向量按编号连续存放在直接内存分段中，每段容纳固定数量的向量；
+ * 扩容只追加新段，已写入的数据不移动，读取无需加锁。写入由调用方串行化
+ */
+final class OffHeapVectors {
+
+    private static final int VECTORS_PER_SEGMENT = 4096;
+
+    private final int dimensions;
+    private volatile FloatBuffer[] segments = new FloatBuffer[0];
+
+    OffHeapVectors(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 写入第 node 个向量，必要时追加分段
+     */
+    void set(int node, float[] vector) {
+        FloatBuffer segment = segmentFor(node);
+        int offset = (node % VECTORS_PER_SEGMENT) * dimensions;
+        segment.put(offset, vector, 0, dimensions);
+    }
+
+    /**
+     * 读取第 node 个向量
+     */
+    void get(int node, float[] target) {
+        FloatBuffer segment = segments[node / VECTORS_PER_SEGMENT];
+        segment.get((node % VECTORS_PER_SEGMENT) * dimensions, target, 0, dimensions);
+    }
+
+    /**
+     * 第 node 个向量与 query 的点积
+     */
+    float dot(int node, float[] query) {
+        FloatBuffer segment = segments[node / VECTORS_PER_SEGMENT];
+        int offset = (node % VECTORS_PER_SEGMENT) * dimensions;
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += segment.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 两个已存储向量的点积
+     */
+    float dot(int a, int b) {
+        FloatBuffer left = segments[a / VECTORS_PER_SEGMENT];
+        FloatBuffer right = segments[b / VECTORS_PER_SEGMENT];
+        int leftOffset = (a % VECTORS_PER_SEGMENT) * dimensions;
+        int rightOffset = (b % VECTORS_PER_SEGMENT) * dimensions;
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += left.get(leftOffset + i) * right.get(rightOffset + i);
+        }
+        return sum;
+    }
+
+    private FloatBuffer segmentFor(int node) {
+        int index = node / VECTORS_PER_SEGMENT;
+        FloatBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        FloatBuffer[] grown = Arrays.copyOf(current, index + 1);
+        for (int i = current.length; i <= index; i++) {
+            grown[i] = ByteBuffer.allocateDirect(VECTORS_PER_SEGMENT * dimensions * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+        }
+        segments = grown;
+        return grown[index];
+    }
+}
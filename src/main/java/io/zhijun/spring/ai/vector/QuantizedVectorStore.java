@@ -0,0 +1,67 @@
+package io.zhijun.spring.ai.vector;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 使用量化索引检索的向量存储
+ * 量化后向量列上不再有完整精度的索引，PgVectorStore 自己的检索会退化为全表扫描，
+ * 因此 QuestionAnswerAdvisor 等按 VectorStore 使用的组件也改由 {@link VectorIndexManager} 先粗排再重排；
+ * 写入和删除直接委托
+ */
+public class QuantizedVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final Supplier<TunableVectorSearch> vectorSearch;
+
+    /**
+     * @param vectorSearch 延迟获取，VectorIndexManager 要等 VectorStore 初始化（建表）后才创建
+     */
+    public QuantizedVectorStore(VectorStore delegate, Supplier<TunableVectorSearch> vectorSearch) {
+        this.delegate = delegate;
+        this.vectorSearch = vectorSearch;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return vectorSearch.get().search(request, SearchTuning.defaults());
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+
+    /**
+     * 被包装的向量存储
+     */
+    public VectorStore getDelegate() {
+        return delegate;
+    }
+}
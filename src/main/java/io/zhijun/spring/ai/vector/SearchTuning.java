@@ -0,0 +1,37 @@
+package io.zhijun.spring.ai.vector;
+
+/**
+ * 单次向量检索的索引参数
+ * 值越大召回越高、延迟越高；为 null 的参数使用配置的默认值
+ *
+ * @param efSearch HNSW 查询候选列表大小（hnsw.ef_search）
+ * @param probes   IVFFlat 查询聚类数（ivfflat.probes）
+ */
+public record SearchTuning(Integer efSearch, Integer probes) {
+
+    private static final SearchTuning DEFAULTS = new SearchTuning(null, null);
+
+    public SearchTuning {
+        if (efSearch != null && (efSearch < 1 || efSearch > 1000)) {
+            throw new IllegalArgumentException("efSearch 必须在 1 到 1000 之间");
+        }
+        if (probes != null && probes < 1) {
+            throw new IllegalArgumentException("probes 必须大于 0");
+        }
+    }
+
+    /**
+     * 全部使用默认值
+     */
+    public static SearchTuning defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * 未指定的参数取默认值
+     */
+    public SearchTuning orElse(int defaultEfSearch, int defaultProbes) {
+        return new SearchTuning(efSearch != null ? efSearch : defaultEfSearch,
+                probes != null ? probes : defaultProbes);
+    }
+}
@@ -0,0 +1,24 @@
+package io.zhijun.spring.ai.vector;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+
+/**
+ * 可按请求调整索引参数的向量检索
+ * pgvector 由 {@link VectorIndexManager} 实现，进程内 HNSW 由 {@link EmbeddedVectorIndex} 实现
+ */
+public interface TunableVectorSearch {
+
+    /**
+     * 按指定参数检索，未指定的参数使用配置的默认值
+     */
+    List<Document> search(SearchRequest request, SearchTuning tuning);
+
+    /**
+     * 记录导入写入和删除的片段数，由实现决定是否需要重建索引
+     */
+    default void recordChanges(long rows) {
+    }
+}
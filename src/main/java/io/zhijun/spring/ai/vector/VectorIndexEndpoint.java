@@ -0,0 +1,34 @@
+package io.zhijun.spring.ai.vector;
+
+import io.zhijun.spring.ai.config.EmbeddedVectorStoreConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 向量索引端点
+ * GET /actuator/vectorindex 查看索引和重建状态，POST /actuator/vectorindex 在后台在线重建
+ */
+@Component
+@Profile("!" + EmbeddedVectorStoreConfig.PROFILE)
+@Endpoint(id = "vectorindex")
+@RequiredArgsConstructor
+public class VectorIndexEndpoint {
+
+    private final VectorIndexManager vectorIndexManager;
+
+    @ReadOperation
+    public VectorIndexManager.Status status() {
+        return vectorIndexManager.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> reindex() {
+        return Map.of("started", vectorIndexManager.reindexAsync("manual"));
+    }
+}
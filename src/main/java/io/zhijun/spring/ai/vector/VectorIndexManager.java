@@ -0,0 +1,421 @@
+package io.zhijun.spring.ai.vector;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zhijun.spring.ai.config.VectorIndexProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 向量索引管理
+ * <ul>
+ *     <li>按配置维护 HNSW（或 IVFFlat）索引，启动时索引缺失或参数不一致则在后台重建</li>
+ *     <li>单次检索可以调整 hnsw.ef_search / ivfflat.probes，参数用 set_config(..., true) 只在本次事务内生效</li>
+ *     <li>在线重建：CREATE INDEX CONCURRENTLY 新索引，删除旧索引后改名，重建期间读写不受影响；
+ *     用 advisory lock 保证多个实例同时只有一个在重建</li>
+ *     <li>元数据 GIN 索引：(metadata::jsonb) jsonb_path_ops 表达式索引，
+ *     与 PgVectorStore 过滤条件生成的 metadata::jsonb @@ jsonpath 一致，过滤时先按索引缩小候选集</li>
+ *     <li>量化索引：索引建在 halfvec 或 binary_quantize 表达式上，检索先按量化距离取 topK × rescoreFactor 个候选，
+ *     再按完整精度向量重新排序</li>
+ * </ul>
+ */
+@Slf4j
+public class VectorIndexManager implements TunableVectorSearch, AutoCloseable {
+
+    private static final Pattern MEMORY_SETTING = Pattern.compile("\\d+\\s*(kB|MB|GB)");
+
+    /**
+     * hnsw.ef_search 的上限
+     */
+    private static final int MAX_EF_SEARCH = 1000;
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * 向量列上的索引，包括量化索引这样的表达式索引
+     */
+    private static final String LIST_INDEXES_SQL = """
+            SELECT c.relname, pg_get_indexdef(i.indexrelid), i.indisvalid, pg_relation_size(i.indexrelid)
+            FROM pg_index i
+            JOIN pg_class c ON c.oid = i.indexrelid
+            WHERE i.indrelid = to_regclass(?)
+              AND (EXISTS (SELECT 1 FROM pg_attribute a
+                           WHERE a.attrelid = i.indrelid AND a.attnum = ANY (i.indkey) AND a.attname = 'embedding')
+                   OR pg_get_expr(i.indexprs, i.indrelid) LIKE '%embedding%')
+            ORDER BY c.relname
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EmbeddingModel embeddingModel;
+    private final VectorIndexProperties properties;
+    private final VectorIndexSpec spec;
+    private final String table;
+    private final String indexName;
+    private final String metadataIndexName;
+    private final MeterRegistry meterRegistry;
+    private final PgVectorFilterExpressionConverter filterConverter = new PgVectorFilterExpressionConverter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("vector-reindex").factory());
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+    private final AtomicLong changedSinceReindex = new AtomicLong();
+    private volatile ReindexRun lastReindex;
+
+    public VectorIndexManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              EmbeddingModel embeddingModel,
+                              VectorIndexProperties properties, VectorIndexSpec spec, String table,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.spec = spec;
+        this.table = table;
+        this.indexName = table + "_embedding_idx";
+        this.metadataIndexName = table + "_metadata_idx";
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("restaurant.ai.vector.reindex.running", reindexing, running -> running.get() ? 1 : 0)
+                .description("是否正在重建向量索引")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 检查索引，缺失或与配置不一致时在后台在线重建
+     */
+    public void ensureIndex() {
+        if (properties.isMetadataIndex()) {
+            executor.execute(this::ensureMetadataIndex);
+        }
+        List<IndexInfo> indexes = indexes();
+        if (indexes.stream().anyMatch(index -> index.valid() && spec.matches(index.definition()))) {
+            log.info("向量索引已就绪: {}", indexes);
+            return;
+        }
+        log.info("向量索引缺失或与配置不一致，后台重建为 {}: 现有索引 {}", spec, indexes);
+        reindexAsync("startup");
+    }
+
+    /**
+     * 在线创建元数据 GIN 索引，上次中断留下的无效索引先删除
+     */
+    void ensureMetadataIndex() {
+        try {
+            List<Boolean> valid = jdbcTemplate.queryForList(
+                    "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)", Boolean.class,
+                    metadataIndexName);
+            if (!valid.isEmpty() && valid.getFirst()) {
+                return;
+            }
+            if (!valid.isEmpty()) {
+                jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + metadataIndexName);
+            }
+            log.info("开始在线构建元数据索引 {}", metadataIndexName);
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + metadataIndexName + " ON " + table
+                    + " USING gin ((metadata::jsonb) jsonb_path_ops)");
+            log.info("元数据索引构建完成: {}", metadataIndexName);
+        } catch (RuntimeException e) {
+            log.error("构建元数据索引失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按指定参数检索
+     * 先在事务外向量化，调用模型期间不占用数据库连接；再在一个短事务内设置参数并用算好的向量查询。
+     * 参数只在本次查询的事务内生效，不影响连接池中的其他连接；HNSW 的 ef_search 不小于候选数
+     */
+    @Override
+    public List<Document> search(SearchRequest request, SearchTuning tuning) {
+        SearchTuning effective = tuning.orElse(properties.getEfSearch(), properties.getProbes());
+        int candidates = spec.quantized()
+                ? request.getTopK() * Math.max(1, properties.getRescoreFactor())
+                : request.getTopK();
+        int efSearch = Math.min(MAX_EF_SEARCH, Math.max(effective.efSearch(), candidates));
+        return Timer.builder("restaurant.ai.vector.search")
+                .description("向量检索耗时")
+                .tag("index", spec.type())
+                .tag("quantization", spec.quantization())
+                .register(meterRegistry)
+                .record(() -> {
+                    PGvector query = new PGvector(embeddingModel.embed(request.getQuery()));
+                    return readOnlyTransaction.execute(status -> {
+                        jdbcTemplate.queryForObject(
+                                "SELECT set_config('hnsw.ef_search', ?, true), set_config('ivfflat.probes', ?, true)",
+                                (rs, rowNum) -> null, String.valueOf(efSearch), String.valueOf(effective.probes()));
+                        return spec.quantized() ? rescore(request, query, candidates) : query(request, query);
+                    });
+                });
+    }
+
+    /**
+     * 按完整精度向量检索，与 PgVectorStore 的查询一致
+     */
+    private List<Document> query(SearchRequest request, PGvector query) {
+        List<Object> args = new ArrayList<>(List.of(query));
+        if (request.hasFilterExpression()) {
+            args.add(filterConverter.convertExpression(request.getFilterExpression()));
+        }
+        args.add(request.getTopK());
+        return documents(spec.searchSql(table, request.hasFilterExpression()), args, request);
+    }
+
+    /**
+     * 量化索引取候选，完整向量重排
+     */
+    private List<Document> rescore(SearchRequest request, PGvector query, int candidates) {
+        List<Object> args = new ArrayList<>(List.of(query));
+        if (request.hasFilterExpression()) {
+            // 过滤条件作为参数绑定，不拼进 SQL
+            args.add(filterConverter.convertExpression(request.getFilterExpression()));
+        }
+        args.addAll(List.of(query, candidates, request.getTopK()));
+        return documents(spec.rescoreSql(table, request.hasFilterExpression()), args, request);
+    }
+
+    /**
+     * 执行检索语句，按相似度阈值过滤；得分和 distance 元数据与 PgVectorStore 的结果一致
+     */
+    private List<Document> documents(String sql, List<Object> args, SearchRequest request) {
+        double maxDistance = 1 - request.getSimilarityThreshold();
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+                    double distance = rs.getDouble("distance");
+                    Map<String, Object> metadata = parseMetadata(rs.getString("metadata"));
+                    metadata.put("distance", (float) distance);
+                    return Document.builder()
+                            .id(rs.getString("id"))
+                            .text(rs.getString("content"))
+                            .metadata(metadata)
+                            .score(1 - distance)
+                            .build();
+                }, args.toArray()).stream()
+                .filter(document -> 1 - document.getScore() < maxDistance)
+                .toList();
+    }
+
+    /**
+     * 记录导入写入和删除的片段数，累计达到阈值时在后台重建索引
+     */
+    @Override
+    public void recordChanges(long rows) {
+        if (rows <= 0 || properties.getReindexThreshold() <= 0) {
+            return;
+        }
+        long changed = changedSinceReindex.addAndGet(rows);
+        if (changed >= properties.getReindexThreshold()) {
+            log.info("导入累计变更 {} 个片段，在线重建向量索引", changed);
+            reindexAsync("ingestion");
+        }
+    }
+
+    /**
+     * 在后台在线重建索引
+     *
+     * @return 已有重建在进行时返回 false
+     */
+    public boolean reindexAsync(String reason) {
+        if (!reindexing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    reindex(reason);
+                } finally {
+                    reindexing.set(false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            reindexing.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * 在线重建索引，在一个连接上持有 advisory lock 完成全部步骤
+     */
+    void reindex(String reason) {
+        long startNanos = System.nanoTime();
+        Instant startedAt = Instant.now();
+        long changedAtStart = changedSinceReindex.get();
+        String outcome = "success";
+        String error = null;
+        try {
+            Boolean done = jdbcTemplate.execute((ConnectionCallback<Boolean>) this::reindex);
+            if (!Boolean.TRUE.equals(done)) {
+                outcome = "skipped";
+            } else {
+                changedSinceReindex.addAndGet(-changedAtStart);
+            }
+        } catch (RuntimeException e) {
+            outcome = "error";
+            error = e.getMessage();
+            log.error("重建向量索引失败: {}", e.getMessage(), e);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Timer.builder("restaurant.ai.vector.reindex")
+                .description("向量索引重建耗时")
+                .tag("reason", reason)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        lastReindex = new ReindexRun(reason, outcome, startedAt, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), error);
+    }
+
+    private Boolean reindex(Connection connection) throws SQLException {
+        String lockKey = indexName;
+        if (!tryLock(connection, lockKey)) {
+            log.info("其他实例正在重建向量索引，跳过");
+            return false;
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        // CONCURRENTLY 不能在事务块中执行
+        connection.setAutoCommit(true);
+        String newIndex = indexName + "_new";
+        try (Statement statement = connection.createStatement()) {
+            String workMem = properties.getMaintenanceWorkMem();
+            if (workMem != null && MEMORY_SETTING.matcher(workMem).matches()) {
+                statement.execute("SET maintenance_work_mem = '" + workMem + "'");
+            }
+            // 上次中断留下的无效索引
+            statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + newIndex);
+            log.info("开始在线构建向量索引 {}: {}", newIndex, spec);
+            statement.execute(spec.createSql(newIndex, table));
+            for (IndexInfo old : indexes(connection)) {
+                if (!old.name().equals(newIndex)) {
+                    statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + old.name());
+                }
+            }
+            statement.execute("ALTER INDEX " + newIndex + " RENAME TO " + indexName);
+            if (workMem != null) {
+                statement.execute("RESET maintenance_work_mem");
+            }
+            log.info("向量索引重建完成: {}", indexName);
+            return true;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            unlock(connection, lockKey);
+        }
+    }
+
+    /**
+     * 当前向量列上的索引
+     */
+    public List<IndexInfo> indexes() {
+        return jdbcTemplate.query(LIST_INDEXES_SQL, (rs, rowNum) -> indexInfo(rs), table);
+    }
+
+    private List<IndexInfo> indexes(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LIST_INDEXES_SQL)) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                List<IndexInfo> indexes = new ArrayList<>();
+                while (rs.next()) {
+                    indexes.add(indexInfo(rs));
+                }
+                return indexes;
+            }
+        }
+    }
+
+    /**
+     * 索引和重建状态
+     */
+    public Status status() {
+        return new Status(spec, indexes(), reindexing.get(), changedSinceReindex.get(), lastReindex);
+    }
+
+    /**
+     * 表中 embedding 列的维度，表不存在时返回 0
+     */
+    public static int columnDimensions(JdbcTemplate jdbcTemplate, String table) {
+        List<Integer> typmod = jdbcTemplate.queryForList(
+                "SELECT atttypmod FROM pg_attribute WHERE attrelid = to_regclass(?) AND attname = 'embedding'",
+                Integer.class, table);
+        return typmod.isEmpty() ? 0 : Math.max(0, typmod.getFirst());
+    }
+
+    private Map<String, Object> parseMetadata(String json) {
+        if (json == null || json.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (Exception e) {
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private static boolean tryLock(Connection connection, String key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+            statement.setString(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection, String key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+            statement.setString(1, key);
+            statement.execute();
+        }
+    }
+
+    private static IndexInfo indexInfo(ResultSet rs) throws SQLException {
+        return new IndexInfo(rs.getString(1), rs.getString(2), rs.getBoolean(3), rs.getLong(4));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 向量列上的一个索引
+     */
+    public record IndexInfo(String name, String definition, boolean valid, long sizeBytes) {
+    }
+
+    /**
+     * 一次重建的结果
+     *
+     * @param outcome success、skipped（其他实例在重建）或 error
+     */
+    public record ReindexRun(String reason, String outcome, Instant startedAt, long elapsedMillis, String error) {
+    }
+
+    public record Status(VectorIndexSpec spec, List<IndexInfo> indexes, boolean reindexing, long changedSinceReindex,
+                         ReindexRun lastReindex) {
+    }
+}
@@ -0,0 +1,165 @@
+package io.zhijun.spring.ai.vector;
+
+import io.zhijun.spring.ai.config.VectorIndexProperties;
+
+import java.util.Locale;
+
+/**
+ * 期望的向量索引
+ * 生成建索引语句，并判断数据库中已有的索引定义是否与之一致
+ * <p>
+ * 量化时索引建在表达式上：halfvec 为 (embedding::halfvec(n))，binary 为 (binary_quantize(embedding)::bit(n))，
+ * 表中仍保存完整精度的向量，检索先按量化距离取候选，再用完整向量重新排序
+ *
+ * @param type             hnsw 或 ivfflat
+ * @param operatorClass    与距离类型（和量化方式）对应的操作符类
+ * @param m                HNSW 最大连接数
+ * @param efConstruction   HNSW 构建候选列表大小
+ * @param lists            IVFFlat 聚类数
+ * @param quantization     none、halfvec 或 binary
+ * @param dimensions       向量维度，量化时用于表达式中的类型修饰
+ * @param distanceOperator 完整精度向量的距离运算符，与 PgVectorStore 一致
+ */
+public record VectorIndexSpec(String type, String operatorClass, int m, int efConstruction, int lists,
+                              String quantization, int dimensions, String distanceOperator) {
+
+    public static final String HNSW = "hnsw";
+    public static final String IVFFLAT = "ivfflat";
+
+    public static final String NONE = "none";
+    public static final String HALFVEC = "halfvec";
+    public static final String BINARY = "binary";
+
+    public VectorIndexSpec {
+        type = type.toLowerCase(Locale.ROOT);
+        if (!type.equals(HNSW) && !type.equals(IVFFLAT)) {
+            throw new IllegalArgumentException("不支持的向量索引类型: " + type);
+        }
+        quantization = quantization.toLowerCase(Locale.ROOT);
+        if (!quantization.equals(NONE) && !quantization.equals(HALFVEC) && !quantization.equals(BINARY)) {
+            throw new IllegalArgumentException("不支持的量化方式: " + quantization);
+        }
+        if (!quantization.equals(NONE) && dimensions <= 0) {
+            throw new IllegalArgumentException("量化索引需要确定的向量维度");
+        }
+    }
+
+    /**
+     * 按配置和 spring.ai.vectorstore.pgvector.distance-type 创建，不量化
+     */
+    public static VectorIndexSpec of(VectorIndexProperties properties, String distanceType) {
+        return of(properties, distanceType, 0);
+    }
+
+    /**
+     * 按配置、距离类型和表中 embedding 列的维度创建
+     */
+    public static VectorIndexSpec of(VectorIndexProperties properties, String distanceType, int dimensions) {
+        String quantization = properties.getQuantization().toLowerCase(Locale.ROOT);
+        String operatorClass = switch (quantization) {
+            case HALFVEC -> operatorClass(distanceType).replace("vector_", "halfvec_");
+            case BINARY -> "bit_hamming_ops";
+            default -> operatorClass(distanceType);
+        };
+        return new VectorIndexSpec(properties.getType(), operatorClass, properties.getM(),
+                properties.getEfConstruction(), properties.getLists(), quantization, dimensions,
+                distanceOperator(distanceType));
+    }
+
+    /**
+     * 是否使用量化索引
+     */
+    public boolean quantized() {
+        return !quantization.equals(NONE);
+    }
+
+    /**
+     * 距离类型对应的操作符类，与 PgVectorStore 的查询运算符一致
+     */
+    static String operatorClass(String distanceType) {
+        return switch (distanceType.toUpperCase(Locale.ROOT)) {
+            case "EUCLIDEAN_DISTANCE" -> "vector_l2_ops";
+            case "NEGATIVE_INNER_PRODUCT" -> "vector_ip_ops";
+            case "COSINE_DISTANCE" -> "vector_cosine_ops";
+            default -> throw new IllegalArgumentException("不支持的距离类型: " + distanceType);
+        };
+    }
+
+    static String distanceOperator(String distanceType) {
+        return switch (operatorClass(distanceType)) {
+            case "vector_l2_ops" -> "<->";
+            case "vector_ip_ops" -> "<#>";
+            default -> "<=>";
+        };
+    }
+
+    /**
+     * 索引的列或表达式
+     */
+    String indexedExpression() {
+        return switch (quantization) {
+            case HALFVEC -> "(embedding::halfvec(" + dimensions + "))";
+            case BINARY -> "(binary_quantize(embedding)::bit(" + dimensions + "))";
+            default -> "embedding";
+        };
+    }
+
+    /**
+     * 未量化时的检索语句，与 PgVectorStore 的查询相同，查询向量由调用方事先计算
+     * <p>
+     * 参数依次为：查询向量、[jsonpath 过滤条件]、topK
+     *
+     * @param filtered 是否带元数据过滤条件
+     */
+    public String searchSql(String table, boolean filtered) {
+        return "SELECT id, content, metadata, embedding " + distanceOperator + " ?::vector AS distance FROM " + table
+                + (filtered ? " WHERE metadata::jsonb @@ ?::jsonpath" : "")
+                + " ORDER BY distance LIMIT ?";
+    }
+
+    /**
+     * 量化检索语句：先按量化距离取候选（使用索引），再按完整向量的距离排序
+     * <p>
+     * 参数依次为：查询向量、[jsonpath 过滤条件]、查询向量、候选数、topK
+     *
+     * @param filtered 是否带元数据过滤条件
+     */
+    public String rescoreSql(String table, boolean filtered) {
+        String candidateDistance = quantization.equals(BINARY)
+                ? "binary_quantize(embedding)::bit(" + dimensions + ") <~> binary_quantize(?::vector)"
+                : "embedding::halfvec(" + dimensions + ") " + distanceOperator + " ?::halfvec(" + dimensions + ")";
+        return "SELECT id, content, metadata, embedding " + distanceOperator + " ?::vector AS distance FROM ("
+                + "SELECT id, content, metadata, embedding FROM " + table
+                + (filtered ? " WHERE metadata::jsonb @@ ?::jsonpath" : "")
+                + " ORDER BY " + candidateDistance + " LIMIT ?) candidates ORDER BY distance LIMIT ?";
+    }
+
+    /**
+     * 在线建索引语句，不阻塞写入
+     */
+    public String createSql(String indexName, String table) {
+        String options = type.equals(HNSW)
+                ? "m = " + m + ", ef_construction = " + efConstruction
+                : "lists = " + lists;
+        return "CREATE INDEX CONCURRENTLY " + indexName + " ON " + table + " USING " + type
+                + " (" + indexedExpression() + " " + operatorClass + ") WITH (" + options + ")";
+    }
+
+    /**
+     * 已有索引（pg_get_indexdef 的结果）是否与期望一致
+     * pg_get_indexdef 会给表达式加括号，比较时去掉空格和括号
+     */
+    public boolean matches(String definition) {
+        String normalized = normalize(definition);
+        if (!normalized.contains(normalize("using " + type + " (" + indexedExpression() + " " + operatorClass + ")"))) {
+            return false;
+        }
+        return type.equals(HNSW)
+                ? normalized.contains("m='" + m + "'") && normalized.contains("ef_construction='" + efConstruction + "'")
+                : normalized.contains("lists='" + lists + "'");
+    }
+
+    private static String normalize(String definition) {
+        return definition.toLowerCase(Locale.ROOT).replaceAll("[\\s()]", "");
+    }
+}
@@ -0,0 +1,89 @@
+package io.zhijun.spring.ai.advisor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMetricsAdvisorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testCallRecordsLatencyTokensAndRetrieval() {
+        ChatClient chatClient = ChatClient.builder(new FixedChatModel())
+                .defaultAdvisors(new ChatMetricsAdvisor(meterRegistry, "test", "rag"),
+                        ChatMetricsAdvisor.retrievalStart(-1),
+                        ChatMetricsAdvisor.retrievalEnd(1))
+                .build();
+
+        String answer = chatClient.prompt()
+                .user("推荐一家川菜馆")
+                .advisors(a -> a.param(ChatMetricsAdvisor.ENDPOINT, "/api/chat"))
+                .call()
+                .content();
+
+        assertEquals("全聚德", answer);
+        assertEquals(1, meterRegistry.get("restaurant.ai.chat.latency")
+                .tags("endpoint", "/api/chat", "model", "fake-model", "profile", "test", "mode", "call", "outcome", "success")
+                .timer().count());
+        assertEquals(12.0, meterRegistry.get("restaurant.ai.chat.tokens").tag("type", "prompt").summary().totalAmount());
+        assertEquals(3.0, meterRegistry.get("restaurant.ai.chat.tokens").tag("type", "completion").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("restaurant.ai.chat.retrieval").timer().count());
+    }
+
+    @Test
+    void testStreamRecordsTimeToFirstToken() throws InterruptedException {
+        ChatClient chatClient = ChatClient.builder(new FixedChatModel())
+                .defaultAdvisors(new ChatMetricsAdvisor(meterRegistry, "test", "rag"))
+                .build();
+
+        List<String> chunks = chatClient.prompt().user("推荐一家川菜馆").stream().content().collectList().block();
+
+        assertEquals(List.of("全", "聚德"), chunks);
+        // doFinally 在下游完成信号之后执行
+        awaitMeter("restaurant.ai.chat.latency");
+        assertEquals(1, meterRegistry.get("restaurant.ai.chat.ttft").tag("endpoint", "unknown").timer().count());
+        assertEquals(3.0, meterRegistry.get("restaurant.ai.chat.tokens").tag("type", "completion").summary().totalAmount());
+    }
+
+    private void awaitMeter(String name) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.find(name).meter() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class FixedChatModel implements ChatModel {
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return response("全聚德", new DefaultUsage(12, 3));
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.just(response("全", null), response("聚德", new DefaultUsage(12, 3)));
+        }
+
+        private static ChatResponse response(String text, DefaultUsage usage) {
+            ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().model("fake-model");
+            if (usage != null) {
+                metadata.usage(usage);
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata.build());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.zhijun.spring.ai.advisor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.content.Media;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingAdvisorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CoalescingAdvisor advisor = new CoalescingAdvisor(meterRegistry);
+
+    @Test
+    void testConcurrentIdenticalCallsShareOneModelCall() throws Exception {
+        SlowChatModel chatModel = new SlowChatModel();
+        ChatClient chatClient = ChatClient.builder(chatModel).defaultAdvisors(advisor).build();
+
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> chatClient.prompt().user("推荐一家川菜馆").call().content()));
+            }
+            // 其余请求都进入等待后再放行模型调用
+            awaitCoalesced(19);
+            chatModel.release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("全聚德", future.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, chatModel.calls.get());
+        assertEquals(19.0, meterRegistry.get("restaurant.ai.coalescing.requests")
+                .tags("target", "chat", "result", "coalesced").counter().count());
+        assertEquals(0.95, meterRegistry.get("restaurant.ai.coalescing.ratio").tag("target", "chat").gauge().value(),
+                1e-9);
+        assertEquals(0.0, meterRegistry.get("restaurant.ai.coalescing.in.flight").gauge().value());
+    }
+
+    @Test
+    void testSequentialCallsAreNotCached() {
+        SlowChatModel chatModel = new SlowChatModel();
+        chatModel.release.countDown();
+        ChatClient chatClient = ChatClient.builder(chatModel).defaultAdvisors(advisor).build();
+
+        chatClient.prompt().user("推荐一家川菜馆").call().content();
+        chatClient.prompt().user("推荐一家川菜馆").call().content();
+
+        assertEquals(2, chatModel.calls.get());
+        assertEquals(0.0, advisor.coalescingRatio());
+    }
+
+    @Test
+    void testKeyCoversMessagesAndOptions() {
+        Prompt base = new Prompt(new UserMessage("推荐一家川菜馆"),
+                ChatOptions.builder().model("m").temperature(0.7).build());
+        Prompt same = new Prompt(new UserMessage("推荐一家川菜馆"),
+                ChatOptions.builder().model("m").temperature(0.7).build());
+        Prompt otherTemperature = new Prompt(new UserMessage("推荐一家川菜馆"),
+                ChatOptions.builder().model("m").temperature(0.2).build());
+        Prompt otherText = new Prompt(new UserMessage("推荐一家粤菜馆"),
+                ChatOptions.builder().model("m").temperature(0.7).build());
+
+        assertEquals(CoalescingAdvisor.key(base), CoalescingAdvisor.key(same));
+        assertNotEquals(CoalescingAdvisor.key(base), CoalescingAdvisor.key(otherTemperature));
+        assertNotEquals(CoalescingAdvisor.key(base), CoalescingAdvisor.key(otherText));
+    }
+
+    @Test
+    void testKeyCoversOutputFormat() {
+        Prompt prompt = new Prompt(new UserMessage("推荐一家川菜馆"));
+        ChatClientRequest plain = ChatClientRequest.builder().prompt(prompt).build();
+        ChatClientRequest structured = ChatClientRequest.builder()
+                .prompt(prompt)
+                .context(Map.of(ChatClientAttributes.OUTPUT_FORMAT.getKey(), "返回 JSON"))
+                .build();
+
+        assertNotEquals(CoalescingAdvisor.key(plain), CoalescingAdvisor.key(structured));
+    }
+
+    @Test
+    void testRequestsWithMediaAreNotCoalesced() {
+        UserMessage message = UserMessage.builder()
+                .text("这道菜是什么")
+                .media(new Media(MimeTypeUtils.IMAGE_PNG, new ByteArrayResource(new byte[]{1, 2, 3})))
+                .build();
+
+        assertNull(CoalescingAdvisor.key(new Prompt(message)));
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("restaurant.ai.coalescing.requests").tag("result", "coalesced").counter().count()
+                < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class SlowChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("全聚德"))));
+        }
+    }
+}
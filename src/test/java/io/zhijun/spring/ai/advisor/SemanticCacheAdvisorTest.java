@@ -0,0 +1,107 @@
+package io.zhijun.spring.ai.advisor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.cache.SemanticResponseCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.function.FunctionToolCallback;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticCacheAdvisorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountingChatModel chatModel = new CountingChatModel();
+    private final ChatClient chatClient = ChatClient.builder(chatModel)
+            .defaultAdvisors(new SemanticCacheAdvisor(new LengthEmbeddingModel(),
+                    new SemanticResponseCache(0.9, Duration.ofMinutes(30), 100), meterRegistry))
+            .build();
+
+    @Test
+    void testRepeatedQuestionIsServedFromCache() {
+        assertEquals("回答 1", chatClient.prompt().user("推荐一家川菜馆").call().content());
+        assertEquals("回答 1", chatClient.prompt().user("推荐一家川菜馆").call().content());
+
+        assertEquals(1, chatModel.calls.get());
+    }
+
+    @Test
+    void testConversationRequestsBypassCache() {
+        chatClient.prompt().user("推荐一家川菜馆").call().content();
+
+        String answer = chatClient.prompt()
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, "c1"))
+                .user("推荐一家川菜馆")
+                .call()
+                .content();
+        chatClient.prompt()
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, "c2"))
+                .user("推荐一家川菜馆")
+                .call()
+                .content();
+
+        assertEquals("回答 2", answer);
+        assertEquals(3, chatModel.calls.get());
+    }
+
+    @Test
+    void testRequestsWithToolsBypassCache() {
+        ToolCallback tool = FunctionToolCallback.builder("getWeather", (String location) -> "晴")
+                .description("查询天气")
+                .inputType(String.class)
+                .build();
+
+        chatClient.prompt().user("今天适合户外用餐吗").toolCallbacks(tool).call().content();
+        String answer = chatClient.prompt().user("今天适合户外用餐吗").toolCallbacks(tool).call().content();
+
+        assertEquals("回答 2", answer);
+        assertEquals(2, chatModel.calls.get());
+    }
+
+    private static class CountingChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("回答 " + calls.incrementAndGet()))));
+        }
+    }
+
+    /**
+     * 相同文本得到相同向量
+     */
+    private static class LengthEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                results.add(new Embedding(new float[]{text.length(), 1}, results.size()));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package io.zhijun.spring.ai.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.cache.SemanticResponseCache;
+import io.zhijun.spring.ai.config.ChatConfig;
+import io.zhijun.spring.ai.config.SemanticCacheProperties;
+import io.zhijun.spring.ai.memory.TokenWindowChatMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatClient 配置档基准测试
+ * 用 {@link ChatConfig} 中的真实 Advisor 链，对比结构化输出类调用走纯模型配置档与走 RAG(+记忆) 配置档的
+ * 单次调用耗时和提示词 token 数
+ * <p>
+ * 模型、向量化和向量库均为进程内替身：remoteLatencyMillis 模拟向量化和向量检索各一次远程往返的耗时，
+ * 为 0 时只衡量 Advisor 链本身的开销；模型推理耗时不模拟，提示词 token 数在 main 方法中单独打印
+ * <p>
+ * 运行方式：./mvnw test-compile 后在 IDE 中执行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatClientProfileBenchmark {
+
+    static final String REVIEW_PROMPT = """
+            请分析以下餐厅评论的情感倾向，返回JSON格式结果：
+            评论内容: 宫保鸡丁味道很正宗，就是等位时间有点长。
+            """;
+
+    @Param({"pure", "rag", "ragMemory"})
+    private String profile;
+
+    @Param({"0", "10"})
+    private long remoteLatencyMillis;
+
+    private ChatClient chatClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        chatClient = Fixture.create(remoteLatencyMillis).client(profile);
+    }
+
+    @Benchmark
+    public String call() {
+        return Fixture.call(chatClient);
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Fixture fixture = Fixture.create(0);
+        for (String profile : List.of("pure", "rag", "ragMemory")) {
+            ChatClient client = fixture.client(profile);
+            // 先调用若干次让会话记忆达到稳定窗口
+            for (int i = 0; i < 20; i++) {
+                Fixture.call(client);
+            }
+            System.out.printf("%-10s prompt tokens per call: %d%n", profile, fixture.chatModel.lastPromptTokens);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(ChatClientProfileBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * 基准测试夹具，按 ChatConfig 的配置构建各配置档
+     */
+    static final class Fixture {
+
+        final CountingChatModel chatModel = new CountingChatModel();
+        private final ChatConfig chatConfig = new ChatConfig();
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final StandardEnvironment environment = new StandardEnvironment();
+        private final EmbeddingModel embeddingModel;
+        private final VectorStore vectorStore;
+        private final SemanticCacheProperties cacheProperties = new SemanticCacheProperties();
+        private final SemanticResponseCache cache;
+        private final ChatMemory chatMemory = new TokenWindowChatMemory(new InMemoryChatMemoryRepository(),
+                new JTokkitTokenCountEstimator(), 20, 2000);
+
+        private Fixture(long remoteLatencyMillis) throws IOException {
+            this.embeddingModel = new SlowEmbeddingModel(remoteLatencyMillis);
+            this.vectorStore = new FixedVectorStore(embeddingModel, knowledgeChunks(), remoteLatencyMillis);
+            // 相同问题会命中语义缓存，基准测试中关闭以测量完整链路
+            this.cacheProperties.setEnabled(false);
+            this.cache = chatConfig.semanticResponseCache(cacheProperties);
+        }
+
+        static Fixture create(long remoteLatencyMillis) throws IOException {
+            return new Fixture(remoteLatencyMillis);
+        }
+
+        ChatClient client(String profile) {
+            return switch (profile) {
+                case "pure" -> chatConfig.pureChatClient(ChatClient.builder(chatModel), meterRegistry, environment);
+                case "rag" -> chatConfig.ragChatClient(ChatClient.builder(chatModel), vectorStore, embeddingModel,
+                        cache, cacheProperties, meterRegistry, environment);
+                case "ragMemory" -> chatConfig.ragMemoryChatClient(ChatClient.builder(chatModel), chatMemory,
+                        vectorStore, embeddingModel, cache, cacheProperties, meterRegistry, environment);
+                default -> throw new IllegalArgumentException(profile);
+            };
+        }
+
+        static String call(ChatClient client) {
+            return client.prompt()
+                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, "benchmark"))
+                    .user(REVIEW_PROMPT)
+                    .call()
+                    .content();
+        }
+
+        private static List<Document> knowledgeChunks() throws IOException {
+            try (InputStream in = ChatClientProfileBenchmark.class.getResourceAsStream("/restaurant-knowledge.txt")) {
+                String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                List<Document> chunks = new ArrayList<>();
+                for (String section : text.split("\n## ")) {
+                    chunks.add(new Document(section));
+                }
+                return chunks;
+            }
+        }
+    }
+
+    /**
+     * 记录提示词 token 数并返回固定回答的模型替身
+     */
+    static final class CountingChatModel implements ChatModel {
+
+        private final TokenCountEstimator estimator = new JTokkitTokenCountEstimator();
+        volatile int lastPromptTokens;
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            lastPromptTokens = prompt.getInstructions().stream()
+                    .mapToInt(message -> estimator.estimate(message.getText()))
+                    .sum();
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(
+                    "{\"sentiment\":\"positive\",\"score\":0.8,\"emotions\":[\"满意\"],\"summary\":\"菜品正宗但等位较久\"}"))));
+        }
+    }
+
+    /**
+     * 模拟一次远程往返的向量化替身
+     */
+    private static final class SlowEmbeddingModel implements EmbeddingModel {
+
+        private final long latencyMillis;
+
+        private SlowEmbeddingModel(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            pause(latencyMillis);
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(new float[]{text.length(), text.hashCode()}, embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    }
+
+    /**
+     * 先向量化查询再返回前 topK 个知识片段的向量库替身
+     */
+    private static final class FixedVectorStore implements VectorStore {
+
+        private final EmbeddingModel embeddingModel;
+        private final List<Document> documents;
+        private final long latencyMillis;
+
+        private FixedVectorStore(EmbeddingModel embeddingModel, List<Document> documents, long latencyMillis) {
+            this.embeddingModel = embeddingModel;
+            this.documents = documents;
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            embeddingModel.embed(request.getQuery());
+            pause(latencyMillis);
+            return documents.subList(0, Math.min(request.getTopK(), documents.size()));
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.zhijun.spring.ai.benchmark;
+
+import io.zhijun.spring.ai.search.Bm25Index;
+import io.zhijun.spring.ai.search.HybridScoreFusion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 混合搜索融合阶段基准测试
+ * 对比原实现（indexOf/contains 线性查找 + 全量排序）与单遍融合 + 有界堆
+ * <p>
+ * 运行方式：./mvnw test-compile 后在 IDE 中执行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HybridFusionBenchmark {
+
+    private static final int TOP_K = 10;
+    private static final double KEYWORD_WEIGHT = 0.3;
+
+    @Param({"50", "500", "5000"})
+    private int candidates;
+
+    private List<Document> vectorResults;
+    private List<Bm25Index.Hit> keywordHits;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        vectorResults = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            vectorResults.add(Document.builder()
+                    .id("doc-" + i)
+                    .text("餐厅介绍 " + i + " 北京 川菜 火锅 烤鸭 价格 环境 服务")
+                    .score(1.0 - i / (double) candidates)
+                    .build());
+        }
+        // 一半关键词命中与向量结果重叠
+        keywordHits = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            Document doc = i % 2 == 0
+                    ? vectorResults.get(random.nextInt(candidates))
+                    : new Document("kw-" + i, "关键词文档 " + i, Map.of());
+            keywordHits.add(new Bm25Index.Hit(doc, random.nextFloat() * 10));
+        }
+    }
+
+    @Benchmark
+    public List<Document> singlePassFusion() {
+        return HybridScoreFusion.fuse(vectorResults, keywordHits, KEYWORD_WEIGHT, TOP_K);
+    }
+
+    @Benchmark
+    public List<Document> legacyFusion() {
+        List<Document> keywordResults = keywordHits.stream()
+                .map(Bm25Index.Hit::document)
+                .collect(Collectors.toList());
+
+        Map<String, Document> docMap = new HashMap<>();
+        for (Document doc : vectorResults) {
+            docMap.putIfAbsent(doc.getId(), doc);
+        }
+        for (Document doc : keywordResults) {
+            docMap.putIfAbsent(doc.getId(), doc);
+        }
+
+        return docMap.values().stream()
+                .map(doc -> {
+                    int index = vectorResults.indexOf(doc);
+                    double vectorScore = index == -1 ? 0.0 : 1.0 - (index * 0.1);
+                    double keywordScore = keywordResults.contains(doc) ? 1.0 : 0.0;
+                    return Map.entry(doc, (1 - KEYWORD_WEIGHT) * vectorScore + KEYWORD_WEIGHT * keywordScore);
+                })
+                .sorted(Map.Entry.<Document, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_K)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HybridFusionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,367 @@
+package io.zhijun.spring.ai.benchmark;
+
+import io.zhijun.spring.ai.config.VectorIndexProperties;
+import io.zhijun.spring.ai.vector.VectorIndexSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 量化检索基准测试：召回率与延迟
+ * 在进程内用与 pgvector 相同的量化方式（halfvec 半精度、binary_quantize 符号位 + 汉明距离）扫描全部向量取候选，
+ * 再用完整精度向量重排，对比不量化的精确检索；recall@10 和每个向量占用的字节数在准备阶段打印。
+ * 合成语料中有完全相同的向量，召回按相似度计算：不低于精确检索第 10 名的结果都算命中
+ * <p>
+ * 运行方式：./mvnw test-compile 后在 IDE 中执行 main 方法；
+ * 设置 -Dbenchmark.pgvector.url=jdbc:postgresql://localhost:5432/postgres 时同时用 {@link VectorIndexSpec}
+ * 生成的索引和重排 SQL 测试 pgvector（会创建并删除临时表）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QuantizedSearchBenchmark {
+
+    /**
+     * 与 mxbai-embed-large 相同
+     */
+    private static final int DIMENSIONS = 1024;
+    private static final int TOP_K = 10;
+    private static final int QUERIES = 100;
+    private static final String PGVECTOR_URL = "benchmark.pgvector.url";
+
+    @Param({"10000", "50000"})
+    private int size;
+
+    @Param({"none", "halfvec", "binary"})
+    private String quantization;
+
+    @Param({"1", "4", "10"})
+    private int rescoreFactor;
+
+    private float[][] vectors;
+    private short[][] halfvecs;
+    private long[][] bits;
+    private float[][] queries;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        RestaurantCorpus corpus = RestaurantCorpus.load();
+        vectors = new float[size][];
+        for (int i = 0; i < size; i++) {
+            vectors[i] = normalize(RestaurantCorpus.embed(corpus.document(random), DIMENSIONS));
+        }
+        queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = normalize(RestaurantCorpus.embed(corpus.query(random), DIMENSIONS));
+        }
+        int bytesPerVector = switch (quantization) {
+            case VectorIndexSpec.HALFVEC -> {
+                halfvecs = new short[size][];
+                for (int i = 0; i < size; i++) {
+                    halfvecs[i] = toHalfvec(vectors[i]);
+                }
+                yield DIMENSIONS * Short.BYTES;
+            }
+            case VectorIndexSpec.BINARY -> {
+                bits = new long[size][];
+                for (int i = 0; i < size; i++) {
+                    bits[i] = toBits(vectors[i]);
+                }
+                yield DIMENSIONS / Byte.SIZE;
+            }
+            default -> DIMENSIONS * Float.BYTES;
+        };
+
+        int found = 0;
+        for (float[] query : queries) {
+            found += hits(query, search(query));
+        }
+        System.out.printf("%n[%s] size=%d rescoreFactor=%d bytes/vector=%d recall@10=%.4f%n", quantization, size,
+                rescoreFactor, bytesPerVector, found / (double) (QUERIES * TOP_K));
+    }
+
+    @Benchmark
+    public int[] quantizedSearch() {
+        return search(randomQuery());
+    }
+
+    @Benchmark
+    public List<Integer> pgvectorSearch(PgVectorState pgvector) throws SQLException {
+        return pgvector.search(randomQuery());
+    }
+
+    private float[] randomQuery() {
+        return queries[ThreadLocalRandom.current().nextInt(QUERIES)];
+    }
+
+    /**
+     * 量化距离取 topK × rescoreFactor 个候选，完整精度重排
+     */
+    int[] search(float[] query) {
+        if (VectorIndexSpec.NONE.equals(quantization)) {
+            return exact(query, TOP_K);
+        }
+        int candidateCount = TOP_K * rescoreFactor;
+        int[] candidates;
+        if (VectorIndexSpec.HALFVEC.equals(quantization)) {
+            short[] half = toHalfvec(query);
+            candidates = topK(size, candidateCount, node -> -halfvecDot(halfvecs[node], half));
+        } else {
+            long[] queryBits = toBits(query);
+            candidates = topK(size, candidateCount, node -> hamming(bits[node], queryBits));
+        }
+        int[] rescored = topK(candidates.length, TOP_K, i -> -dot(vectors[candidates[i]], query));
+        for (int i = 0; i < rescored.length; i++) {
+            rescored[i] = candidates[rescored[i]];
+        }
+        return rescored;
+    }
+
+    private int[] exact(float[] query, int k) {
+        return topK(size, k, node -> -dot(vectors[node], query));
+    }
+
+    /**
+     * pgvector 对照组：索引和检索语句都由 VectorIndexSpec 生成
+     */
+    @State(Scope.Benchmark)
+    public static class PgVectorState {
+
+        private static final String TABLE = "quantized_search_benchmark";
+
+        private Connection connection;
+        private PreparedStatement query;
+        private VectorIndexSpec spec;
+        private int candidates;
+
+        @Setup(Level.Trial)
+        public void setUp(QuantizedSearchBenchmark benchmark) throws SQLException {
+            String url = System.getProperty(PGVECTOR_URL);
+            if (url == null) {
+                throw new IllegalStateException("未设置 -D" + PGVECTOR_URL);
+            }
+            VectorIndexProperties properties = new VectorIndexProperties();
+            properties.setQuantization(benchmark.quantization);
+            spec = VectorIndexSpec.of(properties, "COSINE_DISTANCE", DIMENSIONS);
+            candidates = TOP_K * benchmark.rescoreFactor;
+
+            connection = DriverManager.getConnection(url, System.getProperty("benchmark.pgvector.user", "postgres"),
+                    System.getProperty("benchmark.pgvector.password", "postgres"));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+                statement.execute("DROP TABLE IF EXISTS " + TABLE);
+                statement.execute("CREATE TABLE " + TABLE + " (id int PRIMARY KEY, content text, metadata json, "
+                        + "embedding vector(" + DIMENSIONS + "))");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO " + TABLE + " (id, content, metadata, embedding) VALUES (?, '', '{}', ?::vector)")) {
+                for (int i = 0; i < benchmark.vectors.length; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, RestaurantCorpus.literal(benchmark.vectors[i]));
+                    insert.addBatch();
+                    if (i % 1000 == 999) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                // CONCURRENTLY 在空闲的临时表上没有意义
+                statement.execute(spec.createSql(TABLE + "_embedding_idx", TABLE).replace(" CONCURRENTLY", ""));
+                statement.execute("ANALYZE " + TABLE);
+                statement.execute("SET hnsw.ef_search = " + Math.min(1000, Math.max(40, candidates)));
+                try (ResultSet size = statement.executeQuery(
+                        "SELECT pg_relation_size('" + TABLE + "_embedding_idx')")) {
+                    size.next();
+                    System.out.printf("%n[pgvector %s] index size=%d MB%n", spec.quantization(),
+                            size.getLong(1) >> 20);
+                }
+            }
+            query = connection.prepareStatement(spec.quantized()
+                    ? spec.rescoreSql(TABLE, false)
+                    : "SELECT id FROM " + TABLE + " ORDER BY embedding <=> ?::vector LIMIT " + TOP_K);
+
+            int found = 0;
+            for (float[] vector : benchmark.queries) {
+                found += benchmark.hits(vector, search(vector).stream().mapToInt(Integer::intValue).toArray());
+            }
+            System.out.printf("[pgvector %s] size=%d rescoreFactor=%d recall@10=%.4f%n", spec.quantization(),
+                    benchmark.size, benchmark.rescoreFactor, found / (double) (QUERIES * TOP_K));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            }
+            connection.close();
+        }
+
+        synchronized List<Integer> search(float[] vector) throws SQLException {
+            String literal = RestaurantCorpus.literal(vector);
+            query.setString(1, literal);
+            if (spec.quantized()) {
+                query.setString(2, literal);
+                query.setInt(3, candidates);
+                query.setInt(4, TOP_K);
+            }
+            List<Integer> ids = new ArrayList<>(TOP_K);
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    ids.add(rows.getInt(1));
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * 按 score 升序取前 k 个编号
+     */
+    private static int[] topK(int count, int k, NodeScore score) {
+        PriorityQueue<Candidate> worst = new PriorityQueue<>(k + 1,
+                (a, b) -> Double.compare(b.score(), a.score()));
+        for (int node = 0; node < count; node++) {
+            double value = score.score(node);
+            if (worst.size() < k) {
+                worst.add(new Candidate(node, value));
+            } else if (value < worst.peek().score()) {
+                worst.poll();
+                worst.add(new Candidate(node, value));
+            }
+        }
+        int[] nodes = new int[worst.size()];
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            nodes[i] = worst.poll().node();
+        }
+        return nodes;
+    }
+
+    @FunctionalInterface
+    private interface NodeScore {
+        double score(int node);
+    }
+
+    private record Candidate(int node, double score) {
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float halfvecDot(short[] a, short[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Float.float16ToFloat(a[i]) * Float.float16ToFloat(b[i]);
+        }
+        return sum;
+    }
+
+    private static int hamming(long[] a, long[] b) {
+        int distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            distance += Long.bitCount(a[i] ^ b[i]);
+        }
+        return distance;
+    }
+
+    private static short[] toHalfvec(float[] vector) {
+        short[] half = new short[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            half[i] = Float.floatToFloat16(vector[i]);
+        }
+        return half;
+    }
+
+    /**
+     * 与 binary_quantize 一致：大于 0 的分量为 1
+     */
+    private static long[] toBits(float[] vector) {
+        long[] bits = new long[(vector.length + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] > 0) {
+                bits[i / Long.SIZE] |= 1L << (i % Long.SIZE);
+            }
+        }
+        return bits;
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(dot(vector, vector));
+        if (norm > 0) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] /= norm;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * 结果中相似度不低于精确检索第 k 名的个数
+     */
+    private int hits(float[] query, int[] found) {
+        int[] exact = exact(query, TOP_K);
+        float threshold = dot(vectors[exact[exact.length - 1]], query) - 1e-6f;
+        int count = 0;
+        for (int node : found) {
+            if (dot(vectors[node], query) >= threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(QuantizedSearchBenchmark.class.getSimpleName());
+        if (System.getProperty(PGVECTOR_URL) == null) {
+            options.exclude("pgvectorSearch");
+        } else {
+            // 连接参数传给 fork 出的 JVM
+            for (String key : List.of(PGVECTOR_URL, "benchmark.pgvector.user", "benchmark.pgvector.password")) {
+                if (System.getProperty(key) != null) {
+                    options.jvmArgsAppend("-D" + key + "=" + System.getProperty(key));
+                }
+            }
+        }
+        new Runner(options.build()).run();
+    }
+}
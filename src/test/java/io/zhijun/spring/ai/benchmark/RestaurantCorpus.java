@@ -0,0 +1,105 @@
+package io.zhijun.spring.ai.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * 向量检索基准测试的合成语料
+ * 由 restaurant-knowledge.txt 的餐厅条目随机重组放大，向量由汉字二元组确定性生成，保证结果可复现且不依赖嵌入服务
+ */
+final class RestaurantCorpus {
+
+    private static final List<String> CITIES = List.of("北京", "上海", "广州", "深圳", "成都", "重庆", "武汉", "杭州",
+            "南京", "西安", "长沙", "天津");
+
+    private final List<List<String>> restaurants;
+
+    private RestaurantCorpus(List<List<String>> restaurants) {
+        this.restaurants = restaurants;
+    }
+
+    /**
+     * 按“## 餐厅名”切分知识库，每个餐厅保留名称和各字段行
+     */
+    static RestaurantCorpus load() throws IOException {
+        String text;
+        try (InputStream in = RestaurantCorpus.class.getResourceAsStream("/restaurant-knowledge.txt")) {
+            if (in == null) {
+                throw new IllegalStateException("找不到 restaurant-knowledge.txt");
+            }
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<List<String>> restaurants = new ArrayList<>();
+        List<String> current = null;
+        for (String line : text.split("\\R")) {
+            if (line.startsWith("## ")) {
+                current = new ArrayList<>();
+                current.add(line.substring(3));
+                restaurants.add(current);
+            } else if (line.startsWith("- ") && current != null) {
+                current.add(line.substring(2));
+            }
+        }
+        return new RestaurantCorpus(restaurants);
+    }
+
+    /**
+     * 以一个餐厅为骨架，替换城市并混入其他餐厅的字段
+     */
+    String document(Random random) {
+        List<String> base = restaurants.get(random.nextInt(restaurants.size()));
+        String city = CITIES.get(random.nextInt(CITIES.size()));
+        StringBuilder text = new StringBuilder(city).append(base.getFirst());
+        for (int field = 1; field < base.size(); field++) {
+            List<String> source = random.nextInt(3) == 0 ? restaurants.get(random.nextInt(restaurants.size())) : base;
+            text.append('\n').append(source.get(Math.min(field, source.size() - 1)).replace("北京", city));
+        }
+        return text.toString();
+    }
+
+    /**
+     * 城市加一个字段作为查询
+     */
+    String query(Random random) {
+        List<String> restaurant = restaurants.get(random.nextInt(restaurants.size()));
+        return CITIES.get(random.nextInt(CITIES.size())) + " " + restaurant.get(random.nextInt(restaurant.size()));
+    }
+
+    /**
+     * 汉字二元组的随机索引向量：每个二元组对应一个由其哈希确定的 ±1 稠密向量，文本向量为其和。
+     * 与真实嵌入一样各维都有取值，二元组重叠越多越相似
+     */
+    static float[] embed(String text, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i + 1 < text.length(); i++) {
+            SplittableRandom random = new SplittableRandom(text.charAt(i) * 65_537L + text.charAt(i + 1));
+            long signs = 0;
+            for (int d = 0; d < dimensions; d++) {
+                if (d % Long.SIZE == 0) {
+                    signs = random.nextLong();
+                }
+                vector[d] += (signs >>> (d % Long.SIZE) & 1) == 0 ? 1 : -1;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * pgvector 的文本格式
+     */
+    static String literal(float[] vector) {
+        StringBuilder text = new StringBuilder(vector.length * 8).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(vector[i]);
+        }
+        return text.append(']').toString();
+    }
+}
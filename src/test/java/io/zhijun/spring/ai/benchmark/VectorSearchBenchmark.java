@@ -0,0 +1,239 @@
+package io.zhijun.spring.ai.benchmark;
+
+import io.zhijun.spring.ai.vector.HnswGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量检索基准测试
+ * 对比进程内 HNSW、精确检索和 pgvector HNSW 的吞吐量（QPS），召回率（recall@10，以精确检索为基准）在准备阶段打印
+ * <p>
+ * 语料见 {@link RestaurantCorpus}
+ * <p>
+ * 运行方式：./mvnw test-compile 后在 IDE 中执行 main 方法；
+ * 设置 -Dbenchmark.pgvector.url=jdbc:postgresql://localhost:5432/postgres 时同时测试 pgvector（会创建并删除临时表）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class VectorSearchBenchmark {
+
+    private static final int DIMENSIONS = 256;
+    private static final int TOP_K = 10;
+    private static final int QUERIES = 200;
+    private static final String PGVECTOR_URL = "benchmark.pgvector.url";
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    @Param({"40", "100"})
+    private int efSearch;
+
+    private HnswGraph graph;
+    private float[][] vectors;
+    private float[][] queries;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        RestaurantCorpus corpus = RestaurantCorpus.load();
+        vectors = new float[size][];
+        graph = new HnswGraph(DIMENSIONS, 16, 100, 42);
+        for (int i = 0; i < size; i++) {
+            vectors[i] = RestaurantCorpus.embed(corpus.document(random), DIMENSIONS);
+            graph.add(vectors[i]);
+        }
+        queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = RestaurantCorpus.embed(corpus.query(random), DIMENSIONS);
+        }
+
+        int found = 0;
+        for (float[] query : queries) {
+            found += overlap(ids(graph.exactSearch(query, TOP_K, null)), ids(graph.search(query, TOP_K, efSearch, null)));
+        }
+        System.out.printf("%n[hnsw] size=%d efSearch=%d recall@10=%.4f%n", size, efSearch,
+                found / (double) (QUERIES * TOP_K));
+    }
+
+    @Benchmark
+    public List<HnswGraph.Hit> hnswSearch() {
+        return graph.search(randomQuery(), TOP_K, efSearch, null);
+    }
+
+    @Benchmark
+    public List<HnswGraph.Hit> exactSearch() {
+        return graph.exactSearch(randomQuery(), TOP_K, null);
+    }
+
+    @Benchmark
+    public List<Integer> pgvectorSearch(PgVectorState pgvector) throws SQLException {
+        return pgvector.search(randomQuery());
+    }
+
+    private float[] randomQuery() {
+        return queries[ThreadLocalRandom.current().nextInt(QUERIES)];
+    }
+
+    /**
+     * pgvector 对照组，每个线程一个连接，表按 size 建立一次
+     */
+    @State(Scope.Thread)
+    public static class PgVectorState {
+
+        private static final String TABLE = "vector_search_benchmark";
+
+        private Connection connection;
+        private PreparedStatement query;
+
+        @Setup(Level.Trial)
+        public void setUp(VectorSearchBenchmark benchmark) throws SQLException {
+            String url = System.getProperty(PGVECTOR_URL);
+            if (url == null) {
+                throw new IllegalStateException("未设置 -D" + PGVECTOR_URL);
+            }
+            connection = DriverManager.getConnection(url, System.getProperty("benchmark.pgvector.user", "postgres"),
+                    System.getProperty("benchmark.pgvector.password", "postgres"));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET hnsw.ef_search = " + benchmark.efSearch);
+            }
+            query = connection.prepareStatement(
+                    "SELECT id FROM " + TABLE + " ORDER BY embedding <=> ?::vector LIMIT " + TOP_K);
+            synchronized (PgVectorState.class) {
+                load(benchmark);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            synchronized (PgVectorState.class) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE IF EXISTS " + TABLE);
+                }
+            }
+            connection.close();
+        }
+
+        List<Integer> search(float[] vector) throws SQLException {
+            query.setString(1, RestaurantCorpus.literal(vector));
+            List<Integer> ids = new ArrayList<>(TOP_K);
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    ids.add(rows.getInt(1));
+                }
+            }
+            return ids;
+        }
+
+        /**
+         * 第一个线程建表、写入并建索引，随后打印 pgvector 的召回率
+         */
+        private void load(VectorSearchBenchmark benchmark) throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet existing = statement.executeQuery("SELECT to_regclass('" + TABLE + "') IS NOT NULL")) {
+                existing.next();
+                if (existing.getBoolean(1)) {
+                    return;
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+                statement.execute("CREATE TABLE " + TABLE + " (id int PRIMARY KEY, embedding vector("
+                        + DIMENSIONS + "))");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO " + TABLE + " (id, embedding) VALUES (?, ?::vector)")) {
+                for (int i = 0; i < benchmark.vectors.length; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, RestaurantCorpus.literal(benchmark.vectors[i]));
+                    insert.addBatch();
+                    if (i % 1000 == 999) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE INDEX ON " + TABLE
+                        + " USING hnsw (embedding vector_cosine_ops) WITH (m = 16, ef_construction = 100)");
+                statement.execute("ANALYZE " + TABLE);
+            }
+            int found = 0;
+            for (float[] vector : benchmark.queries) {
+                Set<Integer> exact = ids(benchmark.graph.exactSearch(vector, TOP_K, null));
+                found += overlap(exact, new HashSet<>(search(vector)));
+            }
+            System.out.printf("%n[pgvector] size=%d efSearch=%d recall@10=%.4f%n", benchmark.size,
+                    benchmark.efSearch, found / (double) (QUERIES * TOP_K));
+        }
+    }
+
+    private static Set<Integer> ids(List<HnswGraph.Hit> hits) {
+        Set<Integer> ids = new HashSet<>();
+        hits.forEach(hit -> ids.add(hit.node()));
+        return ids;
+    }
+
+    private static int overlap(Set<Integer> exact, Set<Integer> found) {
+        int count = 0;
+        for (Integer id : found) {
+            if (exact.contains(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(VectorSearchBenchmark.class.getSimpleName());
+        if (System.getProperty(PGVECTOR_URL) == null) {
+            options.exclude("pgvectorSearch");
+        } else {
+            // 连接参数传给 fork 出的 JVM
+            for (String key : List.of(PGVECTOR_URL, "benchmark.pgvector.user", "benchmark.pgvector.password")) {
+                if (System.getProperty(key) != null) {
+                    options.jvmArgsAppend("-D" + key + "=" + System.getProperty(key));
+                }
+            }
+        }
+        new Runner(options.build()).run();
+    }
+}
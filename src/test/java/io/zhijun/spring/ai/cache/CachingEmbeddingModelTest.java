@@ -0,0 +1,101 @@
+package io.zhijun.spring.ai.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingEmbeddingModelTest {
+
+    private final CountingEmbeddingModel delegate = new CountingEmbeddingModel();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testRepeatedTextIsEmbeddedOnce() {
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, "test", 100, () -> null, () -> meterRegistry);
+
+        float[] first = model.embed("北京川菜推荐");
+        float[] second = model.embed("北京川菜推荐");
+
+        assertArrayEquals(first, second, 0f);
+        assertEquals(List.of("北京川菜推荐"), delegate.embedded);
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.embedding.cache").tag("result", "memory").counter().count());
+    }
+
+    @Test
+    void testBatchOnlyEmbedsMissingAndDuplicateTextsOnce() {
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, "test", 100, () -> null, () -> meterRegistry);
+        model.embed("火锅");
+
+        List<float[]> embeddings = model.embed(List.of("火锅", "烤鸭", "烤鸭", "早茶"));
+
+        assertEquals(4, embeddings.size());
+        assertEquals(List.of("火锅", "烤鸭", "早茶"), delegate.embedded);
+        assertArrayEquals(embeddings.get(1), embeddings.get(2), 0f);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, "test", 1, () -> null, () -> meterRegistry);
+
+        model.embed("火锅");
+        model.embed("烤鸭");
+        model.embed("火锅");
+
+        assertEquals(List.of("火锅", "烤鸭", "火锅"), delegate.embedded);
+    }
+
+    @Test
+    void testUnavailableDiskStoreFallsBackToDelegate() {
+        AtomicInteger attempts = new AtomicInteger();
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, "test", 100, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("permission denied for table embedding_cache");
+        }, () -> meterRegistry);
+
+        float[] first = model.embed("火锅");
+        float[] second = model.embed("烤鸭");
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(List.of("火锅", "烤鸭"), delegate.embedded);
+        // 退避期内不再尝试获取持久化缓存
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        float[] vector = {0.1f, -2.5f, 3.75f};
+
+        assertArrayEquals(vector, EmbeddingCacheStore.decode(EmbeddingCacheStore.encode(vector)), 0f);
+    }
+
+    private static class CountingEmbeddingModel implements EmbeddingModel {
+
+        private final List<String> embedded = new ArrayList<>();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embedded.add(text);
+                results.add(new Embedding(new float[]{text.hashCode(), text.length()}, results.size()));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.zhijun.spring.ai.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingVectorStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testConcurrentIdenticalSearchesShareOneQuery() throws Exception {
+        SlowVectorStore delegate = new SlowVectorStore();
+        CoalescingVectorStore vectorStore = new CoalescingVectorStore(delegate, meterRegistry);
+        SearchRequest request = SearchRequest.builder().query("川菜").topK(5).build();
+
+        List<Future<List<Document>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) {
+                // 每次新建 SearchRequest，按字段相等即可合并
+                futures.add(executor.submit(() -> vectorStore.similaritySearch(
+                        SearchRequest.builder().query("川菜").topK(5).build())));
+            }
+            awaitCoalesced(9);
+            delegate.release.countDown();
+            List<List<Document>> results = new ArrayList<>();
+            for (Future<List<Document>> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, results.getFirst().size());
+            assertNotSame(results.get(0), results.get(1));
+        }
+
+        assertEquals(1, delegate.searches.get());
+        assertEquals(0.9, meterRegistry.get("restaurant.ai.coalescing.ratio").tag("target", "vector-store")
+                .gauge().value(), 1e-9);
+        assertEquals(1, vectorStore.similaritySearch(request).size());
+        assertEquals(2, delegate.searches.get());
+    }
+
+    @Test
+    void testDifferentRequestsAreNotCoalesced() {
+        SlowVectorStore delegate = new SlowVectorStore();
+        delegate.release.countDown();
+        CoalescingVectorStore vectorStore = new CoalescingVectorStore(delegate, meterRegistry);
+
+        vectorStore.similaritySearch(SearchRequest.builder().query("川菜").topK(5).build());
+        vectorStore.similaritySearch(SearchRequest.builder().query("川菜").topK(3).build());
+
+        assertEquals(2, delegate.searches.get());
+    }
+
+    @Test
+    void testWritesAreDelegated() {
+        SlowVectorStore delegate = new SlowVectorStore();
+        CoalescingVectorStore vectorStore = new CoalescingVectorStore(delegate, meterRegistry);
+
+        vectorStore.add(List.of(new Document("麻婆豆腐")));
+        vectorStore.delete(List.of("1"));
+
+        assertEquals(1, delegate.added.get());
+        assertEquals(1, delegate.deleted.get());
+        assertSame(delegate, vectorStore.getDelegate());
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("restaurant.ai.coalescing.requests").tag("result", "coalesced").counter().count()
+                < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class SlowVectorStore implements VectorStore {
+
+        private final AtomicInteger searches = new AtomicInteger();
+        private final AtomicInteger added = new AtomicInteger();
+        private final AtomicInteger deleted = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            searches.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(new Document("麻婆豆腐"));
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+            added.addAndGet(documents.size());
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            deleted.addAndGet(idList.size());
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            deleted.incrementAndGet();
+        }
+    }
+}
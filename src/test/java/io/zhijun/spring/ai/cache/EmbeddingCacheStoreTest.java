@@ -0,0 +1,62 @@
+package io.zhijun.spring.ai.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+class EmbeddingCacheStoreTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("pgvector/pgvector:pg16");
+
+    private EmbeddingCacheStore store;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(),
+                postgres.getUsername(), postgres.getPassword()));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS embedding_cache_test");
+        store = new EmbeddingCacheStore(jdbcTemplate, "embedding_cache_test");
+        store.initializeSchema();
+    }
+
+    @Test
+    void testSavedEmbeddingsAreFoundByHash() {
+        String hotPot = "a".repeat(64);
+        String roastDuck = "b".repeat(64);
+        store.saveAll("model-a", Map.of(hotPot, new float[]{0.1f, -2.5f}, roastDuck, new float[]{3.75f, 0f}));
+
+        Map<String, float[]> found = store.findAll("model-a", List.of(hotPot, roastDuck, "c".repeat(64)));
+
+        assertEquals(2, found.size());
+        assertArrayEquals(new float[]{0.1f, -2.5f}, found.get(hotPot), 0f);
+        assertArrayEquals(new float[]{3.75f, 0f}, found.get(roastDuck), 0f);
+    }
+
+    @Test
+    void testLookupIsScopedByModel() {
+        String hash = "a".repeat(64);
+        store.saveAll("model-a", Map.of(hash, new float[]{1f}));
+
+        assertTrue(store.findAll("model-b", List.of(hash)).isEmpty());
+    }
+
+    @Test
+    void testExistingEntryIsKept() {
+        String hash = "a".repeat(64);
+        store.saveAll("model-a", Map.of(hash, new float[]{1f}));
+        store.saveAll("model-a", Map.of(hash, new float[]{2f}));
+
+        assertArrayEquals(new float[]{1f}, store.findAll("model-a", List.of(hash)).get(hash), 0f);
+    }
+}
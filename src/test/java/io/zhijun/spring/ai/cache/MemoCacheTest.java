@@ -0,0 +1,122 @@
+package io.zhijun.spring.ai.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        MemoCache<String, String> cache = new MemoCache<>("test", Duration.ofMinutes(1), 10, meterRegistry, clock);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.memo.requests").tag("result", "hit").counter().count());
+        assertEquals(2.0, meterRegistry.get("restaurant.ai.memo.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        MemoCache<String, String> cache = new MemoCache<>("test", Duration.ofMinutes(1), 2, meterRegistry, clock);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.getIfPresent("a");
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        MemoCache<String, String> cache = new MemoCache<>("test", Duration.ofMinutes(1), 10, meterRegistry, clock);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                futures.add(executor.submit(() -> cache.get("k", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "v";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("v", future.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testFailedLoadIsSharedAndNotCached() {
+        MemoCache<String, String> cache = new MemoCache<>("test", Duration.ofMinutes(1), 10, meterRegistry, clock);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("模型不可用");
+        }));
+        assertEquals("v", cache.get("k", () -> "v"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
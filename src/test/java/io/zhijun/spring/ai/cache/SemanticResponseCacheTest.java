@@ -0,0 +1,81 @@
+package io.zhijun.spring.ai.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticResponseCacheTest {
+
+    @Test
+    void testLookupHitsSimilarQuestion() {
+        SemanticResponseCache cache = new SemanticResponseCache(0.9, Duration.ofMinutes(5), 10);
+        cache.put("scope", new float[]{1.0f, 0.0f, 0.0f}, "推荐川菜馆");
+
+        assertEquals("推荐川菜馆", cache.lookup("scope", new float[]{0.99f, 0.05f, 0.0f}).orElse(null));
+        assertTrue(cache.lookup("scope", new float[]{0.0f, 1.0f, 0.0f}).isEmpty());
+    }
+
+    @Test
+    void testLookupIsolatedByScope() {
+        SemanticResponseCache cache = new SemanticResponseCache(0.9, Duration.ofMinutes(5), 10);
+        cache.put("zh", new float[]{1.0f, 0.0f}, "中文回答");
+
+        assertTrue(cache.lookup("en", new float[]{1.0f, 0.0f}).isEmpty());
+    }
+
+    @Test
+    void testExpiredEntriesAreRemoved() {
+        MutableClock clock = new MutableClock();
+        SemanticResponseCache cache = new SemanticResponseCache(0.9, Duration.ofSeconds(10), 10, clock);
+        cache.put("scope", new float[]{1.0f, 0.0f}, "回答");
+
+        clock.advance(Duration.ofSeconds(11));
+
+        assertTrue(cache.lookup("scope", new float[]{1.0f, 0.0f}).isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        SemanticResponseCache cache = new SemanticResponseCache(0.99, Duration.ofMinutes(5), 2);
+        cache.put("scope", new float[]{1.0f, 0.0f, 0.0f}, "A");
+        cache.put("scope", new float[]{0.0f, 1.0f, 0.0f}, "B");
+
+        // 访问 A 之后再写入 C，应淘汰 B
+        assertTrue(cache.lookup("scope", new float[]{1.0f, 0.0f, 0.0f}).isPresent());
+        cache.put("scope", new float[]{0.0f, 0.0f, 1.0f}, "C");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.lookup("scope", new float[]{0.0f, 1.0f, 0.0f}).isEmpty());
+        assertEquals("A", cache.lookup("scope", new float[]{1.0f, 0.0f, 0.0f}).orElse(null));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.zhijun.spring.ai.catalog;
+
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.Restaurant;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试用的目录存储，记录查询次数
+ */
+public class InMemoryCatalogRepository implements CatalogRepository {
+
+    private final Map<Long, Restaurant> restaurants = new TreeMap<>();
+    private final Map<Long, Dish> dishes = new TreeMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    public final AtomicInteger queries = new AtomicInteger();
+
+    @Override
+    public synchronized List<Restaurant> findAllRestaurants() {
+        return new ArrayList<>(restaurants.values());
+    }
+
+    @Override
+    public synchronized List<Dish> findAllDishes() {
+        return new ArrayList<>(dishes.values());
+    }
+
+    @Override
+    public synchronized Optional<Restaurant> findRestaurantById(long id) {
+        queries.incrementAndGet();
+        return Optional.ofNullable(restaurants.get(id));
+    }
+
+    @Override
+    public synchronized List<Restaurant> findRestaurants(String cuisine, String location, String priceRange, int limit) {
+        queries.incrementAndGet();
+        return restaurants.values().stream()
+                .filter(r -> cuisine == null || cuisine.equalsIgnoreCase(r.getCuisine()))
+                .filter(r -> location == null || (r.getLocation() != null
+                        && r.getLocation().toLowerCase().startsWith(location.toLowerCase())))
+                .filter(r -> priceRange == null || priceRange.equalsIgnoreCase(r.getPriceRange()))
+                .sorted(Comparator.comparing(Restaurant::getRating, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public synchronized List<Dish> findDishes(String cuisine, int limit) {
+        queries.incrementAndGet();
+        return dishes.values().stream()
+                .filter(d -> cuisine == null || cuisine.equalsIgnoreCase(d.getCuisine()))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public synchronized Restaurant saveRestaurant(Restaurant restaurant) {
+        restaurant.setId(ids.incrementAndGet());
+        restaurants.put(restaurant.getId(), restaurant);
+        return restaurant;
+    }
+
+    @Override
+    public synchronized List<Dish> saveDishes(List<Dish> newDishes) {
+        for (Dish dish : newDishes) {
+            dish.setId(ids.incrementAndGet());
+            dishes.put(dish.getId(), dish);
+        }
+        return newDishes;
+    }
+}
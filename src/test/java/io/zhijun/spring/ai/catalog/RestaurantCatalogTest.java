@@ -0,0 +1,86 @@
+package io.zhijun.spring.ai.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantCatalogTest {
+
+    private final InMemoryCatalogRepository repository = new InMemoryCatalogRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        repository.saveRestaurant(restaurant("川味小馆", "川菜", "北京市朝阳区三里屯", 4.5, "中等"));
+        repository.saveRestaurant(restaurant("蜀香园", "川菜", "北京市海淀区中关村", 4.8, "高档"));
+        repository.saveRestaurant(restaurant("粤海轩", "粤菜", "北京市朝阳区国贸", 4.6, "高档"));
+        repository.saveRestaurant(restaurant("老成都", "川菜", "上海市静安区", 4.2, "中等"));
+        repository.saveDishes(List.of(dish("宫保鸡丁", "川菜"), dish("麻婆豆腐", "川菜"), dish("白切鸡", "粤菜")));
+    }
+
+    @Test
+    void testPreloadedLookupsHitMemory() {
+        RestaurantCatalog catalog = new RestaurantCatalog(repository, meterRegistry);
+        catalog.preload();
+        repository.queries.set(0);
+
+        assertEquals("粤海轩", catalog.findRestaurant(3).orElseThrow().getName());
+        List<Restaurant> sichuan = catalog.findRestaurants("川菜", null, null, 3);
+        List<Restaurant> chaoyang = catalog.findRestaurants(null, "北京市朝阳区", null, 2);
+        List<Restaurant> expensive = catalog.findRestaurants(" 川菜 ", "北京", "高档", 1);
+        List<Dish> dishes = catalog.findDishes("川菜", 2);
+
+        assertEquals(List.of("蜀香园", "川味小馆", "老成都"), sichuan.stream().map(Restaurant::getName).toList());
+        assertEquals(List.of("粤海轩", "川味小馆"), chaoyang.stream().map(Restaurant::getName).toList());
+        assertEquals(List.of("蜀香园"), expensive.stream().map(Restaurant::getName).toList());
+        assertEquals(List.of("宫保鸡丁", "麻婆豆腐"), dishes.stream().map(Dish::getName).toList());
+        assertEquals(0, repository.queries.get());
+        assertEquals(5.0, meterRegistry.get("restaurant.ai.catalog.lookups").tag("source", "memory").counters()
+                .stream().mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void testMissesReadThroughAndFillMemory() {
+        RestaurantCatalog catalog = new RestaurantCatalog(repository, meterRegistry);
+
+        assertEquals("老成都", catalog.findRestaurant(4).orElseThrow().getName());
+        assertEquals("老成都", catalog.findRestaurant(4).orElseThrow().getName());
+        assertEquals(1, repository.queries.get());
+
+        assertEquals(3, catalog.findRestaurants("川菜", null, null, 5).size());
+        assertEquals(2, repository.queries.get());
+        // 已回填，条数足够时不再查询数据库
+        assertEquals(2, catalog.findRestaurants("川菜", null, null, 2).size());
+        assertEquals(2, repository.queries.get());
+        assertTrue(catalog.findRestaurant(99).isEmpty());
+    }
+
+    @Test
+    void testSavedEntitiesAreIndexed() {
+        RestaurantCatalog catalog = new RestaurantCatalog(repository, meterRegistry);
+        catalog.preload();
+
+        Restaurant saved = catalog.saveRestaurant(restaurant("湘里人家", "湘菜", "北京市东城区", 4.4, "中等"));
+        List<Dish> dishes = catalog.saveDishes(List.of(dish("剁椒鱼头", "湘菜")));
+        repository.queries.set(0);
+
+        assertNotNull(saved.getId());
+        assertEquals(saved, catalog.findRestaurants("湘菜", null, null, 1).get(0));
+        assertEquals(dishes, catalog.findDishes("湘菜", 1));
+        assertEquals(0, repository.queries.get());
+    }
+
+    static Restaurant restaurant(String name, String cuisine, String location, double rating, String priceRange) {
+        return new Restaurant(null, name, cuisine, location, rating, name + "的描述", priceRange, new String[]{"堂食"});
+    }
+
+    static Dish dish(String name, String cuisine) {
+        return new Dish(null, name, name + "的描述", cuisine, 38.0, "主菜", List.of("食材"), "无", 500, "20分钟", "中等");
+    }
+}
@@ -0,0 +1,37 @@
+package io.zhijun.spring.ai.ingestion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkIdsTest {
+
+    @Test
+    void testSameContentProducesSameId() {
+        String id = ChunkIds.contentId("restaurant-knowledge.txt", "北京烤鸭  推荐\n全聚德");
+
+        assertEquals(id, ChunkIds.contentId("restaurant-knowledge.txt", " 北京烤鸭 推荐 全聚德 "));
+        assertDoesNotThrow(() -> UUID.fromString(id));
+    }
+
+    @Test
+    void testDifferentSourceOrContentProducesDifferentId() {
+        String id = ChunkIds.contentId("a.md", "四川火锅");
+
+        assertNotEquals(id, ChunkIds.contentId("b.md", "四川火锅"));
+        assertNotEquals(id, ChunkIds.contentId("a.md", "重庆火锅"));
+    }
+
+    @Test
+    void testExtractedMetadataChangesId() {
+        String id = ChunkIds.contentId("a.md", "四川火锅");
+
+        assertEquals(id, ChunkIds.contentId("a.md", "四川火锅", Map.of()));
+        assertNotEquals(id, ChunkIds.contentId("a.md", "四川火锅", Map.of("city", "成都")));
+        assertEquals(ChunkIds.contentId("a.md", "四川火锅", Map.of("city", "成都", "cuisine", "川菜")),
+                ChunkIds.contentId("a.md", "四川火锅", Map.of("cuisine", "川菜", "city", "成都")));
+    }
+}
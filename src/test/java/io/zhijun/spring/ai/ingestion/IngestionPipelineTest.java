@@ -0,0 +1,125 @@
+package io.zhijun.spring.ai.ingestion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.config.IngestionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionPipelineTest {
+
+    private final List<Document> stored = Collections.synchronizedList(new ArrayList<>());
+    private IngestionProgress progress;
+    private IngestionProperties properties;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        progress = new IngestionProgress(new SimpleMeterRegistry());
+        properties = new IngestionProperties();
+        properties.setBatchSize(3);
+        properties.setQueueCapacity(1);
+        properties.setEmbeddingConcurrency(2);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Test
+    void testAllChunksAreEmbeddedAndWritten() {
+        IngestionPipeline pipeline = new IngestionPipeline(new FakeEmbeddingModel(false), new RecordingWriter(),
+                executor, properties, progress);
+        List<Document> written = Collections.synchronizedList(new ArrayList<>());
+
+        long count = pipeline.run("test.md", sourceDocuments(4), new LineSplitter(), chunk -> chunk, written::addAll)
+                .writtenCount();
+
+        // 4 个文档各 2 行，共 8 个片段，分 3 批
+        assertEquals(8, count);
+        assertEquals(8, stored.size());
+        assertEquals(8, written.size());
+        IngestionProgress.Snapshot snapshot = progress.snapshots().get(0);
+        assertEquals("COMPLETED", snapshot.status());
+        assertEquals(8, snapshot.splitChunks());
+        assertEquals(8, snapshot.embeddedChunks());
+    }
+
+    @Test
+    void testEmbeddingFailureAbortsRun() {
+        IngestionPipeline pipeline = new IngestionPipeline(new FakeEmbeddingModel(true), new RecordingWriter(),
+                executor, properties, progress);
+
+        assertThrows(RuntimeException.class,
+                () -> pipeline.run("test.md", sourceDocuments(20), new LineSplitter(), chunk -> chunk, docs -> {
+                }));
+        assertEquals("FAILED", progress.snapshots().get(0).status());
+    }
+
+    private static List<Document> sourceDocuments(int count) {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            documents.add(new Document("第" + i + "段第一行\n第" + i + "段第二行", Map.of("filename", "test.md")));
+        }
+        return documents;
+    }
+
+    private class RecordingWriter extends PgVectorWriter {
+
+        RecordingWriter() {
+            super(new JdbcTemplate(), "vector_store");
+        }
+
+        @Override
+        public void write(List<Document> documents, List<float[]> embeddings) {
+            assertEquals(documents.size(), embeddings.size());
+            stored.addAll(documents);
+        }
+    }
+
+    private static class LineSplitter extends TextSplitter {
+
+        @Override
+        protected List<String> splitText(String text) {
+            return List.of(text.split("\n"));
+        }
+    }
+
+    private static class FakeEmbeddingModel implements EmbeddingModel {
+
+        private final boolean fail;
+
+        FakeEmbeddingModel(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public List<float[]> embed(List<String> texts) {
+            if (fail) {
+                throw new IllegalStateException("embedding service unavailable");
+            }
+            return texts.stream().map(text -> new float[]{text.length()}).toList();
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.zhijun.spring.ai.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantMetadataExtractorTest {
+
+    private static final String MARKDOWN = """
+            # 北京川菜餐厅推荐
+
+            ## 峨嵋酒家
+            - 地址：北京市西城区车公庄大街1号
+            - 人均：100-120元
+            - 推荐菜：宫保鸡丁、水煮鱼、夫妻肺片
+
+            # 武汉川菜餐厅推荐
+
+            ## 蜀九香火锅
+            - 地址：武汉市江汉区万象城
+            - 人均：120元
+            - 推荐菜：九香牛肉、毛血旺
+
+            # 川菜特色菜品介绍
+
+            ## 水煮鱼
+            - 特点：麻辣鲜香，鱼肉嫩滑
+            - 推荐餐厅：龙人居、蜀九香
+
+            # 川菜用餐小贴士
+
+            ## 价格参考
+            - 人均50-80元：小馆子、大排档
+            """;
+
+    private final RestaurantMetadataExtractor extractor = new RestaurantMetadataExtractor(MARKDOWN);
+
+    @Test
+    void testExtractsRestaurantMetadata() {
+        Map<String, Object> metadata = extractor.extract(document("峨嵋酒家",
+                "地址：北京市西城区车公庄大街1号人均：100-120元推荐菜：宫保鸡丁、水煮鱼、夫妻肺片"));
+
+        assertEquals("restaurant", metadata.get(RestaurantMetadataExtractor.KIND));
+        assertEquals("北京川菜餐厅推荐", metadata.get(RestaurantMetadataExtractor.SECTION));
+        assertEquals("北京", metadata.get(RestaurantMetadataExtractor.CITY));
+        assertEquals("川菜", metadata.get(RestaurantMetadataExtractor.CUISINE));
+        assertEquals(100, metadata.get(RestaurantMetadataExtractor.PRICE_MIN));
+        assertEquals(120, metadata.get(RestaurantMetadataExtractor.PRICE_MAX));
+        assertEquals(List.of("宫保鸡丁", "水煮鱼", "夫妻肺片"), metadata.get(RestaurantMetadataExtractor.DISHES));
+    }
+
+    @Test
+    void testSectionCuisineWinsOverTitle() {
+        Map<String, Object> metadata = extractor.extract(document("蜀九香火锅",
+                "地址：武汉市江汉区万象城\n人均：120元\n推荐菜：九香牛肉、毛血旺"));
+
+        assertEquals("武汉", metadata.get(RestaurantMetadataExtractor.CITY));
+        assertEquals("川菜", metadata.get(RestaurantMetadataExtractor.CUISINE));
+        assertEquals(120, metadata.get(RestaurantMetadataExtractor.PRICE_MIN));
+        assertEquals(120, metadata.get(RestaurantMetadataExtractor.PRICE_MAX));
+    }
+
+    @Test
+    void testDishAndGuideDocuments() {
+        Map<String, Object> dish = extractor.extract(document("水煮鱼", "特点：麻辣鲜香，鱼肉嫩滑推荐餐厅：龙人居、蜀九香"));
+        Map<String, Object> guide = extractor.extract(document("价格参考", "人均50-80元：小馆子、大排档"));
+
+        assertEquals("dish", dish.get(RestaurantMetadataExtractor.KIND));
+        assertEquals(List.of("水煮鱼"), dish.get(RestaurantMetadataExtractor.DISHES));
+        assertFalse(dish.containsKey(RestaurantMetadataExtractor.CITY));
+        assertEquals("guide", guide.get(RestaurantMetadataExtractor.KIND));
+        // 价格参考中的区间不是某家餐厅的人均
+        assertFalse(guide.containsKey(RestaurantMetadataExtractor.PRICE_MIN));
+    }
+
+    @Test
+    void testApplyKeepsExistingMetadata() {
+        List<Document> enriched = extractor.apply(List.of(
+                document("峨嵋酒家", "地址：北京市西城区车公庄大街1号"),
+                new Document("没有可识别的信息", Map.of("filename", "notes.md"))));
+
+        assertEquals("restaurant-knowledge.txt", enriched.get(0).getMetadata().get("filename"));
+        assertEquals("北京", enriched.get(0).getMetadata().get(RestaurantMetadataExtractor.CITY));
+        assertEquals(Map.of("filename", "notes.md"), enriched.get(1).getMetadata());
+        assertEquals(Map.of(RestaurantMetadataExtractor.KIND, "restaurant",
+                        RestaurantMetadataExtractor.SECTION, "北京川菜餐厅推荐",
+                        RestaurantMetadataExtractor.CITY, "北京",
+                        RestaurantMetadataExtractor.CUISINE, "川菜"),
+                RestaurantMetadataExtractor.extracted(enriched.get(0).getMetadata()));
+    }
+
+    private static Document document(String title, String text) {
+        return new Document(text, Map.of("filename", "restaurant-knowledge.txt", "title", title));
+    }
+}
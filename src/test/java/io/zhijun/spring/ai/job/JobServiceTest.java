@@ -0,0 +1,348 @@
+package io.zhijun.spring.ai.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.config.JobProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobServiceTest {
+
+    private final InMemoryJobRepository repository = new InMemoryJobRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private JobService jobService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (jobService != null) {
+            jobService.close();
+        }
+    }
+
+    @Test
+    void testSubmittedJobRunsAndStoresPartialResults() throws InterruptedException {
+        jobService = jobService(1, 10);
+
+        Job job = jobService.submit("count", Map.of("n", 3));
+        Job finished = await(job.id(), j -> j.status().isFinished());
+
+        assertEquals(JobStatus.SUCCEEDED, finished.status());
+        assertEquals("{\"sum\":6}", finished.result());
+        assertEquals(3, finished.completed());
+        assertEquals(3, finished.total());
+        assertEquals("[{\"i\":1},{\"i\":2}]", jobService.findItems(job.id(), 0, 2));
+        assertEquals("[{\"i\":3}]", jobService.findItems(job.id(), 2, 2));
+        // 耗时在写入最终状态之后记录
+        awaitMeter("succeeded");
+        assertEquals(1, meterRegistry.get("restaurant.ai.jobs.duration")
+                .tags("type", "count", "outcome", "succeeded").timer().count());
+    }
+
+    @Test
+    void testFailedJobRecordsError() throws InterruptedException {
+        jobService = jobService(1, 10);
+
+        Job job = jobService.submit("count", Map.of("n", -1));
+        Job finished = await(job.id(), j -> j.status().isFinished());
+
+        assertEquals(JobStatus.FAILED, finished.status());
+        assertEquals("n 不能为负数", finished.error());
+    }
+
+    @Test
+    void testCancelInterruptsRunningJob() throws InterruptedException {
+        jobService = jobService(1, 10);
+
+        Job job = jobService.submit("block", Map.of());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(jobService.cancel(job.id()));
+
+        awaitMeter("cancelled");
+        assertEquals(JobStatus.CANCELLED, repository.findById(job.id()).orElseThrow().status());
+        assertEquals(0, jobService.runningCount());
+        assertFalse(jobService.cancel(job.id()));
+    }
+
+    @Test
+    void testSubmitValidatesTypeAndPayload() {
+        jobService = jobService(0, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit("unknown", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit("count", Map.of()));
+        assertEquals(0, repository.countQueued());
+    }
+
+    @Test
+    void testSubmitRejectedWhenQueueIsFull() {
+        jobService = jobService(0, 2);
+
+        jobService.submit("count", Map.of("n", 1));
+        jobService.submit("count", Map.of("n", 1));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> jobService.submit("count", Map.of("n", 1)));
+
+        assertEquals(503, e.getStatusCode().value());
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.jobs.rejected").counter().count());
+        assertEquals(2.0, meterRegistry.get("restaurant.ai.jobs.queued").gauge().value());
+    }
+
+    @Test
+    void testCloseRequeuesRunningJob() throws InterruptedException {
+        jobService = jobService(1, 10);
+
+        Job job = jobService.submit("block", Map.of());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobService.close();
+        jobService = null;
+
+        assertEquals(JobStatus.QUEUED, repository.findById(job.id()).orElseThrow().status());
+    }
+
+    @Test
+    void testReclaimedJobIgnoresWritesFromPreviousAttempt() throws InterruptedException {
+        jobService = jobService(1, 10);
+
+        Job job = jobService.submit("late", Map.of());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        repository.reclaim(job.id());
+        release.countDown();
+        awaitMeter("cancelled");
+
+        Job current = repository.findById(job.id()).orElseThrow();
+        assertEquals(JobStatus.RUNNING, current.status());
+        assertEquals(2, current.attempts());
+        assertTrue(repository.findItems(job.id(), 0, 10).isEmpty());
+    }
+
+    private JobService jobService(int workers, int queueCapacity) {
+        JobProperties properties = new JobProperties();
+        properties.setWorkers(workers);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setPollInterval(Duration.ofMillis(20));
+        return new JobService(repository, List.of(new CountingHandler(), new BlockingHandler(), new LateHandler()),
+                properties, meterRegistry);
+    }
+
+    private Job await(UUID id, Predicate<Job> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Job job = repository.findById(id).orElseThrow();
+        while (!condition.test(job) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = repository.findById(id).orElseThrow();
+        }
+        return job;
+    }
+
+    private void awaitMeter(String outcome) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.find("restaurant.ai.jobs.duration").tag("outcome", outcome).timer() == null
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 逐个上报 1..n 并返回总和
+     */
+    private static class CountingHandler implements JobHandler {
+
+        @Override
+        public String type() {
+            return "count";
+        }
+
+        @Override
+        public void validate(JsonNode payload) {
+            if (!payload.has("n")) {
+                throw new IllegalArgumentException("缺少 n");
+            }
+        }
+
+        @Override
+        public Object execute(JsonNode payload, JobContext context) {
+            int n = payload.get("n").asInt();
+            if (n < 0) {
+                throw new IllegalArgumentException("n 不能为负数");
+            }
+            int sum = 0;
+            for (int i = 1; i <= n; i++) {
+                context.emit(List.of(Map.of("i", i)));
+                context.progress(i, n);
+                sum += i;
+            }
+            return Map.of("sum", sum);
+        }
+    }
+
+    /**
+     * 阻塞直到被中断
+     */
+    private class BlockingHandler implements JobHandler {
+
+        @Override
+        public String type() {
+            return "block";
+        }
+
+        @Override
+        public Object execute(JsonNode payload, JobContext context) throws InterruptedException {
+            started.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return Map.of();
+        }
+    }
+
+    /**
+     * 等待放行后才写入部分结果，模拟心跳超时后仍在运行的慢执行者
+     */
+    private class LateHandler implements JobHandler {
+
+        @Override
+        public String type() {
+            return "late";
+        }
+
+        @Override
+        public Object execute(JsonNode payload, JobContext context) throws InterruptedException {
+            started.countDown();
+            release.await();
+            context.emit(List.of(Map.of("i", 1)));
+            return Map.of();
+        }
+    }
+
+    private static class InMemoryJobRepository implements JobRepository {
+
+        private final Map<UUID, Job> jobs = new LinkedHashMap<>();
+        private final Map<UUID, List<String>> items = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void insert(Job job) {
+            jobs.put(job.id(), job);
+        }
+
+        @Override
+        public synchronized Optional<Job> findById(UUID id) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+
+        @Override
+        public synchronized int countQueued() {
+            return (int) jobs.values().stream().filter(job -> job.status() == JobStatus.QUEUED).count();
+        }
+
+        @Override
+        public synchronized Optional<Job> claimNext() {
+            Optional<Job> next = jobs.values().stream().filter(job -> job.status() == JobStatus.QUEUED).findFirst();
+            next.ifPresent(job -> {
+                jobs.put(job.id(), new Job(job.id(), job.type(), JobStatus.RUNNING, job.payload(), null, null, 0, 0,
+                        job.attempts() + 1, job.createdAt(), Instant.now(), null));
+                items.remove(job.id());
+            });
+            return next.map(job -> jobs.get(job.id()));
+        }
+
+        @Override
+        public synchronized boolean updateProgress(UUID id, int attempt, int completed, int total) {
+            Job job = jobs.get(id);
+            if (!owned(job, attempt)) {
+                return false;
+            }
+            jobs.put(id, new Job(id, job.type(), job.status(), job.payload(), job.result(), job.error(), completed,
+                    total, job.attempts(), job.createdAt(), job.startedAt(), job.finishedAt()));
+            return true;
+        }
+
+        @Override
+        public synchronized boolean appendItems(UUID id, int attempt, List<String> values) {
+            if (!owned(jobs.get(id), attempt)) {
+                return false;
+            }
+            items.computeIfAbsent(id, key -> new ArrayList<>()).addAll(values);
+            return true;
+        }
+
+        @Override
+        public synchronized List<String> findItems(UUID id, int offset, int limit) {
+            List<String> values = items.getOrDefault(id, List.of());
+            return List.copyOf(values.subList(Math.min(offset, values.size()),
+                    Math.min(offset + limit, values.size())));
+        }
+
+        @Override
+        public synchronized boolean finish(UUID id, int attempt, JobStatus status, String result, String error) {
+            return owned(jobs.get(id), attempt) && transition(id, Set.of(JobStatus.RUNNING), status, result, error);
+        }
+
+        @Override
+        public synchronized boolean cancel(UUID id) {
+            return transition(id, Set.of(JobStatus.QUEUED, JobStatus.RUNNING), JobStatus.CANCELLED, null, null);
+        }
+
+        @Override
+        public synchronized void requeue(UUID id, int attempt) {
+            if (owned(jobs.get(id), attempt)) {
+                transition(id, Set.of(JobStatus.RUNNING), JobStatus.QUEUED, null, null);
+            }
+        }
+
+        @Override
+        public synchronized Set<UUID> heartbeat(Map<UUID, Integer> attempts) {
+            Set<UUID> running = new HashSet<>();
+            attempts.forEach((id, attempt) -> {
+                if (owned(jobs.get(id), attempt)) {
+                    running.add(id);
+                }
+            });
+            return running;
+        }
+
+        /**
+         * 模拟心跳超时后被其他实例重新领取
+         */
+        synchronized void reclaim(UUID id) {
+            Job job = jobs.get(id);
+            jobs.put(id, new Job(id, job.type(), JobStatus.RUNNING, job.payload(), null, null, 0, 0,
+                    job.attempts() + 1, job.createdAt(), Instant.now(), null));
+            items.remove(id);
+        }
+
+        private static boolean owned(Job job, int attempt) {
+            return job != null && job.status() == JobStatus.RUNNING && job.attempts() == attempt;
+        }
+
+        @Override
+        public int requeueStale(Duration staleAfter, int maxAttempts) {
+            return 0;
+        }
+
+        private boolean transition(UUID id, Set<JobStatus> from, JobStatus to, String result, String error) {
+            Job job = jobs.get(id);
+            if (job == null || !from.contains(job.status())) {
+                return false;
+            }
+            jobs.put(id, new Job(id, job.type(), to, job.payload(), result, error, job.completed(), job.total(),
+                    job.attempts(), job.createdAt(), job.startedAt(), to.isFinished() ? Instant.now() : null));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.zhijun.spring.ai.memory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversationIdsTest {
+
+    @Test
+    void testHeaderTakesPrecedenceOverBody() {
+        assertEquals("from-header", ConversationIds.resolve("from-header", "from-body"));
+        assertEquals("from-body", ConversationIds.resolve(null, "from-body"));
+    }
+
+    @Test
+    void testMissingIdMeansStatelessRequest() {
+        assertNull(ConversationIds.resolve(null, null));
+        assertNull(ConversationIds.resolve(" ", ""));
+    }
+
+    @Test
+    void testHeadersOnlyEchoSuppliedId() {
+        assertEquals("c1", ConversationIds.headers("c1").getFirst(ConversationIds.HEADER));
+        assertTrue(ConversationIds.headers(null).isEmpty());
+    }
+
+    @Test
+    void testInvalidIdIsRejected() {
+        assertThrows(ResponseStatusException.class, () -> ConversationIds.resolve("a".repeat(37), null));
+        assertThrows(ResponseStatusException.class, () -> ConversationIds.resolve("x' OR 1=1", null));
+    }
+}
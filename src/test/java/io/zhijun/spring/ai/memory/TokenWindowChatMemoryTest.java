@@ -0,0 +1,95 @@
+package io.zhijun.spring.ai.memory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.MediaContent;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenWindowChatMemoryTest {
+
+    /**
+     * 每个字符按 1 个 token 估算，便于断言
+     */
+    private static final TokenCountEstimator CHAR_ESTIMATOR = new TokenCountEstimator() {
+        @Override
+        public int estimate(String text) {
+            return text.length();
+        }
+
+        @Override
+        public int estimate(MediaContent content) {
+            return estimate(content.getText());
+        }
+
+        @Override
+        public int estimate(Iterable<MediaContent> contents) {
+            int total = 0;
+            for (MediaContent content : contents) {
+                total += estimate(content);
+            }
+            return total;
+        }
+    };
+
+    @Test
+    void testHistoryStaysWithinTokenBudget() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(new InMemoryChatMemoryRepository(),
+                CHAR_ESTIMATOR, 100, 60);
+
+        for (int i = 0; i < 50; i++) {
+            memory.add("c1", List.of(new UserMessage("第" + i + "个问题：推荐川菜"), new AssistantMessage("回答：麻婆豆腐")));
+            int tokens = memory.get("c1").stream().mapToInt(m -> m.getText().length() + 4).sum();
+            assertTrue(tokens <= 60, "tokens=" + tokens);
+        }
+
+        List<Message> history = memory.get("c1");
+        assertInstanceOf(UserMessage.class, history.get(0));
+        assertEquals("回答：麻婆豆腐", history.get(history.size() - 1).getText());
+    }
+
+    @Test
+    void testMessageLimitAndOrphanRepliesAreTrimmed() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(new InMemoryChatMemoryRepository(),
+                CHAR_ESTIMATOR, 3, 10_000);
+
+        memory.add("c1", List.of(new UserMessage("q1"), new AssistantMessage("a1")));
+        memory.add("c1", List.of(new UserMessage("q2"), new AssistantMessage("a2")));
+
+        // 截到 3 条时开头是 a1，它的提问已被丢弃，因此一并移除
+        assertEquals(List.of("q2", "a2"), memory.get("c1").stream().map(Message::getText).toList());
+    }
+
+    @Test
+    void testSystemMessageIsKeptAndReplaced() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(new InMemoryChatMemoryRepository(),
+                CHAR_ESTIMATOR, 3, 10_000);
+
+        memory.add("c1", List.of(new SystemMessage("s1"), new UserMessage("q1"), new AssistantMessage("a1")));
+        memory.add("c1", List.of(new UserMessage("q2"), new AssistantMessage("a2")));
+        memory.add("c1", List.of(new SystemMessage("s2")));
+
+        List<Message> history = memory.get("c1");
+        assertEquals("s2", history.get(history.size() - 1).getText());
+        assertEquals(1, history.stream().filter(SystemMessage.class::isInstance).count());
+    }
+
+    @Test
+    void testConversationsAreIsolated() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(new InMemoryChatMemoryRepository(),
+                CHAR_ESTIMATOR, 20, 10_000);
+
+        memory.add("c1", List.of(new UserMessage("q1")));
+        memory.add("c2", List.of(new UserMessage("q2")));
+
+        assertEquals(1, memory.get("c1").size());
+        assertEquals("q2", memory.get("c2").get(0).getText());
+    }
+}
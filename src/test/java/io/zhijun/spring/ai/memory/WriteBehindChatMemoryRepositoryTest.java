@@ -0,0 +1,142 @@
+package io.zhijun.spring.ai.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindChatMemoryRepositoryTest {
+
+    private final CountingRepository store = new CountingRepository();
+    private final WriteBehindChatMemoryRepository repository = new WriteBehindChatMemoryRepository(
+            store, 2, Duration.ofMinutes(1), Duration.ofHours(1), 100, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void testWritesAreBufferedUntilFlush() {
+        repository.saveAll("c1", List.of(new UserMessage("推荐川菜")));
+
+        assertTrue(store.findByConversationId("c1").isEmpty());
+        assertEquals(1, repository.findByConversationId("c1").size());
+
+        assertEquals(1, repository.flush());
+        assertEquals(1, store.findByConversationId("c1").size());
+        assertEquals(0, repository.pendingCount());
+    }
+
+    @Test
+    void testRepeatedWritesAreCoalesced() {
+        repository.saveAll("c1", List.of(new UserMessage("推荐川菜")));
+        repository.saveAll("c1", List.of(new UserMessage("推荐川菜"), new AssistantMessage("麻婆豆腐")));
+
+        repository.flush();
+
+        assertEquals(1, store.saves.get());
+        assertEquals(2, store.findByConversationId("c1").size());
+    }
+
+    @Test
+    void testColdConversationIsLoadedOnceThenServedFromHeap() {
+        store.saveAll("c1", List.of(new UserMessage("你好")));
+
+        repository.findByConversationId("c1");
+        repository.findByConversationId("c1");
+
+        assertEquals(1, store.loads.get());
+    }
+
+    @Test
+    void testLeastRecentlyUsedConversationIsEvicted() {
+        repository.saveAll("c1", List.of(new UserMessage("1")));
+        repository.saveAll("c2", List.of(new UserMessage("2")));
+        repository.saveAll("c3", List.of(new UserMessage("3")));
+        repository.flush();
+
+        assertEquals(2, repository.hotCount());
+        assertEquals(1, repository.findByConversationId("c1").size());
+        assertEquals(1, store.loads.get());
+    }
+
+    @Test
+    void testWithoutHotTtlFlushedConversationsAreReadFromStore() {
+        try (WriteBehindChatMemoryRepository readThrough = new WriteBehindChatMemoryRepository(
+                store, 2, Duration.ZERO, Duration.ofHours(1), 100, new SimpleMeterRegistry())) {
+            readThrough.saveAll("c1", List.of(new UserMessage("推荐川菜")));
+            // 未刷写的写入从内存读取
+            assertEquals(1, readThrough.findByConversationId("c1").size());
+            assertEquals(0, store.loads.get());
+
+            readThrough.flush();
+            // 另一个节点追加了一轮对话
+            store.saveAll("c1", List.of(new UserMessage("推荐川菜"), new AssistantMessage("麻婆豆腐")));
+
+            assertEquals(2, readThrough.findByConversationId("c1").size());
+            assertEquals(0, readThrough.hotCount());
+        }
+    }
+
+    @Test
+    void testDeleteIsOrderedAfterPendingWrite() {
+        repository.saveAll("c1", List.of(new UserMessage("推荐川菜")));
+        repository.deleteByConversationId("c1");
+
+        assertTrue(repository.findByConversationId("c1").isEmpty());
+        assertFalse(repository.findConversationIds().contains("c1"));
+
+        repository.flush();
+        assertTrue(store.findByConversationId("c1").isEmpty());
+        assertEquals(0, store.saves.get());
+    }
+
+    @Test
+    void testCloseFlushesRemainingWrites() {
+        repository.saveAll("c1", List.of(new UserMessage("推荐川菜")));
+
+        repository.close();
+
+        assertEquals(1, store.findByConversationId("c1").size());
+    }
+
+    private static class CountingRepository implements ChatMemoryRepository {
+
+        private final InMemoryChatMemoryRepository delegate = new InMemoryChatMemoryRepository();
+        private final AtomicInteger saves = new AtomicInteger();
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public List<String> findConversationIds() {
+            return delegate.findConversationIds();
+        }
+
+        @Override
+        public List<Message> findByConversationId(String conversationId) {
+            loads.incrementAndGet();
+            return delegate.findByConversationId(conversationId);
+        }
+
+        @Override
+        public void saveAll(String conversationId, List<Message> messages) {
+            saves.incrementAndGet();
+            delegate.saveAll(conversationId, messages);
+        }
+
+        @Override
+        public void deleteByConversationId(String conversationId) {
+            delegate.deleteByConversationId(conversationId);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.zhijun.spring.ai.output;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonRepairTest {
+
+    @Test
+    void testStripsMarkdownFenceAndExplanation() {
+        String text = """
+                以下是推荐结果：
+                ```json
+                [{"name": "蜀香阁"}]
+                ```
+                希望对你有帮助。
+                """;
+
+        assertEquals("[{\"name\":\"蜀香阁\"}]", JsonRepair.repair(text, '['));
+    }
+
+    @Test
+    void testRemovesTrailingCommas() {
+        assertEquals("{\"features\":[\"包间\",\"停车\"],\"rating\":4.5}",
+                JsonRepair.repair("{\"features\": [\"包间\", \"停车\",], \"rating\": 4.5,}", '{'));
+    }
+
+    @Test
+    void testTruncatesToLastCompleteObject() {
+        String text = "{\"restaurants\": [{\"name\": \"A\", \"rating\": 4.5}, {\"name\": \"B\", \"rati";
+
+        assertEquals("{\"restaurants\":[{\"name\":\"A\",\"rating\":4.5}]}", JsonRepair.repair(text, '{'));
+    }
+
+    @Test
+    void testClosesTruncatedObjectWithoutCompleteChild() {
+        assertEquals("{\"name\":\"A\",\"description\":\"环境好\"}",
+                JsonRepair.repair("{\"name\": \"A\", \"description\": \"环境好", '{'));
+    }
+
+    @Test
+    void testKeepsStringContentAndEscapesRawNewlines() {
+        String text = "{\"description\": \"第一行\n第二行, 带逗号 } 和括号\", \"quote\": \"\\\"招牌\\\"\"}";
+
+        assertEquals("{\"description\":\"第一行\\n第二行, 带逗号 } 和括号\",\"quote\":\"\\\"招牌\\\"\"}",
+                JsonRepair.repair(text, '{'));
+    }
+
+    @Test
+    void testReturnsNullWithoutJson() {
+        assertNull(JsonRepair.repair("抱歉，我无法回答", '['));
+    }
+}
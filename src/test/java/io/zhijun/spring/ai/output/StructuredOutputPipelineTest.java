@@ -0,0 +1,138 @@
+package io.zhijun.spring.ai.output;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.config.StructuredOutputProperties;
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.Restaurant;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructuredOutputPipelineTest {
+
+    private static final ParameterizedTypeReference<List<Restaurant>> RESTAURANTS = new ParameterizedTypeReference<>() {
+    };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScriptedChatModel chatModel = new ScriptedChatModel();
+    private final StructuredOutputProperties properties = new StructuredOutputProperties();
+    private final StructuredOutputPipeline pipeline = new StructuredOutputPipeline(
+            ChatClient.builder(chatModel).build(), properties, meterRegistry, new StandardEnvironment());
+
+    @Test
+    void testValidOutputIsConvertedWithoutRepair() {
+        List<Restaurant> restaurants = pipeline.convert("[{\"name\": \"蜀香阁\", \"rating\": 4.6}]", RESTAURANTS);
+
+        assertEquals("蜀香阁", restaurants.getFirst().getName());
+        assertEquals(1.0, count("valid"));
+        assertEquals(0, chatModel.prompts.size());
+    }
+
+    @Test
+    void testLocalRepairAvoidsModelCall() {
+        String text = """
+                ```json
+                {"restaurants": [
+                  {"name": "蜀香阁", "rating": "4.6", "features": ["包间",],},
+                  {"name": "粤海轩", "rating": 4.
+                """;
+
+        List<Restaurant> restaurants = pipeline.convert(text, RESTAURANTS);
+
+        assertEquals(1, restaurants.size());
+        assertEquals(4.6, restaurants.getFirst().getRating());
+        assertArrayEquals(new String[]{"包间"}, restaurants.getFirst().getFeatures());
+        assertEquals(1.0, count("local_repair"));
+        assertEquals(0, chatModel.prompts.size());
+    }
+
+    @Test
+    void testModelRepairOnlyWhenLocalRepairFails() {
+        chatModel.replies.add("[{\"name\": \"宫保鸡丁\", \"calories\": 520}]");
+
+        List<Dish> dishes = pipeline.convert("[{\"name\": \"宫保鸡丁\", \"calories\": \"约500\"}]",
+                new ParameterizedTypeReference<>() {
+                });
+
+        assertEquals(520, dishes.getFirst().getCalories());
+        assertEquals(1, chatModel.prompts.size());
+        assertTrue(chatModel.prompts.getFirst().contains("$[0].calories"));
+        assertEquals(1.0, count("model_repair"));
+        assertEquals(1, meterRegistry.get("restaurant.ai.structured.repair").tag("type", "List<Dish>").timer().count());
+    }
+
+    @Test
+    void testMissingRequiredFieldFailsAfterRepair() {
+        chatModel.replies.add("{\"cuisine\": \"川菜\"}");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> pipeline.convert("{\"cuisine\": \"川菜\"}", Restaurant.class));
+
+        assertEquals(502, e.getStatusCode().value());
+        assertEquals(1.0, count("failed"));
+    }
+
+    @Test
+    void testUnknownFieldsAreDroppedWithoutModelCall() {
+        Restaurant restaurant = pipeline.convert(
+                "{\"name\": \"蜀香阁\", \"extra\": true, \"rating\": \"4.6\", \"tags\": []}", Restaurant.class);
+
+        assertEquals("蜀香阁", restaurant.getName());
+        assertEquals(4.6, restaurant.getRating());
+        assertEquals(1.0, count("local_repair"));
+        assertEquals(0, chatModel.prompts.size());
+    }
+
+    @Test
+    void testModelRepairCanBeDisabled() {
+        properties.setModelRepairEnabled(false);
+
+        assertThrows(ResponseStatusException.class, () -> pipeline.convert("不是 JSON", Restaurant.class));
+        assertEquals(0, chatModel.prompts.size());
+    }
+
+    @Test
+    void testEntityAddsFormatInstructions() {
+        chatModel.replies.add("{\"name\": \"蜀香阁\", \"extra\": true}");
+
+        Map<String, Object> restaurant = pipeline.entity(ChatClient.builder(chatModel).build().prompt().user("推荐一家"),
+                new ParameterizedTypeReference<>() {
+                });
+
+        assertEquals("蜀香阁", restaurant.get("name"));
+        assertTrue(chatModel.prompts.getFirst().contains("JSON Schema"));
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("restaurant.ai.structured.outputs").tag("outcome", outcome).counter().count();
+    }
+
+    /**
+     * 按顺序返回预设的回答，记录收到的提示词
+     */
+    private static class ScriptedChatModel implements ChatModel {
+
+        private final List<String> replies = new ArrayList<>();
+        private final List<String> prompts = new ArrayList<>();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            prompts.add(prompt.getContents());
+            String reply = replies.isEmpty() ? "" : replies.removeFirst();
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(reply))));
+        }
+    }
+}
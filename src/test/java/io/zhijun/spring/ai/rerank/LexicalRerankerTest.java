@@ -0,0 +1,57 @@
+package io.zhijun.spring.ai.rerank;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LexicalRerankerTest {
+
+    private static Document doc(String id, String text, double score) {
+        return Document.builder().id(id).text(text).score(score).build();
+    }
+
+    @Test
+    void testRerankPrefersDocumentsMatchingQuery() {
+        List<Document> candidates = List.of(
+                doc("1", "上海本帮菜，红烧肉浓油赤酱", 0.80),
+                doc("2", "北京烤鸭推荐：全聚德和大董", 0.75),
+                doc("3", "广州早茶点心", 0.70));
+
+        // 批大小小于候选数，验证跨批次打分
+        List<Document> reranked = new LexicalReranker(2).rerank("北京烤鸭推荐", candidates, 2);
+
+        assertEquals(2, reranked.size());
+        assertEquals("2", reranked.get(0).getId());
+    }
+
+    @Test
+    void testRerankKeepsFirstStageOrderOnTies() {
+        List<Document> candidates = List.of(
+                doc("1", "意大利面", 0.5),
+                doc("2", "法式甜点", 0.5));
+
+        List<Document> reranked = new LexicalReranker(8).rerank("北京烤鸭", candidates, 5);
+
+        assertEquals(List.of("1", "2"), reranked.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void testRerankPrefersAdjacentQueryTermsOverScattered() {
+        // 两篇文档都命中“烤鸭”和“推荐”、都不含“鸭推”，第一篇中两个词相隔很远
+        List<Document> candidates = List.of(
+                doc("1", "烤鸭店很多，老字号门店分布在城东城西和城南，值得推荐", 0.5),
+                doc("2", "老字号门店分布在城东城西和城南，很多人吃烤鸭，推荐全聚德", 0.5));
+
+        List<Document> reranked = new LexicalReranker(8).rerank("烤鸭推荐", candidates, 2);
+
+        assertEquals(List.of("2", "1"), reranked.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void testRerankEmptyCandidates() {
+        assertTrue(new LexicalReranker(8).rerank("火锅", List.of(), 3).isEmpty());
+    }
+}
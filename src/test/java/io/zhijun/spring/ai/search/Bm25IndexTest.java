@@ -0,0 +1,69 @@
+package io.zhijun.spring.ai.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Bm25IndexTest {
+
+    private final Bm25Index index = Bm25Index.build(List.of(
+            new Document("1", "北京烤鸭是北京的传统名菜，全聚德烤鸭最有名", Map.of()),
+            new Document("2", "四川火锅麻辣鲜香，成都的火锅店遍布大街小巷", Map.of()),
+            new Document("3", "广东早茶讲究点心，虾饺和烧卖是必点", Map.of())
+    ), 1.2, 0.75);
+
+    @Test
+    void testSearchRanksMatchingDocumentFirst() {
+        List<Bm25Index.Match> hits = index.search("成都火锅推荐", 3);
+
+        assertFalse(hits.isEmpty());
+        assertEquals("2", hits.get(0).id());
+    }
+
+    @Test
+    void testSearchRespectsTopK() {
+        List<Bm25Index.Match> hits = index.search("烤鸭 火锅 早茶", 2);
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.get(0).score() >= hits.get(1).score());
+    }
+
+    @Test
+    void testUpdateMatchesFullRebuild() {
+        Bm25Index incremental = new Bm25Index(1.2, 0.75);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            documents.add(new Document("d" + i, (i % 2 == 0 ? "成都火锅" : "北京烤鸭") + " 第" + i + "家店", Map.of()));
+        }
+        incremental.update(documents, List.of());
+        // 删除超过一半的片段触发压缩，再替换一个片段的正文
+        incremental.update(List.of(new Document("d1", "重庆火锅老店", Map.of())),
+                documents.subList(100, 200).stream().map(Document::getId).toList());
+        incremental.update(List.of(), List.of("d3", "d5"));
+
+        List<Document> remaining = new ArrayList<>(documents.subList(0, 100));
+        remaining.set(1, new Document("d1", "重庆火锅老店", Map.of()));
+        remaining.removeIf(document -> document.getId().equals("d3") || document.getId().equals("d5"));
+        Bm25Index rebuilt = Bm25Index.build(remaining, 1.2, 0.75);
+
+        assertEquals(rebuilt.size(), incremental.size());
+        // 得分相同的片段顺序取决于文档序号，只比较得分
+        for (String query : List.of("火锅", "烤鸭", "重庆火锅", "第150家")) {
+            assertEquals(rebuilt.search(query, 10).stream().map(Bm25Index.Match::score).toList(),
+                    incremental.search(query, 10).stream().map(Bm25Index.Match::score).toList());
+        }
+        assertEquals("d1", incremental.search("重庆", 1).get(0).id());
+        assertTrue(incremental.search("第150家", 10).stream().noneMatch(match -> match.id().equals("d150")));
+    }
+
+    @Test
+    void testSearchWithoutMatches() {
+        assertTrue(index.search("意大利披萨", 5).isEmpty());
+        assertTrue(new Bm25Index(1.2, 0.75).search("火锅", 5).isEmpty());
+    }
+}
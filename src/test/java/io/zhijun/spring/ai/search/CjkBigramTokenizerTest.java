@@ -0,0 +1,31 @@
+package io.zhijun.spring.ai.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CjkBigramTokenizerTest {
+
+    @Test
+    void testChineseTextIsSplitIntoBigrams() {
+        assertEquals(List.of("北京", "京烤", "烤鸭"), CjkBigramTokenizer.tokenize("北京烤鸭"));
+    }
+
+    @Test
+    void testSingleCjkCharacterIsKept() {
+        assertEquals(List.of("辣"), CjkBigramTokenizer.tokenize("辣"));
+    }
+
+    @Test
+    void testMixedTextAndPunctuation() {
+        assertEquals(List.of("川菜", "top10", "推荐"), CjkBigramTokenizer.tokenize("川菜 TOP10，推荐！"));
+    }
+
+    @Test
+    void testEmptyText() {
+        assertTrue(CjkBigramTokenizer.tokenize("").isEmpty());
+        assertTrue(CjkBigramTokenizer.tokenize(null).isEmpty());
+    }
+}
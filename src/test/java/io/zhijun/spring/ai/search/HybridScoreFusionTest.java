@@ -0,0 +1,43 @@
+package io.zhijun.spring.ai.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HybridScoreFusionTest {
+
+    private static Document vectorDoc(String id, double score) {
+        return Document.builder().id(id).text("文档 " + id).score(score).build();
+    }
+
+    @Test
+    void testFuseUsesVectorSimilarityScores() {
+        List<Document> fused = HybridScoreFusion.fuse(
+                List.of(vectorDoc("a", 0.6), vectorDoc("b", 0.9)), List.of(), 0.0, 2);
+
+        assertEquals(List.of("b", "a"), fused.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void testFuseIncludesKeywordOnlyDocuments() {
+        Document keywordOnly = new Document("k", "只被关键词命中", Map.of());
+        List<Document> fused = HybridScoreFusion.fuse(
+                List.of(vectorDoc("a", 0.5)),
+                List.of(new Bm25Index.Hit(keywordOnly, 8.0f)),
+                0.7, 2);
+
+        assertEquals(List.of("k", "a"), fused.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void testFuseLimitsToTopK() {
+        List<Document> fused = HybridScoreFusion.fuse(
+                List.of(vectorDoc("a", 0.1), vectorDoc("b", 0.2), vectorDoc("c", 0.3)), List.of(), 0.5, 2);
+
+        assertEquals(List.of("c", "b"), fused.stream().map(Document::getId).toList());
+    }
+}
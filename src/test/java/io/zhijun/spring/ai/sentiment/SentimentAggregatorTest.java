@@ -0,0 +1,47 @@
+package io.zhijun.spring.ai.sentiment;
+
+import io.zhijun.spring.ai.service.SentimentAnalysisService.SentimentResult;
+import io.zhijun.spring.ai.service.SentimentAnalysisService.SentimentSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SentimentAggregatorTest {
+
+    @Test
+    void testSummarizeCountsAndAverages() {
+        SentimentSummary summary = SentimentAggregator.summarize(List.of(
+                new SentimentResult("positive", 0.9, List.of("满意", "高兴"), "很好"),
+                new SentimentResult("positive", 0.8, List.of("满意"), "不错"),
+                new SentimentResult("negative", 0.2, List.of("失望"), "太慢"),
+                new SentimentResult("neutral", null, List.of(), "一般")));
+
+        assertEquals("positive", summary.overallSentiment());
+        assertEquals(0.633, summary.averageScore());
+        assertEquals(2, summary.positiveCount());
+        assertEquals(1, summary.negativeCount());
+        assertEquals(1, summary.neutralCount());
+        assertTrue(summary.keyInsights().get(0).startsWith("满意：2 条"));
+        assertTrue(summary.keyInsights().contains("负面评论占比 25.0%"));
+    }
+
+    @Test
+    void testSummarizeWithoutMajorityIsNeutral() {
+        SentimentSummary summary = SentimentAggregator.summarize(List.of(
+                new SentimentResult("positive", 0.9, List.of(), "好"),
+                new SentimentResult("negative", 0.1, List.of(), "差")));
+
+        assertEquals("neutral", summary.overallSentiment());
+    }
+
+    @Test
+    void testSummarizeEmpty() {
+        SentimentSummary summary = SentimentAggregator.summarize(List.of());
+
+        assertEquals("neutral", summary.overallSentiment());
+        assertEquals(0.0, summary.averageScore());
+        assertEquals(0, summary.positiveCount());
+    }
+}
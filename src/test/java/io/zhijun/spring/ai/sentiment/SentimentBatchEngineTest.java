@@ -0,0 +1,183 @@
+package io.zhijun.spring.ai.sentiment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.config.SentimentProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SentimentBatchEngineTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReviewChatModel chatModel = new ReviewChatModel();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPartitionRespectsBatchSizeAndTokenBudget() {
+        SentimentProperties properties = properties();
+        properties.setMaxBatchSize(3);
+        properties.setMaxBatchTokens(30);
+        properties.setMaxReviewTokens(30);
+        SentimentBatchEngine engine = engine(properties);
+
+        List<String> reviews = new ArrayList<>(List.of("好吃", "好吃", "好吃", "好吃"));
+        reviews.add("服务很慢".repeat(50));
+        List<List<SentimentBatchEngine.Review>> batches = engine.partition(reviews);
+
+        assertEquals(List.of(3, 1, 1), batches.stream().map(List::size).toList());
+        SentimentBatchEngine.Review truncated = batches.get(2).get(0);
+        assertEquals(4, truncated.index());
+        assertEquals(30, truncated.tokens());
+        assertTrue(truncated.text().length() < 200);
+    }
+
+    @Test
+    void testAnalyzeReturnsResultsInInputOrder() throws InterruptedException {
+        SentimentProperties properties = properties();
+        properties.setMaxBatchSize(4);
+        SentimentBatchEngine engine = engine(properties);
+        List<String> reviews = IntStream.range(0, 10).mapToObj(i -> i % 3 == 0 ? "太差了" : "很好吃").toList();
+        List<SentimentBatchEngine.Progress> progress = Collections.synchronizedList(new ArrayList<>());
+
+        SentimentBatchEngine.BatchResult result = engine.analyze(reviews, progress::add);
+
+        assertEquals(3, chatModel.calls.get());
+        assertEquals(10, result.results().size());
+        for (int i = 0; i < reviews.size(); i++) {
+            assertEquals(i, result.results().get(i).index());
+            assertEquals(i % 3 == 0 ? "negative" : "positive", result.results().get(i).result().sentiment());
+        }
+        assertEquals(6, result.summary().positiveCount());
+        assertEquals(4, result.summary().negativeCount());
+        assertEquals("positive", result.summary().overallSentiment());
+        assertEquals(3, progress.size());
+        assertEquals(10, progress.stream().mapToInt(SentimentBatchEngine.Progress::completed).max().orElse(0));
+        assertEquals(10.0, meterRegistry.get("restaurant.ai.sentiment.reviews").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void testMissingAndFailingReviewsAreRetriedByBisection() throws InterruptedException {
+        SentimentBatchEngine engine = engine(properties());
+        List<String> reviews = List.of("很好吃", "漏掉", "很好吃", "坏掉", "太差了");
+
+        SentimentBatchEngine.BatchResult result = engine.analyze(reviews, p -> {
+        });
+
+        // 漏掉的评论单独重试后成功，坏掉的评论在重试用尽后标记失败
+        assertEquals("neutral", result.results().get(1).result().sentiment());
+        assertNull(result.results().get(3).result());
+        assertNotNull(result.results().get(3).error());
+        assertEquals(1, result.failedCount());
+        assertEquals(4, result.summary().positiveCount() + result.summary().negativeCount()
+                + result.summary().neutralCount());
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.sentiment.reviews").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void testAnalyzeStreamEndsWithSummary() {
+        SentimentProperties properties = properties();
+        properties.setMaxBatchSize(2);
+        SentimentBatchEngine engine = engine(properties);
+
+        List<SentimentBatchEngine.Progress> progress =
+                engine.analyzeStream(List.of("很好吃", "很好吃", "太差了")).collectList().block();
+
+        assertEquals(3, progress.size());
+        assertNull(progress.get(0).summary());
+        SentimentBatchEngine.Progress last = progress.get(2);
+        assertEquals(3, last.completed());
+        assertEquals(2, last.summary().positiveCount());
+    }
+
+    @Test
+    void testCancelledJobDoesNotDelayLaterCalls() throws Exception {
+        SentimentProperties properties = properties();
+        properties.setMaxBatchSize(1);
+        properties.setConcurrency(2);
+        properties.setRequestsPerSecond(2);
+        SentimentBatchEngine engine = engine(properties);
+        List<String> reviews = IntStream.range(0, 200).mapToObj(i -> "很好吃").toList();
+
+        Future<?> job = executor.submit(() -> engine.analyze(reviews, p -> {
+        }));
+        Thread.sleep(200);
+        job.cancel(true);
+
+        long start = System.nanoTime();
+        engine.analyze(List.of("很好吃"), p -> {
+        });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 取消前最多预约了并发数个时间槽，之后的调用最多等待一秒左右
+        assertTrue(elapsedMillis < 2_000, "取消后的调用等待了 " + elapsedMillis + " ms");
+        assertTrue(chatModel.calls.get() < 10);
+    }
+
+    private SentimentBatchEngine engine(SentimentProperties properties) {
+        return new SentimentBatchEngine(ChatClient.builder(chatModel).build(), executor, properties, meterRegistry);
+    }
+
+    private static SentimentProperties properties() {
+        SentimentProperties properties = new SentimentProperties();
+        properties.setRequestsPerSecond(1000);
+        return properties;
+    }
+
+    /**
+     * 按评论编号逐条返回结果；"漏掉" 只在多条批次中被遗漏，"坏掉" 所在的批次总是失败
+     */
+    private static class ReviewChatModel implements ChatModel {
+
+        private static final Pattern REVIEW = Pattern.compile("(?m)^\\[(\\d+)] (.*)$");
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            Matcher matcher = REVIEW.matcher(prompt.getContents());
+            List<String> items = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            while (matcher.find()) {
+                texts.add(matcher.group(2));
+                String text = matcher.group(2);
+                String sentiment = text.contains("差") ? "NEGATIVE" : text.contains("好") ? "positive" : "unknown";
+                items.add("""
+                        {"index": %s, "sentiment": "%s", "score": 1.5, "emotions": ["满意"], "summary": "%s"}"""
+                        .formatted(matcher.group(1), sentiment, text));
+            }
+            if (texts.contains("坏掉")) {
+                throw new IllegalStateException("模型返回格式错误");
+            }
+            if (texts.size() > 1 && texts.contains("漏掉")) {
+                items.remove(texts.indexOf("漏掉"));
+            }
+            String json = "[" + String.join(",", items) + "]";
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(json))));
+        }
+    }
+}
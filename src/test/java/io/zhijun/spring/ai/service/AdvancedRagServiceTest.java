@@ -0,0 +1,90 @@
+package io.zhijun.spring.ai.service;
+
+import io.zhijun.spring.ai.config.AdvancedRagProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdvancedRagServiceTest {
+
+    @Test
+    void testReciprocalRankFusionDeduplicatesAndRanks() {
+        Document a = new Document("a", "四川火锅", Map.of());
+        Document b = new Document("b", "北京烤鸭", Map.of());
+        Document c = new Document("c", "广式早茶", Map.of());
+
+        // b 在两个列表中都靠前，应排第一；a 只出现一次
+        List<Document> fused = AdvancedRagService.reciprocalRankFusion(
+                List.of(List.of(a, b), List.of(b, c)), 60);
+
+        assertEquals(List.of("b", "a", "c"), fused.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void testReciprocalRankFusionWithNoResults() {
+        assertTrue(AdvancedRagService.reciprocalRankFusion(List.of(), 60).isEmpty());
+    }
+
+    @Test
+    void testHangingQueryIsDroppedAndOthersAreFused() {
+        AdvancedRagProperties properties = new AdvancedRagProperties();
+        properties.getMultiQuery().setSearchTimeout(Duration.ofMillis(300));
+        // 只有一个许可：排在挂起查询之后的查询仍有完整的超时时间
+        properties.getMultiQuery().setMaxConcurrency(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            AdvancedRagService service = new AdvancedRagService(null, null, new ScriptedVectorStore(), null, null,
+                    executor, properties);
+
+            List<List<Document>> rankedLists = service.searchConcurrently(List.of("挂起", "川菜", "火锅"), 5);
+
+            assertEquals(2, rankedLists.size());
+            List<Document> fused = AdvancedRagService.reciprocalRankFusion(rankedLists, 60);
+            assertEquals(List.of("川菜", "火锅"), fused.stream().map(Document::getId).toList());
+        }
+    }
+
+    /**
+     * “挂起”查询一直阻塞到被中断，其余查询各耗时 200 ms，两个加起来超过单个查询的超时
+     */
+    private static class ScriptedVectorStore implements VectorStore {
+
+        private final CountDownLatch never = new CountDownLatch(1);
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            try {
+                if (request.getQuery().equals("挂起")) {
+                    never.await();
+                }
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("检索被取消", e);
+            }
+            return List.of(new Document(request.getQuery(), request.getQuery() + "餐厅", Map.of()));
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.zhijun.spring.ai.service;
+
+import io.zhijun.spring.ai.model.RecommendationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationKeyTest {
+
+    @Test
+    void testEquivalentRequestsProduceEqualKeys() {
+        RecommendationRequest a = new RecommendationRequest(" 北京市 ", "川菜", null, List.of("No Peanuts", "素食"),
+                null, 4, "午餐", List.of("安静", "包间"));
+        RecommendationRequest b = new RecommendationRequest("北京市", "川菜 ", "", Arrays.asList("素食", "no peanuts", null),
+                " ", 4, null, List.of("包间", "安静", "安静"));
+
+        assertEquals(RecommendationKey.of(a), RecommendationKey.of(b));
+        assertEquals(RecommendationKey.of(a).hashCode(), RecommendationKey.of(b).hashCode());
+    }
+
+    @Test
+    void testDefaultsMatchPromptDefaults() {
+        RecommendationKey key = RecommendationKey.of(new RecommendationRequest());
+
+        assertEquals("北京市", key.location());
+        assertEquals("不限", key.cuisine());
+        assertEquals("不限", key.priceRange());
+        assertEquals("日常用餐", key.occasion());
+        assertEquals("1-2人", key.groupSize());
+        assertEquals("午餐", key.timeOfDay());
+        assertEquals("无", RecommendationKey.join(key.preferences()));
+        assertEquals(RecommendationKey.of(new RecommendationRequest()),
+                RecommendationKey.of(new RecommendationRequest("北京市", "不限", "不限", List.of("无"), "日常用餐", null,
+                        "午餐", List.of())));
+    }
+
+    @Test
+    void testDifferentPreferencesProduceDifferentKeys() {
+        RecommendationRequest a = new RecommendationRequest();
+        a.setCuisine("川菜");
+        RecommendationRequest b = new RecommendationRequest();
+        b.setCuisine("粤菜");
+
+        assertNotEquals(RecommendationKey.of(a), RecommendationKey.of(b));
+    }
+}
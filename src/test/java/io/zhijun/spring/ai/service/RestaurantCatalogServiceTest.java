@@ -0,0 +1,197 @@
+package io.zhijun.spring.ai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.catalog.InMemoryCatalogRepository;
+import io.zhijun.spring.ai.catalog.RestaurantCatalog;
+import io.zhijun.spring.ai.config.RecommendationCacheProperties;
+import io.zhijun.spring.ai.config.StructuredOutputProperties;
+import io.zhijun.spring.ai.model.Dish;
+import io.zhijun.spring.ai.model.RecommendationRequest;
+import io.zhijun.spring.ai.model.Restaurant;
+import io.zhijun.spring.ai.output.StructuredOutputPipeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.core.env.StandardEnvironment;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantCatalogServiceTest {
+
+    private final InMemoryCatalogRepository repository = new InMemoryCatalogRepository();
+    private final RestaurantCatalog catalog = new RestaurantCatalog(repository, new SimpleMeterRegistry());
+    private final CatalogChatModel chatModel = new CatalogChatModel();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RestaurantCatalogService service = new RestaurantCatalogService(
+            ChatClient.builder(chatModel).build(), ChatClient.builder(chatModel).build(), catalog,
+            new StructuredOutputPipeline(ChatClient.builder(chatModel).build(), new StructuredOutputProperties(),
+                    meterRegistry, new StandardEnvironment()),
+            new RecommendationCacheProperties(), meterRegistry);
+
+    @Test
+    void testRecommendGeneratesOnceThenHitsCatalog() {
+        RecommendationRequest request = new RecommendationRequest();
+        request.setCuisine("川菜");
+        request.setLocation("北京市");
+
+        List<Restaurant> first = service.recommend(request);
+        // 场合不同，不命中推荐缓存，但目录中已有足够的川菜餐厅
+        request.setOccasion("商务宴请");
+        List<Restaurant> second = service.recommend(request);
+
+        assertEquals(1, chatModel.calls.get());
+        assertEquals(RestaurantCatalogService.RECOMMEND_COUNT, first.size());
+        assertTrue(first.stream().allMatch(r -> r.getId() != null));
+        assertEquals(first.stream().map(Restaurant::getId).sorted().toList(),
+                second.stream().map(Restaurant::getId).sorted().toList());
+    }
+
+    @Test
+    void testConcurrentIdenticalRecommendationsCallModelOnce() throws Exception {
+        chatModel.delayMillis = 100;
+        List<Callable<List<Restaurant>>> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            RecommendationRequest request = new RecommendationRequest();
+            request.setLocation(i % 2 == 0 ? "北京市" : " 北京市 ");
+            request.setCuisine("川菜");
+            request.setTimeOfDay("午餐");
+            request.setPreferences(i % 2 == 0 ? List.of("安静", "包间") : List.of("包间", "安静"));
+            requests.add(() -> service.recommend(request));
+        }
+
+        List<List<Restaurant>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<List<Restaurant>> future : executor.invokeAll(requests)) {
+                results.add(future.get());
+            }
+        }
+
+        assertEquals(1, chatModel.calls.get());
+        assertTrue(results.stream().allMatch(r -> r == results.get(0)));
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.memo.requests").tag("result", "miss").counter().count());
+        assertEquals(19.0, meterRegistry.get("restaurant.ai.memo.requests").tag("result", "coalesced").counter().count()
+                + meterRegistry.get("restaurant.ai.memo.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testDetailsReadOnlyFromCatalog() {
+        Restaurant saved = catalog.saveRestaurant(new Restaurant(null, "川味小馆", "川菜", "北京市朝阳区", 4.5,
+                "正宗川菜", "中等", new String[]{"堂食"}));
+
+        assertEquals(saved, service.details(saved.getId()).orElseThrow());
+        assertTrue(service.details(Long.MAX_VALUE).isEmpty());
+        assertTrue(service.details(-1).isEmpty());
+        assertEquals(0, chatModel.calls.get());
+        assertEquals(1, repository.findAllRestaurants().size());
+    }
+
+    @Test
+    void testDishesGenerateOnlyTheMissingPart() {
+        List<Dish> first = service.dishes("川菜", 2);
+        List<Dish> second = service.dishes("川菜", 3);
+        List<Dish> third = service.dishes("川菜", 3);
+
+        assertEquals(2, chatModel.calls.get());
+        assertEquals(2, first.size());
+        assertEquals(3, second.size());
+        assertEquals(second, third);
+        assertTrue(chatModel.lastPrompt.contains("宫保鸡丁0"));
+    }
+
+    @Test
+    void testStreamRecommendSavesEachRestaurantAndCachesTheList() {
+        RecommendationRequest request = new RecommendationRequest();
+        request.setCuisine("川菜");
+
+        List<Restaurant> streamed = service.streamRecommend(request).collectList().block();
+        List<Restaurant> cached = service.recommend(request);
+
+        assertEquals(1, chatModel.calls.get());
+        assertEquals(RestaurantCatalogService.RECOMMEND_COUNT, streamed.size());
+        assertTrue(streamed.stream().allMatch(r -> r.getId() != null));
+        assertEquals(streamed, cached);
+        assertEquals(RestaurantCatalogService.RECOMMEND_COUNT, repository.findAllRestaurants().size());
+    }
+
+    @Test
+    void testStreamDishesEmitsCatalogDishesBeforeGenerated() {
+        service.dishes("川菜", 2);
+
+        List<Dish> streamed = service.streamDishes("川菜", 3).collectList().block();
+
+        assertEquals(2, chatModel.calls.get());
+        assertEquals(3, streamed.size());
+        assertEquals(service.dishes("川菜", 2), streamed.subList(0, 2));
+        assertEquals("川菜", streamed.get(2).getCuisine());
+    }
+
+    /**
+     * 根据提示词返回餐厅列表、单个餐厅或菜品列表；流式调用把同样的内容包在代码块中按 7 个字符切片
+     */
+    private static class CatalogChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile String lastPrompt;
+        private volatile long delayMillis;
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            int call = calls.incrementAndGet();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(json(prompt, call)))));
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            String text = "```json\n" + json(prompt, calls.incrementAndGet()) + "\n```";
+            List<ChatResponse> chunks = new ArrayList<>();
+            for (int i = 0; i < text.length(); i += 7) {
+                String chunk = text.substring(i, Math.min(text.length(), i + 7));
+                chunks.add(new ChatResponse(List.of(new Generation(new AssistantMessage(chunk)))));
+            }
+            return Flux.fromIterable(chunks);
+        }
+
+        private String json(Prompt prompt, int call) {
+            lastPrompt = prompt.getContents();
+            String json;
+            if (lastPrompt.contains("推荐")) {
+                StringBuilder items = new StringBuilder();
+                for (int i = 0; i < RestaurantCatalogService.RECOMMEND_COUNT; i++) {
+                    items.append(i > 0 ? "," : "").append("""
+                            {"id": 1, "name": "川菜馆%d", "cuisine": "川菜", "location": "北京市朝阳区", "rating": 4.%d}"""
+                            .formatted(i, i));
+                }
+                json = "[" + items + "]";
+            } else {
+                int count = lastPrompt.contains("生成1道") ? 1 : 2;
+                StringBuilder items = new StringBuilder();
+                for (int i = 0; i < count; i++) {
+                    items.append(i > 0 ? "," : "").append("""
+                            {"name": "宫保鸡丁%d", "price": 38.0}""".formatted(call * 10 + i - 10));
+                }
+                json = "[" + items + "]";
+            }
+            return json;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.zhijun.spring.ai.streaming;
+
+import io.zhijun.spring.ai.model.Restaurant;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayStreamParserTest {
+
+    private static final String JSON = """
+            好的，以下是推荐：
+            ```json
+            [
+              {"name": "蜀香阁", "cuisine": "川菜", "rating": 4.6, "features": ["包间", "停车"],
+               "description": "招牌是\\"水煮鱼\\"，口味偏辣 {微辣可选}"},
+              {"name": "粤海轩", "cuisine": "粤菜", "rating": 4.4, "extra": {"note": "]"}}
+            ]
+            ```
+            """;
+
+    @Test
+    void testElementIsEmittedAsSoonAsItCloses() {
+        JsonArrayStreamParser<Restaurant> parser = new JsonArrayStreamParser<>(Restaurant.class);
+        int secondStart = JSON.indexOf("{\"name\": \"粤海轩\"");
+
+        List<Restaurant> first = parser.feed(JSON.substring(0, secondStart));
+        List<Restaurant> second = parser.feed(JSON.substring(secondStart));
+
+        assertEquals(1, first.size());
+        assertEquals("蜀香阁", first.getFirst().getName());
+        assertEquals("招牌是\"水煮鱼\"，口味偏辣 {微辣可选}", first.getFirst().getDescription());
+        assertArrayEquals(new String[]{"包间", "停车"}, first.getFirst().getFeatures());
+        assertEquals(1, second.size());
+        assertEquals("粤海轩", second.getFirst().getName());
+        assertTrue(parser.isFinished());
+    }
+
+    @Test
+    void testSingleCharacterChunks() {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < JSON.length(); i++) {
+            chunks.add(String.valueOf(JSON.charAt(i)));
+        }
+
+        List<Restaurant> restaurants = JsonArrayStreamParser.parse(Flux.fromIterable(chunks), Restaurant.class)
+                .collectList()
+                .block();
+
+        assertEquals(List.of("蜀香阁", "粤海轩"), restaurants.stream().map(Restaurant::getName).toList());
+    }
+
+    @Test
+    void testWrappedArrayAndMalformedElement() {
+        JsonArrayStreamParser<Restaurant> parser = new JsonArrayStreamParser<>(Restaurant.class);
+
+        List<Restaurant> restaurants = parser.feed("""
+                {"restaurants": [{"name": "A", "rating": "高"}, {"name": "B", "rating": 4.0}]}""");
+
+        assertEquals(List.of("B"), restaurants.stream().map(Restaurant::getName).toList());
+        assertEquals(1, parser.skipped());
+        assertTrue(parser.feed("[{\"name\": \"C\"}]").isEmpty());
+    }
+}
@@ -0,0 +1,150 @@
+package io.zhijun.spring.ai.streaming;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zhijun.spring.ai.config.StreamingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseStreamingEngineTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testChunksAreWrittenThenCompleted() throws Exception {
+        SseStreamingEngine engine = newEngine(2);
+
+        engine.stream("chat", Flux.just("你好", "，", "世界"), "message", "完成");
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(4, emitter.events.size());
+        awaitActive(engine, 0);
+        assertEquals(1, meterRegistry.get("restaurant.ai.streaming.ttft").tag("stream", "chat").timer().count());
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.streaming.streams")
+                .tag("outcome", "completed").counter().count());
+    }
+
+    @Test
+    void testClientDisconnectCancelsUpstream() throws Exception {
+        SseStreamingEngine engine = newEngine(2);
+        Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        engine.stream("chat", sink.asFlux().doOnCancel(cancelled::countDown), "message", "完成");
+        sink.tryEmitNext("第一段");
+        RecordingEmitter emitter = emitters.get(0);
+        assertTrue(emitter.firstEvent.await(5, TimeUnit.SECONDS));
+
+        emitter.fireCompletion();
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        awaitActive(engine, 0);
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.streaming.streams")
+                .tag("outcome", "cancelled").counter().count());
+    }
+
+    @Test
+    void testStreamsBeyondLimitAreRejected() throws Exception {
+        SseStreamingEngine engine = newEngine(1);
+
+        engine.stream("chat", Flux.never(), "message", "完成");
+
+        assertThrows(ResponseStatusException.class,
+                () -> engine.stream("chat", Flux.just("x"), "message", "完成"));
+        assertEquals(1, engine.activeStreams());
+
+        emitters.get(0).fireTimeout();
+        awaitActive(engine, 0);
+        engine.stream("chat", Flux.just("x"), "message", "完成");
+        assertTrue(emitters.get(1).completed.await(5, TimeUnit.SECONDS));
+    }
+
+    private SseStreamingEngine newEngine(int maxConcurrentStreams) {
+        StreamingProperties properties = new StreamingProperties();
+        properties.setMaxConcurrentStreams(maxConcurrentStreams);
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        return new SseStreamingEngine(executor, properties, meterRegistry) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private static void awaitActive(SseStreamingEngine engine, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (engine.activeStreams() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, engine.activeStreams());
+    }
+
+    /**
+     * 记录写出的事件，并允许测试触发容器侧的回调
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<SseEventBuilder> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstEvent = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Runnable timeoutCallback;
+        private volatile Runnable completionCallback;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder);
+            firstEvent.countDown();
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public synchronized void onTimeout(Runnable callback) {
+            timeoutCallback = callback;
+        }
+
+        @Override
+        public synchronized void onError(Consumer<Throwable> callback) {
+        }
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            completionCallback = callback;
+        }
+
+        void fireTimeout() {
+            timeoutCallback.run();
+        }
+
+        void fireCompletion() {
+            completionCallback.run();
+        }
+    }
+}
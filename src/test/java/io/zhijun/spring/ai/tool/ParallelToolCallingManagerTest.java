@@ -0,0 +1,306 @@
+package io.zhijun.spring.ai.tool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.zhijun.spring.ai.config.ToolExecutionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.observation.ToolCallingObservationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelToolCallingManagerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ToolExecutionProperties properties = new ToolExecutionProperties();
+    private final List<Observation.Context> observed = new CopyOnWriteArrayList<>();
+    private final ObservationRegistry observationRegistry = recordingRegistry(observed);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testToolCallsInOneTurnRunConcurrently() {
+        CountDownLatch started = new CountDownLatch(3);
+        Function<String, String> awaitOthers = arguments -> {
+            started.countDown();
+            try {
+                // 三个调用都开始后才返回，串行执行会超时
+                return started.await(2, TimeUnit.SECONDS) ? "ok " + arguments : "serial";
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        List<ToolCallback> tools = List.of(tool("getWeather", awaitOthers), tool("getRestaurantHours", awaitOthers),
+                tool("calculateDistance", awaitOthers));
+
+        ToolExecutionResult result = manager().executeToolCalls(prompt(tools), response(
+                call("1", "getWeather", "{\"location\":\"北京\"}"),
+                call("2", "getRestaurantHours", "{\"restaurantName\":\"川味小馆\"}"),
+                call("3", "calculateDistance", "{\"from\":\"A\",\"to\":\"B\"}")));
+
+        List<ToolResponseMessage.ToolResponse> responses = toolResponses(result);
+        assertEquals(List.of("1", "2", "3"), responses.stream().map(ToolResponseMessage.ToolResponse::id).toList());
+        assertEquals(List.of("getWeather", "getRestaurantHours", "calculateDistance"),
+                responses.stream().map(ToolResponseMessage.ToolResponse::name).toList());
+        assertEquals("ok {\"location\":\"北京\"}", responses.get(0).responseData());
+        assertTrue(responses.stream().noneMatch(response -> response.responseData().equals("serial")));
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.tool.calls")
+                .tag("tool", "getWeather").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testConversationHistoryEndsWithAssistantAndToolResponses() {
+        ToolExecutionResult result = manager().executeToolCalls(prompt(List.of(tool("getWeather", a -> "晴"))),
+                response(call("1", "getWeather", "{}")));
+
+        List<Message> history = result.conversationHistory();
+        assertEquals(3, history.size());
+        assertInstanceOf(UserMessage.class, history.get(0));
+        assertTrue(((AssistantMessage) history.get(1)).hasToolCalls());
+        assertInstanceOf(ToolResponseMessage.class, history.get(2));
+        assertFalse(result.returnDirect());
+    }
+
+    @Test
+    void testSlowToolTimesOutWithoutBlockingOthers() {
+        properties.getTimeouts().put("slow", Duration.ofMillis(100));
+        CountDownLatch never = new CountDownLatch(1);
+        List<ToolCallback> tools = List.of(tool("slow", arguments -> {
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        }), tool("fast", arguments -> "fast"));
+
+        long start = System.nanoTime();
+        ToolExecutionResult result = manager().executeToolCalls(prompt(tools),
+                response(call("1", "slow", "{}"), call("2", "fast", "{}")));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<ToolResponseMessage.ToolResponse> responses = toolResponses(result);
+        assertTrue(responses.get(0).responseData().contains("超时"));
+        assertEquals("fast", responses.get(1).responseData());
+        assertTrue(elapsedMillis < 2_000, "超时后应立即返回，实际耗时 " + elapsedMillis + " ms");
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.tool.timeouts").tag("tool", "slow").counter().count());
+    }
+
+    @Test
+    void testSameToolAndArgumentsAreCached() {
+        AtomicInteger calls = new AtomicInteger();
+        List<ToolCallback> tools = List.of(tool("getWeather", arguments -> "晴 " + calls.incrementAndGet()));
+        ParallelToolCallingManager manager = manager();
+
+        ToolExecutionResult first = manager.executeToolCalls(prompt(tools),
+                response(call("1", "getWeather", "{\"location\":\"北京\"}")));
+        // 字段间的空白不同，JSON 结构相同
+        ToolExecutionResult second = manager.executeToolCalls(prompt(tools),
+                response(call("2", "getWeather", "{ \"location\" : \"北京\" }")));
+        ToolExecutionResult other = manager.executeToolCalls(prompt(tools),
+                response(call("3", "getWeather", "{\"location\":\"上海\"}")));
+
+        assertEquals("晴 1", toolResponses(first).get(0).responseData());
+        assertEquals("晴 1", toolResponses(second).get(0).responseData());
+        assertEquals("晴 2", toolResponses(other).get(0).responseData());
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.memo.requests")
+                .tag("cache", "tool-results").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testCacheDisabledWhenTtlIsZero() {
+        properties.setCacheTtl(Duration.ZERO);
+        AtomicInteger calls = new AtomicInteger();
+        List<ToolCallback> tools = List.of(tool("getWeather", arguments -> "晴 " + calls.incrementAndGet()));
+        ParallelToolCallingManager manager = manager();
+
+        manager.executeToolCalls(prompt(tools), response(call("1", "getWeather", "{}")));
+        manager.executeToolCalls(prompt(tools), response(call("2", "getWeather", "{}")));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testToolContextBypassesCacheAndReceivesHistory() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Object> histories = new ArrayList<>();
+        ToolCallback tool = new FakeToolCallback("getWeather", arguments -> "晴 " + calls.incrementAndGet()) {
+            @Override
+            public String call(String toolInput, ToolContext toolContext) {
+                histories.add(toolContext.getContext().get(ToolContext.TOOL_CALL_HISTORY));
+                return super.call(toolInput);
+            }
+        };
+        Prompt prompt = new Prompt(List.of(new UserMessage("天气")), ToolCallingChatOptions.builder()
+                .toolCallbacks(List.of(tool))
+                .toolContext(Map.of("userId", "u1"))
+                .build());
+        ParallelToolCallingManager manager = manager();
+
+        manager.executeToolCalls(prompt, response(call("1", "getWeather", "{}")));
+        manager.executeToolCalls(prompt, response(call("2", "getWeather", "{}")));
+
+        assertEquals(2, calls.get());
+        assertEquals(2, ((List<?>) histories.get(0)).size());
+    }
+
+    @Test
+    void testToolExecutionExceptionIsProcessedIntoResult() {
+        ToolCallback failing = tool("getWeather", arguments -> {
+            throw new IllegalStateException("天气服务不可用");
+        });
+        ToolCallback wrapping = new FakeToolCallback("getWeather", null) {
+            @Override
+            public String call(String toolInput) {
+                try {
+                    return failing.call(toolInput);
+                } catch (RuntimeException e) {
+                    throw new ToolExecutionException(getToolDefinition(), e);
+                }
+            }
+        };
+
+        ToolExecutionResult result = manager().executeToolCalls(prompt(List.of(wrapping)),
+                response(call("1", "getWeather", "{}")));
+
+        assertEquals("错误: 天气服务不可用", toolResponses(result).get(0).responseData());
+        assertEquals(1.0, meterRegistry.get("restaurant.ai.tool.calls")
+                .tag("tool", "getWeather").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void testToolCallsAreObservedUnderCallerObservation() {
+        Observation parent = Observation.start("chat", observationRegistry);
+        try (Observation.Scope scope = parent.openScope()) {
+            manager().executeToolCalls(prompt(List.of(tool("getWeather", arguments -> "晴"))),
+                    response(call("1", "getWeather", "{\"location\":\"北京\"}")));
+        } finally {
+            parent.stop();
+        }
+
+        ToolCallingObservationContext context = observed.stream()
+                .filter(ToolCallingObservationContext.class::isInstance)
+                .map(ToolCallingObservationContext.class::cast)
+                .findFirst()
+                .orElseThrow();
+        assertEquals("getWeather", context.getToolDefinition().name());
+        assertEquals("{\"location\":\"北京\"}", context.getToolCallArguments());
+        assertEquals("晴", context.getToolCallResult());
+        assertSame(parent, context.getParentObservation());
+    }
+
+    @Test
+    void testUnknownToolFailsBeforeAnyCall() {
+        AtomicInteger calls = new AtomicInteger();
+        List<ToolCallback> tools = List.of(tool("getWeather", arguments -> "晴 " + calls.incrementAndGet()));
+
+        assertThrows(IllegalStateException.class, () -> manager().executeToolCalls(prompt(tools),
+                response(call("1", "getWeather", "{}"), call("2", "bookTable", "{}"))));
+        assertEquals(0, calls.get());
+    }
+
+    private ParallelToolCallingManager manager() {
+        return new ParallelToolCallingManager(DefaultToolCallingManager.builder().build(), toolName -> null,
+                exception -> "错误: " + exception.getCause().getMessage(), executor, properties, meterRegistry,
+                observationRegistry);
+    }
+
+    /**
+     * 记录所有结束的观测
+     */
+    private static ObservationRegistry recordingRegistry(List<Observation.Context> observed) {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+
+            @Override
+            public void onStop(Observation.Context context) {
+                observed.add(context);
+            }
+        });
+        return registry;
+    }
+
+    private static Prompt prompt(List<ToolCallback> tools) {
+        return new Prompt(List.of(new UserMessage("问题")), ToolCallingChatOptions.builder()
+                .toolCallbacks(tools)
+                .build());
+    }
+
+    private static ChatResponse response(AssistantMessage.ToolCall... toolCalls) {
+        return new ChatResponse(List.of(new Generation(AssistantMessage.builder()
+                .content("")
+                .toolCalls(List.of(toolCalls))
+                .build())));
+    }
+
+    private static AssistantMessage.ToolCall call(String id, String name, String arguments) {
+        return new AssistantMessage.ToolCall(id, "function", name, arguments);
+    }
+
+    private static List<ToolResponseMessage.ToolResponse> toolResponses(ToolExecutionResult result) {
+        List<Message> history = result.conversationHistory();
+        return ((ToolResponseMessage) history.get(history.size() - 1)).getResponses();
+    }
+
+    private static ToolCallback tool(String name, Function<String, String> body) {
+        return new FakeToolCallback(name, body);
+    }
+
+    private static class FakeToolCallback implements ToolCallback {
+
+        private final ToolDefinition definition;
+        private final Function<String, String> body;
+
+        FakeToolCallback(String name, Function<String, String> body) {
+            this.definition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+            this.body = body;
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return definition;
+        }
+
+        @Override
+        public String call(String toolInput) {
+            return body.apply(toolInput);
+        }
+    }
+}
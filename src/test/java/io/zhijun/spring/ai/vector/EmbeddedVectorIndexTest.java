@@ -0,0 +1,134 @@
+package io.zhijun.spring.ai.vector;
+
+import io.zhijun.spring.ai.config.EmbeddedVectorStoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedVectorIndexTest {
+
+    private Path directory;
+    private EmbeddedVectorStoreProperties properties;
+    private EmbeddedVectorIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("embedded-vector");
+        properties = new EmbeddedVectorStoreProperties();
+        properties.setSnapshotPath(directory.resolve("vectors.hnsw").toString());
+        index = new EmbeddedVectorIndex(new CharacterEmbeddingModel(), properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void testAddSearchAndReplace() {
+        index.add(documents());
+
+        List<Document> results = index.search(SearchRequest.builder().query("烤鸭").topK(1).build(),
+                SearchTuning.defaults());
+        assertEquals("duck", results.getFirst().getId());
+        float distance = (float) results.getFirst().getMetadata().get("distance");
+        assertEquals(1 - distance, results.getFirst().getScore(), 1e-6);
+
+        index.add(List.of(new Document("duck", "麻婆豆腐", Map.of("filename", "a.md", "city", "北京"))));
+        assertEquals(3, index.size());
+        assertEquals("麻婆豆腐", index.search(SearchRequest.builder().query("烤鸭").topK(3).build(),
+                        SearchTuning.defaults()).stream()
+                .filter(document -> document.getId().equals("duck"))
+                .findFirst().orElseThrow().getText());
+    }
+
+    @Test
+    void testFilterExpressionAndSourceLookup() {
+        index.add(documents());
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+        List<Document> results = index.search(SearchRequest.builder().query("烤鸭").topK(3)
+                .filterExpression(b.eq("city", "上海").build()).build(), new SearchTuning(10, null));
+        assertEquals(List.of("crab"), results.stream().map(Document::getId).toList());
+
+        assertEquals(Set.of("duck", "fish"), index.findIdsBySource("a.md"));
+        index.delete(b.eq("filename", "a.md").build());
+        assertEquals(Set.of(), index.findIdsBySource("a.md"));
+        assertEquals(List.of("crab"), index.loadAll().stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void testSnapshotReloadAndCompaction() {
+        index.add(documents());
+        index.delete(List.of("fish", "crab"));
+        index.close();
+        assertTrue(Files.exists(Path.of(properties.getSnapshotPath())));
+
+        EmbeddedVectorIndex reloaded = new EmbeddedVectorIndex(new CharacterEmbeddingModel(), properties);
+        reloaded.load();
+
+        // 3 个节点删除了 2 个，超过 compactRatio，加载后重建
+        assertEquals(1, reloaded.size());
+        List<Document> results = reloaded.search(SearchRequest.builder().query("烤鸭").topK(3).build(),
+                SearchTuning.defaults());
+        assertEquals(List.of("duck"), results.stream().map(Document::getId).toList());
+        assertEquals("北京", results.getFirst().getMetadata().get("city"));
+    }
+
+    private static List<Document> documents() {
+        return List.of(
+                new Document("duck", "北京烤鸭", Map.of("filename", "a.md", "city", "北京")),
+                new Document("fish", "水煮鱼", Map.of("filename", "a.md", "city", "成都")),
+                new Document("crab", "蟹粉小笼", Map.of("filename", "b.md", "city", "上海")));
+    }
+
+    /**
+     * 按字符哈希的确定性向量，字符重叠越多越相似
+     */
+    private static class CharacterEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public List<float[]> embed(List<String> texts) {
+            return texts.stream().map(CharacterEmbeddingModel::vector).toList();
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return vector(text);
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException();
+        }
+
+        private static float[] vector(String text) {
+            float[] vector = new float[64];
+            text.codePoints().forEach(c -> vector[Math.floorMod(c * 31, 64)] += 1);
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.zhijun.spring.ai.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswGraphTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    void testRecallAgainstExactSearch() {
+        Random random = new Random(7);
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 16, 100, 42);
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, graph.add(randomVector(random)));
+        }
+
+        int found = 0;
+        int expected = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomVector(random);
+            Set<Integer> exact = nodes(graph.exactSearch(query, 10, null));
+            Set<Integer> approximate = nodes(graph.search(query, 10, 64, null));
+            expected += exact.size();
+            exact.retainAll(approximate);
+            found += exact.size();
+        }
+        assertTrue(found / (double) expected >= 0.9, "recall@10 = " + found / (double) expected);
+    }
+
+    @Test
+    void testResultsAreSortedAndFiltered() {
+        Random random = new Random(11);
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 8, 64, 42);
+        for (int i = 0; i < 500; i++) {
+            graph.add(randomVector(random));
+        }
+        float[] query = graph.vector(123);
+
+        List<HnswGraph.Hit> all = graph.search(query, 5, 50, null);
+        assertEquals(123, all.getFirst().node());
+        assertEquals(0, all.getFirst().distance(), 1e-5);
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).distance() <= all.get(i).distance());
+        }
+
+        List<HnswGraph.Hit> even = graph.search(query, 5, 50, node -> node % 2 == 0);
+        assertEquals(5, even.size());
+        assertTrue(even.stream().allMatch(hit -> hit.node() % 2 == 0));
+    }
+
+    @Test
+    void testSnapshotRoundTrip() throws Exception {
+        Random random = new Random(3);
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 8, 64, 42);
+        for (int i = 0; i < 300; i++) {
+            graph.add(randomVector(random));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        graph.writeTo(new DataOutputStream(bytes));
+
+        HnswGraph loaded = HnswGraph.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 42);
+
+        assertEquals(graph.size(), loaded.size());
+        assertArrayEquals(graph.vector(42), loaded.vector(42));
+        float[] query = randomVector(random);
+        assertEquals(graph.search(query, 10, 40, null), loaded.search(query, 10, 40, null));
+    }
+
+    @Test
+    void testSearchesWhileWriting() throws Exception {
+        Random random = new Random(5);
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 8, 64, 42);
+        graph.add(randomVector(random));
+        List<float[]> pending = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            pending.add(randomVector(random));
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                float[] query = randomVector(random);
+                readers.add(executor.submit(() -> {
+                    int searches = 0;
+                    while (writing.get()) {
+                        List<HnswGraph.Hit> hits = graph.search(query, 10, 32, null);
+                        assertFalse(hits.isEmpty());
+                        searches++;
+                    }
+                    return searches;
+                }));
+            }
+            for (float[] vector : pending) {
+                graph.add(vector);
+            }
+            writing.set(false);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get() > 0);
+            }
+        }
+        assertEquals(2001, graph.size());
+    }
+
+    private static Set<Integer> nodes(List<HnswGraph.Hit> hits) {
+        Set<Integer> nodes = new HashSet<>();
+        hits.forEach(hit -> nodes.add(hit.node()));
+        return nodes;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
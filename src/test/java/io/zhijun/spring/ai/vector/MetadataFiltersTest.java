@@ -0,0 +1,49 @@
+package io.zhijun.spring.ai.vector;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataFiltersTest {
+
+    @Test
+    void testPersonalizedFilterRoundTripsThroughTextParser() {
+        Filter.Expression filter = MetadataFilters.personalized(Map.of(
+                "city", "北京", "cuisine", "川菜", "priceRange", "100-150元"));
+        String text = MetadataFilters.toText(filter);
+
+        assertEquals("city == '北京' && cuisine == '川菜' && priceMax >= 100 && priceMin <= 150", text);
+        assertEquals(filter, new FilterExpressionTextParser().parse(text));
+    }
+
+    @Test
+    void testTranslatesToJsonPathForPgVector() {
+        Filter.Expression filter = MetadataFilters.personalized(Map.of("dish", "水煮鱼", "priceRange", "80"));
+
+        assertEquals("$.dishes == \"水煮鱼\" && $.priceMin <= 80",
+                new PgVectorFilterExpressionConverter().convertExpression(filter));
+    }
+
+    @Test
+    void testNoPreferencesMeansNoFilter() {
+        assertNull(MetadataFilters.personalized(Map.of()));
+        assertNull(MetadataFilters.personalized(Map.of("city", " ", "budget", "100")));
+    }
+
+    @Test
+    void testRejectsInjectionAndMalformedPrices() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MetadataFilters.personalized(Map.of("city", "北京' OR '1'='1")));
+        assertThrows(IllegalArgumentException.class,
+                () -> MetadataFilters.personalized(Map.of("cuisine", "川菜\"")));
+        assertThrows(IllegalArgumentException.class,
+                () -> MetadataFilters.personalized(Map.of("priceRange", "便宜")));
+        assertThrows(IllegalArgumentException.class,
+                () -> MetadataFilters.personalized(Map.of("priceRange", "50-80-120")));
+    }
+}
@@ -0,0 +1,125 @@
+package io.zhijun.spring.ai.vector;
+
+import io.zhijun.spring.ai.config.VectorIndexProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorIndexSpecTest {
+
+    @Test
+    void testCreateHnswIndex() {
+        VectorIndexSpec spec = VectorIndexSpec.of(new VectorIndexProperties(), "cosine_distance");
+
+        assertEquals("CREATE INDEX CONCURRENTLY vector_store_embedding_idx_new ON vector_store USING hnsw "
+                        + "(embedding vector_cosine_ops) WITH (m = 16, ef_construction = 64)",
+                spec.createSql("vector_store_embedding_idx_new", "vector_store"));
+    }
+
+    @Test
+    void testCreateIvfflatIndex() {
+        VectorIndexProperties properties = new VectorIndexProperties();
+        properties.setType("IVFFLAT");
+        properties.setLists(200);
+        VectorIndexSpec spec = VectorIndexSpec.of(properties, "EUCLIDEAN_DISTANCE");
+
+        assertEquals("CREATE INDEX CONCURRENTLY idx ON vector_store USING ivfflat "
+                + "(embedding vector_l2_ops) WITH (lists = 200)", spec.createSql("idx", "vector_store"));
+    }
+
+    @Test
+    void testMatchesIndexDefinition() {
+        VectorIndexSpec spec = VectorIndexSpec.of(new VectorIndexProperties(), "COSINE_DISTANCE");
+
+        assertTrue(spec.matches("CREATE INDEX vector_store_embedding_idx ON public.vector_store USING hnsw "
+                + "(embedding vector_cosine_ops) WITH (m='16', ef_construction='64')"));
+        // 参数不同、操作符类不同或没有显式参数的索引都需要重建
+        assertFalse(spec.matches("CREATE INDEX vector_store_embedding_idx ON public.vector_store USING hnsw "
+                + "(embedding vector_cosine_ops) WITH (m='32', ef_construction='64')"));
+        assertFalse(spec.matches("CREATE INDEX vector_store_embedding_idx ON public.vector_store USING hnsw "
+                + "(embedding vector_l2_ops) WITH (m='16', ef_construction='64')"));
+        assertFalse(spec.matches("CREATE INDEX spring_ai_vector_index ON public.vector_store USING ivfflat "
+                + "(embedding vector_cosine_ops)"));
+    }
+
+    @Test
+    void testQuantizedIndexes() {
+        VectorIndexProperties properties = new VectorIndexProperties();
+        properties.setQuantization("HALFVEC");
+        VectorIndexSpec halfvec = VectorIndexSpec.of(properties, "COSINE_DISTANCE", 1024);
+
+        assertEquals("CREATE INDEX CONCURRENTLY idx ON vector_store USING hnsw "
+                        + "((embedding::halfvec(1024)) halfvec_cosine_ops) WITH (m = 16, ef_construction = 64)",
+                halfvec.createSql("idx", "vector_store"));
+        // pg_get_indexdef 的写法带额外括号
+        assertTrue(halfvec.matches("CREATE INDEX vector_store_embedding_idx ON public.vector_store USING hnsw "
+                + "(((embedding)::halfvec(1024)) halfvec_cosine_ops) WITH (m='16', ef_construction='64')"));
+        assertFalse(halfvec.matches("CREATE INDEX vector_store_embedding_idx ON public.vector_store USING hnsw "
+                + "(embedding vector_cosine_ops) WITH (m='16', ef_construction='64')"));
+        assertFalse(VectorIndexSpec.of(new VectorIndexProperties(), "COSINE_DISTANCE").matches(
+                "CREATE INDEX vector_store_embedding_idx ON public.vector_store USING hnsw "
+                        + "(((embedding)::halfvec(1024)) halfvec_cosine_ops) WITH (m='16', ef_construction='64')"));
+
+        properties.setQuantization("binary");
+        VectorIndexSpec binary = VectorIndexSpec.of(properties, "COSINE_DISTANCE", 1024);
+        assertTrue(binary.matches("CREATE INDEX vector_store_embedding_idx ON public.vector_store USING hnsw "
+                + "(((binary_quantize(embedding))::bit(1024)) bit_hamming_ops) WITH (m='16', ef_construction='64')"));
+        assertThrows(IllegalArgumentException.class, () -> VectorIndexSpec.of(properties, "COSINE_DISTANCE", 0));
+    }
+
+    @Test
+    void testSearchSqlOrdersByFullPrecisionDistance() {
+        VectorIndexSpec spec = VectorIndexSpec.of(new VectorIndexProperties(), "NEGATIVE_INNER_PRODUCT");
+
+        assertEquals("SELECT id, content, metadata, embedding <#> ?::vector AS distance FROM vector_store "
+                + "WHERE metadata::jsonb @@ ?::jsonpath ORDER BY distance LIMIT ?", spec.searchSql("vector_store", true));
+        assertEquals("SELECT id, content, metadata, embedding <#> ?::vector AS distance FROM vector_store "
+                + "ORDER BY distance LIMIT ?", spec.searchSql("vector_store", false));
+    }
+
+    @Test
+    void testRescoreSqlOrdersCandidatesByQuantizedDistance() {
+        VectorIndexProperties properties = new VectorIndexProperties();
+        properties.setQuantization("binary");
+        VectorIndexSpec binary = VectorIndexSpec.of(properties, "COSINE_DISTANCE", 1024);
+
+        assertEquals("SELECT id, content, metadata, embedding <=> ?::vector AS distance FROM ("
+                        + "SELECT id, content, metadata, embedding FROM vector_store "
+                        + "WHERE metadata::jsonb @@ ?::jsonpath "
+                        + "ORDER BY binary_quantize(embedding)::bit(1024) <~> binary_quantize(?::vector) LIMIT ?) "
+                        + "candidates ORDER BY distance LIMIT ?",
+                binary.rescoreSql("vector_store", true));
+
+        properties.setQuantization("halfvec");
+        VectorIndexSpec halfvec = VectorIndexSpec.of(properties, "EUCLIDEAN_DISTANCE", 768);
+        assertEquals("SELECT id, content, metadata, embedding <-> ?::vector AS distance FROM ("
+                        + "SELECT id, content, metadata, embedding FROM vector_store "
+                        + "ORDER BY embedding::halfvec(768) <-> ?::halfvec(768) LIMIT ?) "
+                        + "candidates ORDER BY distance LIMIT ?",
+                halfvec.rescoreSql("vector_store", false));
+    }
+
+    @Test
+    void testRejectsUnsupportedTypes() {
+        VectorIndexProperties properties = new VectorIndexProperties();
+        properties.setType("diskann");
+
+        assertThrows(IllegalArgumentException.class, () -> VectorIndexSpec.of(properties, "cosine_distance"));
+        assertThrows(IllegalArgumentException.class,
+                () -> VectorIndexSpec.of(new VectorIndexProperties(), "manhattan"));
+        VectorIndexProperties quantization = new VectorIndexProperties();
+        quantization.setQuantization("int4");
+        assertThrows(IllegalArgumentException.class,
+                () -> VectorIndexSpec.of(quantization, "cosine_distance", 1024));
+    }
+
+    @Test
+    void testSearchTuningFallsBackToDefaults() {
+        SearchTuning tuning = new SearchTuning(200, null).orElse(40, 10);
+
+        assertEquals(200, tuning.efSearch());
+        assertEquals(10, tuning.probes());
+        assertEquals(new SearchTuning(40, 10), SearchTuning.defaults().orElse(40, 10));
+        assertThrows(IllegalArgumentException.class, () -> new SearchTuning(0, null));
+    }
+}